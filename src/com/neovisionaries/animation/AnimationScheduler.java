@@ -0,0 +1,505 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.Arrays;
+
+
+/**
+ * Scheduler of the lifecycle of animated parameters.
+ *
+ * <p>
+ * Animated parameters are identified by indexes from 0 to (capacity - 1).
+ * Starts, ends and loops of parameters are driven by a {@link
+ * TimingWheel}, so the cost of {@link #tick(long) tick()} does not depend
+ * on the number of scheduled parameters but on the number of lifecycle
+ * events which occur. Parameters which are running are kept in a dense
+ * list ({@link #getActiveParameters()}), so that only they are handed
+ * to {@link Interpolator}s.
+ * </p>
+ *
+ * <p>
+ * A parameter which does not loop stops being active at the tick of
+ * its end, so it is not in the active list when the frame which reaches
+ * the end is processed. Such parameters are listed separately ({@link
+ * #getFinishedParameters()}) until the next {@link #tick(long) tick()},
+ * so that their final values (time ratio 1.0) can be applied even if
+ * frames skip ticks.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * {@link AnimationScheduler} scheduler = new {@link #AnimationScheduler(int) AnimationScheduler}(10000);
+ *
+ * scheduler.{@link #schedule(int, long, long, boolean) schedule}(parameter, startTick, durationTicks, false);
+ *
+ * <span style="color: darkgreen;">// For each frame.</span>
+ * scheduler.{@link #tick(long) tick}(now);
+ *
+ * int[] active = scheduler.{@link #getActiveParameters()};
+ *
+ * for (int i = 0; i &lt; scheduler.{@link #getActiveCount()}; ++i)
+ * {
+ *     float timeRatio = scheduler.{@link #getTimeRatio(int, long) getTimeRatio}(active[i], now);
+ *     ......
+ * }
+ *
+ * int[] finished = scheduler.{@link #getFinishedParameters()};
+ *
+ * for (int i = 0; i &lt; scheduler.{@link #getFinishedCount()}; ++i)
+ * {
+ *     <span style="color: darkgreen;">// Apply the final value (time ratio 1.0).</span>
+ *     ......
+ * }
+ * </pre>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class AnimationScheduler
+{
+    private static final int EVENT_START = 0;
+    private static final int EVENT_END   = 1;
+    private static final int NONE        = -1;
+
+
+    /**
+     * Listener of lifecycle events.
+     */
+    public interface Listener
+    {
+        /**
+         * Called when a parameter has started.
+         *
+         * @param parameter
+         *         The index of the parameter.
+         */
+        void onStart(int parameter);
+
+
+        /**
+         * Called when a looping parameter has reached the end of its
+         * duration and restarted.
+         *
+         * @param parameter
+         *         The index of the parameter.
+         */
+        void onLoop(int parameter);
+
+
+        /**
+         * Called when a parameter has finished.
+         *
+         * @param parameter
+         *         The index of the parameter.
+         */
+        void onFinish(int parameter);
+    }
+
+
+    private final TimingWheel wheel;
+    private final TimingWheel.Listener wheelListener;
+    private final long[] startTicks;
+    private final long[] durations;
+    private final boolean[] loops;
+    private final int[] timers;
+    private final int[] active;
+    private final int[] activePositions;
+    private int activeCount;
+
+
+    /**
+     * Parameters which have finished in the last call of {@link #tick(long)}.
+     */
+    private final int[] finished;
+    private final boolean[] finishedFlags;
+    private int finishedCount;
+
+
+    private Listener listener;
+
+
+    /**
+     * A constructor with the number of parameters.
+     *
+     * @param capacity
+     *         The number of parameters.
+     *
+     * @throws IllegalArgumentException
+     *         'capacity' is less than 1.
+     */
+    public AnimationScheduler(int capacity)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity < 1");
+        }
+
+        wheel           = new TimingWheel(capacity);
+        startTicks      = new long[capacity];
+        durations       = new long[capacity];
+        loops           = new boolean[capacity];
+        timers          = new int[capacity];
+        active          = new int[capacity];
+        activePositions = new int[capacity];
+        finished        = new int[capacity];
+        finishedFlags   = new boolean[capacity];
+
+        Arrays.fill(timers, NONE);
+        Arrays.fill(activePositions, NONE);
+
+        wheelListener = new TimingWheel.Listener() {
+            @Override
+            public void onExpired(int parameter, int event)
+            {
+                handleEvent(parameter, event);
+            }
+        };
+    }
+
+
+    /**
+     * Get the listener of lifecycle events.
+     *
+     * @return
+     *         The listener. null is returned if no listener is set.
+     */
+    public Listener getListener()
+    {
+        return listener;
+    }
+
+
+    /**
+     * Set a listener of lifecycle events.
+     *
+     * @param listener
+     *         A listener. null can be given.
+     */
+    public void setListener(Listener listener)
+    {
+        this.listener = listener;
+    }
+
+
+    /**
+     * Get the current tick.
+     *
+     * @return
+     *         The last tick given to {@link #tick(long)}.
+     */
+    public long getCurrentTick()
+    {
+        return wheel.getCurrentTick();
+    }
+
+
+    /**
+     * Schedule a parameter.
+     *
+     * <p>
+     * If the parameter has already been scheduled, the previous schedule
+     * is cancelled without calling the listener.
+     * </p>
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @param startTick
+     *         The tick at which the parameter starts.
+     *
+     * @param duration
+     *         The number of ticks the parameter runs for.
+     *
+     * @param loop
+     *         true to restart the parameter every time it reaches the
+     *         end of its duration.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     *
+     * @throws IllegalArgumentException
+     *         'duration' is less than 1.
+     */
+    public void schedule(int parameter, long startTick, long duration, boolean loop)
+    {
+        checkParameter(parameter);
+
+        if (duration < 1)
+        {
+            throw new IllegalArgumentException("duration < 1");
+        }
+
+        cancel(parameter);
+
+        startTicks[parameter] = startTick;
+        durations[parameter]  = duration;
+        loops[parameter]      = loop;
+        timers[parameter]     = wheel.schedule(startTick, parameter, EVENT_START);
+    }
+
+
+    /**
+     * Cancel a parameter. The listener is not called.
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @return
+     *         true if the parameter was scheduled or running.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     */
+    public boolean cancel(int parameter)
+    {
+        checkParameter(parameter);
+
+        if (timers[parameter] == NONE)
+        {
+            return false;
+        }
+
+        wheel.cancel(timers[parameter]);
+        timers[parameter] = NONE;
+
+        deactivate(parameter);
+
+        return true;
+    }
+
+
+    /**
+     * Advance to the specified tick and process lifecycle events
+     * which have occurred until the tick.
+     *
+     * @param tick
+     *         The current tick.
+     */
+    public void tick(long tick)
+    {
+        for (int i = 0; i < finishedCount; ++i)
+        {
+            finishedFlags[finished[i]] = false;
+        }
+
+        finishedCount = 0;
+
+        wheel.advance(tick, wheelListener);
+    }
+
+
+    /**
+     * Get the number of running parameters.
+     *
+     * @return
+     *         The number of running parameters.
+     */
+    public int getActiveCount()
+    {
+        return activeCount;
+    }
+
+
+    /**
+     * Get the indexes of running parameters.
+     *
+     * <p>
+     * The returned array is the internal one. Only the first {@link
+     * #getActiveCount()} elements are valid, and their order changes
+     * when parameters start or finish.
+     * </p>
+     *
+     * @return
+     *         The indexes of running parameters.
+     */
+    public int[] getActiveParameters()
+    {
+        return active;
+    }
+
+
+    /**
+     * Get the number of parameters which have finished in the last call
+     * of {@link #tick(long)}.
+     *
+     * @return
+     *         The number of finished parameters.
+     */
+    public int getFinishedCount()
+    {
+        return finishedCount;
+    }
+
+
+    /**
+     * Get the indexes of parameters which have finished in the last call
+     * of {@link #tick(long)}.
+     *
+     * <p>
+     * The returned array is the internal one. Only the first {@link
+     * #getFinishedCount()} elements are valid. They are in the order in
+     * which the parameters finished, and each parameter appears at most
+     * once. A parameter which has been scheduled again after finishing
+     * may be active at the same time. Looping parameters and cancelled
+     * parameters never appear here. {@link #getTimeRatio(int, long)}
+     * returns 1.0 for a finished parameter at the current tick.
+     * </p>
+     *
+     * @return
+     *         The indexes of finished parameters.
+     */
+    public int[] getFinishedParameters()
+    {
+        return finished;
+    }
+
+
+    /**
+     * Check if a parameter is running.
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @return
+     *         true if the parameter is running.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     */
+    public boolean isActive(int parameter)
+    {
+        checkParameter(parameter);
+
+        return activePositions[parameter] != NONE;
+    }
+
+
+    /**
+     * Get the time ratio of a running parameter.
+     *
+     * @param parameter
+     *         The index of a running parameter.
+     *
+     * @param tick
+     *         The current tick.
+     *
+     * @return
+     *         The time ratio in between 0.0 and 1.0. For a looping
+     *         parameter, the ratio in the current loop is returned.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     */
+    public float getTimeRatio(int parameter, long tick)
+    {
+        checkParameter(parameter);
+
+        float ratio = (float)(tick - startTicks[parameter]) / durations[parameter];
+
+        return Math.max(0, Math.min(ratio, 1));
+    }
+
+
+    private void handleEvent(int parameter, int event)
+    {
+        long end = startTicks[parameter] + durations[parameter];
+
+        if (event == EVENT_START)
+        {
+            timers[parameter] = wheel.schedule(end, parameter, EVENT_END);
+
+            activate(parameter);
+
+            if (listener != null)
+            {
+                listener.onStart(parameter);
+            }
+        }
+        else if (loops[parameter])
+        {
+            startTicks[parameter] = end;
+            timers[parameter]     = wheel.schedule(end + durations[parameter], parameter, EVENT_END);
+
+            if (listener != null)
+            {
+                listener.onLoop(parameter);
+            }
+        }
+        else
+        {
+            timers[parameter] = NONE;
+
+            deactivate(parameter);
+
+            if (finishedFlags[parameter] == false)
+            {
+                finishedFlags[parameter] = true;
+                finished[finishedCount++] = parameter;
+            }
+
+            if (listener != null)
+            {
+                listener.onFinish(parameter);
+            }
+        }
+    }
+
+
+    private void activate(int parameter)
+    {
+        if (activePositions[parameter] != NONE)
+        {
+            return;
+        }
+
+        active[activeCount] = parameter;
+        activePositions[parameter] = activeCount;
+
+        ++activeCount;
+    }
+
+
+    private void deactivate(int parameter)
+    {
+        int position = activePositions[parameter];
+
+        if (position == NONE)
+        {
+            return;
+        }
+
+        // Move the last one into the hole.
+        int last = active[--activeCount];
+
+        active[position] = last;
+        activePositions[last] = position;
+        activePositions[parameter] = NONE;
+    }
+
+
+    private void checkParameter(int parameter)
+    {
+        if (parameter < 0 || startTicks.length <= parameter)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+}
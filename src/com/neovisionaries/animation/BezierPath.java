@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Path along a quadratic or cubic B&eacute;zier curve.
+ *
+ * <p>
+ * 3 control points make a quadratic curve and 4 control points make
+ * a cubic curve.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class BezierPath extends PathInterpolator
+{
+    /**
+     * The default number of intervals of the arc length table.
+     */
+    public static final int DEFAULT_INTERVAL_COUNT = 64;
+
+
+    private final float[] controlPoints;
+    private final int degree;
+
+
+    /**
+     * A constructor with control points. The arc length table has
+     * {@link #DEFAULT_INTERVAL_COUNT} intervals.
+     *
+     * @param dimension
+     *         The number of components of a point.
+     *
+     * @param controlPoints
+     *         3 or 4 control points. The i-th point starts at
+     *         (i * dimension). The array is copied.
+     *
+     * @throws IllegalArgumentException
+     *         'dimension' is less than 1, 'controlPoints' is null, or
+     *         the length of 'controlPoints' is neither (3 * dimension)
+     *         nor (4 * dimension).
+     */
+    public BezierPath(int dimension, float[] controlPoints)
+    {
+        this(dimension, controlPoints, DEFAULT_INTERVAL_COUNT);
+    }
+
+
+    /**
+     * A constructor with control points and the size of the arc length table.
+     *
+     * @param dimension
+     *         The number of components of a point.
+     *
+     * @param controlPoints
+     *         3 or 4 control points. The i-th point starts at
+     *         (i * dimension). The array is copied.
+     *
+     * @param intervalCount
+     *         The number of intervals of the arc length table.
+     *
+     * @throws IllegalArgumentException
+     *         'dimension' or 'intervalCount' is less than 1,
+     *         'controlPoints' is null, or the length of 'controlPoints'
+     *         is neither (3 * dimension) nor (4 * dimension).
+     */
+    public BezierPath(int dimension, float[] controlPoints, int intervalCount)
+    {
+        super(dimension, intervalCount);
+
+        int count = countPoints(dimension, controlPoints, 3);
+
+        if (4 < count)
+        {
+            throw new IllegalArgumentException("The number of control points is greater than 4.");
+        }
+
+        this.controlPoints = controlPoints.clone();
+        this.degree        = count - 1;
+
+        buildTable();
+    }
+
+
+    /**
+     * Get the degree of the curve.
+     *
+     * @return
+     *         2 for a quadratic curve and 3 for a cubic curve.
+     */
+    public int getDegree()
+    {
+        return degree;
+    }
+
+
+    @Override
+    protected void evaluateCurve(float u, float[] output)
+    {
+        int dimension = getDimension();
+        float v = 1 - u;
+
+        if (degree == 2)
+        {
+            float b0 = v * v;
+            float b1 = 2 * v * u;
+            float b2 = u * u;
+
+            for (int i = 0; i < dimension; ++i)
+            {
+                output[i] = b0 * controlPoints[i]
+                          + b1 * controlPoints[dimension + i]
+                          + b2 * controlPoints[dimension * 2 + i];
+            }
+        }
+        else
+        {
+            float b0 = v * v * v;
+            float b1 = 3 * v * v * u;
+            float b2 = 3 * v * u * u;
+            float b3 = u * u * u;
+
+            for (int i = 0; i < dimension; ++i)
+            {
+                output[i] = b0 * controlPoints[i]
+                          + b1 * controlPoints[dimension + i]
+                          + b2 * controlPoints[dimension * 2 + i]
+                          + b3 * controlPoints[dimension * 3 + i];
+            }
+        }
+    }
+}
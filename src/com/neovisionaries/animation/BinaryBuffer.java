@@ -0,0 +1,377 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Growable byte buffer with variable-length integer encoding, used to
+ * serialize animation state.
+ *
+ * <p>
+ * Unsigned integers are written in the little-endian base 128 varint
+ * format (7 bits per byte, the highest bit set on all bytes but the
+ * last), so small values take one byte. Signed integers are zigzag
+ * encoded first, so small negative values also take one byte. Floats
+ * are written as their 4-byte IEEE 754 representation.
+ * </p>
+ *
+ * <p>
+ * Writing appends at the position and reading consumes from the
+ * position. The internal array grows when necessary, so once it has
+ * become large enough, neither writing nor reading creates an object.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class BinaryBuffer
+{
+    private byte[] array;
+    private int position;
+    private int limit;
+
+
+    /**
+     * A constructor with the initial capacity.
+     *
+     * @param capacity
+     *         The initial capacity in bytes.
+     *
+     * @throws IllegalArgumentException
+     *         'capacity' is less than 1.
+     */
+    public BinaryBuffer(int capacity)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity < 1");
+        }
+
+        array = new byte[capacity];
+    }
+
+
+    /**
+     * Get the internal array. Only the first {@link #getLimit()} bytes
+     * are valid. The array is replaced when the buffer grows.
+     *
+     * @return
+     *         The internal array.
+     */
+    public byte[] getArray()
+    {
+        return array;
+    }
+
+
+    /**
+     * Get the position at which the next byte is written or read.
+     *
+     * @return
+     *         The position.
+     */
+    public int getPosition()
+    {
+        return position;
+    }
+
+
+    /**
+     * Get the number of valid bytes.
+     *
+     * @return
+     *         The number of valid bytes.
+     */
+    public int getLimit()
+    {
+        return limit;
+    }
+
+
+    /**
+     * Get the number of bytes which have not been read yet.
+     *
+     * @return
+     *         (limit - position).
+     */
+    public int getRemaining()
+    {
+        return limit - position;
+    }
+
+
+    /**
+     * Empty the buffer for writing.
+     */
+    public void clear()
+    {
+        position = 0;
+        limit    = 0;
+    }
+
+
+    /**
+     * Move the position to the start for reading what has been written.
+     */
+    public void rewind()
+    {
+        position = 0;
+    }
+
+
+    /**
+     * Replace the content with bytes received from somewhere, for reading.
+     *
+     * @param bytes
+     *         Bytes to copy.
+     *
+     * @param offset
+     *         The position in 'bytes' of the first byte to copy.
+     *
+     * @param length
+     *         The number of bytes to copy.
+     *
+     * @throws IllegalArgumentException
+     *         'bytes' is null or the range is out of 'bytes'.
+     */
+    public void load(byte[] bytes, int offset, int length)
+    {
+        if (bytes == null)
+        {
+            throw new IllegalArgumentException("bytes == null");
+        }
+
+        if (offset < 0 || length < 0 || bytes.length - offset < length)
+        {
+            throw new IllegalArgumentException("The range is out of bytes.");
+        }
+
+        position = 0;
+        limit    = 0;
+
+        ensure(length);
+        System.arraycopy(bytes, offset, array, 0, length);
+
+        limit = length;
+    }
+
+
+    /**
+     * Write a byte.
+     *
+     * @param value
+     *         A byte. Only the lowest 8 bits are used.
+     */
+    public void writeByte(int value)
+    {
+        ensure(1);
+
+        array[position++] = (byte)value;
+        limit = position;
+    }
+
+
+    /**
+     * Write an unsigned integer as a varint (1 to 5 bytes).
+     *
+     * @param value
+     *         A value which is treated as unsigned.
+     */
+    public void writeVarint(int value)
+    {
+        ensure(5);
+
+        while ((value & ~0x7F) != 0)
+        {
+            array[position++] = (byte)((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+
+        array[position++] = (byte)value;
+        limit = position;
+    }
+
+
+    /**
+     * Write a signed integer as a zigzag-encoded varint (1 to 5 bytes).
+     *
+     * @param value
+     *         A value.
+     */
+    public void writeSignedVarint(int value)
+    {
+        writeVarint((value << 1) ^ (value >> 31));
+    }
+
+
+    /**
+     * Write a float as 4 bytes.
+     *
+     * @param value
+     *         A value.
+     */
+    public void writeFloat(float value)
+    {
+        writeInt(Float.floatToIntBits(value));
+    }
+
+
+    /**
+     * Write an integer as 4 bytes in little endian.
+     *
+     * @param value
+     *         A value.
+     */
+    public void writeInt(int value)
+    {
+        ensure(4);
+
+        array[position++] = (byte)value;
+        array[position++] = (byte)(value >>> 8);
+        array[position++] = (byte)(value >>> 16);
+        array[position++] = (byte)(value >>> 24);
+        limit = position;
+    }
+
+
+    /**
+     * Read a byte.
+     *
+     * @return
+     *         A value in between 0 and 255.
+     *
+     * @throws IllegalStateException
+     *         No byte remains.
+     */
+    public int readByte()
+    {
+        checkRemaining(1);
+
+        return array[position++] & 0xFF;
+    }
+
+
+    /**
+     * Read an unsigned integer written by {@link #writeVarint(int)}.
+     *
+     * @return
+     *         A value.
+     *
+     * @throws IllegalStateException
+     *         The data is truncated or malformed.
+     */
+    public int readVarint()
+    {
+        int value = 0;
+
+        for (int shift = 0; shift < 35; shift += 7)
+        {
+            int b = readByte();
+
+            value |= (b & 0x7F) << shift;
+
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+
+        throw new IllegalStateException("Malformed varint.");
+    }
+
+
+    /**
+     * Read a signed integer written by {@link #writeSignedVarint(int)}.
+     *
+     * @return
+     *         A value.
+     *
+     * @throws IllegalStateException
+     *         The data is truncated or malformed.
+     */
+    public int readSignedVarint()
+    {
+        int value = readVarint();
+
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+
+    /**
+     * Read a float written by {@link #writeFloat(float)}.
+     *
+     * @return
+     *         A value.
+     *
+     * @throws IllegalStateException
+     *         Less than 4 bytes remain.
+     */
+    public float readFloat()
+    {
+        return Float.intBitsToFloat(readInt());
+    }
+
+
+    /**
+     * Read an integer written by {@link #writeInt(int)}.
+     *
+     * @return
+     *         A value.
+     *
+     * @throws IllegalStateException
+     *         Less than 4 bytes remain.
+     */
+    public int readInt()
+    {
+        checkRemaining(4);
+
+        int value = (array[position]     & 0xFF)
+                 | ((array[position + 1] & 0xFF) << 8)
+                 | ((array[position + 2] & 0xFF) << 16)
+                 | ((array[position + 3] & 0xFF) << 24);
+
+        position += 4;
+
+        return value;
+    }
+
+
+    private void ensure(int size)
+    {
+        if (position + size <= array.length)
+        {
+            return;
+        }
+
+        byte[] larger = new byte[Math.max(array.length * 2, position + size)];
+
+        System.arraycopy(array, 0, larger, 0, limit);
+
+        array = larger;
+    }
+
+
+    private void checkRemaining(int size)
+    {
+        if (limit - position < size)
+        {
+            throw new IllegalStateException("The data is truncated.");
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Path along a Catmull-Rom spline which passes through all the points.
+ *
+ * <p>
+ * The spline is uniform. The first and the last points are duplicated
+ * to make the tangents at the ends.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class CatmullRomPath extends PathInterpolator
+{
+    /**
+     * The default number of intervals of the arc length table per segment.
+     */
+    public static final int DEFAULT_INTERVALS_PER_SEGMENT = 16;
+
+
+    private final float[] points;
+    private final int segmentCount;
+
+
+    /**
+     * A constructor with points. The arc length table has {@link
+     * #DEFAULT_INTERVALS_PER_SEGMENT} intervals per segment.
+     *
+     * @param dimension
+     *         The number of components of a point.
+     *
+     * @param points
+     *         Points. The i-th point starts at (i * dimension).
+     *         The array is copied.
+     *
+     * @throws IllegalArgumentException
+     *         'dimension' is less than 1, 'points' is null, the length of
+     *         'points' is not a multiple of 'dimension', or the number of
+     *         points is less than 2.
+     */
+    public CatmullRomPath(int dimension, float[] points)
+    {
+        this(dimension, points, DEFAULT_INTERVALS_PER_SEGMENT);
+    }
+
+
+    /**
+     * A constructor with points and the size of the arc length table.
+     *
+     * @param dimension
+     *         The number of components of a point.
+     *
+     * @param points
+     *         Points. The i-th point starts at (i * dimension).
+     *         The array is copied.
+     *
+     * @param intervalsPerSegment
+     *         The number of intervals of the arc length table per segment.
+     *
+     * @throws IllegalArgumentException
+     *         'dimension' or 'intervalsPerSegment' is less than 1,
+     *         'points' is null, the length of 'points' is not a multiple
+     *         of 'dimension', or the number of points is less than 2.
+     */
+    public CatmullRomPath(int dimension, float[] points, int intervalsPerSegment)
+    {
+        super(dimension, (countPoints(dimension, points, 2) - 1) * checkIntervals(intervalsPerSegment));
+
+        this.points       = points.clone();
+        this.segmentCount = points.length / dimension - 1;
+
+        buildTable();
+    }
+
+
+    @Override
+    protected void evaluateCurve(float u, float[] output)
+    {
+        int dimension = getDimension();
+        int last = segmentCount;
+        float position = u * segmentCount;
+        int segment = Math.min((int)position, segmentCount - 1);
+        float t = position - segment;
+        float t2 = t * t;
+        float t3 = t2 * t;
+
+        int o0 = Math.max(segment - 1, 0)    * dimension;
+        int o1 = segment                     * dimension;
+        int o2 = (segment + 1)               * dimension;
+        int o3 = Math.min(segment + 2, last) * dimension;
+
+        for (int i = 0; i < dimension; ++i)
+        {
+            float p0 = points[o0 + i];
+            float p1 = points[o1 + i];
+            float p2 = points[o2 + i];
+            float p3 = points[o3 + i];
+
+            output[i] = 0.5f * ((2 * p1) +
+                                (p2 - p0) * t +
+                                (2 * p0 - 5 * p1 + 4 * p2 - p3) * t2 +
+                                (3 * p1 - p0 - 3 * p2 + p3) * t3);
+        }
+    }
+
+
+    private static int checkIntervals(int intervalsPerSegment)
+    {
+        if (intervalsPerSegment < 1)
+        {
+            throw new IllegalArgumentException("intervalsPerSegment < 1");
+        }
+
+        return intervalsPerSegment;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Class of a channel of a baked clip, determined by {@link CompactClip}.
+ *
+ * @author Takahiko Kawasaki
+ */
+public enum ChannelClass
+{
+    /**
+     * The value does not change. One value is stored.
+     */
+    CONSTANT,
+
+    /**
+     * The value is held and jumps at some keys. Only the keys where the
+     * value changes are stored, and the value is held between them like
+     * {@link StepInterpolator}. Used only when step detection is
+     * enabled, because holding differs from linear playback of the
+     * samples around each jump.
+     */
+    STEP,
+
+    /**
+     * The value moves along a few line segments. Only the ends of the
+     * segments are stored and interpolated linearly.
+     */
+    LINEAR,
+
+    /**
+     * Otherwise. All the samples are stored and interpolated linearly.
+     */
+    CURVED
+    ;
+}
@@ -0,0 +1,619 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Interpolator which approximates another interpolator by piecewise
+ * Chebyshev polynomials.
+ *
+ * <p>
+ * The approximated interpolator must blend 'from' and 'to' by a weight
+ * which depends only on the time ratio, as {@link EasingInterpolator}s
+ * and {@link LinearInterpolator} do. The weight is sampled by calling
+ * {@link Interpolator#interpolate(float[], float[], int, float, float[])
+ * interpolate()} with 0 as 'from' and 1 as 'to', and {@link
+ * #fit(Interpolator, float, int) fit()} splits the range from 0.0 to
+ * 1.0 into halves recursively until each segment is approximated within
+ * the target error by a Chebyshev series of a degree not greater than
+ * the maximum degree. The lowest sufficient degree is chosen for each
+ * segment, so smooth parts get few low-degree segments and sharp
+ * features (e.g. the bounces of {@link EasingBounceInterpolator}) get
+ * short segments around them.
+ * </p>
+ *
+ * <p>
+ * The segments are found through a table indexed by the time ratio.
+ * The series of each segment is converted into a polynomial in the
+ * power basis when fitted, and evaluated by Horner's scheme, so
+ * evaluation uses only multiplications and additions and takes time
+ * proportional to the degree of the segment. Expensive easings (e.g. those which
+ * call {@link Math#pow(double, double)} or {@link Math#sin(double)})
+ * become cheap, and unlike a lookup table with linear interpolation,
+ * the error is bounded everywhere.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * {@link ChebyshevInterpolator} fast = {@link ChebyshevInterpolator}.{@link
+ * #fit(Interpolator, float) fit}(new {@link EasingElasticInterpolator}(), 1e-5f);
+ *
+ * fast.{@link #interpolate(float[], float[], int, float, float[])
+ * interpolate}(from, to, componentCount, timeRatio, output);
+ * </pre>
+ *
+ * <p>
+ * The error is measured on sample points, so a feature narrower than
+ * the spacing of the sample points may be missed. A discontinuous
+ * weight cannot be approximated within the target error; in such a
+ * case, the shortest segments are kept with the degree which gave the
+ * smallest error, and {@link #getMaxError()} reports the error actually
+ * achieved, which is measured on {@value #FINAL_CHECK_COUNT} points
+ * per segment.
+ * </p>
+ *
+ * <p>
+ * The degree is limited to {@value #MAX_DEGREE} because the float
+ * coefficients of the power basis lose precision quickly as the degree
+ * grows, and a higher degree would make the error worse, not better.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class ChebyshevInterpolator extends InterpolatorBase
+{
+    /**
+     * The default maximum degree of the series of a segment.
+     */
+    public static final int DEFAULT_MAX_DEGREE = 8;
+
+
+    /**
+     * The maximum of the maximum degree. Beyond this, cancellation
+     * among the float coefficients of the power basis dominates the
+     * error of Horner's scheme.
+     */
+    public static final int MAX_DEGREE = 12;
+
+
+    /**
+     * The maximum depth of the recursive split. The shortest segment
+     * is 1 / 2^{@value #MAX_DEPTH} long.
+     */
+    private static final int MAX_DEPTH = 12;
+
+
+    /**
+     * The number of sample points per segment to measure the error.
+     */
+    private static final int CHECK_COUNT = 64;
+
+
+    /**
+     * The number of sample points per segment to measure the error of
+     * the final evaluator, which is reported by {@link #getMaxError()}.
+     */
+    private static final int FINAL_CHECK_COUNT = 1024;
+
+
+    /**
+     * The segment index of each cell. The range from 0.0 to 1.0 is
+     * divided into cells as long as the shortest segment, so the table
+     * is small unless the weight has sharp features.
+     */
+    private final int[] cellSegments;
+
+
+    /**
+     * A time ratio 't' is mapped into [-1, 1] of the segment 's' by
+     * (t * scales[s] + offsets[s]).
+     */
+    private final float[] scales;
+    private final float[] offsets;
+
+
+    /**
+     * The power basis coefficients of the segment 's' are from
+     * coefficientStarts[s] (inclusive) to coefficientStarts[s + 1]
+     * (exclusive), in ascending order of degrees.
+     */
+    private final float[] coefficients;
+    private final int[] coefficientStarts;
+    private final float maxError;
+
+
+    private ChebyshevInterpolator(int[] cellSegments, float[] scales, float[] offsets,
+            float[] coefficients, int[] coefficientStarts, float maxError)
+    {
+        this.cellSegments      = cellSegments;
+        this.scales            = scales;
+        this.offsets           = offsets;
+        this.coefficients      = coefficients;
+        this.coefficientStarts = coefficientStarts;
+        this.maxError          = maxError;
+    }
+
+
+    /**
+     * Approximate an interpolator with the default maximum degree,
+     * {@value #DEFAULT_MAX_DEGREE}.
+     *
+     * @param interpolator
+     *         An interpolator to approximate.
+     *
+     * @param targetError
+     *         The target maximum error of the weight.
+     *
+     * @return
+     *         An interpolator which approximates the given one.
+     *
+     * @throws IllegalArgumentException
+     *         'interpolator' is null, or 'targetError' is not greater
+     *         than 0.
+     */
+    public static ChebyshevInterpolator fit(Interpolator interpolator, float targetError)
+    {
+        return fit(interpolator, targetError, DEFAULT_MAX_DEGREE);
+    }
+
+
+    /**
+     * Approximate an interpolator.
+     *
+     * @param interpolator
+     *         An interpolator to approximate. Its weight of 'to' must
+     *         depend only on the time ratio.
+     *
+     * @param targetError
+     *         The target maximum error of the weight.
+     *
+     * @param maxDegree
+     *         The maximum degree of the series of a segment. A higher
+     *         degree results in fewer segments and slower evaluation.
+     *
+     * @return
+     *         An interpolator which approximates the given one.
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>'interpolator' is null.</li>
+     * <li>'targetError' is not greater than 0.</li>
+     * <li>'maxDegree' is less than 1 or greater than {@link #MAX_DEGREE}.</li>
+     * </ul>
+     */
+    public static ChebyshevInterpolator fit(Interpolator interpolator, float targetError, int maxDegree)
+    {
+        if (interpolator == null)
+        {
+            throw new IllegalArgumentException("interpolator is null");
+        }
+
+        if (!(0 < targetError))
+        {
+            throw new IllegalArgumentException("targetError <= 0");
+        }
+
+        if (maxDegree < 1 || MAX_DEGREE < maxDegree)
+        {
+            throw new IllegalArgumentException("maxDegree < 1 || MAX_DEGREE < maxDegree");
+        }
+
+        return new Fitter(interpolator, targetError, maxDegree).build();
+    }
+
+
+    /**
+     * Get the maximum error of the weight measured when fitted.
+     *
+     * @return
+     *         The maximum error.
+     */
+    public float getMaxError()
+    {
+        return maxError;
+    }
+
+
+    /**
+     * Get the number of segments.
+     *
+     * @return
+     *         The number of segments.
+     */
+    public int getSegmentCount()
+    {
+        return scales.length;
+    }
+
+
+    /**
+     * Get the degree of the series of a segment.
+     *
+     * @param segment
+     *         The index of a segment. Segments are in ascending order
+     *         of time ratios.
+     *
+     * @return
+     *         The degree.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'segment' is out of range.
+     */
+    public int getDegree(int segment)
+    {
+        if (segment < 0 || scales.length <= segment)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+
+        return coefficientStarts[segment + 1] - coefficientStarts[segment] - 1;
+    }
+
+
+    /**
+     * Calculate the approximated weight of 'to' at the time ratio.
+     *
+     * @param timeRatio
+     *         A time ratio. Values out of the range from 0.0 to 1.0
+     *         are clamped.
+     *
+     * @return
+     *         The weight of 'to'.
+     */
+    public float getWeight(float timeRatio)
+    {
+        int last = cellSegments.length - 1;
+        int cell = (int)(timeRatio * cellSegments.length);
+
+        if (cell < 0 || timeRatio != timeRatio)
+        {
+            cell      = 0;
+            timeRatio = 0;
+        }
+        else if (last < cell)
+        {
+            cell      = last;
+            timeRatio = 1;
+        }
+
+        int segment = cellSegments[cell];
+
+        return evaluate(segment, timeRatio * scales[segment] + offsets[segment]);
+    }
+
+
+    @Override
+    protected void doInterpolate(float[] from, float[] to, int componentCount, float timeRatio, float[] output)
+    {
+        float weight = getWeight(timeRatio);
+
+        for (int i = 0; i < componentCount; ++i)
+        {
+            output[i] = from[i] * (1 - weight) + to[i] * weight;
+        }
+    }
+
+
+    /**
+     * Evaluate the polynomial of a segment at 'u' in [-1, 1] by
+     * Horner's scheme.
+     */
+    private float evaluate(int segment, float u)
+    {
+        int first = coefficientStarts[segment];
+        int j     = coefficientStarts[segment + 1] - 1;
+        float sum = coefficients[j];
+
+        while (first < j)
+        {
+            sum = sum * u + coefficients[--j];
+        }
+
+        return sum;
+    }
+
+
+    /**
+     * Fitting state.
+     */
+    private static final class Fitter
+    {
+        private final Interpolator interpolator;
+        private final float targetError;
+        private final int maxDegree;
+        private final float[] zero = { 0 };
+        private final float[] one  = { 1 };
+        private final float[] weight = new float[1];
+        private final double[] samples;
+        private final double[] series;
+        private final double[] power;
+        private final double[] previousT;
+        private final double[] currentT;
+        private final List<float[]> segmentCoefficients = new ArrayList<float[]>();
+        private final List<int[]> segmentRanges = new ArrayList<int[]>();
+        private int depthUsed;
+
+
+        Fitter(Interpolator interpolator, float targetError, int maxDegree)
+        {
+            this.interpolator = interpolator;
+            this.targetError  = targetError;
+            this.maxDegree    = maxDegree;
+            this.samples      = new double[maxDegree + 1];
+            this.series       = new double[maxDegree + 1];
+            this.power        = new double[maxDegree + 1];
+            this.previousT    = new double[maxDegree + 1];
+            this.currentT     = new double[maxDegree + 1];
+        }
+
+
+        ChebyshevInterpolator build()
+        {
+            split(0, 1 << MAX_DEPTH, 0);
+
+            int segmentCount     = segmentCoefficients.size();
+            int shift            = MAX_DEPTH - depthUsed;
+            int[] cellSegments   = new int[1 << depthUsed];
+            float[] scales       = new float[segmentCount];
+            float[] offsets      = new float[segmentCount];
+            int[] starts         = new int[segmentCount + 1];
+            int coefficientCount = 0;
+
+            for (int s = 0; s < segmentCount; ++s)
+            {
+                coefficientCount += segmentCoefficients.get(s).length;
+            }
+
+            float[] coefficients = new float[coefficientCount];
+
+            for (int s = 0; s < segmentCount; ++s)
+            {
+                int[] range = segmentRanges.get(s);
+                float[] c   = segmentCoefficients.get(s);
+
+                Arrays.fill(cellSegments, range[0] >> shift, range[1] >> shift, s);
+
+                double a = toTime(range[0]);
+                double b = toTime(range[1]);
+
+                scales[s]  = (float)(2 / (b - a));
+                offsets[s] = (float)(-(a + b) / (b - a));
+
+                System.arraycopy(c, 0, coefficients, starts[s], c.length);
+                starts[s + 1] = starts[s] + c.length;
+            }
+
+            ChebyshevInterpolator result = new ChebyshevInterpolator(
+                    cellSegments, scales, offsets, coefficients, starts, 0);
+
+            // Measure the error of the final evaluator, including the
+            // rounding of the float coefficients and the cell lookup.
+            float error = 0;
+
+            for (int s = 0; s < segmentCount; ++s)
+            {
+                int[] range = segmentRanges.get(s);
+
+                error = Math.max(error, measure(result, toTime(range[0]), toTime(range[1]), FINAL_CHECK_COUNT));
+            }
+
+            return new ChebyshevInterpolator(cellSegments, scales, offsets, coefficients, starts, error);
+        }
+
+
+        /**
+         * Approximate the range of cells [low, high), splitting it if
+         * necessary.
+         */
+        private void split(int low, int high, int depth)
+        {
+            double a = toTime(low);
+            double b = toTime(high);
+
+            // The candidate with the smallest error, which is used when
+            // no more split is allowed.
+            float[] best    = null;
+            float bestError = Float.POSITIVE_INFINITY;
+
+            for (int degree = 1; degree <= maxDegree; ++degree)
+            {
+                float[] c   = approximate(a, b, degree);
+                float error = measure(c, a, b);
+
+                if (error <= targetError)
+                {
+                    add(low, high, c, depth);
+                    return;
+                }
+
+                if (error < bestError)
+                {
+                    best      = c;
+                    bestError = error;
+                }
+            }
+
+            if (depth == MAX_DEPTH)
+            {
+                // The best effort.
+                add(low, high, best, depth);
+                return;
+            }
+
+            int middle = (low + high) >>> 1;
+
+            split(low,    middle, depth + 1);
+            split(middle, high,   depth + 1);
+        }
+
+
+        private void add(int low, int high, float[] c, int depth)
+        {
+            depthUsed = Math.max(depthUsed, depth);
+
+            segmentCoefficients.add(c);
+            segmentRanges.add(new int[] { low, high });
+        }
+
+
+        /**
+         * Compute the Chebyshev coefficients of the weight on [a, b]
+         * from its values at the Chebyshev nodes.
+         */
+        private float[] approximate(double a, double b, int degree)
+        {
+            int n = degree + 1;
+
+            for (int k = 0; k < n; ++k)
+            {
+                double x = Math.cos(Math.PI * (k + 0.5) / n);
+
+                samples[k] = sample((a + b) * 0.5 + (b - a) * 0.5 * x);
+            }
+
+            for (int j = 0; j < n; ++j)
+            {
+                double sum = 0;
+
+                for (int k = 0; k < n; ++k)
+                {
+                    sum += samples[k] * Math.cos(Math.PI * j * (k + 0.5) / n);
+                }
+
+                series[j] = sum * 2 / n;
+            }
+
+            series[0] *= 0.5;
+
+            // Convert the series into the power basis by the recurrence
+            // T[j+1](u) = 2u * T[j](u) - T[j-1](u).
+            Arrays.fill(power, 0, n, 0);
+            Arrays.fill(previousT, 0, n, 0);
+            Arrays.fill(currentT, 0, n, 0);
+
+            // T[0](u) = 1 and T[1](u) = u.
+            previousT[0] = 1;
+            power[0]     = series[0];
+
+            if (1 < n)
+            {
+                currentT[1] = 1;
+                power[1]    = series[1];
+            }
+
+            double[] tPrevious = previousT;
+            double[] tCurrent  = currentT;
+
+            for (int j = 2; j < n; ++j)
+            {
+                // T[j] is written into the array of T[j-2].
+                for (int k = j; 0 <= k; --k)
+                {
+                    tPrevious[k] = ((0 < k) ? 2 * tCurrent[k - 1] : 0) - tPrevious[k];
+                }
+
+                for (int k = 0; k <= j; ++k)
+                {
+                    power[k] += series[j] * tPrevious[k];
+                }
+
+                double[] swap = tPrevious;
+                tPrevious = tCurrent;
+                tCurrent  = swap;
+            }
+
+            float[] c = new float[n];
+
+            for (int j = 0; j < n; ++j)
+            {
+                c[j] = (float)power[j];
+            }
+
+            return c;
+        }
+
+
+        /**
+         * Measure the maximum error of a series on [a, b].
+         */
+        private float measure(float[] c, double a, double b)
+        {
+            float error = 0;
+
+            for (int i = 0; i <= CHECK_COUNT; ++i)
+            {
+                double t = a + (b - a) * i / CHECK_COUNT;
+                float u  = (float)((2 * t - a - b) / (b - a));
+
+                error = Math.max(error, Math.abs(horner(c, u) - (float)sample(t)));
+            }
+
+            return error;
+        }
+
+
+        /**
+         * Measure the maximum error of the evaluator on [a, b].
+         */
+        private float measure(ChebyshevInterpolator evaluator, double a, double b, int count)
+        {
+            float error = 0;
+
+            for (int i = 0; i <= count; ++i)
+            {
+                double t = a + (b - a) * i / count;
+
+                error = Math.max(error, Math.abs(evaluator.getWeight((float)t) - (float)sample(t)));
+            }
+
+            return error;
+        }
+
+
+        private static float horner(float[] c, float u)
+        {
+            float sum = c[c.length - 1];
+
+            for (int j = c.length - 2; 0 <= j; --j)
+            {
+                sum = sum * u + c[j];
+            }
+
+            return sum;
+        }
+
+
+        private double sample(double t)
+        {
+            float timeRatio = (float)Math.max(0, Math.min(t, 1));
+
+            interpolator.interpolate(zero, one, 1, timeRatio, weight);
+
+            return weight[0];
+        }
+
+
+        private static double toTime(int cell)
+        {
+            return (double)cell / (1 << MAX_DEPTH);
+        }
+    }
+}
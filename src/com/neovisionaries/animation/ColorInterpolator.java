@@ -0,0 +1,398 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Color interpolator which works on packed ARGB values.
+ *
+ * <p>
+ * Unlike {@link Interpolator} implementations, this class does not
+ * require colors to be unpacked into float arrays. Each of 'from' and
+ * 'to' is an {@code int} whose bits are laid out as {@code 0xAARRGGBB},
+ * and the interpolated color is returned in the same format.
+ * </p>
+ *
+ * <p>
+ * By default, channels are blended in the sRGB space using 8-bit
+ * fixed-point arithmetic, processing two channels per multiplication.
+ * If {@link #setLinearLight(boolean) linear light} is enabled, color
+ * channels are converted into the linear space by a precomputed table,
+ * blended there and converted back. Alpha is always blended linearly.
+ * </p>
+ *
+ * <p>
+ * Any {@link EasingInterpolator} can be used as the timing curve.
+ * If no easing is set, the time ratio is used as is.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * {@link ColorInterpolator} ci = new {@link #ColorInterpolator(EasingInterpolator)
+ * ColorInterpolator}(new {@link EasingBounceInterpolator}());
+ *
+ * int color = ci.{@link #interpolate(int, int, float) interpolate}(0xFFFF0000, 0xFF0000FF, 0.3F);
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class ColorInterpolator
+{
+    /**
+     * The number of fraction bits of the fixed-point weight.
+     */
+    private static final int WEIGHT_BITS = 8;
+
+
+    /**
+     * The fixed-point representation of 1.0.
+     */
+    private static final int WEIGHT_ONE = 1 << WEIGHT_BITS;
+
+
+    /**
+     * The number of bits of a linear-light value.
+     */
+    private static final int LINEAR_BITS = 12;
+
+
+    /**
+     * The maximum linear-light value.
+     */
+    private static final int LINEAR_MAX = (1 << LINEAR_BITS) - 1;
+
+
+    /**
+     * sRGB (0 - 255) to linear light (0 - 4095).
+     */
+    private static final short[] SRGB_TO_LINEAR = createSrgbToLinearTable();
+
+
+    /**
+     * Linear light (0 - 4095) to sRGB (0 - 255).
+     */
+    private static final byte[] LINEAR_TO_SRGB = createLinearToSrgbTable();
+
+
+    private EasingInterpolator easing;
+    private boolean linearLight;
+
+
+    /**
+     * The default constructor. No easing is used and channels are
+     * blended in the sRGB space.
+     */
+    public ColorInterpolator()
+    {
+    }
+
+
+    /**
+     * A constructor with an easing.
+     *
+     * @param easing
+     *         An easing used as the timing curve. If null is given,
+     *         the time ratio is used as is.
+     */
+    public ColorInterpolator(EasingInterpolator easing)
+    {
+        this.easing = easing;
+    }
+
+
+    /**
+     * Get the easing used as the timing curve.
+     *
+     * @return
+     *         The easing. null is returned if no easing is set.
+     */
+    public EasingInterpolator getEasing()
+    {
+        return easing;
+    }
+
+
+    /**
+     * Set an easing used as the timing curve.
+     *
+     * @param easing
+     *         An easing. If null is given, the time ratio is used as is.
+     */
+    public void setEasing(EasingInterpolator easing)
+    {
+        this.easing = easing;
+    }
+
+
+    /**
+     * Check if color channels are blended in the linear space.
+     * The default value is false.
+     *
+     * @return
+     *         true if color channels are blended in the linear space.
+     */
+    public boolean isLinearLight()
+    {
+        return linearLight;
+    }
+
+
+    /**
+     * Enable or disable blending in the linear space.
+     *
+     * @param linearLight
+     *         true to blend color channels in the linear space.
+     */
+    public void setLinearLight(boolean linearLight)
+    {
+        this.linearLight = linearLight;
+    }
+
+
+    /**
+     * Calculate an interpolated color.
+     *
+     * @param from
+     *         The color at the start point of a given timespan (ARGB).
+     *
+     * @param to
+     *         The color at the end point of a given timespan (ARGB).
+     *
+     * @param timeRatio
+     *         A time ratio. It must be in between 0.0 and 1.0.
+     *
+     * @return
+     *         The interpolated color (ARGB).
+     *
+     * @throws IllegalArgumentException
+     *         'timeRatio' is less than 0 or greater than 1.
+     */
+    public int interpolate(int from, int to, float timeRatio)
+    {
+        int weight = toWeight(timeRatio);
+
+        return blend(from, to, weight);
+    }
+
+
+    /**
+     * Calculate interpolated colors in batch.
+     *
+     * <p>
+     * The timing curve is evaluated only once for all the colors.
+     * </p>
+     *
+     * @param from
+     *         The colors at the start point of a given timespan (ARGB).
+     *         The length of the array must be equal to or greater than
+     *         count.
+     *
+     * @param to
+     *         The colors at the end point of a given timespan (ARGB).
+     *         The length of the array must be equal to or greater than
+     *         count.
+     *
+     * @param count
+     *         The number of colors to interpolate. The value must be
+     *         equal to or greater than 1.
+     *
+     * @param timeRatio
+     *         A time ratio. It must be in between 0.0 and 1.0.
+     *
+     * @param output
+     *         A place into which the interpolated colors are put.
+     *         The length of the array must be equal to or greater than
+     *         count.
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>'timeRatio' is less than 0 or greater than 1.</li>
+     * <li>'count' is less than 1.</li>
+     * <li>'from', 'to' or 'output' is null.</li>
+     * <li>The length of 'from', 'to' or 'output' is less than 'count'.</li>
+     * </ul>
+     */
+    public void interpolate(int[] from, int[] to, int count, float timeRatio, int[] output)
+    {
+        if (count < 1)
+        {
+            throw new IllegalArgumentException("count < 1");
+        }
+
+        checkArray(from, count, "from");
+        checkArray(to, count, "to");
+        checkArray(output, count, "output");
+
+        int weight = toWeight(timeRatio);
+
+        for (int i = 0; i < count; ++i)
+        {
+            output[i] = blend(from[i], to[i], weight);
+        }
+    }
+
+
+    private int toWeight(float timeRatio)
+    {
+        if (timeRatio < 0 || 1 < timeRatio)
+        {
+            throw new IllegalArgumentException("ratio < 0 || 1 < ratio");
+        }
+
+        if (easing != null)
+        {
+            timeRatio = easing.ease(timeRatio);
+        }
+
+        return Math.round(timeRatio * WEIGHT_ONE);
+    }
+
+
+    private int blend(int from, int to, int weight)
+    {
+        if (weight == 0 || from == to)
+        {
+            return from;
+        }
+
+        if (weight == WEIGHT_ONE)
+        {
+            return to;
+        }
+
+        if (linearLight)
+        {
+            return blendLinearLight(from, to, weight);
+        }
+
+        if (weight < 0 || WEIGHT_ONE < weight)
+        {
+            // Overshooting easings (e.g. back and elastic) need clamping.
+            return blendClamped(from, to, weight);
+        }
+
+        int inverse = WEIGHT_ONE - weight;
+
+        // Red and blue are processed at a time. Each lane has 16 bits
+        // and 255 * 256 never overflows a lane.
+        int rb = (((from & 0x00FF00FF) * inverse + (to & 0x00FF00FF) * weight) >>> WEIGHT_BITS) & 0x00FF00FF;
+
+        // Alpha and green.
+        int ag = (((from >>> 8) & 0x00FF00FF) * inverse + ((to >>> 8) & 0x00FF00FF) * weight) & 0xFF00FF00;
+
+        return ag | rb;
+    }
+
+
+    private static int blendClamped(int from, int to, int weight)
+    {
+        int a = blendChannel(from >>> 24,         to >>> 24,         weight);
+        int r = blendChannel((from >>> 16) & 0xFF, (to >>> 16) & 0xFF, weight);
+        int g = blendChannel((from >>>  8) & 0xFF, (to >>>  8) & 0xFF, weight);
+        int b = blendChannel( from         & 0xFF,  to         & 0xFF, weight);
+
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+
+    private static int blendChannel(int from, int to, int weight)
+    {
+        return clamp(from + (((to - from) * weight) >> WEIGHT_BITS), 255);
+    }
+
+
+    private static int blendLinearLight(int from, int to, int weight)
+    {
+        int a = blendChannel(from >>> 24, to >>> 24, weight);
+        int r = blendLinearChannel((from >>> 16) & 0xFF, (to >>> 16) & 0xFF, weight);
+        int g = blendLinearChannel((from >>>  8) & 0xFF, (to >>>  8) & 0xFF, weight);
+        int b = blendLinearChannel( from         & 0xFF,  to         & 0xFF, weight);
+
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+
+    private static int blendLinearChannel(int from, int to, int weight)
+    {
+        int f = SRGB_TO_LINEAR[from];
+        int t = SRGB_TO_LINEAR[to];
+        int l = clamp(f + (((t - f) * weight) >> WEIGHT_BITS), LINEAR_MAX);
+
+        return LINEAR_TO_SRGB[l] & 0xFF;
+    }
+
+
+    private static int clamp(int value, int max)
+    {
+        if (value < 0)
+        {
+            return 0;
+        }
+
+        if (max < value)
+        {
+            return max;
+        }
+
+        return value;
+    }
+
+
+    private static void checkArray(int[] array, int count, String name)
+    {
+        if (array == null)
+        {
+            throw new IllegalArgumentException(name + " == null");
+        }
+
+        if (array.length < count)
+        {
+            throw new IllegalArgumentException(name + ".length < count");
+        }
+    }
+
+
+    private static short[] createSrgbToLinearTable()
+    {
+        short[] table = new short[256];
+
+        for (int i = 0; i < table.length; ++i)
+        {
+            double c = i / 255.0;
+            double l = (c <= 0.04045) ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+
+            table[i] = (short)Math.round(l * LINEAR_MAX);
+        }
+
+        return table;
+    }
+
+
+    private static byte[] createLinearToSrgbTable()
+    {
+        byte[] table = new byte[LINEAR_MAX + 1];
+
+        for (int i = 0; i < table.length; ++i)
+        {
+            double l = (double)i / LINEAR_MAX;
+            double c = (l <= 0.0031308) ? l * 12.92 : 1.055 * Math.pow(l, 1 / 2.4) - 0.055;
+
+            table[i] = (byte)Math.round(c * 255);
+        }
+
+        return table;
+    }
+}
@@ -0,0 +1,881 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.Arrays;
+
+
+/**
+ * Baked clip whose channels are classified and compacted.
+ *
+ * <p>
+ * A baked clip has samples of scalar channels at shared key times, and
+ * is usually played by interpolating every channel linearly between
+ * adjacent samples. However, many channels of baked clips never change
+ * or only jump now and then, and others move along a few straight
+ * lines. The constructor classifies each channel (see {@link
+ * ChannelClass}) with a tolerance and stores only what each class
+ * needs:
+ * </p>
+ *
+ * <ul>
+ * <li>{@link ChannelClass#CONSTANT CONSTANT} channels keep one value.</li>
+ * <li>{@link ChannelClass#STEP STEP} channels keep the keys where the
+ *     value changes and hold the value in between. Only when step
+ *     detection is enabled (see below).</li>
+ * <li>{@link ChannelClass#LINEAR LINEAR} channels keep the ends of line
+ *     segments which reproduce all the samples within the tolerance.</li>
+ * <li>{@link ChannelClass#CURVED CURVED} channels keep all the samples.</li>
+ * </ul>
+ *
+ * <p>
+ * {@link #evaluate(float, float[]) evaluate()} finds the key interval
+ * once and then evaluates the channels class by class in loops over
+ * packed arrays. The current segments of step and linear channels are
+ * kept, and when playback moves forward to another key, only the
+ * channels whose segments change at the passed keys are updated through
+ * lists of such changes per key. A backward move or a long jump selects
+ * the segments of all the channels by binary search. No object is
+ * created. Because of the kept segments, an instance of this class must
+ * not be evaluated by multiple threads at a time.
+ * </p>
+ *
+ * <p>
+ * This class is mainly a memory optimization. Its evaluation is branch
+ * free per channel, but the channels of each class are written into
+ * the output at scattered indexes, so it is slower than linear
+ * interpolation of a dense key-major clip, which is a contiguous and
+ * vectorizable loop. It is faster only when the dense alternative
+ * cannot stay in cache or would use a heavier interpolation per channel.
+ * </p>
+ *
+ * <p>
+ * Step detection is disabled by default, and then all the classes
+ * reproduce linear playback of the samples within the tolerance. When
+ * it is enabled by {@link #CompactClip(float[], int, float[], float,
+ * boolean)}, a channel is classified as {@link ChannelClass#STEP STEP}
+ * if no two adjacent key intervals both change the value, that is, if
+ * the channel looks like a sampled step function. Between the two
+ * samples around a jump, a step channel holds the earlier value while
+ * linear playback of the samples would ramp, so the difference is not
+ * bounded by the tolerance. Enable it only for channels which are
+ * meant to be discrete (e.g. visibility).
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class CompactClip
+{
+    private final int channelCount;
+    private final float[] times;
+    private final ChannelClass[] classes;
+
+
+    /**
+     * CONSTANT channels.
+     */
+    private final int[] constantChannels;
+    private final float[] constantValues;
+
+
+    /**
+     * STEP channels. The keys and values of the channel i are in the
+     * range from stepStarts[i] (inclusive) to stepStarts[i + 1] (exclusive).
+     */
+    private final int[] stepChannels;
+    private final int[] stepStarts;
+    private final int[] stepKeys;
+    private final float[] stepValues;
+
+
+    /**
+     * LINEAR channels. Same layout as STEP channels.
+     */
+    private final int[] linearChannels;
+    private final int[] linearStarts;
+    private final int[] linearKeys;
+    private final float[] linearValues;
+
+
+    /**
+     * The current segment of each STEP or LINEAR channel at the key
+     * 'currentKey'. A LINEAR segment is evaluated as (baseValue + slope
+     * * (time - baseTime)).
+     */
+    private final float[] stepCurrentValues;
+    private final float[] linearBaseTimes;
+    private final float[] linearBaseValues;
+    private final float[] linearSlopes;
+    private int currentKey;
+
+
+    /**
+     * Segment changes per key. The changes at the key k are in the range
+     * from eventStarts[k] (inclusive) to eventStarts[k + 1] (exclusive).
+     * A change is a pair of a channel index of the class and the index
+     * of the new segment in the keys and values of the class.
+     */
+    private final int[] stepEventStarts;
+    private final int[] stepEventChannels;
+    private final int[] stepEventIndexes;
+    private final int[] linearEventStarts;
+    private final int[] linearEventChannels;
+    private final int[] linearEventIndexes;
+
+
+    /**
+     * CURVED channels. The sample of the channel i at the key k is at
+     * (k * curvedChannels.length + i), so that a key interval is read
+     * from two contiguous rows.
+     */
+    private final int[] curvedChannels;
+    private final float[] curvedValues;
+
+
+    /**
+     * A constructor which classifies and compacts baked samples.
+     *
+     * @param times
+     *         Key times in strictly ascending order. The array is copied.
+     *
+     * @param channelCount
+     *         The number of channels.
+     *
+     * @param samples
+     *         Samples. The sample of the channel c at the key k is at
+     *         (k * channelCount + c).
+     *
+     * @param tolerance
+     *         The maximum difference from the samples allowed when a
+     *         channel is compacted. 0 keeps the samples exactly.
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>'times' or 'samples' is null.</li>
+     * <li>'times' is empty or not in strictly ascending order.</li>
+     * <li>'channelCount' is less than 1.</li>
+     * <li>The length of 'samples' is less than (times.length * channelCount).</li>
+     * <li>'tolerance' is less than 0.</li>
+     * </ul>
+     */
+    public CompactClip(float[] times, int channelCount, float[] samples, float tolerance)
+    {
+        this(times, channelCount, samples, tolerance, false);
+    }
+
+
+    /**
+     * A constructor which classifies and compacts baked samples, with
+     * or without step detection.
+     *
+     * @param times
+     *         Key times in strictly ascending order. The array is copied.
+     *
+     * @param channelCount
+     *         The number of channels.
+     *
+     * @param samples
+     *         Samples. The sample of the channel c at the key k is at
+     *         (k * channelCount + c).
+     *
+     * @param tolerance
+     *         The maximum difference from the samples allowed when a
+     *         channel is compacted. 0 keeps the samples exactly.
+     *
+     * @param detectingSteps
+     *         true to classify channels which look like sampled step
+     *         functions as {@link ChannelClass#STEP STEP}. Such channels
+     *         hold values between keys instead of ramping.
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>'times' or 'samples' is null.</li>
+     * <li>'times' is empty or not in strictly ascending order.</li>
+     * <li>'channelCount' is less than 1.</li>
+     * <li>The length of 'samples' is less than (times.length * channelCount).</li>
+     * <li>'tolerance' is less than 0.</li>
+     * </ul>
+     */
+    public CompactClip(float[] times, int channelCount, float[] samples, float tolerance, boolean detectingSteps)
+    {
+        if (times == null)
+        {
+            throw new IllegalArgumentException("times == null");
+        }
+
+        if (times.length == 0)
+        {
+            throw new IllegalArgumentException("times.length == 0");
+        }
+
+        for (int i = 1; i < times.length; ++i)
+        {
+            if (times[i] <= times[i - 1])
+            {
+                throw new IllegalArgumentException("times are not in strictly ascending order");
+            }
+        }
+
+        if (channelCount < 1)
+        {
+            throw new IllegalArgumentException("channelCount < 1");
+        }
+
+        if (samples == null)
+        {
+            throw new IllegalArgumentException("samples == null");
+        }
+
+        if (samples.length < times.length * channelCount)
+        {
+            throw new IllegalArgumentException("samples.length < times.length * channelCount");
+        }
+
+        if (!(0 <= tolerance))
+        {
+            throw new IllegalArgumentException("tolerance < 0");
+        }
+
+        this.channelCount = channelCount;
+        this.times        = times.clone();
+        this.classes      = new ChannelClass[channelCount];
+
+        int keyCount = times.length;
+        float[] channel = new float[keyCount];
+        int[] kept = new int[keyCount];
+        int[] keptCounts = new int[channelCount];
+        int[] classCounts = new int[ChannelClass.values().length];
+        int stepTotal = 0;
+        int linearTotal = 0;
+
+        // Pass 1: classify.
+        for (int c = 0; c < channelCount; ++c)
+        {
+            copyChannel(samples, c, channel);
+
+            ChannelClass type = classify(channel, tolerance, detectingSteps, kept);
+
+            classes[c] = type;
+            ++classCounts[type.ordinal()];
+
+            if (type == ChannelClass.STEP)
+            {
+                keptCounts[c] = countChanges(channel, tolerance, kept);
+                stepTotal += keptCounts[c];
+            }
+            else if (type == ChannelClass.LINEAR)
+            {
+                keptCounts[c] = reduce(channel, tolerance, kept);
+                linearTotal += keptCounts[c];
+            }
+        }
+
+        constantChannels = new int[classCounts[ChannelClass.CONSTANT.ordinal()]];
+        constantValues   = new float[constantChannels.length];
+        stepChannels     = new int[classCounts[ChannelClass.STEP.ordinal()]];
+        stepStarts       = new int[stepChannels.length + 1];
+        stepKeys         = new int[stepTotal];
+        stepValues       = new float[stepTotal];
+        stepCurrentValues = new float[stepChannels.length];
+        linearChannels   = new int[classCounts[ChannelClass.LINEAR.ordinal()]];
+        linearStarts     = new int[linearChannels.length + 1];
+        linearKeys       = new int[linearTotal];
+        linearValues     = new float[linearTotal];
+        linearBaseTimes  = new float[linearChannels.length];
+        linearBaseValues = new float[linearChannels.length];
+        linearSlopes     = new float[linearChannels.length];
+        curvedChannels   = new int[classCounts[ChannelClass.CURVED.ordinal()]];
+        curvedValues     = new float[curvedChannels.length * keyCount];
+
+        int constantIndex = 0, stepIndex = 0, linearIndex = 0, curvedIndex = 0;
+
+        // Pass 2: store.
+        for (int c = 0; c < channelCount; ++c)
+        {
+            copyChannel(samples, c, channel);
+
+            switch (classes[c])
+            {
+                case CONSTANT:
+                    constantChannels[constantIndex] = c;
+                    constantValues[constantIndex]   = channel[0];
+                    ++constantIndex;
+                    break;
+
+                case STEP:
+                    countChanges(channel, tolerance, kept);
+                    stepChannels[stepIndex] = c;
+                    store(channel, kept, keptCounts[c], stepStarts, stepIndex, stepKeys, stepValues);
+                    ++stepIndex;
+                    break;
+
+                case LINEAR:
+                    reduce(channel, tolerance, kept);
+                    linearChannels[linearIndex] = c;
+                    store(channel, kept, keptCounts[c], linearStarts, linearIndex, linearKeys, linearValues);
+                    ++linearIndex;
+                    break;
+
+                default:
+                    curvedChannels[curvedIndex] = c;
+
+                    for (int k = 0; k < keyCount; ++k)
+                    {
+                        curvedValues[k * curvedChannels.length + curvedIndex] = channel[k];
+                    }
+
+                    ++curvedIndex;
+                    break;
+            }
+        }
+
+        // A step channel changes at each of its keys except the first.
+        // A linear channel changes at each of its keys except the first
+        // and the last, because the last segment also covers the last key.
+        stepEventChannels   = new int[stepTotal - stepChannels.length];
+        stepEventIndexes    = new int[stepEventChannels.length];
+        stepEventStarts     = buildEvents(keyCount, stepStarts, stepKeys, 0, stepEventChannels, stepEventIndexes);
+        linearEventChannels = new int[linearTotal - linearChannels.length * 2];
+        linearEventIndexes  = new int[linearEventChannels.length];
+        linearEventStarts   = buildEvents(keyCount, linearStarts, linearKeys, 1, linearEventChannels, linearEventIndexes);
+
+        selectAll(0);
+    }
+
+
+    /**
+     * Sort the segment changes of a class by key.
+     *
+     * @param skippedTail
+     *         The number of keys at the end of each channel which do not
+     *         start a segment.
+     *
+     * @return
+     *         The start of the changes of each key.
+     */
+    private static int[] buildEvents(
+            int keyCount, int[] starts, int[] keys, int skippedTail, int[] eventChannels, int[] eventIndexes)
+    {
+        int[] eventStarts = new int[keyCount + 1];
+
+        // Count the changes per key, then turn the counts into starts.
+        for (int i = 0; i < starts.length - 1; ++i)
+        {
+            for (int j = starts[i] + 1; j < starts[i + 1] - skippedTail; ++j)
+            {
+                ++eventStarts[keys[j] + 1];
+            }
+        }
+
+        for (int k = 0; k < keyCount; ++k)
+        {
+            eventStarts[k + 1] += eventStarts[k];
+        }
+
+        int[] positions = Arrays.copyOf(eventStarts, keyCount);
+
+        for (int i = 0; i < starts.length - 1; ++i)
+        {
+            for (int j = starts[i] + 1; j < starts[i + 1] - skippedTail; ++j)
+            {
+                int position = positions[keys[j]]++;
+
+                eventChannels[position] = i;
+                eventIndexes[position]  = j;
+            }
+        }
+
+        return eventStarts;
+    }
+
+
+    private void copyChannel(float[] samples, int c, float[] channel)
+    {
+        for (int k = 0; k < channel.length; ++k)
+        {
+            channel[k] = samples[k * channelCount + c];
+        }
+    }
+
+
+    private ChannelClass classify(float[] channel, float tolerance, boolean detectingSteps, int[] work)
+    {
+        int keyCount = channel.length;
+        boolean constant = true;
+        boolean step = true;
+        boolean previousChanged = false;
+
+        for (int k = 1; k < keyCount; ++k)
+        {
+            boolean changed = tolerance < Math.abs(channel[k] - channel[k - 1]);
+
+            if (changed)
+            {
+                constant = false;
+
+                if (previousChanged)
+                {
+                    step = false;
+                }
+            }
+
+            previousChanged = changed;
+        }
+
+        if (constant && Math.abs(max(channel) - min(channel)) <= tolerance)
+        {
+            return ChannelClass.CONSTANT;
+        }
+
+        if (step && detectingSteps)
+        {
+            return ChannelClass.STEP;
+        }
+
+        // Worth reducing only if less than half of the samples remain,
+        // because a reduced channel needs a key index per value and a
+        // search in evaluation.
+        if (reduce(channel, tolerance, work) * 2 < keyCount)
+        {
+            return ChannelClass.LINEAR;
+        }
+
+        return ChannelClass.CURVED;
+    }
+
+
+    /**
+     * Find the keys where the value of a step channel changes.
+     *
+     * @return
+     *         The number of the keys, including the key 0.
+     */
+    private static int countChanges(float[] channel, float tolerance, int[] kept)
+    {
+        int count = 0;
+
+        kept[count++] = 0;
+
+        for (int k = 1; k < channel.length; ++k)
+        {
+            if (tolerance < Math.abs(channel[k] - channel[kept[count - 1]]))
+            {
+                kept[count++] = k;
+            }
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Find the ends of line segments which reproduce the samples within
+     * the tolerance, greedily extending each segment as far as possible.
+     *
+     * @return
+     *         The number of the ends, including the first and the last keys.
+     */
+    private int reduce(float[] channel, float tolerance, int[] kept)
+    {
+        int last  = channel.length - 1;
+        int count = 0;
+        int start = 0;
+
+        kept[count++] = 0;
+
+        while (start < last)
+        {
+            int end = start + 1;
+
+            while (end < last && fits(channel, start, end + 1, tolerance))
+            {
+                ++end;
+            }
+
+            kept[count++] = end;
+            start = end;
+        }
+
+        return count;
+    }
+
+
+    private boolean fits(float[] channel, int start, int end, float tolerance)
+    {
+        float t0 = times[start];
+        float v0 = channel[start];
+        float slope = (channel[end] - v0) / (times[end] - t0);
+
+        for (int k = start + 1; k < end; ++k)
+        {
+            if (tolerance < Math.abs(v0 + slope * (times[k] - t0) - channel[k]))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    private static void store(float[] channel, int[] kept, int count, int[] starts, int index, int[] keys, float[] values)
+    {
+        int offset = starts[index];
+
+        for (int i = 0; i < count; ++i)
+        {
+            keys[offset + i]   = kept[i];
+            values[offset + i] = channel[kept[i]];
+        }
+
+        starts[index + 1] = offset + count;
+    }
+
+
+    private static float min(float[] values)
+    {
+        float min = values[0];
+
+        for (float value : values)
+        {
+            min = Math.min(min, value);
+        }
+
+        return min;
+    }
+
+
+    private static float max(float[] values)
+    {
+        float max = values[0];
+
+        for (float value : values)
+        {
+            max = Math.max(max, value);
+        }
+
+        return max;
+    }
+
+
+    /**
+     * Get the number of channels.
+     *
+     * @return
+     *         The number of channels.
+     */
+    public int getChannelCount()
+    {
+        return channelCount;
+    }
+
+
+    /**
+     * Get the number of keys.
+     *
+     * @return
+     *         The number of keys.
+     */
+    public int getKeyCount()
+    {
+        return times.length;
+    }
+
+
+    /**
+     * Get the class of a channel.
+     *
+     * @param channel
+     *         The index of a channel.
+     *
+     * @return
+     *         The class of the channel.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'channel' is out of range.
+     */
+    public ChannelClass getChannelClass(int channel)
+    {
+        return classes[channel];
+    }
+
+
+    /**
+     * Get the number of channels of a class.
+     *
+     * @param channelClass
+     *         A class.
+     *
+     * @return
+     *         The number of channels of the class.
+     */
+    public int getChannelCount(ChannelClass channelClass)
+    {
+        if (channelClass == null)
+        {
+            return 0;
+        }
+
+        switch (channelClass)
+        {
+            case CONSTANT: return constantChannels.length;
+            case STEP:     return stepChannels.length;
+            case LINEAR:   return linearChannels.length;
+            default:       return curvedChannels.length;
+        }
+    }
+
+
+    /**
+     * Get the number of bytes of the samples of the original clip.
+     *
+     * @return
+     *         (4 * keyCount * channelCount).
+     */
+    public long getOriginalSize()
+    {
+        return 4L * times.length * channelCount;
+    }
+
+
+    /**
+     * Get the number of bytes of the compacted channels, excluding the
+     * key times, which are shared with the original clip.
+     *
+     * @return
+     *         The number of bytes of the arrays which hold the channels
+     *         and the lists of segment changes per key.
+     */
+    public long getCompactSize()
+    {
+        long ints   = constantChannels.length
+                    + stepChannels.length + stepStarts.length + stepKeys.length
+                    + stepEventStarts.length + stepEventChannels.length * 2
+                    + linearChannels.length + linearStarts.length + linearKeys.length
+                    + linearEventStarts.length + linearEventChannels.length * 2
+                    + curvedChannels.length;
+        long floats = constantValues.length + stepValues.length + linearValues.length + curvedValues.length;
+
+        return 4L * (ints + floats);
+    }
+
+
+    /**
+     * Calculate the values of all the channels at the specified time.
+     *
+     * <p>
+     * If 'time' is before the first key or after the last one, the
+     * values at the first or last key are used.
+     * </p>
+     *
+     * @param time
+     *         Time.
+     *
+     * @param output
+     *         A place into which the values are put. The value of the
+     *         channel c is put at the index c. The length of the array
+     *         must be equal to or greater than the channel count.
+     *
+     * @throws IllegalArgumentException
+     *         'output' is null or its length is less than the channel count.
+     */
+    public void evaluate(float time, float[] output)
+    {
+        if (output == null)
+        {
+            throw new IllegalArgumentException("output == null");
+        }
+
+        if (output.length < channelCount)
+        {
+            throw new IllegalArgumentException("output.length < channelCount");
+        }
+
+        // Find the key interval once for all the channels.
+        int last = times.length - 1;
+        int key;
+        float ratio;
+
+        if (time <= times[0])
+        {
+            time  = times[0];
+            key   = 0;
+            ratio = 0;
+        }
+        else if (times[last] <= time)
+        {
+            time  = times[last];
+            key   = last;
+            ratio = 0;
+        }
+        else
+        {
+            key   = findKey(times, 0, last, time);
+            ratio = (time - times[key]) / (times[key + 1] - times[key]);
+        }
+
+        for (int i = 0; i < constantChannels.length; ++i)
+        {
+            output[constantChannels[i]] = constantValues[i];
+        }
+
+        if (key != currentKey)
+        {
+            moveTo(key);
+        }
+
+        for (int i = 0; i < stepChannels.length; ++i)
+        {
+            output[stepChannels[i]] = stepCurrentValues[i];
+        }
+
+        for (int i = 0; i < linearChannels.length; ++i)
+        {
+            output[linearChannels[i]] = linearBaseValues[i] + linearSlopes[i] * (time - linearBaseTimes[i]);
+        }
+
+        int count = curvedChannels.length;
+        int row0  = key * count;
+        int row1  = Math.min(key + 1, last) * count;
+
+        for (int i = 0; i < count; ++i)
+        {
+            float v0 = curvedValues[row0 + i];
+            float v1 = curvedValues[row1 + i];
+
+            output[curvedChannels[i]] = v0 + (v1 - v0) * ratio;
+        }
+    }
+
+
+    /**
+     * Find the last index in [low, high] whose time is equal to or less
+     * than 'time'. times[low] must be less than 'time'.
+     */
+    private static int findKey(float[] times, int low, int high, float time)
+    {
+        while (low + 1 < high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if (times[middle] <= time)
+            {
+                low = middle;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+
+    /**
+     * Update the current segments of step and linear channels for the key.
+     */
+    private void moveTo(int key)
+    {
+        int first = currentKey + 1;
+
+        currentKey = key;
+
+        if (key < first ||
+            stepChannels.length + linearChannels.length <
+            stepEventStarts[key + 1] - stepEventStarts[first] +
+            linearEventStarts[key + 1] - linearEventStarts[first])
+        {
+            // Backward, or applying the changes costs more than searching.
+            selectAll(key);
+            return;
+        }
+
+        for (int e = stepEventStarts[first]; e < stepEventStarts[key + 1]; ++e)
+        {
+            stepCurrentValues[stepEventChannels[e]] = stepValues[stepEventIndexes[e]];
+        }
+
+        for (int e = linearEventStarts[first]; e < linearEventStarts[key + 1]; ++e)
+        {
+            setLinearSegment(linearEventChannels[e], linearEventIndexes[e]);
+        }
+    }
+
+
+    /**
+     * Select the segments of all the step and linear channels for the key.
+     */
+    private void selectAll(int key)
+    {
+        currentKey = key;
+
+        for (int i = 0; i < stepChannels.length; ++i)
+        {
+            int index = findIndex(stepKeys, stepStarts[i], stepStarts[i + 1] - 1, key);
+
+            stepCurrentValues[i] = stepValues[index];
+        }
+
+        for (int i = 0; i < linearChannels.length; ++i)
+        {
+            // The last key is covered by the last segment.
+            int index = findIndex(linearKeys, linearStarts[i], linearStarts[i + 1] - 2, key);
+
+            setLinearSegment(i, index);
+        }
+    }
+
+
+    /**
+     * Set the segment of the i-th LINEAR channel which starts at the
+     * index in linearKeys and linearValues.
+     */
+    private void setLinearSegment(int i, int index)
+    {
+        int k0 = linearKeys[index];
+        int k1 = linearKeys[index + 1];
+
+        linearBaseTimes[i]  = times[k0];
+        linearBaseValues[i] = linearValues[index];
+        linearSlopes[i]     = (linearValues[index + 1] - linearValues[index]) / (times[k1] - times[k0]);
+    }
+
+
+    /**
+     * Find the last index in [low, high] whose key is equal to or less
+     * than 'key'. keys[low] is 0, so such an index always exists.
+     */
+    private static int findIndex(int[] keys, int low, int high, int key)
+    {
+        while (low < high)
+        {
+            int middle = (low + high + 1) >>> 1;
+
+            if (keys[middle] <= key)
+            {
+                low = middle;
+            }
+            else
+            {
+                high = middle - 1;
+            }
+        }
+
+        return low;
+    }
+}
@@ -34,7 +34,7 @@ import java.util.List;
  * is called, {@link Interpolator#interpolate(float[], float[], int, float, float[])
  * interpolator()} method of each registered interpolator is executed one by one and
  * the calculated values are accumulated. The logic of the accumulation is implemented
- * in {@link #accumulate(float[], float, float[]) accumulate()} method and the method
+ * in {@link #accumulate(float[], int, float, float[]) accumulate()} method and the method
  * can be overridden if necessary.
  * </p>
  *
@@ -80,6 +80,16 @@ public class CompositeInterpolator extends InterpolatorBase
     private List<Entry> entryList;
 
 
+    /**
+     * Work buffers to hold one interpolated value. A buffer is kept per
+     * thread because an interpolator may be shared by threads. It only
+     * grows, so calls with different component counts do not create
+     * buffers again and again. Only the first componentCount elements
+     * are used.
+     */
+    private final ThreadLocal<float[]> workBuffers = new ThreadLocal<float[]>();
+
+
     /**
      * A pair of {@link Interpolator} and weight.
      *
@@ -166,11 +176,14 @@ public class CompositeInterpolator extends InterpolatorBase
         Arrays.fill(output, 0, componentCount, 0.0F);
 
         // A work buffer to hold one interpolated value.
-        float[] work = new float[componentCount];
+        float[] work = getWorkBuffer(componentCount);
 
-        // For each interpolator.
-        for (Entry entry : entryList)
+        // For each interpolator. An index is used instead of an iterator
+        // so that no object is created.
+        for (int i = 0; i < entryList.size(); ++i)
         {
+            Entry entry = entryList.get(i);
+
             // Interpolator.
             Interpolator interpolator = entry.getInterpolator();
 
@@ -178,14 +191,29 @@ public class CompositeInterpolator extends InterpolatorBase
             float weight = entry.getWeight();
 
             // Clear the work buffer.
-            Arrays.fill(work, 0.0F);
+            Arrays.fill(work, 0, componentCount, 0.0F);
 
             // Let the interpolater interpolate and store the output to 'work'.
             interpolator.interpolate(from, to, componentCount, timeRatio, work);
 
             // Accumulate the interpolated value and update the output array.
-            accumulate(work, weight, output);
+            accumulate(work, componentCount, weight, output);
+        }
+    }
+
+
+    private float[] getWorkBuffer(int componentCount)
+    {
+        float[] work = workBuffers.get();
+
+        if (work == null || work.length < componentCount)
+        {
+            // Grow only.
+            work = new float[componentCount];
+            workBuffers.set(work);
         }
+
+        return work;
     }
 
 
@@ -198,7 +226,7 @@ public class CompositeInterpolator extends InterpolatorBase
      *
      * <pre style="background-color: lightgray;">
      *
-     * for (int i = 0; i < value.length; ++i)
+     * for (int i = 0; i &lt; componentCount; ++i)
      * {
      *     output[i] += value[i] * weight;
      * }
@@ -211,7 +239,14 @@ public class CompositeInterpolator extends InterpolatorBase
      * </p>
      *
      * @param value
-     *         An interpolated value by an interpolator.
+     *         An interpolated value by an interpolator. The array may be
+     *         longer than the component count, so only the first
+     *         componentCount elements must be used.
+     *
+     * @param componentCount
+     *         The 'componentCount' argument passed to {@link
+     *         #doInterpolate(float[], float[], int, float, float[])
+     *         doInterpolate()}.
      *
      * @param weight
      *         A weight value specified when the interpolator was registered
@@ -221,10 +256,10 @@ public class CompositeInterpolator extends InterpolatorBase
      *         The 'output' argument passed to {@link #doInterpolate(float[],
      *         float[], int, float, float[]) doInterpolate()}.
      */
-    protected void accumulate(float[] value, float weight, float[] output)
+    protected void accumulate(float[] value, int componentCount, float weight, float[] output)
     {
         // The default accumulation behavior.
-        for (int i = 0; i < value.length; ++i)
+        for (int i = 0; i < componentCount; ++i)
         {
             output[i] += value[i] * weight;
         }
@@ -236,7 +271,7 @@ public class CompositeInterpolator extends InterpolatorBase
      *
      * <p>
      * The way that the weight is used depends on the implementation of
-     * {@link #accumulate(float[], float, float[]) accumulate()} method.
+     * {@link #accumulate(float[], int, float, float[]) accumulate()} method.
      * </p>
      *
      * @param interpolator
@@ -0,0 +1,473 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Interpolator of rigid transforms represented by unit dual quaternions.
+ *
+ * <p>
+ * A dual quaternion occupies 8 components: the real part (x, y, z, w),
+ * which is the rotation, followed by the dual part (x, y, z, w), which
+ * is (0.5 * translation * rotation). The component count given to {@link
+ * #interpolate(float[], float[], int, float, float[]) interpolate()} must
+ * be a multiple of 8, and packed dual quaternions are interpolated in
+ * one call. Unlike blending matrices, blending dual quaternions keeps
+ * transforms rigid, so skinned meshes do not collapse at twisted joints
+ * (the "candy-wrapper" artifact).
+ * </p>
+ *
+ * <p>
+ * {@link #blend(float[], int[], float[], int, int, float[])} blends many
+ * bones with weights for skinning. {@link #set(float[], float[], float[],
+ * int)} and {@link #getTranslation(float[], int, float[])} convert rotations
+ * and translations from and into dual quaternions. None of the methods
+ * creates an object.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class DualQuaternionInterpolator extends InterpolatorBase
+{
+    private static final int SIZE = 8;
+
+
+    private DualQuaternionMode mode = DualQuaternionMode.SCLERP;
+
+
+    /**
+     * The default constructor with the default mode,
+     * {@link DualQuaternionMode#SCLERP}.
+     */
+    public DualQuaternionInterpolator()
+    {
+    }
+
+
+    /**
+     * A constructor with a mode.
+     *
+     * @param mode
+     *         An interpolation mode.
+     *
+     * @throws IllegalArgumentException
+     *         The argument is null.
+     */
+    public DualQuaternionInterpolator(DualQuaternionMode mode)
+    {
+        this.mode = checkMode(mode);
+    }
+
+
+    /**
+     * Get the interpolation mode. The default value is
+     * {@link DualQuaternionMode#SCLERP}.
+     *
+     * @return
+     *         The interpolation mode.
+     */
+    public DualQuaternionMode getMode()
+    {
+        return mode;
+    }
+
+
+    /**
+     * Set an interpolation mode.
+     *
+     * @param mode
+     *         An interpolation mode.
+     *
+     * @throws IllegalArgumentException
+     *         The argument is null.
+     */
+    public void setMode(DualQuaternionMode mode)
+    {
+        this.mode = checkMode(mode);
+    }
+
+
+    /**
+     * Check that the component count is a multiple of 8. This is done
+     * on every call of {@link #interpolate(float[], float[], int, float,
+     * float[]) interpolate()}, even when 'timeRatio' is 0 or 1.
+     */
+    @Override
+    protected final void checkComponentCount(int componentCount)
+    {
+        if (componentCount % SIZE != 0)
+        {
+            throw new IllegalArgumentException("componentCount is not a multiple of 8");
+        }
+    }
+
+
+    @Override
+    protected final void doInterpolate(float[] from, float[] to, int componentCount, float timeRatio, float[] output)
+    {
+        if (mode == DualQuaternionMode.DLB)
+        {
+            for (int offset = 0; offset < componentCount; offset += SIZE)
+            {
+                dlb(from, to, offset, timeRatio, output);
+            }
+        }
+        else
+        {
+            for (int offset = 0; offset < componentCount; offset += SIZE)
+            {
+                sclerp(from, to, offset, timeRatio, output);
+            }
+        }
+    }
+
+
+    private static void dlb(float[] from, float[] to, int offset, float timeRatio, float[] output)
+    {
+        float k0 = 1 - timeRatio;
+        float k1 = timeRatio;
+
+        // Take the shorter path.
+        if (QuaternionMath.dot(from, offset, to, offset) < 0)
+        {
+            k1 = -k1;
+        }
+
+        for (int i = offset; i < offset + SIZE; ++i)
+        {
+            output[i] = from[i] * k0 + to[i] * k1;
+        }
+
+        normalize(output, offset);
+    }
+
+
+    private static void sclerp(float[] from, float[] to, int offset, float timeRatio, float[] output)
+    {
+        float sign = (QuaternionMath.dot(from, offset, to, offset) < 0) ? -1 : 1;
+
+        // The real and the dual parts of 'from'.
+        float ax = from[offset],     ay = from[offset + 1], az = from[offset + 2], aw = from[offset + 3];
+        float bx = from[offset + 4], by = from[offset + 5], bz = from[offset + 6], bw = from[offset + 7];
+
+        // The real and the dual parts of 'to', in the same hemisphere as 'from'.
+        float cx = to[offset] * sign,     cy = to[offset + 1] * sign, cz = to[offset + 2] * sign, cw = to[offset + 3] * sign;
+        float dx = to[offset + 4] * sign, dy = to[offset + 5] * sign, dz = to[offset + 6] * sign, dw = to[offset + 7] * sign;
+
+        // The difference: conjugate(from) * to.
+        //   real = a* c
+        //   dual = a* d + b* c
+        float rx = aw * cx - ax * cw - ay * cz + az * cy;
+        float ry = aw * cy + ax * cz - ay * cw - az * cx;
+        float rz = aw * cz - ax * cy + ay * cx - az * cw;
+        float rw = aw * cw + ax * cx + ay * cy + az * cz;
+
+        float ex = (aw * dx - ax * dw - ay * dz + az * dy) + (bw * cx - bx * cw - by * cz + bz * cy);
+        float ey = (aw * dy + ax * dz - ay * dw - az * dx) + (bw * cy + bx * cz - by * cw - bz * cx);
+        float ez = (aw * dz - ax * dy + ay * dx - az * dw) + (bw * cz - bx * cy + by * cx - bz * cw);
+        float ew = (aw * dw + ax * dx + ay * dy + az * dz) + (bw * cw + bx * cx + by * cy + bz * cz);
+
+        // Raise the difference to the power of 'timeRatio' via its screw parameters.
+        float sinHalf = (float)Math.sqrt(rx * rx + ry * ry + rz * rz);
+
+        if (sinHalf < 1.0e-6f)
+        {
+            // Pure translation: the real part stays identity.
+            rx = 0;
+            ry = 0;
+            rz = 0;
+            rw = 1;
+            ex *= timeRatio;
+            ey *= timeRatio;
+            ez *= timeRatio;
+            ew *= timeRatio;
+        }
+        else
+        {
+            float inverse = 1 / sinHalf;
+
+            // Axis 'l', angle 'theta', pitch 'p' and moment 'm'.
+            float lx = rx * inverse, ly = ry * inverse, lz = rz * inverse;
+            double theta = 2 * Math.atan2(sinHalf, rw);
+            float p  = -2 * ew * inverse;
+            float mx = (ex - lx * p * 0.5f * rw) * inverse;
+            float my = (ey - ly * p * 0.5f * rw) * inverse;
+            float mz = (ez - lz * p * 0.5f * rw) * inverse;
+
+            double half = theta * timeRatio * 0.5;
+            float s = (float)Math.sin(half);
+            float c = (float)Math.cos(half);
+            float halfPitch = p * timeRatio * 0.5f;
+
+            rx = lx * s;
+            ry = ly * s;
+            rz = lz * s;
+            rw = c;
+            ex = mx * s + lx * halfPitch * c;
+            ey = my * s + ly * halfPitch * c;
+            ez = mz * s + lz * halfPitch * c;
+            ew = -halfPitch * s;
+        }
+
+        // from * difference^timeRatio
+        //   real = a r
+        //   dual = a e + b r
+        output[offset]     = aw * rx + ax * rw + ay * rz - az * ry;
+        output[offset + 1] = aw * ry - ax * rz + ay * rw + az * rx;
+        output[offset + 2] = aw * rz + ax * ry - ay * rx + az * rw;
+        output[offset + 3] = aw * rw - ax * rx - ay * ry - az * rz;
+        output[offset + 4] = (aw * ex + ax * ew + ay * ez - az * ey) + (bw * rx + bx * rw + by * rz - bz * ry);
+        output[offset + 5] = (aw * ey - ax * ez + ay * ew + az * ex) + (bw * ry - bx * rz + by * rw + bz * rx);
+        output[offset + 6] = (aw * ez + ax * ey - ay * ex + az * ew) + (bw * rz + bx * ry - by * rx + bz * rw);
+        output[offset + 7] = (aw * ew - ax * ex - ay * ey - az * ez) + (bw * rw - bx * rx - by * ry - bz * rz);
+    }
+
+
+    /**
+     * Blend dual quaternions of bones with weights (dual quaternion
+     * linear blending) for each vertex.
+     *
+     * <p>
+     * Each vertex is influenced by 'influenceCount' bones. The j-th
+     * influence of the vertex i is the bone {@code boneIndices[i *
+     * influenceCount + j]} with the weight {@code weights[i * influenceCount
+     * + j]}. Each bone is flipped if necessary so that it is in the same
+     * hemisphere as the first influence of the vertex. The result is
+     * normalized. A vertex whose weights sum to 0 gets the identity.
+     * </p>
+     *
+     * @param bones
+     *         Dual quaternions of bones. The i-th bone starts at (i * 8).
+     *
+     * @param boneIndices
+     *         Bone indexes of the influences.
+     *
+     * @param weights
+     *         Weights of the influences.
+     *
+     * @param influenceCount
+     *         The number of influences per vertex.
+     *
+     * @param vertexCount
+     *         The number of vertices.
+     *
+     * @param output
+     *         A place into which the blended dual quaternions are put.
+     *         The result for the vertex i starts at (i * 8).
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>An array is null.</li>
+     * <li>'influenceCount' is less than 1 or 'vertexCount' is less than 0.</li>
+     * <li>'boneIndices' or 'weights' is shorter than (vertexCount * influenceCount).</li>
+     * <li>'output' is shorter than (vertexCount * 8).</li>
+     * </ul>
+     *
+     * @throws ArrayIndexOutOfBoundsException
+     *         A bone index is out of range.
+     */
+    public static void blend(float[] bones, int[] boneIndices, float[] weights, int influenceCount, int vertexCount, float[] output)
+    {
+        if (bones == null)
+        {
+            throw new IllegalArgumentException("bones == null");
+        }
+
+        if (boneIndices == null)
+        {
+            throw new IllegalArgumentException("boneIndices == null");
+        }
+
+        if (weights == null)
+        {
+            throw new IllegalArgumentException("weights == null");
+        }
+
+        if (output == null)
+        {
+            throw new IllegalArgumentException("output == null");
+        }
+
+        if (influenceCount < 1)
+        {
+            throw new IllegalArgumentException("influenceCount < 1");
+        }
+
+        if (vertexCount < 0)
+        {
+            throw new IllegalArgumentException("vertexCount < 0");
+        }
+
+        int influences = vertexCount * influenceCount;
+
+        if (boneIndices.length < influences || weights.length < influences)
+        {
+            throw new IllegalArgumentException("boneIndices or weights is too short");
+        }
+
+        if (output.length < vertexCount * SIZE)
+        {
+            throw new IllegalArgumentException("output.length < vertexCount * 8");
+        }
+
+        for (int vertex = 0, j = 0; vertex < vertexCount; ++vertex)
+        {
+            int offset = vertex * SIZE;
+            int pivot  = boneIndices[j] * SIZE;
+            float x0 = 0, y0 = 0, z0 = 0, w0 = 0;
+            float x1 = 0, y1 = 0, z1 = 0, w1 = 0;
+
+            for (int end = j + influenceCount; j < end; ++j)
+            {
+                int bone = boneIndices[j] * SIZE;
+                float weight = weights[j];
+
+                if (QuaternionMath.dot(bones, pivot, bones, bone) < 0)
+                {
+                    weight = -weight;
+                }
+
+                x0 += bones[bone]     * weight;
+                y0 += bones[bone + 1] * weight;
+                z0 += bones[bone + 2] * weight;
+                w0 += bones[bone + 3] * weight;
+                x1 += bones[bone + 4] * weight;
+                y1 += bones[bone + 5] * weight;
+                z1 += bones[bone + 6] * weight;
+                w1 += bones[bone + 7] * weight;
+            }
+
+            output[offset]     = x0;
+            output[offset + 1] = y0;
+            output[offset + 2] = z0;
+            output[offset + 3] = w0;
+            output[offset + 4] = x1;
+            output[offset + 5] = y1;
+            output[offset + 6] = z1;
+            output[offset + 7] = w1;
+
+            normalize(output, offset);
+        }
+    }
+
+
+    /**
+     * Make a dual quaternion from a rotation and a translation.
+     *
+     * @param rotation
+     *         A unit quaternion (x, y, z, w).
+     *
+     * @param translation
+     *         A translation (x, y, z).
+     *
+     * @param output
+     *         A place into which the dual quaternion is put.
+     *
+     * @param offset
+     *         The position in 'output' at which the dual quaternion is put.
+     */
+    public static void set(float[] rotation, float[] translation, float[] output, int offset)
+    {
+        float x = rotation[0], y = rotation[1], z = rotation[2], w = rotation[3];
+        float tx = translation[0] * 0.5f, ty = translation[1] * 0.5f, tz = translation[2] * 0.5f;
+
+        output[offset]     = x;
+        output[offset + 1] = y;
+        output[offset + 2] = z;
+        output[offset + 3] = w;
+
+        // (0.5 * translation) * rotation
+        output[offset + 4] =  tx * w + ty * z - tz * y;
+        output[offset + 5] = -tx * z + ty * w + tz * x;
+        output[offset + 6] =  tx * y - ty * x + tz * w;
+        output[offset + 7] = -tx * x - ty * y - tz * z;
+    }
+
+
+    /**
+     * Extract the translation from a unit dual quaternion. The rotation
+     * is the real part as is.
+     *
+     * @param dualQuaternion
+     *         A unit dual quaternion.
+     *
+     * @param offset
+     *         The position in 'dualQuaternion' at which the dual quaternion starts.
+     *
+     * @param translation
+     *         A place into which the translation (x, y, z) is put.
+     */
+    public static void getTranslation(float[] dualQuaternion, int offset, float[] translation)
+    {
+        float ax = dualQuaternion[offset],     ay = dualQuaternion[offset + 1];
+        float az = dualQuaternion[offset + 2], aw = dualQuaternion[offset + 3];
+        float bx = dualQuaternion[offset + 4], by = dualQuaternion[offset + 5];
+        float bz = dualQuaternion[offset + 6], bw = dualQuaternion[offset + 7];
+
+        // translation = 2 * dual * conjugate(real)
+        translation[0] = 2 * (-bw * ax + bx * aw - by * az + bz * ay);
+        translation[1] = 2 * (-bw * ay + bx * az + by * aw - bz * ax);
+        translation[2] = 2 * (-bw * az - bx * ay + by * ax + bz * aw);
+    }
+
+
+    /**
+     * Normalize a dual quaternion: divide it by the length of the real
+     * part and make the dual part orthogonal to the real part.
+     */
+    private static void normalize(float[] q, int offset)
+    {
+        float length = (float)Math.sqrt(QuaternionMath.dot(q, offset, q, offset));
+
+        if (length == 0)
+        {
+            q[offset]     = 0;
+            q[offset + 1] = 0;
+            q[offset + 2] = 0;
+            q[offset + 3] = 1;
+            q[offset + 4] = 0;
+            q[offset + 5] = 0;
+            q[offset + 6] = 0;
+            q[offset + 7] = 0;
+            return;
+        }
+
+        float inverse = 1 / length;
+
+        for (int i = offset; i < offset + SIZE; ++i)
+        {
+            q[i] *= inverse;
+        }
+
+        float d = QuaternionMath.dot(q, offset, q, offset + 4);
+
+        for (int i = 0; i < 4; ++i)
+        {
+            q[offset + 4 + i] -= q[offset + i] * d;
+        }
+    }
+
+
+    private static DualQuaternionMode checkMode(DualQuaternionMode mode)
+    {
+        if (mode == null)
+        {
+            throw new IllegalArgumentException("mode == null");
+        }
+
+        return mode;
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Interpolation mode of {@link DualQuaternionInterpolator}.
+ *
+ * @author Takahiko Kawasaki
+ */
+public enum DualQuaternionMode
+{
+    /**
+     * Screw linear interpolation. The transform moves along a screw
+     * motion at a constant speed. Exact but more expensive.
+     */
+    SCLERP,
+
+    /**
+     * Dual quaternion linear blending. The dual quaternions are blended
+     * linearly and normalized. Cheap, and close to {@link #SCLERP}
+     * unless the two transforms differ a lot.
+     */
+    DLB
+    ;
+}
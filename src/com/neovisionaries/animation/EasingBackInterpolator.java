@@ -61,6 +61,8 @@ public class EasingBackInterpolator extends EasingInterpolator
     public void setAmplitude(float amplitude)
     {
         this.amplitude = checkAmplitude(amplitude);
+
+        parametersChanged();
     }
 
 
@@ -71,6 +73,38 @@ public class EasingBackInterpolator extends EasingInterpolator
     }
 
 
+    @Override
+    protected final float doEasingDerivative(float timeRatio)
+    {
+        double angle = timeRatio * Math.PI;
+
+        return (float)(3 * timeRatio * timeRatio - amplitude * (Math.sin(angle) + angle * Math.cos(angle)));
+    }
+
+
+    @Override
+    protected final float doEasingSecondDerivative(float timeRatio)
+    {
+        double angle = timeRatio * Math.PI;
+
+        return (float)(6 * timeRatio - amplitude * Math.PI * (2 * Math.cos(angle) - angle * Math.sin(angle)));
+    }
+
+
+    /**
+     * Check if the easing is monotonic.
+     *
+     * @return
+     *         true only when the amplitude is 0. Otherwise, the easing
+     *         goes below 0 before it rises.
+     */
+    @Override
+    public boolean isMonotonic()
+    {
+        return amplitude == 0;
+    }
+
+
     private static float checkAmplitude(float amplitude)
     {
         if (amplitude < 0)
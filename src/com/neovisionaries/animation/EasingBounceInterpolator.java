@@ -62,6 +62,8 @@ public class EasingBounceInterpolator extends EasingInterpolator
     public void setBounceCount(int bounceCount)
     {
         this.bounceCount = checkBounceCount(bounceCount);
+
+        parametersChanged();
     }
 
 
@@ -88,16 +90,51 @@ public class EasingBounceInterpolator extends EasingInterpolator
     public void setBounciness(float bounciness)
     {
         this.bounciness = checkBounciness(bounciness);
+
+        parametersChanged();
     }
 
 
     @Override
     protected final float doEasing(float timeRatio)
+    {
+        return (float)evaluate(timeRatio, 0);
+    }
+
+
+    @Override
+    protected final float doEasingDerivative(float timeRatio)
+    {
+        return (float)evaluate(timeRatio, 1);
+    }
+
+
+    @Override
+    protected final float doEasingSecondDerivative(float timeRatio)
+    {
+        return (float)evaluate(timeRatio, 2);
+    }
+
+
+    /**
+     * Evaluate the bounce or its derivative.
+     *
+     * <p>
+     * Each bounce is a parabola {@code (-a / r^2) * (d - r) * (d + r)}
+     * where 'd' is the distance from the middle of the bounce, so the
+     * derivatives are {@code -2 * a * d / r^2} and {@code -2 * a / r^2}.
+     * </p>
+     *
+     * @param order
+     *         0 for the value, 1 for the derivative and 2 for the
+     *         second derivative.
+     */
+    private double evaluate(float timeRatio, int order)
     {
         double b1 = (bounciness == 1 ? 1.001 : bounciness);
         double b2 = 1 - b1;
         double p = 1 - Math.pow(b1, bounceCount);
-        double q = ((1 - p) / b2 + p * 0.5) * b2;
+        double q = (p / b2 + (1 - p) * 0.5) * b2;
         double f = Math.floor(Math.log(-timeRatio * q + 1) / Math.log(b1));
         double s = (1 - Math.pow(b1, f)) / q;
         double e = (1 - Math.pow(b1, f + 1)) / q;
@@ -106,7 +143,30 @@ public class EasingBounceInterpolator extends EasingInterpolator
         double d = timeRatio - m;
         double a = Math.pow(1 / b1, bounceCount - f);
 
-        return (float)((-a / (r * r)) * (d - r) * (d + r));
+        switch (order)
+        {
+            case 0:
+                return (-a / (r * r)) * (d - r) * (d + r);
+
+            case 1:
+                return -2 * a * d / (r * r);
+
+            default:
+                return -2 * a / (r * r);
+        }
+    }
+
+
+    /**
+     * Check if the easing is monotonic.
+     *
+     * @return
+     *         Always false.
+     */
+    @Override
+    public boolean isMonotonic()
+    {
+        return false;
     }
 
 
@@ -40,4 +40,27 @@ public class EasingCircleInterpolator extends EasingInterpolator
     {
         return (float)(1 - Math.sqrt(1 - timeRatio * timeRatio));
     }
+
+
+    @Override
+    protected final float doEasingDerivative(float timeRatio)
+    {
+        return (float)(timeRatio / Math.sqrt(1 - timeRatio * timeRatio));
+    }
+
+
+    @Override
+    protected final float doEasingSecondDerivative(float timeRatio)
+    {
+        double s = 1 - timeRatio * timeRatio;
+
+        return (float)(1 / (s * Math.sqrt(s)));
+    }
+
+
+    @Override
+    protected final float doInverseEasing(float value)
+    {
+        return (float)Math.sqrt(value * (2 - value));
+    }
 }
@@ -40,4 +40,25 @@ public class EasingCubicInterpolator extends EasingInterpolator
     {
         return (float)Math.pow(timeRatio, 3);
     }
+
+
+    @Override
+    protected final float doEasingDerivative(float timeRatio)
+    {
+        return 3 * timeRatio * timeRatio;
+    }
+
+
+    @Override
+    protected final float doEasingSecondDerivative(float timeRatio)
+    {
+        return 6 * timeRatio;
+    }
+
+
+    @Override
+    protected final float doInverseEasing(float value)
+    {
+        return (float)Math.cbrt(value);
+    }
 }
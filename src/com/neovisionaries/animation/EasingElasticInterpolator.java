@@ -62,6 +62,8 @@ public class EasingElasticInterpolator extends EasingInterpolator
     public void setOscillationCount(int oscillationCount)
     {
         this.oscillationCount = checkOscillationCount(oscillationCount);
+
+        parametersChanged();
     }
 
 
@@ -88,23 +90,97 @@ public class EasingElasticInterpolator extends EasingInterpolator
     public void setSpringiness(float springiness)
     {
         this.springiness = checkSpringiness(springiness);
+
+        parametersChanged();
     }
 
 
     @Override
     protected final float doEasing(float timeRatio)
     {
+        return (float)evaluate(timeRatio, 0);
+    }
+
+
+    @Override
+    protected final float doEasingDerivative(float timeRatio)
+    {
+        return (float)evaluate(timeRatio, 1);
+    }
+
+
+    @Override
+    protected final float doEasingSecondDerivative(float timeRatio)
+    {
+        return (float)evaluate(timeRatio, 2);
+    }
+
+
+    /**
+     * Evaluate the elastic curve or its derivative.
+     *
+     * <p>
+     * The curve is the product of an exponential envelope 'g' and
+     * {@code sin(w * t)}, so the derivatives are obtained by the
+     * product rule.
+     * </p>
+     *
+     * @param order
+     *         0 for the value, 1 for the derivative and 2 for the
+     *         second derivative.
+     */
+    private double evaluate(float timeRatio, int order)
+    {
+        double g0;
+        double g1;
+        double g2;
+
         if (springiness == 0)
         {
-            return timeRatio;
+            g0 = timeRatio;
+            g1 = 1;
+            g2 = 0;
         }
         else
         {
-            return (float)((Math.exp(springiness * timeRatio) - 1) / (Math.exp(springiness) - 1));
+            double scale = 1 / (Math.exp(springiness) - 1);
+            double exp   = Math.exp(springiness * timeRatio);
+
+            g0 = (exp - 1) * scale;
+            g1 = springiness * exp * scale;
+            g2 = springiness * g1;
+        }
+
+        double w   = 2 * Math.PI * oscillationCount + Math.PI / 2;
+        double sin = Math.sin(w * timeRatio);
+
+        switch (order)
+        {
+            case 0:
+                return g0 * sin;
+
+            case 1:
+                return g1 * sin + g0 * w * Math.cos(w * timeRatio);
+
+            default:
+                return g2 * sin + 2 * g1 * w * Math.cos(w * timeRatio) - g0 * w * w * sin;
         }
     }
 
 
+    /**
+     * Check if the easing is monotonic.
+     *
+     * @return
+     *         true only when the count of oscillations is 0.
+     */
+    @Override
+    public boolean isMonotonic()
+    {
+        return oscillationCount == 0;
+    }
+
+
     private static int checkOscillationCount(int oscillationCount)
     {
         if (oscillationCount < 0)
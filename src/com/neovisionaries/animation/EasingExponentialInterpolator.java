@@ -58,6 +58,8 @@ public class EasingExponentialInterpolator extends EasingInterpolator
     public void setExponent(float exponent)
     {
         this.exponent = exponent;
+
+        parametersChanged();
     }
 
 
@@ -73,4 +75,42 @@ public class EasingExponentialInterpolator extends EasingInterpolator
             return (float)((Math.exp(exponent * timeRatio) - 1) / (Math.exp(exponent) - 1));
         }
     }
+
+
+    @Override
+    protected final float doEasingDerivative(float timeRatio)
+    {
+        if (exponent == 0)
+        {
+            return 1;
+        }
+
+        return (float)(exponent * Math.exp(exponent * timeRatio) / (Math.exp(exponent) - 1));
+    }
+
+
+    @Override
+    protected final float doEasingSecondDerivative(float timeRatio)
+    {
+        if (exponent == 0)
+        {
+            return 0;
+        }
+
+        return (float)(exponent * exponent * Math.exp(exponent * timeRatio) / (Math.exp(exponent) - 1));
+    }
+
+
+    @Override
+    protected final float doInverseEasing(float value)
+    {
+        if (exponent == 0)
+        {
+            return value;
+        }
+        else
+        {
+            return (float)(Math.log(value * (Math.exp(exponent) - 1) + 1) / exponent);
+        }
+    }
 }
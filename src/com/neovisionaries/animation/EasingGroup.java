@@ -0,0 +1,324 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * A group of animated values which share one easing and one timeline.
+ *
+ * <p>
+ * When many values are animated by the same {@link EasingInterpolator}
+ * with the same start time and duration, calling {@link
+ * Interpolator#interpolate(float[], float[], int, float, float[])
+ * interpolate()} for each of them calculates the same eased time ratio
+ * again and again. This class calculates the eased time ratio only once
+ * per {@link #update(float) update()} by {@link EasingInterpolator#ease(float)}
+ * and then blends all the members in a single loop over packed arrays.
+ * The same blending formula as that of {@link EasingInterpolator} is
+ * used for each member.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * {@link EasingGroup} group = new {@link #EasingGroup(EasingInterpolator, int, int)
+ * EasingGroup}(new {@link EasingBounceInterpolator}(), 10000, 2);
+ *
+ * for (......)
+ * {
+ *     group.{@link #add(float[], float[]) add}(from, to);
+ * }
+ *
+ * group.{@link #setTimeline(float, float) setTimeline}(startTime, duration);
+ *
+ * <span style="color: darkgreen;">// For each frame.</span>
+ * group.{@link #update(float) update}(time);
+ * float[] output = group.{@link #getOutput()};
+ * </pre>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class EasingGroup
+{
+    private final int componentCount;
+    private final float[] froms;
+    private final float[] tos;
+    private final float[] output;
+    private EasingInterpolator easing;
+    private float startTime;
+    private float duration;
+    private int memberCount;
+
+
+    /**
+     * A constructor.
+     *
+     * @param easing
+     *         The easing shared by the members.
+     *
+     * @param capacity
+     *         The maximum number of members.
+     *
+     * @param componentCount
+     *         The component count of each member.
+     *
+     * @throws IllegalArgumentException
+     *         'easing' is null, or 'capacity' or 'componentCount' is
+     *         less than 1.
+     */
+    public EasingGroup(EasingInterpolator easing, int capacity, int componentCount)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity < 1");
+        }
+
+        if (componentCount < 1)
+        {
+            throw new IllegalArgumentException("componentCount < 1");
+        }
+
+        setEasing(easing);
+
+        this.componentCount = componentCount;
+        this.froms          = new float[capacity * componentCount];
+        this.tos            = new float[capacity * componentCount];
+        this.output         = new float[capacity * componentCount];
+    }
+
+
+    /**
+     * Get the easing shared by the members.
+     *
+     * @return
+     *         The easing.
+     */
+    public EasingInterpolator getEasing()
+    {
+        return easing;
+    }
+
+
+    /**
+     * Set the easing shared by the members.
+     *
+     * @param easing
+     *         An easing.
+     *
+     * @throws IllegalArgumentException
+     *         'easing' is null.
+     */
+    public void setEasing(EasingInterpolator easing)
+    {
+        if (easing == null)
+        {
+            throw new IllegalArgumentException("easing is null");
+        }
+
+        this.easing = easing;
+    }
+
+
+    /**
+     * Set the timeline shared by the members.
+     *
+     * @param startTime
+     *         The start time.
+     *
+     * @param duration
+     *         The duration. 0 makes the members jump to their final
+     *         values at the start time.
+     *
+     * @throws IllegalArgumentException
+     *         'duration' is less than 0.
+     */
+    public void setTimeline(float startTime, float duration)
+    {
+        if (duration < 0)
+        {
+            throw new IllegalArgumentException("duration < 0");
+        }
+
+        this.startTime = startTime;
+        this.duration  = duration;
+    }
+
+
+    /**
+     * Get the component count of each member.
+     *
+     * @return
+     *         The component count.
+     */
+    public int getComponentCount()
+    {
+        return componentCount;
+    }
+
+
+    /**
+     * Get the number of members.
+     *
+     * @return
+     *         The number of members.
+     */
+    public int getMemberCount()
+    {
+        return memberCount;
+    }
+
+
+    /**
+     * Add a member.
+     *
+     * <p>
+     * The output of the new member is set to 'from' until the next
+     * call of {@link #update(float)}.
+     * </p>
+     *
+     * @param from
+     *         The value at the start time. The content is copied.
+     *
+     * @param to
+     *         The value at the end time. The content is copied.
+     *
+     * @return
+     *         The index of the member. The value of the member starts
+     *         at (index * componentCount) in {@link #getOutput()}.
+     *
+     * @throws IllegalArgumentException
+     *         'from' or 'to' is null or shorter than the component count.
+     *
+     * @throws IllegalStateException
+     *         The group is full.
+     */
+    public int add(float[] from, float[] to)
+    {
+        checkValue(from, "from");
+        checkValue(to, "to");
+
+        int offset = memberCount * componentCount;
+
+        if (froms.length <= offset)
+        {
+            throw new IllegalStateException("The group is full.");
+        }
+
+        System.arraycopy(from, 0, froms,  offset, componentCount);
+        System.arraycopy(to,   0, tos,    offset, componentCount);
+        System.arraycopy(from, 0, output, offset, componentCount);
+
+        return memberCount++;
+    }
+
+
+    /**
+     * Remove all the members.
+     */
+    public void clear()
+    {
+        memberCount = 0;
+    }
+
+
+    /**
+     * Update the values of all the members.
+     *
+     * @param time
+     *         The current time. Before the start time, the members
+     *         have their 'from' values, and after the end time, they
+     *         have their 'to' values.
+     */
+    public void update(float time)
+    {
+        int length = memberCount * componentCount;
+
+        if (time <= startTime)
+        {
+            System.arraycopy(froms, 0, output, 0, length);
+            return;
+        }
+
+        if (startTime + duration <= time)
+        {
+            System.arraycopy(tos, 0, output, 0, length);
+            return;
+        }
+
+        // The eased time ratio is calculated only once for all the members.
+        float timeRatio = easing.ease(Math.min((time - startTime) / duration, 1));
+        float remaining = 1 - timeRatio;
+
+        for (int i = 0; i < length; ++i)
+        {
+            output[i] = froms[i] * remaining + tos[i] * timeRatio;
+        }
+    }
+
+
+    /**
+     * Get the values of all the members.
+     *
+     * @return
+     *         The internal array. The value of the i-th member starts
+     *         at (i * componentCount). Only the first (memberCount *
+     *         componentCount) elements are valid.
+     */
+    public float[] getOutput()
+    {
+        return output;
+    }
+
+
+    /**
+     * Get the value of a member.
+     *
+     * @param index
+     *         The index of a member.
+     *
+     * @param value
+     *         A place into which the value is put.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'index' is out of range.
+     */
+    public void getValue(int index, float[] value)
+    {
+        if (index < 0 || memberCount <= index)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+
+        System.arraycopy(output, index * componentCount, value, 0, componentCount);
+    }
+
+
+    private void checkValue(float[] value, String name)
+    {
+        if (value == null)
+        {
+            throw new IllegalArgumentException(name + " == null");
+        }
+
+        if (value.length < componentCount)
+        {
+            throw new IllegalArgumentException(name + ".length < componentCount");
+        }
+    }
+}
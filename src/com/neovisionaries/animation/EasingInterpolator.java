@@ -23,9 +23,37 @@ package com.neovisionaries.animation;
  */
 public abstract class EasingInterpolator extends InterpolatorBase
 {
+    /**
+     * The number of intervals of the table used by the default
+     * implementation of {@link #doInverseEasing(float)}.
+     */
+    private static final int INVERSE_TABLE_SIZE = 64;
+
+
+    /**
+     * The number of refinement steps done by the default
+     * implementation of {@link #doInverseEasing(float)}.
+     */
+    private static final int INVERSE_REFINEMENT_COUNT = 3;
+
+
+    /**
+     * The step of the central difference used by the default
+     * implementations of the derivatives.
+     */
+    private static final float DIFFERENCE_STEP = 1.0f / 1024;
+
+
     private EasingMode easingMode = EasingMode.OUT;
 
 
+    /**
+     * Values of {@link #doEasing(float)} at uniformly-spaced time
+     * ratios. Created lazily by {@link #doInverseEasing(float)}.
+     */
+    private volatile float[] inverseTable;
+
+
     /**
      * The default constructor with the default easing mode,
      * {@link EasingMode#OUT}.
@@ -80,37 +108,486 @@ public abstract class EasingInterpolator extends InterpolatorBase
     @Override
     protected final void doInterpolate(float[] from, float[] to, int componentCount, float timeRatio, float[] output)
     {
+        timeRatio = ease(timeRatio);
+
+        for (int i = 0; i < componentCount; ++i)
+        {
+            output[i] = from[i] * (1 - timeRatio) + to[i] * timeRatio;
+        }
+    }
+
+
+    /**
+     * Convert a time ratio into an eased time ratio.
+     *
+     * <p>
+     * The easing mode is taken into account. The returned value is the
+     * weight of 'to' which {@link #interpolate(float[], float[], int,
+     * float, float[]) interpolate()} would use for the given time ratio,
+     * so it can be used as a timing curve by classes that do not work
+     * on float arrays. Note that the returned value may be out of the
+     * range from 0.0 to 1.0 for some easings (e.g. back and elastic).
+     * </p>
+     *
+     * @param timeRatio
+     *         A time ratio. It must be in between 0.0 and 1.0.
+     *
+     * @return
+     *         The eased time ratio.
+     *
+     * @throws IllegalArgumentException
+     *         'timeRatio' is less than 0 or greater than 1.
+     */
+    public float ease(float timeRatio)
+    {
+        if (timeRatio < 0 || 1 < timeRatio)
+        {
+            throw new IllegalArgumentException("ratio < 0 || 1 < ratio");
+        }
+
+        if (timeRatio == 0 || timeRatio == 1)
+        {
+            return timeRatio;
+        }
+
         // EasingMode.IN
         if (easingMode == EasingMode.IN)
         {
-            timeRatio = doEasing(timeRatio);
+            return doEasing(timeRatio);
         }
         // EasingMode.OUT
         else if(easingMode == EasingMode.OUT)
         {
-            timeRatio = 1 - doEasing(1 - timeRatio);
+            return 1 - doEasing(1 - timeRatio);
         }
         // EasingMode.IN_OUT (timeRatio < 0.5)
         else if (timeRatio < 0.5f)
         {
-            timeRatio = doEasing(timeRatio * 2) * 0.5f;
+            return doEasing(timeRatio * 2) * 0.5f;
         }
         // EasingMode.IN_OUT (0.5 <= timeRatio)
         else
         {
-            timeRatio = 1 - doEasing((1 - timeRatio) * 2) * 0.5f + 0.5f;
+            return 1 - doEasing((1 - timeRatio) * 2) * 0.5f;
         }
+    }
+
+
+    /**
+     * Calculate an interpolated value and its velocity in one pass.
+     *
+     * <p>
+     * 'output' receives the same value as {@link #interpolate(float[],
+     * float[], int, float, float[]) interpolate()} would generate.
+     * 'velocity' receives the derivative of the value with respect to
+     * the time ratio, that is, {@code (to[i] - from[i]) * }{@link
+     * #easeVelocity(float) easeVelocity}{@code (timeRatio)}. To get the
+     * velocity per unit time, divide it by the duration of the timespan.
+     * </p>
+     *
+     * @param from
+     *         The value at the start point of a given timespan.
+     *
+     * @param to
+     *         The value at the end point of a given timespan.
+     *
+     * @param componentCount
+     *         The component count of from[] and to[].
+     *
+     * @param timeRatio
+     *         A time ratio. It must be in between 0.0 and 1.0.
+     *
+     * @param output
+     *         A place into which the calculated value is put.
+     *         It must not be the same array as 'from' or 'to'.
+     *
+     * @param velocity
+     *         A place into which the calculated velocity is put.
+     *         It must not be the same array as 'from', 'to' or 'output'.
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>'timeRatio' is less than 0 or greater than 1.</li>
+     * <li>'componentCount' is less than 1.</li>
+     * <li>'from', 'to', 'output' or 'velocity' is null.</li>
+     * <li>The length of 'from', 'to', 'output' or 'velocity' is less
+     *     than 'componentCount'.</li>
+     * </ul>
+     */
+    public void interpolateWithVelocity(float[] from, float[] to, int componentCount, float timeRatio, float[] output, float[] velocity)
+    {
+        float speed = easeVelocity(timeRatio);
+
+        if (componentCount < 1)
+        {
+            throw new IllegalArgumentException("componentCount < 1");
+        }
+
+        checkArray(from, componentCount, "from");
+        checkArray(to, componentCount, "to");
+        checkArray(output, componentCount, "output");
+        checkArray(velocity, componentCount, "velocity");
+
+        float weight = ease(timeRatio);
 
         for (int i = 0; i < componentCount; ++i)
         {
-            output[i] = from[i] * (1 - timeRatio) + to[i] * timeRatio;
+            float f = from[i];
+            float t = to[i];
+
+            output[i]   = f * (1 - weight) + t * weight;
+            velocity[i] = (t - f) * speed;
+        }
+    }
+
+
+    /**
+     * Calculate the derivative of {@link #ease(float)} with respect to
+     * the time ratio. The easing mode is taken into account.
+     *
+     * @param timeRatio
+     *         A time ratio. It must be in between 0.0 and 1.0.
+     *
+     * @return
+     *         The velocity of the eased time ratio.
+     *
+     * @throws IllegalArgumentException
+     *         'timeRatio' is less than 0 or greater than 1.
+     */
+    public float easeVelocity(float timeRatio)
+    {
+        if (timeRatio < 0 || 1 < timeRatio)
+        {
+            throw new IllegalArgumentException("ratio < 0 || 1 < ratio");
+        }
+
+        // EasingMode.IN
+        if (easingMode == EasingMode.IN)
+        {
+            return doEasingDerivative(timeRatio);
+        }
+        // EasingMode.OUT
+        else if (easingMode == EasingMode.OUT)
+        {
+            return doEasingDerivative(1 - timeRatio);
+        }
+        // EasingMode.IN_OUT (timeRatio < 0.5)
+        else if (timeRatio < 0.5f)
+        {
+            return doEasingDerivative(timeRatio * 2);
+        }
+        // EasingMode.IN_OUT (0.5 <= timeRatio)
+        else
+        {
+            return doEasingDerivative((1 - timeRatio) * 2);
+        }
+    }
+
+
+    /**
+     * Calculate the second derivative of {@link #ease(float)} with
+     * respect to the time ratio. The easing mode is taken into account.
+     *
+     * @param timeRatio
+     *         A time ratio. It must be in between 0.0 and 1.0.
+     *
+     * @return
+     *         The acceleration of the eased time ratio.
+     *
+     * @throws IllegalArgumentException
+     *         'timeRatio' is less than 0 or greater than 1.
+     */
+    public float easeAcceleration(float timeRatio)
+    {
+        if (timeRatio < 0 || 1 < timeRatio)
+        {
+            throw new IllegalArgumentException("ratio < 0 || 1 < ratio");
+        }
+
+        // EasingMode.IN
+        if (easingMode == EasingMode.IN)
+        {
+            return doEasingSecondDerivative(timeRatio);
+        }
+        // EasingMode.OUT
+        else if (easingMode == EasingMode.OUT)
+        {
+            return -doEasingSecondDerivative(1 - timeRatio);
+        }
+        // EasingMode.IN_OUT (timeRatio < 0.5)
+        else if (timeRatio < 0.5f)
+        {
+            return doEasingSecondDerivative(timeRatio * 2) * 2;
+        }
+        // EasingMode.IN_OUT (0.5 <= timeRatio)
+        else
+        {
+            return -doEasingSecondDerivative((1 - timeRatio) * 2) * 2;
         }
     }
 
 
+    /**
+     * Convert an eased time ratio back into a time ratio.
+     *
+     * <p>
+     * This is the inverse of {@link #ease(float)}. That is, this method
+     * returns the time ratio at which {@link #interpolate(float[], float[],
+     * int, float, float[]) interpolate()} reaches the given ratio between
+     * 'from' and 'to'. The easing mode is taken into account.
+     * </p>
+     *
+     * <p>
+     * The inverse can be calculated only when the easing is monotonic.
+     * Use {@link #isMonotonic()} to check it in advance.
+     * </p>
+     *
+     * @param value
+     *         An eased time ratio. It must be in between 0.0 and 1.0.
+     *
+     * @return
+     *         The time ratio.
+     *
+     * @throws IllegalArgumentException
+     *         'value' is less than 0 or greater than 1.
+     *
+     * @throws UnsupportedOperationException
+     *         The easing is not monotonic.
+     */
+    public float inverseEase(float value)
+    {
+        if (value < 0 || 1 < value)
+        {
+            throw new IllegalArgumentException("value < 0 || 1 < value");
+        }
+
+        if (isMonotonic() == false)
+        {
+            throw new UnsupportedOperationException(getClass().getName() + " is not monotonic");
+        }
+
+        if (value == 0 || value == 1)
+        {
+            return value;
+        }
+
+        // EasingMode.IN
+        if (easingMode == EasingMode.IN)
+        {
+            return doInverseEasing(value);
+        }
+        // EasingMode.OUT
+        else if (easingMode == EasingMode.OUT)
+        {
+            return 1 - doInverseEasing(1 - value);
+        }
+        // EasingMode.IN_OUT (value < 0.5)
+        else if (value < 0.5f)
+        {
+            return doInverseEasing(value * 2) * 0.5f;
+        }
+        // EasingMode.IN_OUT (0.5 <= value)
+        else
+        {
+            return 1 - doInverseEasing((1 - value) * 2) * 0.5f;
+        }
+    }
+
+
+    /**
+     * Check if the easing is monotonic, that is, if the eased time ratio
+     * never decreases while the time ratio increases from 0.0 to 1.0.
+     *
+     * <p>
+     * The default implementation returns true. Subclasses whose easing
+     * goes back and forth (e.g. bounce) must override this method.
+     * </p>
+     *
+     * @return
+     *         true if the easing is monotonic.
+     */
+    public boolean isMonotonic()
+    {
+        return true;
+    }
+
+
     protected abstract float doEasing(float timeRatio);
 
 
+    /**
+     * The derivative of {@link #doEasing(float)}.
+     *
+     * <p>
+     * The default implementation estimates the derivative by a central
+     * difference. All the easing interpolators in this package override
+     * this method with an analytic derivative, and so should subclasses
+     * which can.
+     * </p>
+     *
+     * @param timeRatio
+     *         A time ratio in between 0.0 and 1.0.
+     *
+     * @return
+     *         The derivative at the time ratio.
+     */
+    protected float doEasingDerivative(float timeRatio)
+    {
+        float t0 = Math.max(timeRatio - DIFFERENCE_STEP, 0);
+        float t1 = Math.min(timeRatio + DIFFERENCE_STEP, 1);
+
+        return (doEasing(t1) - doEasing(t0)) / (t1 - t0);
+    }
+
+
+    /**
+     * The second derivative of {@link #doEasing(float)}.
+     *
+     * <p>
+     * The default implementation estimates the second derivative by a
+     * central difference of {@link #doEasingDerivative(float)}.
+     * </p>
+     *
+     * @param timeRatio
+     *         A time ratio in between 0.0 and 1.0.
+     *
+     * @return
+     *         The second derivative at the time ratio.
+     */
+    protected float doEasingSecondDerivative(float timeRatio)
+    {
+        float t0 = Math.max(timeRatio - DIFFERENCE_STEP, 0);
+        float t1 = Math.min(timeRatio + DIFFERENCE_STEP, 1);
+
+        return (doEasingDerivative(t1) - doEasingDerivative(t0)) / (t1 - t0);
+    }
+
+
+    /**
+     * The inverse of {@link #doEasing(float)}.
+     *
+     * <p>
+     * This method is called only when {@link #isMonotonic()} returns
+     * true and 'value' is greater than 0.0 and less than 1.0. The default
+     * implementation looks up a table of {@link #doEasing(float)} values
+     * built on the first call, and refines the result by Newton steps.
+     * Subclasses which have a closed form should override this method.
+     * </p>
+     *
+     * @param value
+     *         An eased time ratio.
+     *
+     * @return
+     *         The time ratio.
+     */
+    protected float doInverseEasing(float value)
+    {
+        float[] table = inverseTable;
+
+        if (table == null)
+        {
+            table = new float[INVERSE_TABLE_SIZE + 1];
+
+            for (int i = 0; i <= INVERSE_TABLE_SIZE; ++i)
+            {
+                table[i] = doEasing((float)i / INVERSE_TABLE_SIZE);
+            }
+
+            inverseTable = table;
+        }
+
+        // Find the interval which contains the value.
+        int low  = 0;
+        int high = INVERSE_TABLE_SIZE;
+
+        while (low + 1 < high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if (table[middle] <= value)
+            {
+                low = middle;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        float t0 = (float)low  / INVERSE_TABLE_SIZE;
+        float t1 = (float)high / INVERSE_TABLE_SIZE;
+        float v0 = table[low];
+        float v1 = table[high];
+
+        if (v1 <= v0)
+        {
+            return t0;
+        }
+
+        // Initial guess by the secant of the interval.
+        float t = t0 + (value - v0) * (t1 - t0) / (v1 - v0);
+
+        // Newton steps. A step which leaves the interval is replaced
+        // by bisection.
+        for (int i = 0; i < INVERSE_REFINEMENT_COUNT; ++i)
+        {
+            float v = doEasing(t) - value;
+
+            if (v == 0)
+            {
+                break;
+            }
+            else if (v < 0)
+            {
+                t0 = t;
+            }
+            else
+            {
+                t1 = t;
+            }
+
+            float next = t - v / doEasingDerivative(t);
+
+            if (next <= t0 || t1 <= next || next != next)
+            {
+                next = (t0 + t1) * 0.5f;
+            }
+
+            t = next;
+        }
+
+        return t;
+    }
+
+
+    /**
+     * Discard values cached for the current parameters.
+     *
+     * <p>
+     * Subclasses must call this method when a parameter which affects
+     * the result of {@link #doEasing(float)} is changed.
+     * </p>
+     */
+    protected void parametersChanged()
+    {
+        inverseTable = null;
+    }
+
+
+    private static void checkArray(float[] array, int componentCount, String name)
+    {
+        if (array == null)
+        {
+            throw new IllegalArgumentException(name + " == null");
+        }
+
+        if (array.length < componentCount)
+        {
+            throw new IllegalArgumentException(name + ".length < componentCount");
+        }
+    }
+
+
     private static EasingMode checkEasingMode(EasingMode easingMode)
     {
         if (easingMode == null)
@@ -19,13 +19,43 @@ package com.neovisionaries.animation;
 /**
  * Easing power interpolator.
  *
+ * <p>
+ * An evaluation strategy is chosen when the power is set. Integer powers
+ * up to {@value #MAX_INTEGER_POWER} are evaluated by repeated squaring
+ * and multiplication, and powers which are an integer plus 0.5 by the
+ * same way and one square root. Other powers are evaluated by {@link
+ * Math#pow(double, double)}. The derivatives use the same strategy.
+ * </p>
+ *
  * @author Takahiko Kawasaki
  */
 public class EasingPowerInterpolator extends EasingInterpolator
 {
+    /**
+     * The maximum integer power which is evaluated by multiplication.
+     */
+    private static final int MAX_INTEGER_POWER = 64;
+
+
+    /**
+     * Strategies of evaluation. See {@link #getStrategy()}.
+     */
+    static final int INTEGER      = 0;
+    static final int HALF_INTEGER = 1;
+    static final int GENERAL      = 2;
+
+
     private float power = 2.0f;
 
 
+    /**
+     * The strategy for the current power, and the integer part of
+     * the power.
+     */
+    private int strategy = INTEGER;
+    private int wholePower = 2;
+
+
     public EasingPowerInterpolator()
     {
         super();
@@ -61,13 +91,150 @@ public class EasingPowerInterpolator extends EasingInterpolator
     public void setPower(float power)
     {
         this.power = checkPower(power);
+
+        selectStrategy();
+        parametersChanged();
+    }
+
+
+    /**
+     * Get the strategy selected for the current power, which is one of
+     * {@link #INTEGER}, {@link #HALF_INTEGER} and {@link #GENERAL}.
+     */
+    int getStrategy()
+    {
+        return strategy;
     }
 
 
     @Override
     protected final float doEasing(float timeRatio)
     {
-        return (float)Math.pow(timeRatio, power);
+        return (float)pow(timeRatio, 0);
+    }
+
+
+    @Override
+    protected final float doEasingDerivative(float timeRatio)
+    {
+        if (power == 0)
+        {
+            return 0;
+        }
+
+        return (float)(power * pow(timeRatio, 1));
+    }
+
+
+    @Override
+    protected final float doEasingSecondDerivative(float timeRatio)
+    {
+        if (power == 0 || power == 1)
+        {
+            return 0;
+        }
+
+        return (float)(power * (power - 1) * pow(timeRatio, 2));
+    }
+
+
+    /**
+     * Check if the easing is monotonic.
+     *
+     * @return
+     *         false if the power is 0 (the easing is constant).
+     *         Otherwise, true.
+     */
+    @Override
+    public boolean isMonotonic()
+    {
+        return power != 0;
+    }
+
+
+    @Override
+    protected final float doInverseEasing(float value)
+    {
+        if (strategy == INTEGER)
+        {
+            if (wholePower == 1)
+            {
+                return value;
+            }
+
+            if (wholePower == 2)
+            {
+                return (float)Math.sqrt(value);
+            }
+        }
+
+        return (float)Math.pow(value, 1.0 / power);
+    }
+
+
+    private void selectStrategy()
+    {
+        float twice = power * 2;
+
+        if (MAX_INTEGER_POWER < power || twice != (float)Math.floor(twice))
+        {
+            strategy = GENERAL;
+        }
+        else if (power == (float)Math.floor(power))
+        {
+            strategy = INTEGER;
+        }
+        else
+        {
+            strategy = HALF_INTEGER;
+        }
+
+        wholePower = (int)power;
+    }
+
+
+    /**
+     * Calculate timeRatio^(power - decrement).
+     */
+    private double pow(double timeRatio, int decrement)
+    {
+        int exponent = wholePower - decrement;
+
+        if (strategy == GENERAL || exponent < 0)
+        {
+            return Math.pow(timeRatio, power - decrement);
+        }
+
+        double value = multiply(timeRatio, exponent);
+
+        if (strategy == HALF_INTEGER)
+        {
+            value *= Math.sqrt(timeRatio);
+        }
+
+        return value;
+    }
+
+
+    /**
+     * Calculate base^exponent by repeated squaring.
+     */
+    private static double multiply(double base, int exponent)
+    {
+        double value = 1;
+
+        while (exponent != 0)
+        {
+            if ((exponent & 1) != 0)
+            {
+                value *= base;
+            }
+
+            base *= base;
+            exponent >>>= 1;
+        }
+
+        return value;
     }
 
 
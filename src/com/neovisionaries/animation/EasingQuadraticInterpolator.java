@@ -40,4 +40,25 @@ public class EasingQuadraticInterpolator extends EasingInterpolator
     {
         return timeRatio * timeRatio;
     }
+
+
+    @Override
+    protected final float doEasingDerivative(float timeRatio)
+    {
+        return 2 * timeRatio;
+    }
+
+
+    @Override
+    protected final float doEasingSecondDerivative(float timeRatio)
+    {
+        return 2;
+    }
+
+
+    @Override
+    protected final float doInverseEasing(float value)
+    {
+        return (float)Math.sqrt(value);
+    }
 }
@@ -41,4 +41,25 @@ public class EasingQuarticInterpolator extends EasingInterpolator
     {
         return (float)Math.pow(timeRatio, 4);
     }
+
+
+    @Override
+    protected final float doEasingDerivative(float timeRatio)
+    {
+        return 4 * timeRatio * timeRatio * timeRatio;
+    }
+
+
+    @Override
+    protected final float doEasingSecondDerivative(float timeRatio)
+    {
+        return 12 * timeRatio * timeRatio;
+    }
+
+
+    @Override
+    protected final float doInverseEasing(float value)
+    {
+        return (float)Math.sqrt(Math.sqrt(value));
+    }
 }
@@ -41,4 +41,25 @@ public class EasingQuinticInterpolator extends EasingInterpolator
     {
         return (float)Math.pow(timeRatio, 5);
     }
+
+
+    @Override
+    protected final float doEasingDerivative(float timeRatio)
+    {
+        return 5 * timeRatio * timeRatio * timeRatio * timeRatio;
+    }
+
+
+    @Override
+    protected final float doEasingSecondDerivative(float timeRatio)
+    {
+        return 20 * timeRatio * timeRatio * timeRatio;
+    }
+
+
+    @Override
+    protected final float doInverseEasing(float value)
+    {
+        return (float)Math.pow(value, 0.2);
+    }
 }
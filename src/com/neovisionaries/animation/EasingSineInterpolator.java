@@ -39,6 +39,27 @@ public class EasingSineInterpolator extends EasingInterpolator
     @Override
     protected final float doEasing(float timeRatio)
     {
-        return (float)(1 - (Math.sin(1 - timeRatio) * Math.PI / 2));
+        return (float)(1 - Math.sin((1 - timeRatio) * Math.PI / 2));
+    }
+
+
+    @Override
+    protected final float doEasingDerivative(float timeRatio)
+    {
+        return (float)(Math.PI / 2 * Math.cos((1 - timeRatio) * Math.PI / 2));
+    }
+
+
+    @Override
+    protected final float doEasingSecondDerivative(float timeRatio)
+    {
+        return (float)(Math.PI * Math.PI / 4 * Math.sin((1 - timeRatio) * Math.PI / 2));
+    }
+
+
+    @Override
+    protected final float doInverseEasing(float value)
+    {
+        return (float)(1 - Math.asin(1 - value) * 2 / Math.PI);
     }
 }
@@ -0,0 +1,450 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Fixed-timestep driver of a simulation whose state is rendered at a
+ * variable frame rate.
+ *
+ * <p>
+ * Frame times given to {@link #advance(float, Stepper) advance()} are
+ * accumulated, and the simulation is stepped by {@link Stepper} as many
+ * times as whole steps fit in the accumulated time. The remainder is
+ * kept for the next frame, and its ratio to the step time is used as
+ * the alpha to blend the previous state and the current state by an
+ * {@link Interpolator} in {@link #render(float[]) render()}. All the
+ * channels of the state are blended by one call of {@link
+ * Interpolator#interpolate(float[], float[], int, float, float[])
+ * interpolate()}.
+ * </p>
+ *
+ * <p>
+ * The previous state and the current state are held in two arrays
+ * allocated by the constructor, which are swapped (not copied) at
+ * each step, so no object is created per frame.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * {@link FixedTimestep} timestep = new {@link #FixedTimestep(int, float) FixedTimestep}(channelCount, 1 / 60f);
+ * timestep.{@link #setState(float[]) setState}(initialState);
+ *
+ * <span style="color: darkgreen;">// For each frame.</span>
+ * timestep.{@link #advance(float, Stepper) advance}(frameTime, stepper);
+ * timestep.{@link #render(float[]) render}(output);
+ * </pre>
+ *
+ * <p>
+ * To avoid a spiral where stepping takes longer than the time it
+ * simulates, the number of steps per {@link #advance(float, Stepper)
+ * advance()} is limited (see {@link #setMaxStepCount(int)}). Time which
+ * does not fit in the limit is discarded.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class FixedTimestep
+{
+    /**
+     * The default maximum number of steps per {@link #advance(float,
+     * Stepper) advance()}.
+     */
+    public static final int DEFAULT_MAX_STEP_COUNT = 8;
+
+
+    /**
+     * Simulation which is stepped at a fixed time step.
+     */
+    public interface Stepper
+    {
+        /**
+         * Calculate the state after one step.
+         *
+         * @param previous
+         *         The state before the step. It must not be modified.
+         *
+         * @param current
+         *         A place into which the state after the step is put.
+         *         It holds an old state, so all the channels have to
+         *         be written.
+         *
+         * @param channelCount
+         *         The number of channels of the state.
+         *
+         * @param time
+         *         The simulation time at the start of the step.
+         *
+         * @param stepTime
+         *         The time step.
+         */
+        void step(float[] previous, float[] current, int channelCount, double time, float stepTime);
+    }
+
+
+    private final int channelCount;
+    private final float stepTime;
+    private float[] previous;
+    private float[] current;
+    private Interpolator interpolator;
+    private int maxStepCount = DEFAULT_MAX_STEP_COUNT;
+    private double accumulator;
+    private long stepCount;
+    private long droppedStepCount;
+
+
+    /**
+     * A constructor with the number of channels and the time step.
+     * {@link LinearInterpolator} is used to blend states.
+     *
+     * @param channelCount
+     *         The number of channels of the state.
+     *
+     * @param stepTime
+     *         The time step.
+     *
+     * @throws IllegalArgumentException
+     *         'channelCount' is less than 1, or 'stepTime' is not
+     *         greater than 0.
+     */
+    public FixedTimestep(int channelCount, float stepTime)
+    {
+        this(channelCount, stepTime, new LinearInterpolator());
+    }
+
+
+    /**
+     * A constructor with the number of channels, the time step and
+     * an interpolator to blend states.
+     *
+     * @param channelCount
+     *         The number of channels of the state.
+     *
+     * @param stepTime
+     *         The time step.
+     *
+     * @param interpolator
+     *         An interpolator to blend the previous state and the
+     *         current state.
+     *
+     * @throws IllegalArgumentException
+     *         'channelCount' is less than 1, 'stepTime' is not greater
+     *         than 0, or 'interpolator' is null.
+     */
+    public FixedTimestep(int channelCount, float stepTime, Interpolator interpolator)
+    {
+        if (channelCount < 1)
+        {
+            throw new IllegalArgumentException("channelCount < 1");
+        }
+
+        if (!(0 < stepTime))
+        {
+            throw new IllegalArgumentException("stepTime <= 0");
+        }
+
+        setInterpolator(interpolator);
+
+        this.channelCount = channelCount;
+        this.stepTime     = stepTime;
+        this.previous     = new float[channelCount];
+        this.current      = new float[channelCount];
+    }
+
+
+    /**
+     * Get the number of channels of the state.
+     *
+     * @return
+     *         The number of channels.
+     */
+    public int getChannelCount()
+    {
+        return channelCount;
+    }
+
+
+    /**
+     * Get the time step.
+     *
+     * @return
+     *         The time step.
+     */
+    public float getStepTime()
+    {
+        return stepTime;
+    }
+
+
+    /**
+     * Get the interpolator to blend states.
+     *
+     * @return
+     *         The interpolator.
+     */
+    public Interpolator getInterpolator()
+    {
+        return interpolator;
+    }
+
+
+    /**
+     * Set an interpolator to blend states.
+     *
+     * @param interpolator
+     *         An interpolator.
+     *
+     * @throws IllegalArgumentException
+     *         'interpolator' is null.
+     */
+    public void setInterpolator(Interpolator interpolator)
+    {
+        if (interpolator == null)
+        {
+            throw new IllegalArgumentException("interpolator is null");
+        }
+
+        this.interpolator = interpolator;
+    }
+
+
+    /**
+     * Get the maximum number of steps per {@link #advance(float, Stepper)}.
+     *
+     * @return
+     *         The maximum number of steps.
+     */
+    public int getMaxStepCount()
+    {
+        return maxStepCount;
+    }
+
+
+    /**
+     * Set the maximum number of steps per {@link #advance(float, Stepper)}.
+     * The default value is {@value #DEFAULT_MAX_STEP_COUNT}.
+     *
+     * @param maxStepCount
+     *         The maximum number of steps.
+     *
+     * @throws IllegalArgumentException
+     *         'maxStepCount' is less than 1.
+     */
+    public void setMaxStepCount(int maxStepCount)
+    {
+        if (maxStepCount < 1)
+        {
+            throw new IllegalArgumentException("maxStepCount < 1");
+        }
+
+        this.maxStepCount = maxStepCount;
+    }
+
+
+    /**
+     * Set both the previous state and the current state, and reset the
+     * accumulated time. The simulation time is not changed.
+     *
+     * @param state
+     *         A state. The content is copied.
+     *
+     * @throws IllegalArgumentException
+     *         'state' is null or shorter than the channel count.
+     */
+    public void setState(float[] state)
+    {
+        checkState(state, "state");
+
+        System.arraycopy(state, 0, previous, 0, channelCount);
+        System.arraycopy(state, 0, current,  0, channelCount);
+
+        accumulator = 0;
+    }
+
+
+    /**
+     * Get the state before the last step.
+     *
+     * @return
+     *         The internal array. It must not be modified, and it is
+     *         switched to another array by the next step.
+     */
+    public float[] getPreviousState()
+    {
+        return previous;
+    }
+
+
+    /**
+     * Get the state after the last step.
+     *
+     * @return
+     *         The internal array. It must not be modified, and it is
+     *         switched to another array by the next step.
+     */
+    public float[] getCurrentState()
+    {
+        return current;
+    }
+
+
+    /**
+     * Get the simulation time, that is, the number of steps multiplied
+     * by the time step.
+     *
+     * @return
+     *         The simulation time.
+     */
+    public double getTime()
+    {
+        return stepCount * (double)stepTime;
+    }
+
+
+    /**
+     * Get the number of steps done so far.
+     *
+     * @return
+     *         The number of steps.
+     */
+    public long getStepCount()
+    {
+        return stepCount;
+    }
+
+
+    /**
+     * Get the number of steps discarded so far because of the limit
+     * set by {@link #setMaxStepCount(int)}.
+     *
+     * @return
+     *         The number of discarded steps.
+     */
+    public long getDroppedStepCount()
+    {
+        return droppedStepCount;
+    }
+
+
+    /**
+     * Get the ratio of the accumulated time which has not been simulated
+     * yet to the time step.
+     *
+     * @return
+     *         The alpha in between 0.0 and 1.0.
+     */
+    public float getAlpha()
+    {
+        return Math.min((float)(accumulator / stepTime), 1);
+    }
+
+
+    /**
+     * Accumulate a frame time and step the simulation as many times as
+     * whole steps fit in the accumulated time.
+     *
+     * @param frameTime
+     *         The time elapsed since the last frame. A negative value
+     *         is regarded as 0.
+     *
+     * @param stepper
+     *         The simulation.
+     *
+     * @return
+     *         The number of steps done.
+     *
+     * @throws IllegalArgumentException
+     *         'stepper' is null.
+     */
+    public int advance(float frameTime, Stepper stepper)
+    {
+        if (stepper == null)
+        {
+            throw new IllegalArgumentException("stepper is null");
+        }
+
+        if (0 < frameTime)
+        {
+            accumulator += frameTime;
+        }
+
+        int steps = 0;
+
+        while (stepTime <= accumulator)
+        {
+            if (steps == maxStepCount)
+            {
+                // Discard the whole steps which do not fit in the limit
+                // and keep the fraction for a smooth alpha.
+                long dropped = (long)(accumulator / stepTime);
+
+                droppedStepCount += dropped;
+                accumulator      -= dropped * (double)stepTime;
+                break;
+            }
+
+            // The current state becomes the previous one, and the old
+            // previous array receives the new state.
+            float[] swap = previous;
+            previous = current;
+            current  = swap;
+
+            stepper.step(previous, current, channelCount, getTime(), stepTime);
+
+            accumulator -= stepTime;
+            ++stepCount;
+            ++steps;
+        }
+
+        return steps;
+    }
+
+
+    /**
+     * Blend the previous state and the current state at the current
+     * alpha ({@link #getAlpha()}) by the interpolator.
+     *
+     * @param output
+     *         A place into which the blended state is put.
+     *
+     * @throws IllegalArgumentException
+     *         'output' is null or shorter than the channel count.
+     */
+    public void render(float[] output)
+    {
+        checkState(output, "output");
+
+        interpolator.interpolate(previous, current, channelCount, getAlpha(), output);
+    }
+
+
+    private void checkState(float[] state, String name)
+    {
+        if (state == null)
+        {
+            throw new IllegalArgumentException(name + " == null");
+        }
+
+        if (state.length < channelCount)
+        {
+            throw new IllegalArgumentException(name + ".length < channelCount");
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * An interpolator which evaluates a tree of interpolators in one pass.
+ *
+ * <p>
+ * A tree of {@link CompositeInterpolator}s whose leaves are {@link
+ * EasingInterpolator}s, {@link LinearInterpolator}s and {@link
+ * StepInterpolator}s calculates a weighted sum of linear interpolations.
+ * Because each leaf calculates {@code from * (1 - e) + to * e} where 'e'
+ * is its eased time ratio, the whole tree is equivalent to
+ * </p>
+ *
+ * <pre style="margin: 1em;">
+ * output[i] = from[i] * (W - E) + to[i] * E
+ * </pre>
+ *
+ * <p>
+ * where 'W' is the sum of the effective weights of all the leaves and
+ * 'E' is the sum of the effective weights multiplied by the eased time
+ * ratios. {@link #fuse(Interpolator)} flattens a tree into this form.
+ * The effective weights are calculated once, leaves which share the
+ * same instance are merged, and linear and step leaves are folded into
+ * constants. As a result, evaluation needs one call of {@link
+ * EasingInterpolator#ease(float)} per distinct easing and a single
+ * pass over the components, without any work buffer.
+ * </p>
+ *
+ * <p>
+ * Results are the same as those of the original tree except for the
+ * rounding errors caused by the different order of float operations.
+ * Most outputs are not bit-identical, but the difference of a component
+ * stays within about 1e-6 of {@code (|from| + |to|) * S} where 'S' is
+ * the sum of the absolute effective weights of the leaves.
+ * </p>
+ *
+ * <p>
+ * Note that the weights are captured when {@link #fuse(Interpolator)}
+ * is called. If weights of {@link CompositeInterpolator.Entry} are
+ * changed later, the tree has to be fused again. On the other hand,
+ * changes of parameters of easings (e.g. the easing mode) are
+ * reflected because the easings are referenced.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * {@link CompositeInterpolator} tree = ......;
+ *
+ * if ({@link FusedInterpolator}.{@link #isFusable(Interpolator) isFusable}(tree))
+ * {
+ *     {@link Interpolator} fused = {@link FusedInterpolator}.{@link #fuse(Interpolator) fuse}(tree);
+ *     ......
+ * }
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class FusedInterpolator extends InterpolatorBase
+{
+    private final float totalWeight;
+    private final float linearWeight;
+    private final EasingInterpolator[] easings;
+    private final float[] easingWeights;
+
+
+    private FusedInterpolator(float totalWeight, float linearWeight, EasingInterpolator[] easings, float[] easingWeights)
+    {
+        this.totalWeight   = totalWeight;
+        this.linearWeight  = linearWeight;
+        this.easings       = easings;
+        this.easingWeights = easingWeights;
+    }
+
+
+    /**
+     * Check if the given interpolator can be fused.
+     *
+     * <p>
+     * An interpolator can be fused if it is an {@link EasingInterpolator},
+     * a {@link LinearInterpolator}, a {@link StepInterpolator}, or a
+     * {@link CompositeInterpolator} (not a subclass of it, because a
+     * subclass may override the accumulation) whose registered
+     * interpolators can be fused.
+     * </p>
+     *
+     * @param interpolator
+     *         An interpolator.
+     *
+     * @return
+     *         true if the interpolator can be fused.
+     */
+    public static boolean isFusable(Interpolator interpolator)
+    {
+        if (interpolator instanceof EasingInterpolator ||
+            interpolator instanceof LinearInterpolator ||
+            interpolator instanceof StepInterpolator ||
+            interpolator instanceof FusedInterpolator)
+        {
+            return true;
+        }
+
+        if (interpolator == null || interpolator.getClass() != CompositeInterpolator.class)
+        {
+            return false;
+        }
+
+        for (CompositeInterpolator.Entry entry : ((CompositeInterpolator)interpolator).getAll())
+        {
+            if (isFusable(entry.getInterpolator()) == false)
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Fuse a tree of interpolators into one interpolator.
+     *
+     * @param interpolator
+     *         The root of a tree of interpolators.
+     *
+     * @return
+     *         A fused interpolator.
+     *
+     * @throws IllegalArgumentException
+     *         The given interpolator is null or cannot be fused.
+     *         See {@link #isFusable(Interpolator)}.
+     */
+    public static FusedInterpolator fuse(Interpolator interpolator)
+    {
+        if (interpolator == null)
+        {
+            throw new IllegalArgumentException("interpolator is null");
+        }
+
+        if (isFusable(interpolator) == false)
+        {
+            throw new IllegalArgumentException("interpolator is not fusable");
+        }
+
+        Builder builder = new Builder();
+
+        builder.add(interpolator, 1.0F);
+
+        return builder.build();
+    }
+
+
+    /**
+     * Get the number of easings evaluated per call.
+     *
+     * @return
+     *         The number of distinct easings in the fused tree.
+     */
+    public int getEasingCount()
+    {
+        return easings.length;
+    }
+
+
+    @Override
+    protected final void doInterpolate(float[] from, float[] to, int componentCount, float timeRatio, float[] output)
+    {
+        float eased = linearWeight * timeRatio;
+
+        for (int i = 0; i < easings.length; ++i)
+        {
+            eased += easingWeights[i] * easings[i].ease(timeRatio);
+        }
+
+        float fromWeight = totalWeight - eased;
+
+        for (int i = 0; i < componentCount; ++i)
+        {
+            output[i] = from[i] * fromWeight + to[i] * eased;
+        }
+    }
+
+
+    /**
+     * Collector of effective weights.
+     */
+    private static class Builder
+    {
+        private float totalWeight;
+        private float linearWeight;
+        private final List<EasingInterpolator> easings = new ArrayList<EasingInterpolator>();
+        private final List<Float> easingWeights = new ArrayList<Float>();
+
+
+        void add(Interpolator interpolator, float weight)
+        {
+            if (interpolator instanceof FusedInterpolator)
+            {
+                addFused((FusedInterpolator)interpolator, weight);
+            }
+            else if (interpolator instanceof EasingInterpolator)
+            {
+                addEasing((EasingInterpolator)interpolator, weight);
+            }
+            else if (interpolator instanceof LinearInterpolator)
+            {
+                totalWeight  += weight;
+                linearWeight += weight;
+            }
+            else if (interpolator instanceof StepInterpolator)
+            {
+                // A step interpolator always outputs 'from'.
+                totalWeight += weight;
+            }
+            else
+            {
+                addComposite((CompositeInterpolator)interpolator, weight);
+            }
+        }
+
+
+        private void addComposite(CompositeInterpolator composite, float weight)
+        {
+            List<CompositeInterpolator.Entry> entries = composite.getAll();
+
+            if (entries.size() == 0)
+            {
+                // CompositeInterpolator behaves as LinearInterpolator
+                // when no interpolator is registered.
+                totalWeight  += weight;
+                linearWeight += weight;
+                return;
+            }
+
+            for (CompositeInterpolator.Entry entry : entries)
+            {
+                add(entry.getInterpolator(), weight * entry.getWeight());
+            }
+        }
+
+
+        private void addFused(FusedInterpolator fused, float weight)
+        {
+            totalWeight  += weight * fused.totalWeight;
+            linearWeight += weight * fused.linearWeight;
+
+            for (int i = 0; i < fused.easings.length; ++i)
+            {
+                addEasing(fused.easings[i], weight * fused.easingWeights[i]);
+            }
+        }
+
+
+        private void addEasing(EasingInterpolator easing, float weight)
+        {
+            totalWeight += weight;
+
+            // Merge leaves which share the same instance.
+            for (int i = 0; i < easings.size(); ++i)
+            {
+                if (easings.get(i) == easing)
+                {
+                    easingWeights.set(i, easingWeights.get(i) + weight);
+                    return;
+                }
+            }
+
+            easings.add(easing);
+            easingWeights.add(weight);
+        }
+
+
+        FusedInterpolator build()
+        {
+            // Drop easings which have no influence.
+            List<EasingInterpolator> e = new ArrayList<EasingInterpolator>();
+            List<Float> w = new ArrayList<Float>();
+
+            for (int i = 0; i < easings.size(); ++i)
+            {
+                if (easingWeights.get(i) != 0)
+                {
+                    e.add(easings.get(i));
+                    w.add(easingWeights.get(i));
+                }
+            }
+
+            float[] weights = new float[w.size()];
+
+            for (int i = 0; i < weights.length; ++i)
+            {
+                weights[i] = w.get(i);
+            }
+
+            return new FusedInterpolator(totalWeight, linearWeight,
+                    e.toArray(new EasingInterpolator[e.size()]), weights);
+        }
+    }
+}
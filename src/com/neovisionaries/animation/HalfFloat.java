@@ -0,0 +1,200 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Conversion between {@code float} and IEEE 754 binary16 (half precision)
+ * values packed in {@code short}.
+ *
+ * <p>
+ * Conversion from float to half rounds to the nearest even value.
+ * Values too large for half precision become infinity, and NaN is
+ * kept as NaN.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public final class HalfFloat
+{
+    /**
+     * 2^112 as a float value. Multiplying a half value whose exponent
+     * and mantissa have been shifted into float positions by 2^112
+     * rebiases the exponent (15 to 127) and normalizes subnormals.
+     */
+    private static final float REBIAS = Float.intBitsToFloat((127 + 112) << 23);
+
+
+    private HalfFloat()
+    {
+    }
+
+
+    /**
+     * Convert a half precision value into a float value.
+     *
+     * @param half
+     *         A half precision value.
+     *
+     * @return
+     *         The float value.
+     */
+    public static float toFloat(short half)
+    {
+        int h    = half & 0xFFFF;
+        int sign = (h & 0x8000) << 16;
+        int bits = (h & 0x7FFF) << 13;
+
+        if (0x0F800000 <= bits)
+        {
+            // Infinity or NaN.
+            return Float.intBitsToFloat(sign | 0x7F800000 | (bits & 0x007FE000));
+        }
+
+        float f = Float.intBitsToFloat(bits) * REBIAS;
+
+        return Float.intBitsToFloat(sign | Float.floatToRawIntBits(f));
+    }
+
+
+    /**
+     * Convert a float value into a half precision value.
+     *
+     * @param value
+     *         A float value.
+     *
+     * @return
+     *         The half precision value.
+     */
+    public static short toHalf(float value)
+    {
+        int bits     = Float.floatToRawIntBits(value);
+        int sign     = (bits >>> 16) & 0x8000;
+        int exponent = (bits >>> 23) & 0xFF;
+        int mantissa = bits & 0x007FFFFF;
+
+        if (exponent == 0xFF)
+        {
+            // Infinity or NaN. Keep NaN as a quiet NaN.
+            return (short)(sign | 0x7C00 | (mantissa != 0 ? 0x0200 | (mantissa >>> 13) : 0));
+        }
+
+        // Exponent rebiased for half precision.
+        int e = exponent - 127 + 15;
+
+        if (0x1F <= e)
+        {
+            // Too large. Infinity.
+            return (short)(sign | 0x7C00);
+        }
+
+        if (e <= 0)
+        {
+            if (e < -10)
+            {
+                // Too small even for a subnormal. Signed zero.
+                return (short)sign;
+            }
+
+            // Subnormal. Make the implicit bit explicit and shift.
+            mantissa |= 0x00800000;
+
+            int shift = 14 - e;
+            int m     = mantissa >>> shift;
+            int rest  = mantissa & ((1 << shift) - 1);
+            int half  = 1 << (shift - 1);
+
+            if (half < rest || (rest == half && (m & 1) != 0))
+            {
+                ++m;
+            }
+
+            return (short)(sign | m);
+        }
+
+        int h    = (e << 10) | (mantissa >>> 13);
+        int rest = mantissa & 0x1FFF;
+
+        // Round to nearest even. A carry into the exponent is correct,
+        // including the carry which produces infinity.
+        if (0x1000 < rest || (rest == 0x1000 && (h & 1) != 0))
+        {
+            ++h;
+        }
+
+        return (short)(sign | h);
+    }
+
+
+    /**
+     * Convert half precision values into float values.
+     *
+     * @param src
+     *         Half precision values.
+     *
+     * @param srcPos
+     *         The start position in 'src'.
+     *
+     * @param dest
+     *         A place into which float values are put.
+     *
+     * @param destPos
+     *         The start position in 'dest'.
+     *
+     * @param count
+     *         The number of values to convert.
+     *
+     * @throws IndexOutOfBoundsException
+     *         The specified range is out of the bounds of an array.
+     */
+    public static void toFloat(short[] src, int srcPos, float[] dest, int destPos, int count)
+    {
+        for (int i = 0; i < count; ++i)
+        {
+            dest[destPos + i] = toFloat(src[srcPos + i]);
+        }
+    }
+
+
+    /**
+     * Convert float values into half precision values.
+     *
+     * @param src
+     *         Float values.
+     *
+     * @param srcPos
+     *         The start position in 'src'.
+     *
+     * @param dest
+     *         A place into which half precision values are put.
+     *
+     * @param destPos
+     *         The start position in 'dest'.
+     *
+     * @param count
+     *         The number of values to convert.
+     *
+     * @throws IndexOutOfBoundsException
+     *         The specified range is out of the bounds of an array.
+     */
+    public static void toHalf(float[] src, int srcPos, short[] dest, int destPos, int count)
+    {
+        for (int i = 0; i < count; ++i)
+        {
+            dest[destPos + i] = toHalf(src[srcPos + i]);
+        }
+    }
+}
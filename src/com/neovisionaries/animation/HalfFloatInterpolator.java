@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Interpolation of half precision values.
+ *
+ * <p>
+ * This class lets an {@link Interpolator} work on values stored as
+ * IEEE 754 binary16 in {@code short[]} (see {@link HalfFloat}).
+ * If the interpolator is a {@link LinearInterpolator} or an {@link
+ * EasingInterpolator}, values are blended directly without any
+ * intermediate float array. Otherwise, values are converted into
+ * work buffers held by this instance, interpolated and converted
+ * back. Therefore, an instance of this class must not be shared
+ * among threads.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class HalfFloatInterpolator
+{
+    private final Interpolator interpolator;
+    private float[] fromWork;
+    private float[] toWork;
+    private float[] outputWork;
+
+
+    /**
+     * A constructor with an interpolator.
+     *
+     * @param interpolator
+     *         An interpolator.
+     *
+     * @throws IllegalArgumentException
+     *         'interpolator' is null.
+     */
+    public HalfFloatInterpolator(Interpolator interpolator)
+    {
+        if (interpolator == null)
+        {
+            throw new IllegalArgumentException("interpolator is null");
+        }
+
+        this.interpolator = interpolator;
+    }
+
+
+    /**
+     * Get the interpolator.
+     *
+     * @return
+     *         The interpolator given to the constructor.
+     */
+    public Interpolator getInterpolator()
+    {
+        return interpolator;
+    }
+
+
+    /**
+     * Calculate an interpolated value.
+     *
+     * <p>
+     * Arguments have the same meanings as those of {@link
+     * Interpolator#interpolate(float[], float[], int, float, float[])},
+     * except that values are half precision.
+     * </p>
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>'timeRatio' is less than 0 or greater than 1.</li>
+     * <li>'componentCount' is less than 1.</li>
+     * <li>'from', 'to' or 'output' is null.</li>
+     * <li>The length of 'from', 'to' or 'output' is less than 'componentCount'.</li>
+     * </ul>
+     */
+    public void interpolate(short[] from, short[] to, int componentCount, float timeRatio, short[] output)
+    {
+        if (timeRatio < 0 || 1 < timeRatio)
+        {
+            throw new IllegalArgumentException("ratio < 0 || 1 < ratio");
+        }
+
+        if (componentCount < 1)
+        {
+            throw new IllegalArgumentException("componentCount < 1");
+        }
+
+        checkArray(from, componentCount, "from");
+        checkArray(to, componentCount, "to");
+        checkArray(output, componentCount, "output");
+
+        if (timeRatio == 0 || from == to)
+        {
+            System.arraycopy(from, 0, output, 0, componentCount);
+            return;
+        }
+
+        if (timeRatio == 1)
+        {
+            System.arraycopy(to, 0, output, 0, componentCount);
+            return;
+        }
+
+        if (interpolator instanceof EasingInterpolator)
+        {
+            blend(from, to, componentCount, ((EasingInterpolator)interpolator).ease(timeRatio), output);
+        }
+        else if (interpolator instanceof LinearInterpolator)
+        {
+            blend(from, to, componentCount, timeRatio, output);
+        }
+        else
+        {
+            interpolateWithWork(from, to, componentCount, timeRatio, output);
+        }
+    }
+
+
+    private static void blend(short[] from, short[] to, int componentCount, float weight, short[] output)
+    {
+        for (int i = 0; i < componentCount; ++i)
+        {
+            float f = HalfFloat.toFloat(from[i]);
+            float t = HalfFloat.toFloat(to[i]);
+
+            output[i] = HalfFloat.toHalf(f * (1 - weight) + t * weight);
+        }
+    }
+
+
+    private void interpolateWithWork(short[] from, short[] to, int componentCount, float timeRatio, short[] output)
+    {
+        if (fromWork == null || fromWork.length < componentCount)
+        {
+            fromWork   = new float[componentCount];
+            toWork     = new float[componentCount];
+            outputWork = new float[componentCount];
+        }
+
+        HalfFloat.toFloat(from, 0, fromWork, 0, componentCount);
+        HalfFloat.toFloat(to, 0, toWork, 0, componentCount);
+
+        interpolator.interpolate(fromWork, toWork, componentCount, timeRatio, outputWork);
+
+        HalfFloat.toHalf(outputWork, 0, output, 0, componentCount);
+    }
+
+
+    private static void checkArray(short[] array, int componentCount, String name)
+    {
+        if (array == null)
+        {
+            throw new IllegalArgumentException(name + " == null");
+        }
+
+        if (array.length < componentCount)
+        {
+            throw new IllegalArgumentException(name + ".length < componentCount");
+        }
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Keyframes whose values are stored in half precision.
+ *
+ * <p>
+ * Values of all keyframes are packed into one {@code short[]}
+ * (see {@link HalfFloat}), which halves the memory compared to
+ * {@code float[]}. Key times are kept in full precision.
+ * </p>
+ *
+ * <p>
+ * {@link #evaluate(float, float[]) evaluate()} finds the two keyframes
+ * around a given time and lets the {@link Interpolator} interpolate
+ * between them. Work buffers are held by this instance, so an instance
+ * of this class must not be evaluated by multiple threads at a time.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class HalfFloatKeyframes
+{
+    private static final Interpolator DEFAULT_INTERPOLATOR = new LinearInterpolator();
+
+
+    private final int componentCount;
+    private final float[] times;
+    private final short[] values;
+    private final float[] fromWork;
+    private final float[] toWork;
+    private Interpolator interpolator = DEFAULT_INTERPOLATOR;
+
+
+    /**
+     * A constructor with key times and float values.
+     *
+     * @param componentCount
+     *         The component count of a value.
+     *
+     * @param times
+     *         Key times in ascending order. The array is copied.
+     *
+     * @param values
+     *         Values of keyframes. The value of the i-th keyframe starts
+     *         at (i * componentCount). The values are converted into
+     *         half precision.
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>'componentCount' is less than 1.</li>
+     * <li>'times' or 'values' is null.</li>
+     * <li>'times' is empty or not in ascending order.</li>
+     * <li>The length of 'values' is less than (times.length * componentCount).</li>
+     * </ul>
+     */
+    public HalfFloatKeyframes(int componentCount, float[] times, float[] values)
+    {
+        this(componentCount, times, values == null ? -1 : values.length);
+
+        HalfFloat.toHalf(values, 0, this.values, 0, this.values.length);
+    }
+
+
+    /**
+     * A constructor with key times and half precision values.
+     *
+     * @param componentCount
+     *         The component count of a value.
+     *
+     * @param times
+     *         Key times in ascending order. The array is copied.
+     *
+     * @param values
+     *         Half precision values of keyframes. The value of the i-th
+     *         keyframe starts at (i * componentCount). The array is copied.
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>'componentCount' is less than 1.</li>
+     * <li>'times' or 'values' is null.</li>
+     * <li>'times' is empty or not in ascending order.</li>
+     * <li>The length of 'values' is less than (times.length * componentCount).</li>
+     * </ul>
+     */
+    public HalfFloatKeyframes(int componentCount, float[] times, short[] values)
+    {
+        this(componentCount, times, values == null ? -1 : values.length);
+
+        System.arraycopy(values, 0, this.values, 0, this.values.length);
+    }
+
+
+    private HalfFloatKeyframes(int componentCount, float[] times, int valueCount)
+    {
+        if (componentCount < 1)
+        {
+            throw new IllegalArgumentException("componentCount < 1");
+        }
+
+        if (times == null)
+        {
+            throw new IllegalArgumentException("times == null");
+        }
+
+        if (times.length == 0)
+        {
+            throw new IllegalArgumentException("times.length == 0");
+        }
+
+        for (int i = 1; i < times.length; ++i)
+        {
+            if (times[i] < times[i - 1])
+            {
+                throw new IllegalArgumentException("times are not in ascending order");
+            }
+        }
+
+        if (valueCount < 0)
+        {
+            throw new IllegalArgumentException("values == null");
+        }
+
+        if (valueCount < times.length * componentCount)
+        {
+            throw new IllegalArgumentException("values.length < times.length * componentCount");
+        }
+
+        this.componentCount = componentCount;
+        this.times          = times.clone();
+        this.values         = new short[times.length * componentCount];
+        this.fromWork       = new float[componentCount];
+        this.toWork         = new float[componentCount];
+    }
+
+
+    /**
+     * Get the component count of a value.
+     *
+     * @return
+     *         The component count.
+     */
+    public int getComponentCount()
+    {
+        return componentCount;
+    }
+
+
+    /**
+     * Get the number of keyframes.
+     *
+     * @return
+     *         The number of keyframes.
+     */
+    public int getKeyCount()
+    {
+        return times.length;
+    }
+
+
+    /**
+     * Get the time of a keyframe.
+     *
+     * @param index
+     *         The index of a keyframe.
+     *
+     * @return
+     *         The time of the keyframe.
+     *
+     * @throws IndexOutOfBoundsException
+     */
+    public float getTime(int index)
+    {
+        return times[index];
+    }
+
+
+    /**
+     * Get the value of a keyframe.
+     *
+     * @param index
+     *         The index of a keyframe.
+     *
+     * @param output
+     *         A place into which the value is put. The length of the
+     *         array must be equal to or greater than the component count.
+     *
+     * @throws IndexOutOfBoundsException
+     */
+    public void getValue(int index, float[] output)
+    {
+        if (index < 0 || times.length <= index)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+
+        HalfFloat.toFloat(values, index * componentCount, output, 0, componentCount);
+    }
+
+
+    /**
+     * Get the interpolator used between keyframes. The default
+     * interpolator is a {@link LinearInterpolator}.
+     *
+     * @return
+     *         The interpolator.
+     */
+    public Interpolator getInterpolator()
+    {
+        return interpolator;
+    }
+
+
+    /**
+     * Set the interpolator used between keyframes.
+     *
+     * @param interpolator
+     *         An interpolator.
+     *
+     * @throws IllegalArgumentException
+     *         'interpolator' is null.
+     */
+    public void setInterpolator(Interpolator interpolator)
+    {
+        if (interpolator == null)
+        {
+            throw new IllegalArgumentException("interpolator is null");
+        }
+
+        this.interpolator = interpolator;
+    }
+
+
+    /**
+     * Calculate the value at the specified time.
+     *
+     * <p>
+     * If 'time' is before the first keyframe or after the last one,
+     * the value of the first or last keyframe is used.
+     * </p>
+     *
+     * @param time
+     *         Time.
+     *
+     * @param output
+     *         A place into which the calculated value is put.
+     *         The length of the array must be equal to or greater
+     *         than the component count.
+     *
+     * @throws IllegalArgumentException
+     *         'output' is null or its length is less than the component count.
+     */
+    public void evaluate(float time, float[] output)
+    {
+        if (output == null)
+        {
+            throw new IllegalArgumentException("output == null");
+        }
+
+        if (output.length < componentCount)
+        {
+            throw new IllegalArgumentException("output.length < componentCount");
+        }
+
+        int last = times.length - 1;
+
+        if (time <= times[0])
+        {
+            HalfFloat.toFloat(values, 0, output, 0, componentCount);
+            return;
+        }
+
+        if (times[last] <= time)
+        {
+            HalfFloat.toFloat(values, last * componentCount, output, 0, componentCount);
+            return;
+        }
+
+        // Find the last keyframe whose time is equal to or less than 'time'.
+        int low  = 0;
+        int high = last;
+
+        while (low + 1 < high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if (times[middle] <= time)
+            {
+                low = middle;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        float timeRatio = (time - times[low]) / (times[high] - times[low]);
+
+        HalfFloat.toFloat(values, low  * componentCount, fromWork, 0, componentCount);
+        HalfFloat.toFloat(values, high * componentCount, toWork,   0, componentCount);
+
+        interpolator.interpolate(fromWork, toWork, componentCount, Math.min(timeRatio, 1), output);
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Recorder of interpolation calls into a compact binary trace.
+ *
+ * <p>
+ * {@link #wrap(Interpolator) wrap()} returns an {@link Interpolator}
+ * which records each call of {@link Interpolator#interpolate(float[],
+ * float[], int, float, float[]) interpolate()} into a {@link BinaryBuffer}
+ * and then delegates the call to the wrapped interpolator. A record
+ * consists of the identity of the interpolator, the component count,
+ * the time ratio and optionally the 'from' and 'to' values. The type,
+ * {@link EasingMode} and parameters of an interpolator (see {@link
+ * InterpolatorCodec}) are written when it is used for the first time
+ * and whenever they have changed.
+ * </p>
+ *
+ * <p>
+ * The trace can be loaded by {@link InterpolationTrace} and replayed
+ * through the current implementations of the interpolators, to
+ * benchmark real workloads offline and to compare outputs between
+ * versions.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * {@link BinaryBuffer} trace = new {@link BinaryBuffer#BinaryBuffer(int) BinaryBuffer}(1 &lt;&lt; 20);
+ * {@link InterpolationRecorder} recorder = new {@link #InterpolationRecorder(BinaryBuffer, boolean)
+ * InterpolationRecorder}(trace, true);
+ *
+ * Interpolator interpolator = recorder.{@link #wrap(Interpolator) wrap}(new {@link EasingBounceInterpolator}());
+ * </pre>
+ *
+ * <p>
+ * The format of a record is as follows.
+ * </p>
+ *
+ * <pre style="margin: 1em;">
+ * varint   (id &lt;&lt; 1) | (1 if a definition follows)
+ * [definition written by {@link InterpolatorCodec#write(Interpolator, BinaryBuffer)}]
+ * varint   componentCount
+ * float    timeRatio
+ * [float * componentCount   from]   (if values are recorded)
+ * [float * componentCount   to]     (if values are recorded)
+ * </pre>
+ *
+ * <p>
+ * The trace starts with a byte which is 1 if values are recorded.
+ * Recording creates no object except when the buffer grows. This
+ * class is not thread-safe; wrapped interpolators of the same recorder
+ * must be used by one thread at a time.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see InterpolationTrace
+ */
+public class InterpolationRecorder
+{
+    private final BinaryBuffer buffer;
+    private final boolean recordingValues;
+    private int interpolatorCount;
+    private int callCount;
+
+
+    /**
+     * A constructor.
+     *
+     * @param buffer
+     *         A buffer to which the trace is appended.
+     *
+     * @param recordingValues
+     *         true to record 'from' and 'to' values. Without values,
+     *         {@link InterpolationTrace} replays with synthetic values.
+     *
+     * @throws IllegalArgumentException
+     *         'buffer' is null.
+     */
+    public InterpolationRecorder(BinaryBuffer buffer, boolean recordingValues)
+    {
+        if (buffer == null)
+        {
+            throw new IllegalArgumentException("buffer == null");
+        }
+
+        this.buffer          = buffer;
+        this.recordingValues = recordingValues;
+
+        buffer.writeByte(recordingValues ? 1 : 0);
+    }
+
+
+    /**
+     * Get the buffer to which the trace is appended.
+     *
+     * @return
+     *         The buffer.
+     */
+    public BinaryBuffer getBuffer()
+    {
+        return buffer;
+    }
+
+
+    /**
+     * Check if 'from' and 'to' values are recorded.
+     *
+     * @return
+     *         true if values are recorded.
+     */
+    public boolean isRecordingValues()
+    {
+        return recordingValues;
+    }
+
+
+    /**
+     * Get the number of recorded calls.
+     *
+     * @return
+     *         The number of recorded calls.
+     */
+    public int getCallCount()
+    {
+        return callCount;
+    }
+
+
+    /**
+     * Wrap an interpolator so that its calls are recorded.
+     *
+     * @param interpolator
+     *         An interpolator of a type supported by {@link InterpolatorCodec}.
+     *
+     * @return
+     *         An interpolator which records calls and delegates them
+     *         to the given one.
+     *
+     * @throws IllegalArgumentException
+     *         'interpolator' is null or not supported.
+     */
+    public Interpolator wrap(Interpolator interpolator)
+    {
+        if (InterpolatorCodec.getType(interpolator) == 0)
+        {
+            throw new IllegalArgumentException("The interpolator is null or not supported.");
+        }
+
+        return new Recording(interpolator, interpolatorCount++);
+    }
+
+
+    private final class Recording implements Interpolator
+    {
+        private final Interpolator delegate;
+        private final int id;
+        private boolean defined;
+        private int easingMode;
+        private float parameter0;
+        private float parameter1;
+
+
+        Recording(Interpolator delegate, int id)
+        {
+            this.delegate = delegate;
+            this.id       = id;
+        }
+
+
+        @Override
+        public void interpolate(float[] from, float[] to, int componentCount, float timeRatio, float[] output)
+        {
+            // Let the delegate validate the arguments first, so that
+            // only valid calls are recorded.
+            delegate.interpolate(from, to, componentCount, timeRatio, output);
+
+            record(from, to, componentCount, timeRatio);
+        }
+
+
+        private void record(float[] from, float[] to, int componentCount, float timeRatio)
+        {
+            boolean defining = isChanged();
+
+            buffer.writeVarint((id << 1) | (defining ? 1 : 0));
+
+            if (defining)
+            {
+                InterpolatorCodec.write(delegate, buffer);
+            }
+
+            buffer.writeVarint(componentCount);
+            buffer.writeFloat(timeRatio);
+
+            if (recordingValues)
+            {
+                // 'from' is not checked by the delegate when timeRatio is 1,
+                // and 'to' is not when timeRatio is 0.
+                writeValue(from, componentCount);
+                writeValue(to, componentCount);
+            }
+
+            ++callCount;
+        }
+
+
+        private boolean isChanged()
+        {
+            int mode = InterpolatorCodec.getEasingModeCode(delegate);
+            float p0 = InterpolatorCodec.getParameter(delegate, 0);
+            float p1 = InterpolatorCodec.getParameter(delegate, 1);
+
+            if (defined && mode == easingMode &&
+                Float.floatToIntBits(p0) == Float.floatToIntBits(parameter0) &&
+                Float.floatToIntBits(p1) == Float.floatToIntBits(parameter1))
+            {
+                return false;
+            }
+
+            defined    = true;
+            easingMode = mode;
+            parameter0 = p0;
+            parameter1 = p1;
+
+            return true;
+        }
+
+
+        private void writeValue(float[] value, int componentCount)
+        {
+            for (int i = 0; i < componentCount; ++i)
+            {
+                buffer.writeFloat((value != null && i < value.length) ? value[i] : 0);
+            }
+        }
+    }
+}
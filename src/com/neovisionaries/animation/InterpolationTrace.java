@@ -0,0 +1,352 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Trace of interpolation calls recorded by {@link InterpolationRecorder},
+ * loaded for replay.
+ *
+ * <p>
+ * The constructor parses the whole trace into flat arrays and creates
+ * the interpolators by the current implementations, so {@link #replay()}
+ * runs the calls at full speed without decoding or creating objects.
+ * If the trace has no values, each call interpolates from 0 to 1 in
+ * every component.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * trace.{@link BinaryBuffer#rewind() rewind}();
+ * {@link InterpolationTrace} replay = new {@link #InterpolationTrace(BinaryBuffer) InterpolationTrace}(trace);
+ *
+ * <span style="color: darkgreen;">// Benchmark.</span>
+ * long start = System.nanoTime();
+ * replay.{@link #replay()};
+ * long elapsed = System.nanoTime() - start;
+ *
+ * <span style="color: darkgreen;">// Outputs to compare with those of another version.</span>
+ * float[] outputs = new float[replay.{@link #getOutputLength()}];
+ * replay.{@link #replay(float[]) replay}(outputs);
+ * </pre>
+ *
+ * <p>
+ * An instance of this class must not be replayed by multiple threads
+ * at a time.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see InterpolationRecorder
+ */
+public class InterpolationTrace
+{
+    private static final int NONE = -1;
+
+
+    private final Interpolator[] interpolators;
+    private final int[] callInterpolators;
+    private final int[] componentCounts;
+    private final float[] timeRatios;
+    private final float[] values;
+    private final float[] from;
+    private final float[] to;
+    private final float[] output;
+    private final boolean hasValues;
+    private final int outputLength;
+
+
+    /**
+     * A constructor which parses a trace.
+     *
+     * @param trace
+     *         A buffer whose content from the position to the limit
+     *         is a trace written by {@link InterpolationRecorder}.
+     *
+     * @throws IllegalArgumentException
+     *         'trace' is null or the content is not a valid trace.
+     *
+     * @throws IllegalStateException
+     *         The trace is truncated.
+     */
+    public InterpolationTrace(BinaryBuffer trace)
+    {
+        if (trace == null)
+        {
+            throw new IllegalArgumentException("trace == null");
+        }
+
+        hasValues = (trace.readByte() != 0);
+
+        // The instance which each recorded interpolator refers to now.
+        // A changed definition must not affect earlier calls, so a new
+        // instance is created for every definition.
+        List<Interpolator> instances = new ArrayList<Interpolator>();
+        int[] current   = new int[8];
+        int[] ids       = new int[64];
+        int[] counts    = new int[64];
+        float[] ratios  = new float[64];
+        float[] data    = new float[hasValues ? 256 : 0];
+        int callCount   = 0;
+        int valueCount  = 0;
+        int maxComponentCount = 1;
+        int totalComponents   = 0;
+
+        Arrays.fill(current, NONE);
+
+        while (0 < trace.getRemaining())
+        {
+            int head = trace.readVarint();
+            int id   = head >>> 1;
+
+            if (current.length <= id)
+            {
+                int length = current.length;
+
+                current = Arrays.copyOf(current, Math.max(length * 2, id + 1));
+                Arrays.fill(current, length, current.length, NONE);
+            }
+
+            if ((head & 1) != 0)
+            {
+                instances.add(InterpolatorCodec.read(trace, null));
+                current[id] = instances.size() - 1;
+            }
+            else if (current[id] == NONE)
+            {
+                throw new IllegalArgumentException("An interpolator is used before its definition.");
+            }
+
+            int componentCount = trace.readVarint();
+
+            if (componentCount < 1)
+            {
+                throw new IllegalArgumentException("componentCount < 1");
+            }
+
+            if (ids.length <= callCount)
+            {
+                ids    = Arrays.copyOf(ids,    ids.length * 2);
+                counts = Arrays.copyOf(counts, counts.length * 2);
+                ratios = Arrays.copyOf(ratios, ratios.length * 2);
+            }
+
+            ids[callCount]    = current[id];
+            counts[callCount] = componentCount;
+            ratios[callCount] = trace.readFloat();
+
+            if (hasValues)
+            {
+                if (data.length < valueCount + componentCount * 2)
+                {
+                    data = Arrays.copyOf(data, Math.max(data.length * 2, valueCount + componentCount * 2));
+                }
+
+                for (int i = 0; i < componentCount * 2; ++i)
+                {
+                    data[valueCount++] = trace.readFloat();
+                }
+            }
+
+            maxComponentCount = Math.max(maxComponentCount, componentCount);
+            totalComponents  += componentCount;
+            ++callCount;
+        }
+
+        this.interpolators     = instances.toArray(new Interpolator[instances.size()]);
+        this.callInterpolators = Arrays.copyOf(ids, callCount);
+        this.componentCounts   = Arrays.copyOf(counts, callCount);
+        this.timeRatios        = Arrays.copyOf(ratios, callCount);
+        this.values            = Arrays.copyOf(data, valueCount);
+        this.from              = new float[maxComponentCount];
+        this.to                = new float[maxComponentCount];
+        this.output            = new float[maxComponentCount];
+        this.outputLength      = totalComponents;
+
+        if (hasValues == false)
+        {
+            Arrays.fill(to, 1);
+        }
+    }
+
+
+    /**
+     * Get the number of calls in the trace.
+     *
+     * @return
+     *         The number of calls.
+     */
+    public int getCallCount()
+    {
+        return timeRatios.length;
+    }
+
+
+    /**
+     * Get the number of distinct interpolator definitions in the trace.
+     *
+     * @return
+     *         The number of interpolators created for replay.
+     */
+    public int getInterpolatorCount()
+    {
+        return interpolators.length;
+    }
+
+
+    /**
+     * Check if the trace has 'from' and 'to' values.
+     *
+     * @return
+     *         true if the trace has values.
+     */
+    public boolean hasValues()
+    {
+        return hasValues;
+    }
+
+
+    /**
+     * Get the total number of output components of all the calls.
+     *
+     * @return
+     *         The length of the array required by {@link #replay(float[])}.
+     */
+    public int getOutputLength()
+    {
+        return outputLength;
+    }
+
+
+    /**
+     * Run all the calls. The outputs are discarded.
+     */
+    public void replay()
+    {
+        run(null);
+    }
+
+
+    /**
+     * Run all the calls and collect the outputs.
+     *
+     * @param outputs
+     *         A place into which the outputs of the calls are put one
+     *         after another. The length of the array must be equal to
+     *         or greater than {@link #getOutputLength()}.
+     *
+     * @throws IllegalArgumentException
+     *         'outputs' is null or too short.
+     */
+    public void replay(float[] outputs)
+    {
+        if (outputs == null)
+        {
+            throw new IllegalArgumentException("outputs == null");
+        }
+
+        if (outputs.length < outputLength)
+        {
+            throw new IllegalArgumentException("outputs.length < getOutputLength()");
+        }
+
+        run(outputs);
+    }
+
+
+    private void run(float[] outputs)
+    {
+        int valueIndex  = 0;
+        int outputIndex = 0;
+
+        for (int call = 0; call < timeRatios.length; ++call)
+        {
+            int componentCount = componentCounts[call];
+
+            if (hasValues)
+            {
+                System.arraycopy(values, valueIndex, from, 0, componentCount);
+                valueIndex += componentCount;
+                System.arraycopy(values, valueIndex, to, 0, componentCount);
+                valueIndex += componentCount;
+            }
+
+            interpolators[callInterpolators[call]].interpolate(from, to, componentCount, timeRatios[call], output);
+
+            if (outputs != null)
+            {
+                System.arraycopy(output, 0, outputs, outputIndex, componentCount);
+                outputIndex += componentCount;
+            }
+        }
+    }
+
+
+    /**
+     * Get the largest difference between two sets of outputs, for
+     * example, those of two versions of the library.
+     *
+     * @param outputs1
+     *         Outputs.
+     *
+     * @param outputs2
+     *         Other outputs.
+     *
+     * @return
+     *         The maximum absolute difference of the corresponding
+     *         elements. {@link Float#NaN} if only one of them is NaN.
+     *
+     * @throws IllegalArgumentException
+     *         An argument is null or the lengths are different.
+     */
+    public static float getMaxDifference(float[] outputs1, float[] outputs2)
+    {
+        if (outputs1 == null || outputs2 == null)
+        {
+            throw new IllegalArgumentException("outputs == null");
+        }
+
+        if (outputs1.length != outputs2.length)
+        {
+            throw new IllegalArgumentException("The lengths are different.");
+        }
+
+        float max = 0;
+
+        for (int i = 0; i < outputs1.length; ++i)
+        {
+            float a = outputs1[i];
+            float b = outputs2[i];
+
+            if (Float.isNaN(a) != Float.isNaN(b))
+            {
+                return Float.NaN;
+            }
+
+            if (Float.isNaN(a) == false)
+            {
+                max = Math.max(max, Math.abs(a - b));
+            }
+        }
+
+        return max;
+    }
+}
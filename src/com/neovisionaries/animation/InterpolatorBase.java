@@ -28,7 +28,8 @@ public abstract class InterpolatorBase implements Interpolator
      *
      * <p>
      * The implementation of {@link #interpolate} of {@link InterpolatorBase}
-     * checks given arguments and then does the following.
+     * checks given arguments (including {@link #checkComponentCount(int)
+     * checkComponentCount()}) and then does the following.
      * </p>
      *
      * <ol>
@@ -45,6 +46,8 @@ public abstract class InterpolatorBase implements Interpolator
      * <li>'timeRatio' is less than 0.</li>
      * <li>'timeRation' is greater than 1.</li>
      * <li>'componentCount' is less than 1.</li>
+     * <li>'componentCount' is rejected by {@link #checkComponentCount(int)
+     *     checkComponentCount()}.</li>
      * <li>'output' is null.</li>
      * <li>The length of 'output' is less than 'componentCount'.</li>
      * <li>'from' is null (this check is not done if 'timeRatio' is 1).</li>
@@ -68,6 +71,8 @@ public abstract class InterpolatorBase implements Interpolator
             throw new IllegalArgumentException("componentCount < 1");
         }
 
+        checkComponentCount(componentCount);
+
         if (output == null)
         {
             throw new IllegalArgumentException("output == null");
@@ -117,5 +122,28 @@ public abstract class InterpolatorBase implements Interpolator
     }
 
 
+    /**
+     * Check if the component count is acceptable for this interpolator.
+     *
+     * <p>
+     * This method is called by {@link #interpolate(float[], float[], int,
+     * float, float[]) interpolate()} on every call, including the calls
+     * which return without calling {@link #doInterpolate(float[], float[],
+     * int, float, float[]) doInterpolate()}. The default implementation
+     * does nothing. A subclass which requires a specific structure of
+     * components should override this method.
+     * </p>
+     *
+     * @param componentCount
+     *         The component count, which is 1 or greater.
+     *
+     * @throws IllegalArgumentException
+     *         The component count is not acceptable.
+     */
+    protected void checkComponentCount(int componentCount)
+    {
+    }
+
+
     protected abstract void doInterpolate(float[] from, float[] to, int componentCount, float timeRatio, float[] output);
 }
@@ -0,0 +1,429 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Type codes and serialization of the interpolators of this package.
+ *
+ * <p>
+ * An interpolator is serialized as its type code, followed by its
+ * {@link EasingMode} and its parameters if it is an easing interpolator.
+ * Parameters of {@link EasingPowerInterpolator}, {@link
+ * EasingExponentialInterpolator}, {@link EasingBackInterpolator},
+ * {@link EasingElasticInterpolator} and {@link EasingBounceInterpolator}
+ * are kept exactly. {@link CompositeInterpolator}, {@link
+ * FusedInterpolator} and interpolators of other packages are not
+ * supported.
+ * </p>
+ *
+ * <p>
+ * {@link #read(BinaryBuffer, Interpolator)} and {@link #create(int,
+ * EasingMode, float, float, Interpolator)} reconfigure a given
+ * interpolator instead of creating a new one when its type matches,
+ * and return shared instances for {@link LinearInterpolator}, {@link
+ * StepInterpolator} and {@link SlerpInterpolator}, which have no state.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public final class InterpolatorCodec
+{
+    /** Type code of {@link LinearInterpolator}. */
+    public static final int LINEAR = 1;
+
+    /** Type code of {@link StepInterpolator}. */
+    public static final int STEP = 2;
+
+    /** Type code of {@link SlerpInterpolator}. */
+    public static final int SLERP = 3;
+
+    /** Type code of {@link EasingQuadraticInterpolator}. */
+    public static final int QUADRATIC = 4;
+
+    /** Type code of {@link EasingCubicInterpolator}. */
+    public static final int CUBIC = 5;
+
+    /** Type code of {@link EasingQuarticInterpolator}. */
+    public static final int QUARTIC = 6;
+
+    /** Type code of {@link EasingQuinticInterpolator}. */
+    public static final int QUINTIC = 7;
+
+    /** Type code of {@link EasingPowerInterpolator}. */
+    public static final int POWER = 8;
+
+    /** Type code of {@link EasingSineInterpolator}. */
+    public static final int SINE = 9;
+
+    /** Type code of {@link EasingCircleInterpolator}. */
+    public static final int CIRCLE = 10;
+
+    /** Type code of {@link EasingExponentialInterpolator}. */
+    public static final int EXPONENTIAL = 11;
+
+    /** Type code of {@link EasingBackInterpolator}. */
+    public static final int BACK = 12;
+
+    /** Type code of {@link EasingElasticInterpolator}. */
+    public static final int ELASTIC = 13;
+
+    /** Type code of {@link EasingBounceInterpolator}. */
+    public static final int BOUNCE = 14;
+
+
+    /**
+     * The maximum number of parameters of an interpolator.
+     */
+    public static final int MAX_PARAMETER_COUNT = 2;
+
+
+    private static final Interpolator LINEAR_INSTANCE = new LinearInterpolator();
+    private static final Interpolator STEP_INSTANCE   = new StepInterpolator();
+    private static final Interpolator SLERP_INSTANCE  = new SlerpInterpolator();
+    private static final EasingMode[] EASING_MODES    = EasingMode.values();
+
+
+    private InterpolatorCodec()
+    {
+    }
+
+
+    /**
+     * Get the type code of an interpolator.
+     *
+     * @param interpolator
+     *         An interpolator.
+     *
+     * @return
+     *         The type code, or 0 if the interpolator is null or
+     *         not supported.
+     */
+    public static int getType(Interpolator interpolator)
+    {
+        if (interpolator == null)
+        {
+            return 0;
+        }
+
+        // Only the exact classes, because subclasses may behave differently.
+        Class<?> type = interpolator.getClass();
+
+        if (type == LinearInterpolator.class)            return LINEAR;
+        if (type == StepInterpolator.class)              return STEP;
+        if (type == SlerpInterpolator.class)             return SLERP;
+        if (type == EasingQuadraticInterpolator.class)   return QUADRATIC;
+        if (type == EasingCubicInterpolator.class)       return CUBIC;
+        if (type == EasingQuarticInterpolator.class)     return QUARTIC;
+        if (type == EasingQuinticInterpolator.class)     return QUINTIC;
+        if (type == EasingPowerInterpolator.class)       return POWER;
+        if (type == EasingSineInterpolator.class)        return SINE;
+        if (type == EasingCircleInterpolator.class)      return CIRCLE;
+        if (type == EasingExponentialInterpolator.class) return EXPONENTIAL;
+        if (type == EasingBackInterpolator.class)        return BACK;
+        if (type == EasingElasticInterpolator.class)     return ELASTIC;
+        if (type == EasingBounceInterpolator.class)      return BOUNCE;
+
+        return 0;
+    }
+
+
+    /**
+     * Check if interpolators of a type have an {@link EasingMode}.
+     *
+     * @param type
+     *         A type code.
+     *
+     * @return
+     *         true if the type is an easing interpolator.
+     */
+    public static boolean hasEasingMode(int type)
+    {
+        return QUADRATIC <= type && type <= BOUNCE;
+    }
+
+
+    /**
+     * Get the number of parameters of a type.
+     *
+     * @param type
+     *         A type code.
+     *
+     * @return
+     *         The number of parameters, from 0 to {@link #MAX_PARAMETER_COUNT}.
+     */
+    public static int getParameterCount(int type)
+    {
+        switch (type)
+        {
+            case POWER:
+            case EXPONENTIAL:
+            case BACK:
+                return 1;
+
+            case ELASTIC:
+            case BOUNCE:
+                return 2;
+
+            default:
+                return 0;
+        }
+    }
+
+
+    /**
+     * Get a parameter of an interpolator. Integer parameters are
+     * returned as floats.
+     *
+     * @param interpolator
+     *         An interpolator of a supported type.
+     *
+     * @param index
+     *         The index of a parameter.
+     *
+     * @return
+     *         The value of the parameter, or 0 if the interpolator
+     *         does not have the parameter.
+     */
+    public static float getParameter(Interpolator interpolator, int index)
+    {
+        switch (getType(interpolator))
+        {
+            case POWER:
+                return (index == 0) ? ((EasingPowerInterpolator)interpolator).getPower() : 0;
+
+            case EXPONENTIAL:
+                return (index == 0) ? ((EasingExponentialInterpolator)interpolator).getExponent() : 0;
+
+            case BACK:
+                return (index == 0) ? ((EasingBackInterpolator)interpolator).getAmplitude() : 0;
+
+            case ELASTIC:
+                EasingElasticInterpolator elastic = (EasingElasticInterpolator)interpolator;
+                return (index == 0) ? elastic.getOscillationCount()
+                     : (index == 1) ? elastic.getSpringiness() : 0;
+
+            case BOUNCE:
+                EasingBounceInterpolator bounce = (EasingBounceInterpolator)interpolator;
+                return (index == 0) ? bounce.getBounceCount()
+                     : (index == 1) ? bounce.getBounciness() : 0;
+
+            default:
+                return 0;
+        }
+    }
+
+
+    /**
+     * Get an interpolator of the specified type and settings.
+     *
+     * @param type
+     *         A type code.
+     *
+     * @param easingMode
+     *         An easing mode. Ignored if the type does not have one.
+     *
+     * @param parameter0
+     *         The first parameter. Ignored if the type does not have one.
+     *
+     * @param parameter1
+     *         The second parameter. Ignored if the type does not have one.
+     *
+     * @param reusable
+     *         An interpolator which may be reconfigured and returned
+     *         instead of creating a new one. May be null. It must not
+     *         be in use for other purposes.
+     *
+     * @return
+     *         An interpolator.
+     *
+     * @throws IllegalArgumentException
+     *         'type' is unknown, 'easingMode' is null for an easing type,
+     *         or a parameter is invalid.
+     */
+    public static Interpolator create(int type, EasingMode easingMode, float parameter0, float parameter1, Interpolator reusable)
+    {
+        switch (type)
+        {
+            case LINEAR: return LINEAR_INSTANCE;
+            case STEP:   return STEP_INSTANCE;
+            case SLERP:  return SLERP_INSTANCE;
+        }
+
+        EasingInterpolator easing = (getType(reusable) == type) ? (EasingInterpolator)reusable : newEasing(type);
+
+        easing.setEasingMode(easingMode);
+
+        switch (type)
+        {
+            case POWER:
+                ((EasingPowerInterpolator)easing).setPower(parameter0);
+                break;
+
+            case EXPONENTIAL:
+                ((EasingExponentialInterpolator)easing).setExponent(parameter0);
+                break;
+
+            case BACK:
+                ((EasingBackInterpolator)easing).setAmplitude(parameter0);
+                break;
+
+            case ELASTIC:
+                ((EasingElasticInterpolator)easing).setOscillationCount((int)parameter0);
+                ((EasingElasticInterpolator)easing).setSpringiness(parameter1);
+                break;
+
+            case BOUNCE:
+                ((EasingBounceInterpolator)easing).setBounceCount((int)parameter0);
+                ((EasingBounceInterpolator)easing).setBounciness(parameter1);
+                break;
+        }
+
+        return easing;
+    }
+
+
+    private static EasingInterpolator newEasing(int type)
+    {
+        switch (type)
+        {
+            case QUADRATIC:   return new EasingQuadraticInterpolator();
+            case CUBIC:       return new EasingCubicInterpolator();
+            case QUARTIC:     return new EasingQuarticInterpolator();
+            case QUINTIC:     return new EasingQuinticInterpolator();
+            case POWER:       return new EasingPowerInterpolator();
+            case SINE:        return new EasingSineInterpolator();
+            case CIRCLE:      return new EasingCircleInterpolator();
+            case EXPONENTIAL: return new EasingExponentialInterpolator();
+            case BACK:        return new EasingBackInterpolator();
+            case ELASTIC:     return new EasingElasticInterpolator();
+            case BOUNCE:      return new EasingBounceInterpolator();
+            default:
+                throw new IllegalArgumentException("Unknown interpolator type: " + type);
+        }
+    }
+
+
+    /**
+     * Get the easing mode of an interpolator as an integer.
+     *
+     * @param interpolator
+     *         An interpolator.
+     *
+     * @return
+     *         The ordinal of the easing mode, or 0 if the interpolator
+     *         is not an easing interpolator.
+     */
+    public static int getEasingModeCode(Interpolator interpolator)
+    {
+        if (interpolator instanceof EasingInterpolator)
+        {
+            return ((EasingInterpolator)interpolator).getEasingMode().ordinal();
+        }
+
+        return 0;
+    }
+
+
+    /**
+     * Convert an integer made by {@link #getEasingModeCode(Interpolator)}
+     * back into an easing mode.
+     *
+     * @param code
+     *         The ordinal of an easing mode.
+     *
+     * @return
+     *         The easing mode.
+     *
+     * @throws IllegalArgumentException
+     *         'code' is out of range.
+     */
+    public static EasingMode toEasingMode(int code)
+    {
+        if (code < 0 || EASING_MODES.length <= code)
+        {
+            throw new IllegalArgumentException("Unknown easing mode: " + code);
+        }
+
+        return EASING_MODES[code];
+    }
+
+
+    /**
+     * Write an interpolator.
+     *
+     * @param interpolator
+     *         An interpolator of a supported type.
+     *
+     * @param buffer
+     *         A buffer into which the interpolator is written.
+     *
+     * @throws IllegalArgumentException
+     *         The interpolator is null or not supported.
+     */
+    public static void write(Interpolator interpolator, BinaryBuffer buffer)
+    {
+        int type = getType(interpolator);
+
+        if (type == 0)
+        {
+            throw new IllegalArgumentException("The interpolator is not supported.");
+        }
+
+        buffer.writeVarint(type);
+
+        if (hasEasingMode(type))
+        {
+            buffer.writeVarint(getEasingModeCode(interpolator));
+        }
+
+        for (int i = 0; i < getParameterCount(type); ++i)
+        {
+            buffer.writeFloat(getParameter(interpolator, i));
+        }
+    }
+
+
+    /**
+     * Read an interpolator written by {@link #write(Interpolator, BinaryBuffer)}.
+     *
+     * @param buffer
+     *         A buffer from which the interpolator is read.
+     *
+     * @param reusable
+     *         An interpolator which may be reconfigured and returned
+     *         instead of creating a new one. May be null.
+     *
+     * @return
+     *         An interpolator.
+     *
+     * @throws IllegalArgumentException
+     *         The data is not a valid interpolator.
+     *
+     * @throws IllegalStateException
+     *         The data is truncated.
+     */
+    public static Interpolator read(BinaryBuffer buffer, Interpolator reusable)
+    {
+        int type = buffer.readVarint();
+        EasingMode mode = hasEasingMode(type) ? toEasingMode(buffer.readVarint()) : null;
+        int count = getParameterCount(type);
+        float parameter0 = (0 < count) ? buffer.readFloat() : 0;
+        float parameter1 = (1 < count) ? buffer.readFloat() : 0;
+
+        return create(type, mode, parameter0, parameter1, reusable);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * State of an animated parameter in {@link ParameterStore}.
+ *
+ * @author Takahiko Kawasaki
+ */
+public enum ParameterState
+{
+    /**
+     * Waiting for its start time.
+     */
+    PENDING,
+
+    /**
+     * Being animated.
+     */
+    IN_FLIGHT,
+
+    /**
+     * Staying at its final value.
+     */
+    SETTLED
+    ;
+}
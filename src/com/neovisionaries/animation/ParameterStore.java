@@ -0,0 +1,620 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.Arrays;
+
+
+/**
+ * A store of animated parameters which evaluates only parameters
+ * in flight.
+ *
+ * <p>
+ * Parameters are identified by indexes from 0 to (capacity - 1) and
+ * all of them have the same component count. Each parameter is in one
+ * of the states listed in {@link ParameterState}. Initially, all the
+ * parameters are {@link ParameterState#SETTLED SETTLED} with 0 values.
+ * </p>
+ *
+ * <p>
+ * {@link #update(float) update()} visits only {@link
+ * ParameterState#PENDING PENDING} and {@link ParameterState#IN_FLIGHT
+ * IN_FLIGHT} parameters, so parameters which stay at their final values
+ * cost nothing. Parameters whose values have changed are recorded in
+ * a dirty set, which is available both as a list of indexes ({@link
+ * #getDirtyParameters()}) and as a bit set ({@link #getDirtyBits()}),
+ * so that consumers can upload only the changed values. The dirty set
+ * accumulates until {@link #clearDirty()} is called.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * {@link ParameterStore} store = new {@link #ParameterStore(int, int) ParameterStore}(1000, 4);
+ *
+ * store.{@link #animate(int, Interpolator, float[], float[], float, float) animate}(index, interpolator, from, to, startTime, duration);
+ *
+ * <span style="color: darkgreen;">// For each frame.</span>
+ * store.{@link #update(float) update}(time);
+ *
+ * int[] dirty = store.{@link #getDirtyParameters()};
+ *
+ * for (int i = 0; i &lt; store.{@link #getDirtyCount()}; ++i)
+ * {
+ *     upload(dirty[i], store.{@link #getValue(int) getValue}(dirty[i]));
+ * }
+ *
+ * store.{@link #clearDirty()};
+ * </pre>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class ParameterStore
+{
+    private static final int NONE = -1;
+
+
+    private final int componentCount;
+    private final Interpolator[] interpolators;
+    private final float[][] froms;
+    private final float[][] tos;
+    private final float[][] values;
+    private final float[] startTimes;
+    private final float[] durations;
+    private final ParameterState[] states;
+
+
+    /**
+     * Parameters which are PENDING or IN_FLIGHT.
+     */
+    private final int[] scheduled;
+    private final int[] scheduledPositions;
+    private int scheduledCount;
+
+
+    /**
+     * Dirty set.
+     */
+    private final int[] dirtyParameters;
+    private final long[] dirtyBits;
+    private int dirtyCount;
+
+
+    /**
+     * A constructor with the number of parameters and their component count.
+     *
+     * @param capacity
+     *         The number of parameters.
+     *
+     * @param componentCount
+     *         The component count of each parameter.
+     *
+     * @throws IllegalArgumentException
+     *         'capacity' or 'componentCount' is less than 1.
+     */
+    public ParameterStore(int capacity, int componentCount)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity < 1");
+        }
+
+        if (componentCount < 1)
+        {
+            throw new IllegalArgumentException("componentCount < 1");
+        }
+
+        this.componentCount = componentCount;
+        interpolators       = new Interpolator[capacity];
+        froms               = new float[capacity][componentCount];
+        tos                 = new float[capacity][componentCount];
+        values              = new float[capacity][componentCount];
+        startTimes          = new float[capacity];
+        durations           = new float[capacity];
+        states              = new ParameterState[capacity];
+        scheduled           = new int[capacity];
+        scheduledPositions  = new int[capacity];
+        dirtyParameters     = new int[capacity];
+        dirtyBits           = new long[(capacity + 63) >>> 6];
+
+        Arrays.fill(states, ParameterState.SETTLED);
+        Arrays.fill(scheduledPositions, NONE);
+    }
+
+
+    /**
+     * Get the number of parameters.
+     *
+     * @return
+     *         The number of parameters.
+     */
+    public int getCapacity()
+    {
+        return states.length;
+    }
+
+
+    /**
+     * Get the component count of each parameter.
+     *
+     * @return
+     *         The component count.
+     */
+    public int getComponentCount()
+    {
+        return componentCount;
+    }
+
+
+    /**
+     * Start animating a parameter.
+     *
+     * <p>
+     * The parameter becomes {@link ParameterState#PENDING PENDING} and
+     * its value does not change until 'startTime' comes. If the parameter
+     * is already being animated, the previous animation is discarded.
+     * </p>
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @param interpolator
+     *         An interpolator.
+     *
+     * @param from
+     *         The value at the start time. The content is copied.
+     *
+     * @param to
+     *         The value at the end time. The content is copied.
+     *
+     * @param startTime
+     *         The start time.
+     *
+     * @param duration
+     *         The duration. 0 makes the parameter jump to 'to' at
+     *         the start time.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>'interpolator', 'from' or 'to' is null.</li>
+     * <li>The length of 'from' or 'to' is less than the component count.</li>
+     * <li>'duration' is less than 0.</li>
+     * </ul>
+     */
+    public void animate(int parameter, Interpolator interpolator, float[] from, float[] to, float startTime, float duration)
+    {
+        checkParameter(parameter);
+
+        if (interpolator == null)
+        {
+            throw new IllegalArgumentException("interpolator is null");
+        }
+
+        checkValue(from, "from");
+        checkValue(to, "to");
+
+        if (duration < 0)
+        {
+            throw new IllegalArgumentException("duration < 0");
+        }
+
+        System.arraycopy(from, 0, froms[parameter], 0, componentCount);
+        System.arraycopy(to,   0, tos[parameter],   0, componentCount);
+
+        interpolators[parameter] = interpolator;
+        startTimes[parameter]    = startTime;
+        durations[parameter]     = duration;
+        states[parameter]        = ParameterState.PENDING;
+
+        addScheduled(parameter);
+    }
+
+
+    /**
+     * Set the value of a parameter immediately.
+     *
+     * <p>
+     * The parameter becomes {@link ParameterState#SETTLED SETTLED}
+     * and dirty. If the parameter is being animated, the animation
+     * is discarded.
+     * </p>
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @param value
+     *         The value. The content is copied.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     *
+     * @throws IllegalArgumentException
+     *         'value' is null or its length is less than the component count.
+     */
+    public void set(int parameter, float[] value)
+    {
+        checkParameter(parameter);
+        checkValue(value, "value");
+
+        System.arraycopy(value, 0, values[parameter], 0, componentCount);
+
+        settle(parameter);
+        markDirty(parameter);
+    }
+
+
+    /**
+     * Get the state of a parameter.
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @return
+     *         The state of the parameter.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     */
+    public ParameterState getState(int parameter)
+    {
+        checkParameter(parameter);
+
+        return states[parameter];
+    }
+
+
+    /**
+     * Get the current value of a parameter.
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @return
+     *         The internal array which holds the current value.
+     *         It must not be modified.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     */
+    public float[] getValue(int parameter)
+    {
+        checkParameter(parameter);
+
+        return values[parameter];
+    }
+
+
+    /**
+     * Get the interpolator of the current animation of a parameter.
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @return
+     *         The interpolator, or null if the parameter is
+     *         {@link ParameterState#SETTLED SETTLED}.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     */
+    public Interpolator getInterpolator(int parameter)
+    {
+        checkParameter(parameter);
+
+        return interpolators[parameter];
+    }
+
+
+    /**
+     * Get the value at the start time of the last animation of a parameter.
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @return
+     *         The internal array. It must not be modified.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     */
+    public float[] getFrom(int parameter)
+    {
+        checkParameter(parameter);
+
+        return froms[parameter];
+    }
+
+
+    /**
+     * Get the value at the end time of the last animation of a parameter.
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @return
+     *         The internal array. It must not be modified.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     */
+    public float[] getTo(int parameter)
+    {
+        checkParameter(parameter);
+
+        return tos[parameter];
+    }
+
+
+    /**
+     * Get the start time of the last animation of a parameter.
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @return
+     *         The start time.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     */
+    public float getStartTime(int parameter)
+    {
+        checkParameter(parameter);
+
+        return startTimes[parameter];
+    }
+
+
+    /**
+     * Get the duration of the last animation of a parameter.
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @return
+     *         The duration.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     */
+    public float getDuration(int parameter)
+    {
+        checkParameter(parameter);
+
+        return durations[parameter];
+    }
+
+
+    /**
+     * Get the number of parameters which are {@link ParameterState#PENDING
+     * PENDING} or {@link ParameterState#IN_FLIGHT IN_FLIGHT}.
+     *
+     * @return
+     *         The number of parameters which are not settled.
+     */
+    public int getScheduledCount()
+    {
+        return scheduledCount;
+    }
+
+
+    /**
+     * Update the values of parameters in flight.
+     *
+     * <p>
+     * {@link ParameterState#PENDING PENDING} parameters whose start time
+     * has come become {@link ParameterState#IN_FLIGHT IN_FLIGHT}, and
+     * {@link ParameterState#IN_FLIGHT IN_FLIGHT} parameters which have
+     * reached their end time become {@link ParameterState#SETTLED SETTLED}.
+     * All the evaluated parameters are marked dirty.
+     * </p>
+     *
+     * @param time
+     *         The current time.
+     */
+    public void update(float time)
+    {
+        for (int i = 0; i < scheduledCount; )
+        {
+            int parameter = scheduled[i];
+            float start   = startTimes[parameter];
+
+            if (time < start)
+            {
+                // Still pending.
+                ++i;
+                continue;
+            }
+
+            float duration  = durations[parameter];
+            float timeRatio = (duration == 0) ? 1 : Math.min((time - start) / duration, 1);
+
+            interpolators[parameter].interpolate(
+                    froms[parameter], tos[parameter], componentCount, timeRatio, values[parameter]);
+
+            markDirty(parameter);
+
+            if (timeRatio < 1)
+            {
+                states[parameter] = ParameterState.IN_FLIGHT;
+                ++i;
+            }
+            else
+            {
+                // settle() moves another parameter to the position i.
+                settle(parameter);
+            }
+        }
+    }
+
+
+    /**
+     * Get the number of dirty parameters.
+     *
+     * @return
+     *         The number of dirty parameters.
+     */
+    public int getDirtyCount()
+    {
+        return dirtyCount;
+    }
+
+
+    /**
+     * Get the indexes of dirty parameters.
+     *
+     * @return
+     *         The internal array. Only the first {@link #getDirtyCount()}
+     *         elements are valid. They are in the order in which the
+     *         parameters became dirty.
+     */
+    public int[] getDirtyParameters()
+    {
+        return dirtyParameters;
+    }
+
+
+    /**
+     * Get the dirty set as a bit set.
+     *
+     * @return
+     *         The internal array. The bit (parameter &amp; 63) of the
+     *         element (parameter &gt;&gt;&gt; 6) is set if the parameter
+     *         is dirty.
+     */
+    public long[] getDirtyBits()
+    {
+        return dirtyBits;
+    }
+
+
+    /**
+     * Check if a parameter is dirty.
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @return
+     *         true if the parameter is dirty.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     */
+    public boolean isDirty(int parameter)
+    {
+        checkParameter(parameter);
+
+        return (dirtyBits[parameter >>> 6] & (1L << parameter)) != 0;
+    }
+
+
+    /**
+     * Clear the dirty set.
+     *
+     * <p>
+     * This takes time proportional to the number of dirty parameters.
+     * </p>
+     */
+    public void clearDirty()
+    {
+        for (int i = 0; i < dirtyCount; ++i)
+        {
+            dirtyBits[dirtyParameters[i] >>> 6] = 0;
+        }
+
+        dirtyCount = 0;
+    }
+
+
+    private void markDirty(int parameter)
+    {
+        int word  = parameter >>> 6;
+        long mask = 1L << parameter;
+
+        if ((dirtyBits[word] & mask) != 0)
+        {
+            return;
+        }
+
+        dirtyBits[word] |= mask;
+        dirtyParameters[dirtyCount++] = parameter;
+    }
+
+
+    private void addScheduled(int parameter)
+    {
+        if (scheduledPositions[parameter] != NONE)
+        {
+            return;
+        }
+
+        scheduled[scheduledCount] = parameter;
+        scheduledPositions[parameter] = scheduledCount;
+
+        ++scheduledCount;
+    }
+
+
+    private void settle(int parameter)
+    {
+        states[parameter] = ParameterState.SETTLED;
+        interpolators[parameter] = null;
+
+        int position = scheduledPositions[parameter];
+
+        if (position == NONE)
+        {
+            return;
+        }
+
+        // Move the last one into the hole.
+        int last = scheduled[--scheduledCount];
+
+        scheduled[position] = last;
+        scheduledPositions[last] = position;
+        scheduledPositions[parameter] = NONE;
+    }
+
+
+    private void checkParameter(int parameter)
+    {
+        if (parameter < 0 || states.length <= parameter)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+
+    private void checkValue(float[] value, String name)
+    {
+        if (value == null)
+        {
+            throw new IllegalArgumentException(name + " == null");
+        }
+
+        if (value.length < componentCount)
+        {
+            throw new IllegalArgumentException(name + ".length < componentCount");
+        }
+    }
+}
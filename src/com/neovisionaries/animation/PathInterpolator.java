@@ -0,0 +1,318 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Base implementation of path interpolators, which move a point along
+ * a curve at a constant speed.
+ *
+ * <p>
+ * A curve is given by a subclass as a function of its own parameter
+ * 'u' ({@link #evaluateCurve(float, float[])}). Because the speed of
+ * a point moving along a curve is generally not constant with respect
+ * to 'u', a table of arc lengths at uniformly-spaced values of 'u' is
+ * built when the path is created. {@link #interpolate(float, float[])
+ * interpolate()} converts a time ratio into a distance along the path,
+ * finds the table interval which contains the distance by binary search,
+ * and linearly refines 'u' within the interval. The cost is bounded by
+ * the logarithm of the table size, and no object is created.
+ * </p>
+ *
+ * <p>
+ * An {@link EasingInterpolator} can be set to change the speed along
+ * the path. Eased time ratios out of the range from 0.0 to 1.0 are
+ * clamped to the ends of the path.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public abstract class PathInterpolator
+{
+    private final int dimension;
+    private final float[] parameters;
+    private final float[] lengths;
+    private EasingInterpolator easing;
+
+
+    /**
+     * A constructor with the dimension and the size of the arc length table.
+     *
+     * <p>
+     * The table is built by {@link #buildTable()}, which a subclass must
+     * call at the end of its constructor.
+     * </p>
+     *
+     * @param dimension
+     *         The number of components of a point.
+     *
+     * @param intervalCount
+     *         The number of intervals of the arc length table.
+     *
+     * @throws IllegalArgumentException
+     *         'dimension' or 'intervalCount' is less than 1.
+     */
+    protected PathInterpolator(int dimension, int intervalCount)
+    {
+        if (dimension < 1)
+        {
+            throw new IllegalArgumentException("dimension < 1");
+        }
+
+        if (intervalCount < 1)
+        {
+            throw new IllegalArgumentException("intervalCount < 1");
+        }
+
+        this.dimension  = dimension;
+        this.parameters = new float[intervalCount + 1];
+        this.lengths    = new float[intervalCount + 1];
+    }
+
+
+    /**
+     * Build the arc length table. A subclass must call this method
+     * once at the end of its constructor.
+     */
+    protected final void buildTable()
+    {
+        int intervalCount = parameters.length - 1;
+        float[] previous  = new float[dimension];
+        float[] current   = new float[dimension];
+        double total      = 0;
+
+        evaluateCurve(0, previous);
+
+        for (int i = 1; i <= intervalCount; ++i)
+        {
+            float u = (float)i / intervalCount;
+
+            evaluateCurve(u, current);
+
+            double squared = 0;
+
+            for (int k = 0; k < dimension; ++k)
+            {
+                double d = current[k] - previous[k];
+                squared += d * d;
+            }
+
+            total += Math.sqrt(squared);
+
+            parameters[i] = u;
+            lengths[i]    = (float)total;
+
+            float[] swap = previous;
+            previous = current;
+            current  = swap;
+        }
+    }
+
+
+    /**
+     * Get the number of components of a point.
+     *
+     * @return
+     *         The dimension.
+     */
+    public int getDimension()
+    {
+        return dimension;
+    }
+
+
+    /**
+     * Get the length of the path.
+     *
+     * @return
+     *         The length of the path measured by the arc length table.
+     */
+    public float getLength()
+    {
+        return lengths[lengths.length - 1];
+    }
+
+
+    /**
+     * Get the easing which changes the speed along the path.
+     *
+     * @return
+     *         The easing. null is returned if no easing is set.
+     */
+    public EasingInterpolator getEasing()
+    {
+        return easing;
+    }
+
+
+    /**
+     * Set an easing which changes the speed along the path.
+     *
+     * @param easing
+     *         An easing. If null is given, the point moves at a
+     *         constant speed.
+     */
+    public void setEasing(EasingInterpolator easing)
+    {
+        this.easing = easing;
+    }
+
+
+    /**
+     * Calculate the position on the path at the specified time ratio.
+     *
+     * @param timeRatio
+     *         A time ratio. It must be in between 0.0 and 1.0.
+     *
+     * @param output
+     *         A place into which the position is put. The length of the
+     *         array must be equal to or greater than the dimension.
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>'timeRatio' is less than 0 or greater than 1.</li>
+     * <li>'output' is null.</li>
+     * <li>The length of 'output' is less than the dimension.</li>
+     * </ul>
+     */
+    public void interpolate(float timeRatio, float[] output)
+    {
+        if (timeRatio < 0 || 1 < timeRatio)
+        {
+            throw new IllegalArgumentException("ratio < 0 || 1 < ratio");
+        }
+
+        if (output == null)
+        {
+            throw new IllegalArgumentException("output == null");
+        }
+
+        if (output.length < dimension)
+        {
+            throw new IllegalArgumentException("output.length < dimension");
+        }
+
+        if (easing != null)
+        {
+            timeRatio = Math.max(0, Math.min(easing.ease(timeRatio), 1));
+        }
+
+        evaluateCurve(toParameter(timeRatio * getLength()), output);
+    }
+
+
+    /**
+     * Convert a distance along the path into the parameter of the curve.
+     *
+     * @param distance
+     *         A distance from the start of the path.
+     *
+     * @return
+     *         The parameter of the curve.
+     */
+    protected float toParameter(float distance)
+    {
+        int last = lengths.length - 1;
+
+        if (distance <= 0)
+        {
+            return 0;
+        }
+
+        if (lengths[last] <= distance)
+        {
+            return 1;
+        }
+
+        // Find the last entry whose length is equal to or less than the distance.
+        int low  = 0;
+        int high = last;
+
+        while (low + 1 < high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if (lengths[middle] <= distance)
+            {
+                low = middle;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        float l0 = lengths[low];
+        float l1 = lengths[high];
+
+        if (l1 <= l0)
+        {
+            return parameters[low];
+        }
+
+        float fraction = (distance - l0) / (l1 - l0);
+
+        return parameters[low] + (parameters[high] - parameters[low]) * fraction;
+    }
+
+
+    /**
+     * Calculate the point on the curve at the specified parameter.
+     *
+     * <p>
+     * This method must not create any object.
+     * </p>
+     *
+     * @param u
+     *         The parameter of the curve, in between 0.0 and 1.0.
+     *
+     * @param output
+     *         A place into which the point is put.
+     */
+    protected abstract void evaluateCurve(float u, float[] output);
+
+
+    /**
+     * Check points given to a constructor of a subclass.
+     *
+     * @return
+     *         The number of points.
+     */
+    static int countPoints(int dimension, float[] points, int minPointCount)
+    {
+        if (dimension < 1)
+        {
+            throw new IllegalArgumentException("dimension < 1");
+        }
+
+        if (points == null)
+        {
+            throw new IllegalArgumentException("points == null");
+        }
+
+        if (points.length % dimension != 0)
+        {
+            throw new IllegalArgumentException("points.length is not a multiple of dimension");
+        }
+
+        if (points.length / dimension < minPointCount)
+        {
+            throw new IllegalArgumentException("The number of points is less than " + minPointCount + ".");
+        }
+
+        return points.length / dimension;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Path along line segments which connect points.
+ *
+ * <p>
+ * The arc length table has one entry per point, so the lengths are exact.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class PolylinePath extends PathInterpolator
+{
+    private final float[] points;
+    private final int segmentCount;
+
+
+    /**
+     * A constructor with points.
+     *
+     * @param dimension
+     *         The number of components of a point.
+     *
+     * @param points
+     *         Points. The i-th point starts at (i * dimension).
+     *         The array is copied.
+     *
+     * @throws IllegalArgumentException
+     *         'dimension' is less than 1, 'points' is null, the length of
+     *         'points' is not a multiple of 'dimension', or the number of
+     *         points is less than 2.
+     */
+    public PolylinePath(int dimension, float[] points)
+    {
+        super(dimension, countPoints(dimension, points, 2) - 1);
+
+        this.points       = points.clone();
+        this.segmentCount = points.length / dimension - 1;
+
+        buildTable();
+    }
+
+
+    @Override
+    protected void evaluateCurve(float u, float[] output)
+    {
+        int dimension = getDimension();
+        float position = u * segmentCount;
+        int segment = Math.min((int)position, segmentCount - 1);
+        float fraction = position - segment;
+        int offset = segment * dimension;
+
+        for (int i = 0; i < dimension; ++i)
+        {
+            float p0 = points[offset + i];
+            float p1 = points[offset + dimension + i];
+
+            output[i] = p0 + (p1 - p0) * fraction;
+        }
+    }
+}
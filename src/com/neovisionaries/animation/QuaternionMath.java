@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Quaternion operations shared by quaternion-based interpolators.
+ *
+ * <p>
+ * A quaternion is stored as 4 consecutive elements (x, y, z, w) of
+ * a float array starting at a given offset, which is the same layout
+ * as that of {@link SlerpInterpolator}. Output may overlap input
+ * unless otherwise noted.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+final class QuaternionMath
+{
+    /**
+     * Cosine above which two quaternions are blended linearly
+     * instead of spherically. The same threshold as that of
+     * {@link SlerpInterpolator}.
+     */
+    static final float LINEAR_THRESHOLD = 0.9999f;
+
+
+    /**
+     * Coefficients of the polynomial in {@link #slerpWeight(float, float)}.
+     * u[i] = 1 / ((i + 1) * (2i + 3)), v[i] = (i + 1) / (2i + 3), and
+     * the last ones are scaled to cancel the truncation error.
+     */
+    private static final float[] U;
+    private static final float[] V;
+
+
+    static
+    {
+        final int count = 8;
+        final double correction = 1.85298109240830;
+
+        U = new float[count];
+        V = new float[count];
+
+        for (int i = 0; i < count; ++i)
+        {
+            double n = i + 1;
+
+            U[i] = (float)(1 / (n * (2 * n + 1)));
+            V[i] = (float)(n / (2 * n + 1));
+        }
+
+        U[count - 1] *= correction;
+        V[count - 1] *= correction;
+    }
+
+
+    private QuaternionMath()
+    {
+    }
+
+
+    static float dot(float[] a, int ao, float[] b, int bo)
+    {
+        return a[ao] * b[bo] + a[ao + 1] * b[bo + 1] + a[ao + 2] * b[bo + 2] + a[ao + 3] * b[bo + 3];
+    }
+
+
+    static void normalize(float[] q, int qo)
+    {
+        float length = (float)Math.sqrt(dot(q, qo, q, qo));
+
+        if (length == 0)
+        {
+            q[qo]     = 0;
+            q[qo + 1] = 0;
+            q[qo + 2] = 0;
+            q[qo + 3] = 1;
+            return;
+        }
+
+        float inverse = 1 / length;
+
+        q[qo]     *= inverse;
+        q[qo + 1] *= inverse;
+        q[qo + 2] *= inverse;
+        q[qo + 3] *= inverse;
+    }
+
+
+    /**
+     * output = conjugate(q). For a unit quaternion, this is the inverse.
+     */
+    static void conjugate(float[] q, int qo, float[] output, int oo)
+    {
+        output[oo]     = -q[qo];
+        output[oo + 1] = -q[qo + 1];
+        output[oo + 2] = -q[qo + 2];
+        output[oo + 3] =  q[qo + 3];
+    }
+
+
+    /**
+     * Convert a rotation matrix into a unit quaternion. 'mRC' is the
+     * element at the row R and the column C. The matrix must be
+     * orthonormal.
+     */
+    static void fromRotation(
+            float m00, float m01, float m02,
+            float m10, float m11, float m12,
+            float m20, float m21, float m22,
+            float[] output, int oo)
+    {
+        float x, y, z, w;
+        float trace = m00 + m11 + m22;
+
+        // Use the largest of w, x, y and z as the divisor for stability.
+        if (0 < trace)
+        {
+            float s = (float)Math.sqrt(trace + 1) * 2;
+            w = 0.25f * s;
+            x = (m21 - m12) / s;
+            y = (m02 - m20) / s;
+            z = (m10 - m01) / s;
+        }
+        else if (m11 < m00 && m22 < m00)
+        {
+            float s = (float)Math.sqrt(1 + m00 - m11 - m22) * 2;
+            w = (m21 - m12) / s;
+            x = 0.25f * s;
+            y = (m01 + m10) / s;
+            z = (m02 + m20) / s;
+        }
+        else if (m22 < m11)
+        {
+            float s = (float)Math.sqrt(1 + m11 - m00 - m22) * 2;
+            w = (m02 - m20) / s;
+            x = (m01 + m10) / s;
+            y = 0.25f * s;
+            z = (m12 + m21) / s;
+        }
+        else
+        {
+            float s = (float)Math.sqrt(1 + m22 - m00 - m11) * 2;
+            w = (m10 - m01) / s;
+            x = (m02 + m20) / s;
+            y = (m12 + m21) / s;
+            z = 0.25f * s;
+        }
+
+        output[oo]     = x;
+        output[oo + 1] = y;
+        output[oo + 2] = z;
+        output[oo + 3] = w;
+
+        normalize(output, oo);
+    }
+
+
+    /**
+     * output = a * b (Hamilton product).
+     */
+    static void multiply(float[] a, int ao, float[] b, int bo, float[] output, int oo)
+    {
+        float ax = a[ao], ay = a[ao + 1], az = a[ao + 2], aw = a[ao + 3];
+        float bx = b[bo], by = b[bo + 1], bz = b[bo + 2], bw = b[bo + 3];
+
+        output[oo]     = aw * bx + ax * bw + ay * bz - az * by;
+        output[oo + 1] = aw * by - ax * bz + ay * bw + az * bx;
+        output[oo + 2] = aw * bz + ax * by - ay * bx + az * bw;
+        output[oo + 3] = aw * bw - ax * bx - ay * by - az * bz;
+    }
+
+
+    /**
+     * output = log(q) for a unit quaternion. The w component of the
+     * output is 0.
+     */
+    static void log(float[] q, int qo, float[] output, int oo)
+    {
+        double x = q[qo], y = q[qo + 1], z = q[qo + 2], w = q[qo + 3];
+        double sinTheta = Math.sqrt(x * x + y * y + z * z);
+        double k = 1;
+
+        if (1.0e-6 < sinTheta)
+        {
+            k = Math.atan2(sinTheta, w) / sinTheta;
+        }
+
+        output[oo]     = (float)(x * k);
+        output[oo + 1] = (float)(y * k);
+        output[oo + 2] = (float)(z * k);
+        output[oo + 3] = 0;
+    }
+
+
+    /**
+     * output = exp(q) for a pure quaternion (the w component is ignored).
+     */
+    static void exp(float[] q, int qo, float[] output, int oo)
+    {
+        double x = q[qo], y = q[qo + 1], z = q[qo + 2];
+        double theta = Math.sqrt(x * x + y * y + z * z);
+        double k = 1;
+
+        if (1.0e-6 < theta)
+        {
+            k = Math.sin(theta) / theta;
+        }
+
+        output[oo]     = (float)(x * k);
+        output[oo + 1] = (float)(y * k);
+        output[oo + 2] = (float)(z * k);
+        output[oo + 3] = (float)Math.cos(theta);
+    }
+
+
+    /**
+     * Spherical linear interpolation without choosing the shorter arc.
+     * When the two quaternions are too close or nearly antipodal, they
+     * are blended linearly and the result is normalized.
+     */
+    static void slerp(float[] a, int ao, float[] b, int bo, float t, float[] output, int oo)
+    {
+        float cosOmega = dot(a, ao, b, bo);
+
+        if (LINEAR_THRESHOLD < Math.abs(cosOmega))
+        {
+            blend(a, ao, 1 - t, b, bo, t, output, oo);
+            normalize(output, oo);
+            return;
+        }
+
+        double omega = Math.acos(cosOmega);
+        double oneOverSinOmega = 1 / Math.sin(omega);
+
+        float k0 = (float)(Math.sin((1 - t) * omega) * oneOverSinOmega);
+        float k1 = (float)(Math.sin(t * omega) * oneOverSinOmega);
+
+        blend(a, ao, k0, b, bo, k1, output, oo);
+    }
+
+
+    /**
+     * Calculate sin(t * omega) / sin(omega) from cos(omega) without
+     * trigonometric functions.
+     *
+     * <p>
+     * A truncated series of the function is evaluated as a polynomial
+     * (D. Eberly, "A Fast and Accurate Algorithm for Computing SLERP").
+     * The absolute error is about 1.0e-7 when 'cosOmega' is in between
+     * 0.0 and 1.0 and 't' is in between 0.0 and 1.0. Slerp from a to b
+     * is then (a * slerpWeight(cosOmega, 1 - t) + b * slerpWeight(cosOmega, t)).
+     * </p>
+     */
+    static float slerpWeight(float cosOmega, float t)
+    {
+        float x  = cosOmega - 1;
+        float t2 = t * t;
+        float c  = 1;
+
+        for (int i = U.length - 1; 0 <= i; --i)
+        {
+            c = 1 + (U[i] * t2 - V[i]) * x * c;
+        }
+
+        return t * c;
+    }
+
+
+    /**
+     * output = a * ka + b * kb.
+     */
+    static void blend(float[] a, int ao, float ka, float[] b, int bo, float kb, float[] output, int oo)
+    {
+        output[oo]     = a[ao]     * ka + b[bo]     * kb;
+        output[oo + 1] = a[ao + 1] * ka + b[bo + 1] * kb;
+        output[oo + 2] = a[ao + 2] * ka + b[bo + 2] * kb;
+        output[oo + 3] = a[ao + 3] * ka + b[bo + 3] * kb;
+    }
+}
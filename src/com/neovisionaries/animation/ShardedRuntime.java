@@ -0,0 +1,517 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Runtime which updates shards of animated parameters on multiple
+ * threads.
+ *
+ * <p>
+ * A shard is a {@link ParameterStore} which only this runtime updates,
+ * typically one per scene or a part of a large scene. The shards are
+ * divided into contiguous runs, one per thread, so each thread usually
+ * touches only its own data. In {@link #tick(float) tick()}, a thread
+ * claims shards of its own run one by one by an atomic counter, and
+ * when its run is exhausted, it steals the remaining shards of the other
+ * runs through their counters. A shard is claimed by exactly one thread
+ * per tick, so {@link ParameterStore} needs no lock. Because a shard is
+ * the unit of stealing, skewed loads are balanced only if there are more
+ * shards than threads; a few shards per thread are recommended.
+ * </p>
+ *
+ * <p>
+ * The calling thread of {@link #tick(float) tick()} works as the first
+ * thread, and (threadCount - 1) daemon threads are started by the
+ * constructor. Two {@link CyclicBarrier}s mark the start and the end of
+ * a tick, so all the shards have been updated when {@link #tick(float)
+ * tick()} returns, and their values and dirty sets can be read by the
+ * calling thread until the next tick.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * {@link ShardedRuntime} runtime = new {@link #ShardedRuntime(ParameterStore[], int) ShardedRuntime}(stores, 4);
+ *
+ * <span style="color: darkgreen;">// For each frame.</span>
+ * runtime.{@link #tick(float) tick}(time);
+ *
+ * <span style="color: darkgreen;">// When done.</span>
+ * runtime.{@link #close()};
+ * </pre>
+ *
+ * <p>
+ * The duration of each tick is measured, and the last and the maximum
+ * durations are available as tick latency.
+ * </p>
+ *
+ * <p>
+ * {@link #tick(float) tick()} and {@link #close()} must be called by
+ * one thread at a time.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class ShardedRuntime
+{
+    private final ParameterStore[] shards;
+    private final int threadCount;
+
+
+    /**
+     * The run of shards of each thread is from runStarts[t] (inclusive)
+     * to runStarts[t + 1] (exclusive). cursors[t] is the next shard of
+     * the run to be claimed.
+     */
+    private final int[] runStarts;
+    private final AtomicInteger[] cursors;
+
+
+    /**
+     * The number of shards each thread updated and stole in the last tick.
+     */
+    private final int[] updatedCounts;
+    private final int[] stolenCounts;
+
+
+    private final Thread[] workers;
+    private final CyclicBarrier startBarrier;
+    private final CyclicBarrier endBarrier;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private float time;
+    private long tickCount;
+    private long lastTickNanos;
+    private long maxTickNanos;
+    private long totalTickNanos;
+
+
+    /**
+     * A constructor.
+     *
+     * @param shards
+     *         Shards. The array is copied, but the shards themselves
+     *         are shared. They must not be accessed by other threads
+     *         during {@link #tick(float)}.
+     *
+     * @param threadCount
+     *         The number of threads including the calling thread of
+     *         {@link #tick(float)}. If it is greater than the number of
+     *         shards, the number of shards is used.
+     *
+     * @throws IllegalArgumentException
+     *         'shards' is null or empty, an element of 'shards' is null,
+     *         or 'threadCount' is less than 1.
+     */
+    public ShardedRuntime(ParameterStore[] shards, int threadCount)
+    {
+        if (shards == null || shards.length == 0)
+        {
+            throw new IllegalArgumentException("shards is null or empty");
+        }
+
+        for (int i = 0; i < shards.length; ++i)
+        {
+            if (shards[i] == null)
+            {
+                throw new IllegalArgumentException("shards[" + i + "] is null");
+            }
+        }
+
+        if (threadCount < 1)
+        {
+            throw new IllegalArgumentException("threadCount < 1");
+        }
+
+        this.shards      = shards.clone();
+        this.threadCount = Math.min(threadCount, shards.length);
+
+        int count = this.threadCount;
+
+        runStarts     = new int[count + 1];
+        cursors       = new AtomicInteger[count];
+        updatedCounts = new int[count];
+        stolenCounts  = new int[count];
+
+        for (int t = 0; t < count; ++t)
+        {
+            runStarts[t] = (int)((long)shards.length * t / count);
+            cursors[t]   = new AtomicInteger();
+        }
+
+        runStarts[count] = shards.length;
+
+        startBarrier = new CyclicBarrier(count);
+        endBarrier   = new CyclicBarrier(count);
+        workers      = new Thread[count - 1];
+
+        for (int t = 1; t < count; ++t)
+        {
+            Thread worker = new Thread(new Worker(t), "ShardedRuntime-" + t);
+            worker.setDaemon(true);
+            worker.start();
+
+            workers[t - 1] = worker;
+        }
+    }
+
+
+    /**
+     * Get the number of shards.
+     *
+     * @return
+     *         The number of shards.
+     */
+    public int getShardCount()
+    {
+        return shards.length;
+    }
+
+
+    /**
+     * Get a shard.
+     *
+     * @param index
+     *         The index of a shard.
+     *
+     * @return
+     *         The shard.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'index' is out of range.
+     */
+    public ParameterStore getShard(int index)
+    {
+        return shards[index];
+    }
+
+
+    /**
+     * Get the number of threads including the calling thread of
+     * {@link #tick(float)}.
+     *
+     * @return
+     *         The number of threads.
+     */
+    public int getThreadCount()
+    {
+        return threadCount;
+    }
+
+
+    /**
+     * Update all the shards by {@link ParameterStore#update(float)}.
+     *
+     * @param time
+     *         The current time.
+     *
+     * @throws IllegalStateException
+     *         The runtime has been closed, the calling thread was
+     *         interrupted, or updating a shard threw an exception,
+     *         which is set as the cause. After an interruption or a
+     *         failure, the runtime is closed.
+     */
+    public void tick(float time)
+    {
+        if (closed)
+        {
+            throw new IllegalStateException("The runtime is closed.");
+        }
+
+        long startNanos = System.nanoTime();
+
+        // The workers are waiting for the start barrier, so the state
+        // for the tick can be prepared without synchronization. The
+        // barrier publishes it to them.
+        this.time = time;
+
+        for (int t = 0; t < threadCount; ++t)
+        {
+            cursors[t].set(runStarts[t]);
+        }
+
+        await(startBarrier);
+        work(0);
+        await(endBarrier);
+
+        long elapsed = System.nanoTime() - startNanos;
+
+        lastTickNanos   = elapsed;
+        maxTickNanos    = Math.max(maxTickNanos, elapsed);
+        totalTickNanos += elapsed;
+        ++tickCount;
+
+        Throwable cause = failure;
+
+        if (cause != null)
+        {
+            close();
+
+            throw new IllegalStateException("Failed to update a shard.", cause);
+        }
+    }
+
+
+    /**
+     * Stop the worker threads. After this call, {@link #tick(float)}
+     * cannot be called. Calling this method more than once is harmless.
+     */
+    public void close()
+    {
+        if (closed)
+        {
+            return;
+        }
+
+        closed = true;
+
+        // Let the workers pass the start barrier and see the flag.
+        startBarrier.reset();
+
+        for (Thread worker : workers)
+        {
+            worker.interrupt();
+        }
+    }
+
+
+    /**
+     * Check if the runtime has been closed.
+     *
+     * @return
+     *         true if the runtime has been closed.
+     */
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+
+    /**
+     * Get the duration of the last tick.
+     *
+     * @return
+     *         The duration in nanoseconds.
+     */
+    public long getLastTickNanos()
+    {
+        return lastTickNanos;
+    }
+
+
+    /**
+     * Get the maximum duration of ticks since the creation or the last
+     * call of {@link #resetStatistics()}.
+     *
+     * @return
+     *         The maximum duration in nanoseconds.
+     */
+    public long getMaxTickNanos()
+    {
+        return maxTickNanos;
+    }
+
+
+    /**
+     * Get the average duration of ticks since the creation or the last
+     * call of {@link #resetStatistics()}.
+     *
+     * @return
+     *         The average duration in nanoseconds. 0 if no tick has
+     *         been done.
+     */
+    public long getAverageTickNanos()
+    {
+        return (tickCount == 0) ? 0 : totalTickNanos / tickCount;
+    }
+
+
+    /**
+     * Get the number of ticks since the creation or the last call of
+     * {@link #resetStatistics()}.
+     *
+     * @return
+     *         The number of ticks.
+     */
+    public long getTickCount()
+    {
+        return tickCount;
+    }
+
+
+    /**
+     * Get the number of shards which threads stole from the runs of
+     * other threads in the last tick.
+     *
+     * @return
+     *         The number of stolen shards.
+     */
+    public int getStolenCount()
+    {
+        int count = 0;
+
+        for (int t = 0; t < threadCount; ++t)
+        {
+            count += stolenCounts[t];
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Get the number of shards which a thread updated in the last tick.
+     *
+     * @param thread
+     *         The index of a thread. 0 is the calling thread of {@link
+     *         #tick(float)}.
+     *
+     * @return
+     *         The number of shards updated by the thread, including
+     *         stolen ones.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'thread' is out of range.
+     */
+    public int getUpdatedCount(int thread)
+    {
+        return updatedCounts[thread];
+    }
+
+
+    /**
+     * Reset the tick latency statistics.
+     */
+    public void resetStatistics()
+    {
+        tickCount      = 0;
+        lastTickNanos  = 0;
+        maxTickNanos   = 0;
+        totalTickNanos = 0;
+    }
+
+
+    /**
+     * Update the shards of the run of the thread, and then steal the
+     * remaining shards of the other runs.
+     */
+    private void work(int thread)
+    {
+        float now   = time;
+        int updated = 0;
+        int stolen  = 0;
+
+        try
+        {
+            for (int i = 0; i < threadCount; ++i)
+            {
+                // Start from the own run, then visit the next runs.
+                int victim = (thread + i) % threadCount;
+                int end    = runStarts[victim + 1];
+                int shard;
+
+                while ((shard = cursors[victim].getAndIncrement()) < end)
+                {
+                    shards[shard].update(now);
+
+                    ++updated;
+
+                    if (i != 0)
+                    {
+                        ++stolen;
+                    }
+                }
+            }
+        }
+        catch (Throwable t)
+        {
+            failure = t;
+        }
+
+        updatedCounts[thread] = updated;
+        stolenCounts[thread]  = stolen;
+    }
+
+
+    private void await(CyclicBarrier barrier)
+    {
+        try
+        {
+            barrier.await();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            close();
+
+            throw new IllegalStateException("Interrupted.", e);
+        }
+        catch (BrokenBarrierException e)
+        {
+            close();
+
+            throw new IllegalStateException("The runtime is closed.", e);
+        }
+    }
+
+
+    private final class Worker implements Runnable
+    {
+        private final int thread;
+
+
+        Worker(int thread)
+        {
+            this.thread = thread;
+        }
+
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                while (true)
+                {
+                    startBarrier.await();
+
+                    if (closed)
+                    {
+                        return;
+                    }
+
+                    work(thread);
+
+                    endBarrier.await();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                // Closed.
+            }
+            catch (BrokenBarrierException e)
+            {
+                // Closed.
+            }
+        }
+    }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Decoder of snapshots written by {@link SnapshotEncoder}.
+ *
+ * <p>
+ * {@link #decode(BinaryBuffer) decode()} rebuilds a snapshot from its
+ * baseline and the delta, and then starts or settles the parameters of
+ * the {@link ParameterStore} whose animations differ from those applied
+ * last. A {@link ParameterState#PENDING PENDING} parameter is first
+ * set to the value it holds on the encoder side and then animated, so
+ * it shows the same value as the encoder's store until its start time.
+ * Snapshots older than the last applied one are kept as baselines
+ * but not applied. The sequence number returned from {@link
+ * #decode(BinaryBuffer) decode()} should be sent back to the encoder
+ * as an acknowledgment.
+ * </p>
+ *
+ * <p>
+ * Interpolators are obtained by {@link InterpolatorCodec#create(int,
+ * EasingMode, float, float, Interpolator)}, which reuses the instance
+ * previously given to the same parameter when the type is the same, so
+ * decoding creates no object once the types of the parameters are stable.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * <span style="color: darkgreen;">// In-process loopback.</span>
+ * {@link SnapshotEncoder} encoder = new {@link SnapshotEncoder#SnapshotEncoder(ParameterStore, int, float, float)
+ * SnapshotEncoder}(serverStore, 32, 1.0f / 1024, 1.0f / 1000);
+ * {@link SnapshotDecoder} decoder = new {@link #SnapshotDecoder(ParameterStore, int, float, float)
+ * SnapshotDecoder}(clientStore, 32, 1.0f / 1024, 1.0f / 1000);
+ *
+ * buffer.{@link BinaryBuffer#clear() clear}();
+ * encoder.{@link SnapshotEncoder#encode(BinaryBuffer) encode}(buffer);
+ * buffer.{@link BinaryBuffer#rewind() rewind}();
+ * encoder.{@link SnapshotEncoder#acknowledge(int) acknowledge}(decoder.{@link #decode(BinaryBuffer) decode}(buffer));
+ * </pre>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see SnapshotEncoder
+ */
+public class SnapshotDecoder extends SnapshotHistory
+{
+    private final int[] applied;
+    private final Interpolator[] interpolators;
+    private final float[] from;
+    private final float[] to;
+    private final float[] held;
+    private int appliedSequence;
+
+
+    /**
+     * A constructor.
+     *
+     * @param store
+     *         The store to which decoded snapshots are applied.
+     *         Its capacity and component count must be the same as
+     *         those of the store of the {@link SnapshotEncoder}.
+     *
+     * @param historySize
+     *         The number of snapshots kept as candidates of the baseline.
+     *         It must be the same as that of the {@link SnapshotEncoder}.
+     *
+     * @param valueStep
+     *         The quantization step of values.
+     *
+     * @param timeStep
+     *         The quantization step of start times and durations.
+     *
+     * @throws IllegalArgumentException
+     *         'store' is null, 'historySize' is less than 1, or a step
+     *         is not greater than 0.
+     */
+    public SnapshotDecoder(ParameterStore store, int historySize, float valueStep, float timeStep)
+    {
+        super(store, historySize, valueStep, timeStep);
+
+        applied       = new int[capacity * stride];
+        interpolators = new Interpolator[capacity];
+        from          = new float[componentCount];
+        to            = new float[componentCount];
+        held          = new float[componentCount];
+    }
+
+
+    /**
+     * Get the sequence number of the last applied snapshot.
+     *
+     * @return
+     *         The sequence number. 0 if no snapshot has been applied.
+     */
+    public int getAppliedSequence()
+    {
+        return appliedSequence;
+    }
+
+
+    /**
+     * Read a snapshot and apply it to the store.
+     *
+     * @param buffer
+     *         A buffer from whose position a snapshot is read.
+     *
+     * @return
+     *         The sequence number of the snapshot.
+     *
+     * @throws IllegalArgumentException
+     *         'buffer' is null, or the data is not a valid snapshot.
+     *
+     * @throws IllegalStateException
+     *         The data is truncated, or the baseline snapshot is not kept.
+     */
+    public int decode(BinaryBuffer buffer)
+    {
+        if (buffer == null)
+        {
+            throw new IllegalArgumentException("buffer == null");
+        }
+
+        int sequence = buffer.readVarint();
+        int distance = buffer.readVarint();
+        int[] baseline = initialState;
+
+        if (distance != 0)
+        {
+            baseline = (distance < getHistorySize()) ? findState(sequence - distance) : null;
+
+            if (baseline == null)
+            {
+                throw new IllegalStateException("The baseline snapshot is not available.");
+            }
+        }
+
+        int[] state = claimState(sequence);
+
+        if (state != baseline)
+        {
+            System.arraycopy(baseline, 0, state, 0, state.length);
+        }
+
+        for (int parameter = -1; ; )
+        {
+            int gap = buffer.readVarint();
+
+            if (gap == 0)
+            {
+                break;
+            }
+
+            parameter += gap;
+
+            if (capacity <= parameter)
+            {
+                throw new IllegalArgumentException("The parameter index is out of range.");
+            }
+
+            read(buffer, state, parameter * stride, buffer.readVarint());
+        }
+
+        if (appliedSequence < sequence)
+        {
+            apply(state);
+
+            appliedSequence = sequence;
+        }
+
+        return sequence;
+    }
+
+
+    private void read(BinaryBuffer buffer, int[] state, int offset, int mask)
+    {
+        if ((mask & CHANGED_INTERPOLATOR) != 0)
+        {
+            int type = buffer.readVarint();
+
+            state[offset + TYPE]   = type;
+            state[offset + MODE]   = InterpolatorCodec.hasEasingMode(type) ? buffer.readVarint() : 0;
+            state[offset + PARAM0] = 0;
+            state[offset + PARAM1] = 0;
+
+            int count = InterpolatorCodec.getParameterCount(type);
+
+            for (int i = 0; i < count; ++i)
+            {
+                state[offset + PARAM0 + i] = buffer.readInt();
+            }
+        }
+
+        if ((mask & CHANGED_START) != 0)
+        {
+            state[offset + START] += buffer.readSignedVarint();
+        }
+
+        if ((mask & CHANGED_DURATION) != 0)
+        {
+            state[offset + DURATION] += buffer.readSignedVarint();
+        }
+
+        if ((mask & CHANGED_FROM) != 0)
+        {
+            readDeltas(buffer, state, offset + FROM);
+        }
+
+        if ((mask & CHANGED_TO) != 0)
+        {
+            readDeltas(buffer, state, offset + FROM + componentCount);
+        }
+
+        if ((mask & CHANGED_HELD) != 0)
+        {
+            int holding = buffer.readVarint();
+            int start   = offset + FROM + componentCount * 2;
+
+            state[offset + HOLDING] = holding;
+
+            if (holding != 0)
+            {
+                readDeltas(buffer, state, start);
+            }
+            else
+            {
+                for (int i = start; i < start + componentCount; ++i)
+                {
+                    state[i] = 0;
+                }
+            }
+        }
+    }
+
+
+    private void readDeltas(BinaryBuffer buffer, int[] state, int offset)
+    {
+        for (int i = offset; i < offset + componentCount; ++i)
+        {
+            state[i] += buffer.readSignedVarint();
+        }
+    }
+
+
+    private void apply(int[] state)
+    {
+        for (int parameter = 0, offset = 0; parameter < capacity; ++parameter, offset += stride)
+        {
+            int mask = compare(state, applied, offset);
+
+            if (mask == 0)
+            {
+                continue;
+            }
+
+            System.arraycopy(state, offset, applied, offset, stride);
+
+            boolean holding = (state[offset + HOLDING] != 0);
+
+            if (mask == CHANGED_HELD && holding == false)
+            {
+                // Only the animation has started on the encoder side.
+                // The store evaluates it by itself.
+                continue;
+            }
+
+            dequantize(state, offset + FROM + componentCount, to);
+
+            int type = state[offset + TYPE];
+
+            if (type == 0)
+            {
+                store.set(parameter, to);
+                continue;
+            }
+
+            dequantize(state, offset + FROM, from);
+
+            EasingMode mode = InterpolatorCodec.hasEasingMode(type)
+                            ? InterpolatorCodec.toEasingMode(state[offset + MODE]) : null;
+
+            Interpolator interpolator = InterpolatorCodec.create(type, mode,
+                    Float.intBitsToFloat(state[offset + PARAM0]),
+                    Float.intBitsToFloat(state[offset + PARAM1]),
+                    interpolators[parameter]);
+
+            interpolators[parameter] = interpolator;
+
+            if (holding)
+            {
+                // The value shown until the start time.
+                dequantize(state, offset + FROM + componentCount * 2, held);
+                store.set(parameter, held);
+            }
+
+            store.animate(parameter, interpolator, from, to,
+                    dequantize(state[offset + START], timeStep),
+                    dequantize(state[offset + DURATION], timeStep));
+        }
+    }
+
+
+    private void dequantize(int[] state, int offset, float[] value)
+    {
+        for (int i = 0; i < componentCount; ++i)
+        {
+            value[i] = dequantize(state[offset + i], valueStep);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Encoder of the animation state of a {@link ParameterStore} into
+ * compact snapshots for replication.
+ *
+ * <p>
+ * Each call of {@link #encode(BinaryBuffer) encode()} captures the
+ * animation of every parameter (the interpolator type, its {@link
+ * EasingMode} and parameters, the start time, the duration and the
+ * 'from' and 'to' values, or the value of a settled parameter) and
+ * writes only what has changed since the last snapshot acknowledged by
+ * the receiver ({@link #acknowledge(int)}). If no snapshot has been
+ * acknowledged or the acknowledged one is too old, the delta is taken
+ * against the initial state of a {@link ParameterStore}, so the
+ * snapshot is self-contained. Values of parameters in flight are not
+ * sent; the receiver evaluates the same animations by itself. However,
+ * the value which a {@link ParameterState#PENDING PENDING} parameter
+ * holds until its start time is sent, so that a receiver which has
+ * missed the previous value (e.g. it has joined late, or the value was
+ * set and animated within one frame) shows the same value as the store.
+ * </p>
+ *
+ * <p>
+ * Values and times are quantized by the steps given to the constructor
+ * and written as differences from the baseline in zigzag varints (see
+ * {@link BinaryBuffer}), so an unchanged animation costs nothing and a
+ * small change costs a few bytes. Parameters are identified by gaps
+ * between their indexes. No object is created while encoding.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * <span style="color: darkgreen;">// Server.</span>
+ * int sequence = encoder.{@link #encode(BinaryBuffer) encode}(buffer);
+ * send(buffer.{@link BinaryBuffer#getArray() getArray}(), buffer.{@link BinaryBuffer#getLimit() getLimit}());
+ *
+ * <span style="color: darkgreen;">// When an acknowledgment arrives.</span>
+ * encoder.{@link #acknowledge(int) acknowledge}(acknowledgedSequence);
+ * </pre>
+ *
+ * <p>
+ * Interpolators must be of the types supported by {@link InterpolatorCodec}.
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ *
+ * @see SnapshotDecoder
+ */
+public class SnapshotEncoder extends SnapshotHistory
+{
+    private int sequence;
+    private int acknowledgedSequence;
+
+
+    /**
+     * A constructor.
+     *
+     * @param store
+     *         The store whose state is encoded.
+     *
+     * @param historySize
+     *         The number of snapshots kept as candidates of the baseline.
+     *         It must be the same as that of the {@link SnapshotDecoder}.
+     *
+     * @param valueStep
+     *         The quantization step of values.
+     *
+     * @param timeStep
+     *         The quantization step of start times and durations.
+     *
+     * @throws IllegalArgumentException
+     *         'store' is null, 'historySize' is less than 1, or a step
+     *         is not greater than 0.
+     */
+    public SnapshotEncoder(ParameterStore store, int historySize, float valueStep, float timeStep)
+    {
+        super(store, historySize, valueStep, timeStep);
+    }
+
+
+    /**
+     * Get the sequence number of the last encoded snapshot.
+     *
+     * @return
+     *         The sequence number. 0 if no snapshot has been encoded.
+     */
+    public int getSequence()
+    {
+        return sequence;
+    }
+
+
+    /**
+     * Get the sequence number of the snapshot used as the baseline.
+     *
+     * @return
+     *         The sequence number. 0 if no snapshot has been acknowledged.
+     */
+    public int getAcknowledgedSequence()
+    {
+        return acknowledgedSequence;
+    }
+
+
+    /**
+     * Record that the receiver has decoded a snapshot. Later snapshots
+     * are encoded as deltas against it. Acknowledgments older than the
+     * current one are ignored.
+     *
+     * @param sequence
+     *         The sequence number of the decoded snapshot.
+     */
+    public void acknowledge(int sequence)
+    {
+        if (acknowledgedSequence < sequence && sequence <= this.sequence)
+        {
+            acknowledgedSequence = sequence;
+        }
+    }
+
+
+    /**
+     * Capture the current state of the store and write it as a delta.
+     *
+     * @param buffer
+     *         A buffer to which the snapshot is appended.
+     *
+     * @return
+     *         The sequence number of the snapshot.
+     *
+     * @throws IllegalArgumentException
+     *         'buffer' is null.
+     *
+     * @throws IllegalStateException
+     *         An interpolator in the store is not supported by
+     *         {@link InterpolatorCodec}.
+     */
+    public int encode(BinaryBuffer buffer)
+    {
+        if (buffer == null)
+        {
+            throw new IllegalArgumentException("buffer == null");
+        }
+
+        int current = sequence + 1;
+
+        // The baseline must be found before its slot may be reused.
+        int[] baseline = initialState;
+        int distance   = 0;
+
+        if (0 < acknowledgedSequence && current - acknowledgedSequence < getHistorySize())
+        {
+            int[] acknowledged = findState(acknowledgedSequence);
+
+            if (acknowledged != null)
+            {
+                baseline = acknowledged;
+                distance = current - acknowledgedSequence;
+            }
+        }
+
+        int[] state = claimState(current);
+
+        capture(state);
+
+        sequence = current;
+
+        buffer.writeVarint(current);
+        buffer.writeVarint(distance);
+
+        int last = -1;
+
+        for (int parameter = 0, offset = 0; parameter < capacity; ++parameter, offset += stride)
+        {
+            int mask = compare(state, baseline, offset);
+
+            if (mask == 0)
+            {
+                continue;
+            }
+
+            buffer.writeVarint(parameter - last);
+            buffer.writeVarint(mask);
+
+            write(buffer, state, baseline, offset, mask);
+
+            last = parameter;
+        }
+
+        // The end of the changes.
+        buffer.writeVarint(0);
+
+        return current;
+    }
+
+
+    private void capture(int[] state)
+    {
+        for (int parameter = 0, offset = 0; parameter < capacity; ++parameter, offset += stride)
+        {
+            Interpolator interpolator = store.getInterpolator(parameter);
+
+            if (interpolator == null)
+            {
+                // Settled. Only the value matters.
+                for (int i = offset; i < offset + stride; ++i)
+                {
+                    state[i] = 0;
+                }
+
+                quantize(store.getValue(parameter), state, offset + FROM + componentCount);
+                continue;
+            }
+
+            int type = InterpolatorCodec.getType(interpolator);
+
+            if (type == 0)
+            {
+                throw new IllegalStateException("The interpolator of the parameter " + parameter + " is not supported.");
+            }
+
+            state[offset + TYPE]     = type;
+            state[offset + MODE]     = InterpolatorCodec.getEasingModeCode(interpolator);
+            state[offset + PARAM0]   = Float.floatToIntBits(InterpolatorCodec.getParameter(interpolator, 0));
+            state[offset + PARAM1]   = Float.floatToIntBits(InterpolatorCodec.getParameter(interpolator, 1));
+            state[offset + START]    = quantizeDown(store.getStartTime(parameter), timeStep);
+            state[offset + DURATION] = quantize(store.getDuration(parameter), timeStep);
+
+            quantize(store.getFrom(parameter), state, offset + FROM);
+            quantize(store.getTo(parameter),   state, offset + FROM + componentCount);
+
+            int held = offset + FROM + componentCount * 2;
+
+            if (store.getState(parameter) == ParameterState.PENDING)
+            {
+                // The value shown until the start time.
+                state[offset + HOLDING] = 1;
+                quantize(store.getValue(parameter), state, held);
+            }
+            else
+            {
+                state[offset + HOLDING] = 0;
+
+                for (int i = held; i < held + componentCount; ++i)
+                {
+                    state[i] = 0;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Quantize a start time. It is rounded down so that an animation
+     * never starts later on the receiver than in the store. Otherwise,
+     * the receiver would keep showing the held value at the time when
+     * the store shows the first value of the animation.
+     */
+    private static int quantizeDown(float time, float step)
+    {
+        return (int)Math.floor(time / step);
+    }
+
+
+    private void quantize(float[] value, int[] state, int offset)
+    {
+        for (int i = 0; i < componentCount; ++i)
+        {
+            state[offset + i] = quantize(value[i], valueStep);
+        }
+    }
+
+
+    private void write(BinaryBuffer buffer, int[] state, int[] baseline, int offset, int mask)
+    {
+        if ((mask & CHANGED_INTERPOLATOR) != 0)
+        {
+            int type = state[offset + TYPE];
+
+            buffer.writeVarint(type);
+
+            if (InterpolatorCodec.hasEasingMode(type))
+            {
+                buffer.writeVarint(state[offset + MODE]);
+            }
+
+            int count = InterpolatorCodec.getParameterCount(type);
+
+            for (int i = 0; i < count; ++i)
+            {
+                buffer.writeInt(state[offset + PARAM0 + i]);
+            }
+        }
+
+        if ((mask & CHANGED_START) != 0)
+        {
+            buffer.writeSignedVarint(state[offset + START] - baseline[offset + START]);
+        }
+
+        if ((mask & CHANGED_DURATION) != 0)
+        {
+            buffer.writeSignedVarint(state[offset + DURATION] - baseline[offset + DURATION]);
+        }
+
+        if ((mask & CHANGED_FROM) != 0)
+        {
+            writeDeltas(buffer, state, baseline, offset + FROM);
+        }
+
+        if ((mask & CHANGED_TO) != 0)
+        {
+            writeDeltas(buffer, state, baseline, offset + FROM + componentCount);
+        }
+
+        if ((mask & CHANGED_HELD) != 0)
+        {
+            int holding = state[offset + HOLDING];
+
+            buffer.writeVarint(holding);
+
+            // The held value is 0 while not holding, so it is not written.
+            if (holding != 0)
+            {
+                writeDeltas(buffer, state, baseline, offset + FROM + componentCount * 2);
+            }
+        }
+    }
+
+
+    private void writeDeltas(BinaryBuffer buffer, int[] state, int[] baseline, int offset)
+    {
+        for (int i = offset; i < offset + componentCount; ++i)
+        {
+            buffer.writeSignedVarint(state[i] - baseline[i]);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Snapshots of the animation state of a {@link ParameterStore} shared
+ * by {@link SnapshotEncoder} and {@link SnapshotDecoder}.
+ *
+ * <p>
+ * A snapshot is an int array which has a fixed number of fields per
+ * parameter. Floats in values and times are quantized, and parameters
+ * of interpolators are kept as their bit patterns. A settled parameter
+ * has the type code 0 and its current value in the 'to' fields. A
+ * {@link ParameterState#PENDING PENDING} parameter has 1 in the
+ * 'holding' field and the value it holds until its start time in the
+ * 'held' fields; otherwise, these fields are 0. The most recent
+ * snapshots are kept in a ring indexed by sequence numbers.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+abstract class SnapshotHistory
+{
+    static final int TYPE     = 0;
+    static final int MODE     = 1;
+    static final int PARAM0   = 2;
+    static final int PARAM1   = 3;
+    static final int START    = 4;
+    static final int DURATION = 5;
+    static final int HOLDING  = 6;
+    static final int FROM     = 7;
+
+
+    /**
+     * Bits of the change mask written for each changed parameter.
+     */
+    static final int CHANGED_INTERPOLATOR = 1;
+    static final int CHANGED_START        = 2;
+    static final int CHANGED_DURATION     = 4;
+    static final int CHANGED_FROM         = 8;
+    static final int CHANGED_TO           = 16;
+    static final int CHANGED_HELD         = 32;
+
+
+    final ParameterStore store;
+    final int componentCount;
+    final int capacity;
+    final int stride;
+    final float valueStep;
+    final float timeStep;
+
+
+    /**
+     * The snapshot in which all the parameters are settled at 0, which
+     * is the initial state of a {@link ParameterStore}.
+     */
+    final int[] initialState;
+
+
+    private final int[][] states;
+    private final int[] sequences;
+
+
+    SnapshotHistory(ParameterStore store, int historySize, float valueStep, float timeStep)
+    {
+        if (store == null)
+        {
+            throw new IllegalArgumentException("store == null");
+        }
+
+        if (historySize < 1)
+        {
+            throw new IllegalArgumentException("historySize < 1");
+        }
+
+        if (!(0 < valueStep))
+        {
+            throw new IllegalArgumentException("valueStep <= 0");
+        }
+
+        if (!(0 < timeStep))
+        {
+            throw new IllegalArgumentException("timeStep <= 0");
+        }
+
+        this.store          = store;
+        this.componentCount = store.getComponentCount();
+        this.capacity       = store.getCapacity();
+        this.stride         = FROM + componentCount * 3;
+        this.valueStep      = valueStep;
+        this.timeStep       = timeStep;
+        this.initialState   = new int[capacity * stride];
+        this.states         = new int[historySize][capacity * stride];
+        this.sequences      = new int[historySize];
+    }
+
+
+    /**
+     * Get the number of snapshots kept.
+     *
+     * @return
+     *         The history size.
+     */
+    public int getHistorySize()
+    {
+        return states.length;
+    }
+
+
+    /**
+     * Get a kept snapshot.
+     *
+     * @return
+     *         The snapshot, or null if it is not kept.
+     */
+    int[] findState(int sequence)
+    {
+        int slot = toSlot(sequence);
+
+        return (sequences[slot] == sequence) ? states[slot] : null;
+    }
+
+
+    /**
+     * Get the array for a new snapshot. The oldest snapshot is dropped.
+     */
+    int[] claimState(int sequence)
+    {
+        int slot = toSlot(sequence);
+
+        sequences[slot] = sequence;
+
+        return states[slot];
+    }
+
+
+    private int toSlot(int sequence)
+    {
+        return (sequence & Integer.MAX_VALUE) % states.length;
+    }
+
+
+    /**
+     * Compare the fields of a parameter in two snapshots.
+     *
+     * @return
+     *         The change mask.
+     */
+    int compare(int[] state, int[] baseline, int offset)
+    {
+        int mask = 0;
+
+        if (state[offset + TYPE]   != baseline[offset + TYPE]   ||
+            state[offset + MODE]   != baseline[offset + MODE]   ||
+            state[offset + PARAM0] != baseline[offset + PARAM0] ||
+            state[offset + PARAM1] != baseline[offset + PARAM1])
+        {
+            mask |= CHANGED_INTERPOLATOR;
+        }
+
+        if (state[offset + START] != baseline[offset + START])
+        {
+            mask |= CHANGED_START;
+        }
+
+        if (state[offset + DURATION] != baseline[offset + DURATION])
+        {
+            mask |= CHANGED_DURATION;
+        }
+
+        if (differs(state, baseline, offset + FROM))
+        {
+            mask |= CHANGED_FROM;
+        }
+
+        if (differs(state, baseline, offset + FROM + componentCount))
+        {
+            mask |= CHANGED_TO;
+        }
+
+        if (state[offset + HOLDING] != baseline[offset + HOLDING] ||
+            differs(state, baseline, offset + FROM + componentCount * 2))
+        {
+            mask |= CHANGED_HELD;
+        }
+
+        return mask;
+    }
+
+
+    private boolean differs(int[] state, int[] baseline, int offset)
+    {
+        for (int i = offset; i < offset + componentCount; ++i)
+        {
+            if (state[i] != baseline[i])
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    static int quantize(float value, float step)
+    {
+        return Math.round(value / step);
+    }
+
+
+    static float dequantize(int value, float step)
+    {
+        return value * step;
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Interpolation of sparse components into dense arrays.
+ *
+ * <p>
+ * A morph target (blend shape) of a mesh with thousands of components
+ * usually changes only a small subset of them. This class lets an
+ * {@link Interpolator} work only on the components listed in an index
+ * array, so the cost scales with the number of listed components, not
+ * with the size of the dense output.
+ * </p>
+ *
+ * <ul>
+ * <li>{@link #interpolate(int[], float[], float[], int, float, float[])
+ *     interpolate()} interpolates the listed components from their 'from'
+ *     values to their 'to' values and writes the results at the listed
+ *     positions of the output. The other components of the output are
+ *     not touched.</li>
+ * <li>{@link #accumulate(int[], float[], int, float, float[])
+ *     accumulate()} adds the interpolated contribution of (index, delta)
+ *     pairs, which is the usual representation of a morph target, to the
+ *     output. Calling it for each target on top of the base shape blends
+ *     the targets.</li>
+ * </ul>
+ *
+ * <p>
+ * If the interpolator is a {@link LinearInterpolator}, a {@link
+ * StepInterpolator} or an {@link EasingInterpolator}, the blend weight
+ * is calculated once per call and applied to the listed components
+ * directly. Otherwise, the listed components are gathered into work
+ * buffers held by this instance, interpolated and scattered. Therefore,
+ * an instance of this class must not be shared among threads. The
+ * interpolator must treat components independently ({@link
+ * SlerpInterpolator}, for example, does not).
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * {@link SparseInterpolator} sparse = new {@link #SparseInterpolator(Interpolator)
+ * SparseInterpolator}(new {@link EasingCubicInterpolator}());
+ *
+ * <span style="color: darkgreen;">// output = base shape + contributions of targets.</span>
+ * System.arraycopy(base, 0, output, 0, base.length);
+ *
+ * for (Target target : targets)
+ * {
+ *     sparse.{@link #accumulate(int[], float[], int, float, float[]) accumulate}(
+ *         target.indices, target.deltas, target.count, target.timeRatio, output);
+ * }
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class SparseInterpolator
+{
+    private final Interpolator interpolator;
+    private float[] fromWork;
+    private float[] outputWork;
+
+
+    /**
+     * A constructor with an interpolator.
+     *
+     * @param interpolator
+     *         An interpolator which treats components independently.
+     *
+     * @throws IllegalArgumentException
+     *         'interpolator' is null.
+     */
+    public SparseInterpolator(Interpolator interpolator)
+    {
+        if (interpolator == null)
+        {
+            throw new IllegalArgumentException("interpolator is null");
+        }
+
+        this.interpolator = interpolator;
+    }
+
+
+    /**
+     * Get the interpolator.
+     *
+     * @return
+     *         The interpolator given to the constructor.
+     */
+    public Interpolator getInterpolator()
+    {
+        return interpolator;
+    }
+
+
+    /**
+     * Interpolate the listed components.
+     *
+     * <pre style="margin: 1em;">
+     * output[indices[i]] = interpolated value between from[i] and to[i]   (0 &lt;= i &lt; count)
+     * </pre>
+     *
+     * @param indices
+     *         Positions in 'output' of the components.
+     *
+     * @param from
+     *         The values of the components at the start point.
+     *
+     * @param to
+     *         The values of the components at the end point.
+     *
+     * @param count
+     *         The number of components.
+     *
+     * @param timeRatio
+     *         A time ratio. It must be in between 0.0 and 1.0.
+     *
+     * @param output
+     *         A dense array into which the results are put.
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>'timeRatio' is less than 0 or greater than 1.</li>
+     * <li>'count' is less than 0.</li>
+     * <li>'indices', 'from', 'to' or 'output' is null.</li>
+     * <li>The length of 'indices', 'from' or 'to' is less than 'count'.</li>
+     * </ul>
+     *
+     * @throws ArrayIndexOutOfBoundsException
+     *         An index is out of the range of 'output'.
+     */
+    public void interpolate(int[] indices, float[] from, float[] to, int count, float timeRatio, float[] output)
+    {
+        checkArguments(indices, count, timeRatio, output);
+        checkArray(from, count, "from");
+        checkArray(to, count, "to");
+
+        if (count == 0)
+        {
+            return;
+        }
+
+        float weight = getWeight(timeRatio);
+
+        if (Float.isNaN(weight) == false)
+        {
+            float remaining = 1 - weight;
+
+            for (int i = 0; i < count; ++i)
+            {
+                output[indices[i]] = from[i] * remaining + to[i] * weight;
+            }
+
+            return;
+        }
+
+        ensureWork(count);
+
+        interpolator.interpolate(from, to, count, timeRatio, outputWork);
+
+        for (int i = 0; i < count; ++i)
+        {
+            output[indices[i]] = outputWork[i];
+        }
+    }
+
+
+    /**
+     * Add the interpolated contribution of (index, delta) pairs.
+     *
+     * <pre style="margin: 1em;">
+     * output[indices[i]] += interpolated value between 0 and deltas[i]   (0 &lt;= i &lt; count)
+     * </pre>
+     *
+     * @param indices
+     *         Positions in 'output' of the components.
+     *
+     * @param deltas
+     *         The full contributions of the components, which are
+     *         reached when 'timeRatio' is 1.
+     *
+     * @param count
+     *         The number of components.
+     *
+     * @param timeRatio
+     *         A time ratio. It must be in between 0.0 and 1.0.
+     *
+     * @param output
+     *         A dense array to which the contributions are added.
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>'timeRatio' is less than 0 or greater than 1.</li>
+     * <li>'count' is less than 0.</li>
+     * <li>'indices', 'deltas' or 'output' is null.</li>
+     * <li>The length of 'indices' or 'deltas' is less than 'count'.</li>
+     * </ul>
+     *
+     * @throws ArrayIndexOutOfBoundsException
+     *         An index is out of the range of 'output'.
+     */
+    public void accumulate(int[] indices, float[] deltas, int count, float timeRatio, float[] output)
+    {
+        checkArguments(indices, count, timeRatio, output);
+        checkArray(deltas, count, "deltas");
+
+        if (count == 0 || timeRatio == 0)
+        {
+            return;
+        }
+
+        float weight = getWeight(timeRatio);
+
+        if (Float.isNaN(weight) == false)
+        {
+            if (weight == 0)
+            {
+                return;
+            }
+
+            for (int i = 0; i < count; ++i)
+            {
+                output[indices[i]] += deltas[i] * weight;
+            }
+
+            return;
+        }
+
+        ensureWork(count);
+
+        // Interpolate from 0 to the deltas.
+        for (int i = 0; i < count; ++i)
+        {
+            fromWork[i] = 0;
+        }
+
+        interpolator.interpolate(fromWork, deltas, count, timeRatio, outputWork);
+
+        for (int i = 0; i < count; ++i)
+        {
+            output[indices[i]] += outputWork[i];
+        }
+    }
+
+
+    /**
+     * Get the blend weight of the interpolator at the time ratio.
+     *
+     * @return
+     *         The weight, or NaN if the interpolator is not known to
+     *         blend linearly with a single weight.
+     */
+    private float getWeight(float timeRatio)
+    {
+        if (interpolator instanceof EasingInterpolator)
+        {
+            return ((EasingInterpolator)interpolator).ease(timeRatio);
+        }
+        else if (interpolator instanceof LinearInterpolator)
+        {
+            return timeRatio;
+        }
+        else if (interpolator instanceof StepInterpolator)
+        {
+            return (timeRatio == 1) ? 1 : 0;
+        }
+        else
+        {
+            return Float.NaN;
+        }
+    }
+
+
+    private void ensureWork(int count)
+    {
+        if (outputWork == null || outputWork.length < count)
+        {
+            fromWork   = new float[count];
+            outputWork = new float[count];
+        }
+    }
+
+
+    private static void checkArguments(int[] indices, int count, float timeRatio, float[] output)
+    {
+        if (timeRatio < 0 || 1 < timeRatio)
+        {
+            throw new IllegalArgumentException("ratio < 0 || 1 < ratio");
+        }
+
+        if (count < 0)
+        {
+            throw new IllegalArgumentException("count < 0");
+        }
+
+        if (indices == null)
+        {
+            throw new IllegalArgumentException("indices == null");
+        }
+
+        if (indices.length < count)
+        {
+            throw new IllegalArgumentException("indices.length < count");
+        }
+
+        if (output == null)
+        {
+            throw new IllegalArgumentException("output == null");
+        }
+    }
+
+
+    private static void checkArray(float[] array, int count, String name)
+    {
+        if (array == null)
+        {
+            throw new IllegalArgumentException(name + " == null");
+        }
+
+        if (array.length < count)
+        {
+            throw new IllegalArgumentException(name + ".length < count");
+        }
+    }
+}
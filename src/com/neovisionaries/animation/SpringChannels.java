@@ -0,0 +1,403 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.Arrays;
+
+
+/**
+ * Channels of values which follow their targets like critically damped
+ * springs.
+ *
+ * <p>
+ * Restarting an {@link Interpolator} from the current value when the
+ * target changes in the middle of an animation makes the velocity jump.
+ * A channel of this class instead keeps its value and its velocity, so
+ * {@link #setTarget(int, float) setTarget()} can be called at any time
+ * and the value turns smoothly toward the new target without overshoot.
+ * The state of a channel is a few floats in primitive arrays, and no
+ * object is created after construction.
+ * </p>
+ *
+ * <p>
+ * {@link #update(float) update()} advances all the channels by the
+ * closed-form solution of the critically damped spring,
+ * </p>
+ *
+ * <pre style="margin: 1em;">
+ * x(t) = target + (c1 + c2 * t) * exp(-omega * t)
+ * c1   = x(0) - target
+ * c2   = v(0) + omega * c1
+ * </pre>
+ *
+ * <p>
+ * so the result is exact and stable for any time step. omega is
+ * (2 / smoothingTime); the value covers about 60% of the distance in
+ * the smoothing time and about 99% in four times the smoothing time.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * {@link SpringChannels} springs = new {@link #SpringChannels(int, float) SpringChannels}(10000, 0.2f);
+ *
+ * springs.{@link #setTarget(int, float) setTarget}(channel, target);
+ *
+ * <span style="color: darkgreen;">// For each frame.</span>
+ * springs.{@link #update(float) update}(deltaTime);
+ * float[] values = springs.{@link #getValues()};
+ * </pre>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class SpringChannels
+{
+    private final float[] values;
+    private final float[] velocities;
+    private final float[] targets;
+    private final float[] omegas;
+    private float restThreshold = 1.0e-4f;
+
+
+    /**
+     * A constructor with the number of channels and their smoothing time.
+     *
+     * @param channelCount
+     *         The number of channels.
+     *
+     * @param smoothingTime
+     *         The initial smoothing time of all the channels.
+     *
+     * @throws IllegalArgumentException
+     *         'channelCount' is less than 1, or 'smoothingTime' is not
+     *         greater than 0.
+     */
+    public SpringChannels(int channelCount, float smoothingTime)
+    {
+        if (channelCount < 1)
+        {
+            throw new IllegalArgumentException("channelCount < 1");
+        }
+
+        float omega = toOmega(smoothingTime);
+
+        values     = new float[channelCount];
+        velocities = new float[channelCount];
+        targets    = new float[channelCount];
+        omegas     = new float[channelCount];
+
+        Arrays.fill(omegas, omega);
+    }
+
+
+    /**
+     * Get the number of channels.
+     *
+     * @return
+     *         The number of channels.
+     */
+    public int getChannelCount()
+    {
+        return values.length;
+    }
+
+
+    /**
+     * Set the smoothing time of a channel. The current value and
+     * velocity are kept.
+     *
+     * @param channel
+     *         The index of a channel.
+     *
+     * @param smoothingTime
+     *         The smoothing time. A smaller value makes the channel
+     *         follow its target faster.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'channel' is out of range.
+     *
+     * @throws IllegalArgumentException
+     *         'smoothingTime' is not greater than 0.
+     */
+    public void setSmoothingTime(int channel, float smoothingTime)
+    {
+        checkChannel(channel);
+
+        omegas[channel] = toOmega(smoothingTime);
+    }
+
+
+    /**
+     * Get the smoothing time of a channel.
+     *
+     * @param channel
+     *         The index of a channel.
+     *
+     * @return
+     *         The smoothing time.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'channel' is out of range.
+     */
+    public float getSmoothingTime(int channel)
+    {
+        checkChannel(channel);
+
+        return 2 / omegas[channel];
+    }
+
+
+    /**
+     * Get the threshold under which a channel is regarded as at rest.
+     * The default value is 1.0E-4.
+     *
+     * @return
+     *         The threshold.
+     */
+    public float getRestThreshold()
+    {
+        return restThreshold;
+    }
+
+
+    /**
+     * Set the threshold under which a channel is regarded as at rest.
+     * When both the distance to the target and the speed of a channel
+     * fall below the threshold, the channel snaps to the target.
+     *
+     * @param threshold
+     *         The threshold. 0 disables snapping.
+     *
+     * @throws IllegalArgumentException
+     *         'threshold' is less than 0.
+     */
+    public void setRestThreshold(float threshold)
+    {
+        if (threshold < 0)
+        {
+            throw new IllegalArgumentException("threshold < 0");
+        }
+
+        restThreshold = threshold;
+    }
+
+
+    /**
+     * Set the target of a channel. The current value and velocity are
+     * kept, so the channel turns smoothly toward the new target.
+     *
+     * @param channel
+     *         The index of a channel.
+     *
+     * @param target
+     *         The new target.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'channel' is out of range.
+     */
+    public void setTarget(int channel, float target)
+    {
+        checkChannel(channel);
+
+        targets[channel] = target;
+    }
+
+
+    /**
+     * Get the target of a channel.
+     *
+     * @param channel
+     *         The index of a channel.
+     *
+     * @return
+     *         The target.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'channel' is out of range.
+     */
+    public float getTarget(int channel)
+    {
+        checkChannel(channel);
+
+        return targets[channel];
+    }
+
+
+    /**
+     * Set the value of a channel immediately. The target is set to the
+     * same value and the velocity is set to 0.
+     *
+     * @param channel
+     *         The index of a channel.
+     *
+     * @param value
+     *         The value.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'channel' is out of range.
+     */
+    public void setValue(int channel, float value)
+    {
+        checkChannel(channel);
+
+        values[channel]     = value;
+        targets[channel]    = value;
+        velocities[channel] = 0;
+    }
+
+
+    /**
+     * Get the current value of a channel.
+     *
+     * @param channel
+     *         The index of a channel.
+     *
+     * @return
+     *         The current value.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'channel' is out of range.
+     */
+    public float getValue(int channel)
+    {
+        checkChannel(channel);
+
+        return values[channel];
+    }
+
+
+    /**
+     * Get the current velocity of a channel.
+     *
+     * @param channel
+     *         The index of a channel.
+     *
+     * @return
+     *         The current velocity (change of the value per unit time).
+     *
+     * @throws IndexOutOfBoundsException
+     *         'channel' is out of range.
+     */
+    public float getVelocity(int channel)
+    {
+        checkChannel(channel);
+
+        return velocities[channel];
+    }
+
+
+    /**
+     * Get the current values of all the channels.
+     *
+     * @return
+     *         The internal array. It must not be modified.
+     */
+    public float[] getValues()
+    {
+        return values;
+    }
+
+
+    /**
+     * Advance all the channels.
+     *
+     * @param deltaTime
+     *         The elapsed time since the last update.
+     *
+     * @return
+     *         The number of channels which are not at rest after the update.
+     *
+     * @throws IllegalArgumentException
+     *         'deltaTime' is less than 0.
+     */
+    public int update(float deltaTime)
+    {
+        if (deltaTime < 0)
+        {
+            throw new IllegalArgumentException("deltaTime < 0");
+        }
+
+        float threshold = restThreshold;
+        float lastOmega = Float.NaN;
+        float decay     = 1;
+        int moving      = 0;
+
+        for (int i = 0; i < values.length; ++i)
+        {
+            float target   = targets[i];
+            float c1       = values[i] - target;
+            float velocity = velocities[i];
+
+            if (c1 == 0 && velocity == 0)
+            {
+                // At rest.
+                continue;
+            }
+
+            float omega = omegas[i];
+
+            // Channels usually share the same smoothing time, so
+            // exp() is called only when omega changes.
+            if (omega != lastOmega)
+            {
+                decay     = (float)Math.exp(-omega * deltaTime);
+                lastOmega = omega;
+            }
+
+            float c2 = velocity + omega * c1;
+            float x  = (c1 + c2 * deltaTime) * decay;
+            float v  = (c2 - omega * (c1 + c2 * deltaTime)) * decay;
+
+            if (Math.abs(x) < threshold && Math.abs(v) < threshold)
+            {
+                values[i]     = target;
+                velocities[i] = 0;
+                continue;
+            }
+
+            values[i]     = target + x;
+            velocities[i] = v;
+
+            ++moving;
+        }
+
+        return moving;
+    }
+
+
+    private void checkChannel(int channel)
+    {
+        if (channel < 0 || values.length <= channel)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+
+    private static float toOmega(float smoothingTime)
+    {
+        if (!(0 < smoothingTime))
+        {
+            throw new IllegalArgumentException("smoothingTime <= 0");
+        }
+
+        return 2 / smoothingTime;
+    }
+}
@@ -0,0 +1,553 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Spherical quadrangle (squad) interpolation over sequences of
+ * quaternion keyframes.
+ *
+ * <p>
+ * {@link SlerpInterpolator} joins quaternion keyframes with C0 continuity
+ * only, so angular velocity jumps at each keyframe. Squad passes through
+ * the same keyframes with a continuous tangent. An instance of this class
+ * holds one or more tracks (e.g. the bones of a skeleton) which share the
+ * same key times. The intermediate control quaternions and the angles
+ * between adjacent quaternions are calculated once in the constructor,
+ * so each sample costs four {@link Math#sin(double) sin} calls and a
+ * short polynomial, and no object is created.
+ * {@link #evaluate(float, float[])} finds the keyframe interval only
+ * once for all the tracks.
+ * </p>
+ *
+ * <p>
+ * A quaternion is stored as (x, y, z, w) like {@link SlerpInterpolator}.
+ * Keyframe quaternions should be normalized.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * <span style="color: darkgreen;">// keys[(key * trackCount + track) * 4 + {0, 1, 2, 3}] = {x, y, z, w}</span>
+ * {@link SquadInterpolator} squad = new {@link #SquadInterpolator(int, float[], float[])
+ * SquadInterpolator}(boneCount, times, keys);
+ *
+ * float[] pose = new float[boneCount * 4];
+ *
+ * <span style="color: darkgreen;">// For each frame.</span>
+ * squad.{@link #evaluate(float, float[]) evaluate}(time, pose);
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class SquadInterpolator
+{
+    private final int trackCount;
+    private final float[] times;
+
+
+    /**
+     * Keyframe quaternions. Each one is flipped if necessary so that it
+     * is in the same hemisphere as the previous one of the same track.
+     */
+    private final float[] keys;
+
+
+    /**
+     * Intermediate control quaternions. Same layout as {@link #keys}.
+     */
+    private final float[] controls;
+
+
+    /**
+     * Per interval and track: the angle between the keyframes, its
+     * 1/sin, the angle between the control quaternions and its 1/sin.
+     * 1/sin is 0 when the two quaternions are too close or nearly
+     * antipodal, and then they are blended linearly and the result is
+     * normalized.
+     */
+    private final float[] angles;
+
+
+    /**
+     * A constructor with key times and keyframe quaternions.
+     *
+     * @param trackCount
+     *         The number of tracks.
+     *
+     * @param times
+     *         Key times in ascending order, shared by all the tracks.
+     *         The array is copied.
+     *
+     * @param keys
+     *         Keyframe quaternions. The quaternion of the track j at the
+     *         keyframe i starts at ((i * trackCount + j) * 4).
+     *         The array is copied.
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>'trackCount' is less than 1.</li>
+     * <li>'times' or 'keys' is null.</li>
+     * <li>'times' is empty or not in ascending order.</li>
+     * <li>The length of 'keys' is less than (times.length * trackCount * 4).</li>
+     * </ul>
+     */
+    public SquadInterpolator(int trackCount, float[] times, float[] keys)
+    {
+        if (trackCount < 1)
+        {
+            throw new IllegalArgumentException("trackCount < 1");
+        }
+
+        if (times == null)
+        {
+            throw new IllegalArgumentException("times == null");
+        }
+
+        if (times.length == 0)
+        {
+            throw new IllegalArgumentException("times.length == 0");
+        }
+
+        for (int i = 1; i < times.length; ++i)
+        {
+            if (times[i] < times[i - 1])
+            {
+                throw new IllegalArgumentException("times are not in ascending order");
+            }
+        }
+
+        if (keys == null)
+        {
+            throw new IllegalArgumentException("keys == null");
+        }
+
+        int length = times.length * trackCount * 4;
+
+        if (keys.length < length)
+        {
+            throw new IllegalArgumentException("keys.length < times.length * trackCount * 4");
+        }
+
+        this.trackCount = trackCount;
+        this.times      = times.clone();
+        this.keys       = new float[length];
+        this.controls   = new float[length];
+        this.angles     = new float[(times.length - 1) * trackCount * 4];
+
+        System.arraycopy(keys, 0, this.keys, 0, length);
+
+        alignKeys();
+        buildControls();
+        buildAngles();
+    }
+
+
+    private void alignKeys()
+    {
+        int stride = trackCount * 4;
+
+        for (int i = stride; i < keys.length; i += 4)
+        {
+            if (QuaternionMath.dot(keys, i - stride, keys, i) < 0)
+            {
+                keys[i]     = -keys[i];
+                keys[i + 1] = -keys[i + 1];
+                keys[i + 2] = -keys[i + 2];
+                keys[i + 3] = -keys[i + 3];
+            }
+        }
+    }
+
+
+    private void buildControls()
+    {
+        int stride  = trackCount * 4;
+        int last    = keys.length - stride;
+        float[] inverse = new float[4];
+        float[] next    = new float[4];
+        float[] prev    = new float[4];
+
+        // The first and the last keyframes are their own control quaternions.
+        System.arraycopy(keys, 0,    controls, 0,    stride);
+        System.arraycopy(keys, last, controls, last, stride);
+
+        // s[i] = q[i] * exp(-(log(q[i]^-1 * q[i+1]) + log(q[i]^-1 * q[i-1])) / 4)
+        for (int i = stride; i < last; i += 4)
+        {
+            QuaternionMath.conjugate(keys, i, inverse, 0);
+            QuaternionMath.multiply(inverse, 0, keys, i + stride, next, 0);
+            QuaternionMath.multiply(inverse, 0, keys, i - stride, prev, 0);
+            QuaternionMath.log(next, 0, next, 0);
+            QuaternionMath.log(prev, 0, prev, 0);
+
+            for (int k = 0; k < 3; ++k)
+            {
+                next[k] = (next[k] + prev[k]) * -0.25f;
+            }
+
+            QuaternionMath.exp(next, 0, next, 0);
+            QuaternionMath.multiply(keys, i, next, 0, controls, i);
+            QuaternionMath.normalize(controls, i);
+        }
+    }
+
+
+    private void buildAngles()
+    {
+        int stride = trackCount * 4;
+
+        for (int i = 0, a = 0; a < angles.length; i += 4, a += 4)
+        {
+            setAngle(QuaternionMath.dot(keys,     i, keys,     i + stride), a);
+            setAngle(QuaternionMath.dot(controls, i, controls, i + stride), a + 2);
+        }
+    }
+
+
+    private void setAngle(float cosOmega, int index)
+    {
+        if (QuaternionMath.LINEAR_THRESHOLD < Math.abs(cosOmega))
+        {
+            angles[index]     = 0;
+            angles[index + 1] = 0;
+            return;
+        }
+
+        double omega = Math.acos(cosOmega);
+
+        angles[index]     = (float)omega;
+        angles[index + 1] = (float)(1 / Math.sin(omega));
+    }
+
+
+    /**
+     * Get the number of tracks.
+     *
+     * @return
+     *         The number of tracks.
+     */
+    public int getTrackCount()
+    {
+        return trackCount;
+    }
+
+
+    /**
+     * Get the number of keyframes.
+     *
+     * @return
+     *         The number of keyframes.
+     */
+    public int getKeyCount()
+    {
+        return times.length;
+    }
+
+
+    /**
+     * Get the time of a keyframe.
+     *
+     * @param index
+     *         The index of a keyframe.
+     *
+     * @return
+     *         The time of the keyframe.
+     *
+     * @throws IndexOutOfBoundsException
+     */
+    public float getTime(int index)
+    {
+        return times[index];
+    }
+
+
+    /**
+     * Calculate the quaternions of all the tracks at the specified time.
+     *
+     * <p>
+     * If 'time' is before the first keyframe or after the last one,
+     * the first or last keyframe is used.
+     * </p>
+     *
+     * @param time
+     *         Time.
+     *
+     * @param output
+     *         A place into which the quaternions are put. The quaternion
+     *         of the track j starts at (j * 4). The length of the array
+     *         must be equal to or greater than (trackCount * 4).
+     *
+     * @throws IllegalArgumentException
+     *         'output' is null or its length is less than (trackCount * 4).
+     */
+    public void evaluate(float time, float[] output)
+    {
+        if (output == null)
+        {
+            throw new IllegalArgumentException("output == null");
+        }
+
+        if (output.length < trackCount * 4)
+        {
+            throw new IllegalArgumentException("output.length < trackCount * 4");
+        }
+
+        int interval = findInterval(time);
+
+        if (interval < 0)
+        {
+            System.arraycopy(keys, (-interval - 1) * trackCount * 4, output, 0, trackCount * 4);
+            return;
+        }
+
+        float t = toRatio(interval, time);
+
+        for (int track = 0; track < trackCount; ++track)
+        {
+            squad(interval, track, t, output, track * 4);
+        }
+    }
+
+
+    /**
+     * Calculate the quaternion of a track at the specified time.
+     *
+     * @param track
+     *         The index of a track.
+     *
+     * @param time
+     *         Time.
+     *
+     * @param output
+     *         A place into which the quaternion is put.
+     *
+     * @param offset
+     *         The position in 'output' at which the quaternion is put.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'track' is out of range.
+     *
+     * @throws IllegalArgumentException
+     *         'output' is null or too short.
+     */
+    public void evaluate(int track, float time, float[] output, int offset)
+    {
+        if (track < 0 || trackCount <= track)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+
+        if (output == null)
+        {
+            throw new IllegalArgumentException("output == null");
+        }
+
+        if (offset < 0 || output.length < offset + 4)
+        {
+            throw new IllegalArgumentException("output is too short");
+        }
+
+        int interval = findInterval(time);
+
+        if (interval < 0)
+        {
+            System.arraycopy(keys, ((-interval - 1) * trackCount + track) * 4, output, offset, 4);
+            return;
+        }
+
+        squad(interval, track, toRatio(interval, time), output, offset);
+    }
+
+
+    /**
+     * Find the interval which contains the time.
+     *
+     * @return
+     *         The index of the first keyframe of the interval, or
+     *         (-index - 1) if the time is out of the keyframes and
+     *         the keyframe of the index is to be used as is.
+     */
+    private int findInterval(float time)
+    {
+        int last = times.length - 1;
+
+        if (time <= times[0])
+        {
+            return -1;
+        }
+
+        if (times[last] <= time)
+        {
+            return -last - 1;
+        }
+
+        // Find the last keyframe whose time is equal to or less than 'time'.
+        int low  = 0;
+        int high = last;
+
+        while (low + 1 < high)
+        {
+            int middle = (low + high) >>> 1;
+
+            if (times[middle] <= time)
+            {
+                low = middle;
+            }
+            else
+            {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+
+    private float toRatio(int interval, float time)
+    {
+        float t0 = times[interval];
+        float t1 = times[interval + 1];
+
+        return Math.min((time - t0) / (t1 - t0), 1);
+    }
+
+
+    /**
+     * squad(q0, q1, s0, s1, t) = slerp(slerp(q0, q1, t), slerp(s0, s1, t), 2t(1 - t))
+     */
+    private void squad(int interval, int track, float t, float[] output, int offset)
+    {
+        int i0 = (interval * trackCount + track) * 4;
+        int i1 = i0 + trackCount * 4;
+        int a  = i0;
+
+        float qx, qy, qz, qw;
+        float sx, sy, sz, sw;
+        float k0, k1;
+
+        // slerp(q0, q1, t) with the precomputed angle.
+        k0 = weight0(a, t);
+        k1 = weight1(a, t);
+        qx = keys[i0]     * k0 + keys[i1]     * k1;
+        qy = keys[i0 + 1] * k0 + keys[i1 + 1] * k1;
+        qz = keys[i0 + 2] * k0 + keys[i1 + 2] * k1;
+        qw = keys[i0 + 3] * k0 + keys[i1 + 3] * k1;
+
+        if (angles[a + 1] == 0)
+        {
+            // A linear blend is shorter than a unit quaternion.
+            float inverse = inverseLength(qx, qy, qz, qw);
+            qx *= inverse;
+            qy *= inverse;
+            qz *= inverse;
+            qw *= inverse;
+        }
+
+        // slerp(s0, s1, t) with the precomputed angle.
+        k0 = weight0(a + 2, t);
+        k1 = weight1(a + 2, t);
+        sx = controls[i0]     * k0 + controls[i1]     * k1;
+        sy = controls[i0 + 1] * k0 + controls[i1 + 1] * k1;
+        sz = controls[i0 + 2] * k0 + controls[i1 + 2] * k1;
+        sw = controls[i0 + 3] * k0 + controls[i1 + 3] * k1;
+
+        if (angles[a + 3] == 0)
+        {
+            float inverse = inverseLength(sx, sy, sz, sw);
+            sx *= inverse;
+            sy *= inverse;
+            sz *= inverse;
+            sw *= inverse;
+        }
+
+        // The outer slerp. Its angle varies with t, so it is not
+        // precomputed. Instead, acos() and sin() are avoided by the
+        // polynomial in the usual case where the angle is acute.
+        float h = 2 * t * (1 - t);
+        float cosOmega = qx * sx + qy * sy + qz * sz + qw * sw;
+        boolean linear = false;
+
+        if (0 <= cosOmega)
+        {
+            k0 = QuaternionMath.slerpWeight(cosOmega, 1 - h);
+            k1 = QuaternionMath.slerpWeight(cosOmega, h);
+        }
+        else if (cosOmega < -QuaternionMath.LINEAR_THRESHOLD)
+        {
+            // Nearly antipodal. 1/sin would blow up.
+            k0     = 1 - h;
+            k1     = h;
+            linear = true;
+        }
+        else
+        {
+            double omega = Math.acos(cosOmega);
+            double oneOverSinOmega = 1 / Math.sin(omega);
+
+            k0 = (float)(Math.sin((1 - h) * omega) * oneOverSinOmega);
+            k1 = (float)(Math.sin(h * omega) * oneOverSinOmega);
+        }
+
+        output[offset]     = qx * k0 + sx * k1;
+        output[offset + 1] = qy * k0 + sy * k1;
+        output[offset + 2] = qz * k0 + sz * k1;
+        output[offset + 3] = qw * k0 + sw * k1;
+
+        if (linear)
+        {
+            QuaternionMath.normalize(output, offset);
+        }
+    }
+
+
+    /**
+     * 1 / |(x, y, z, w)|, or 1 for a zero quaternion so that it is left
+     * as it is. A zero quaternion is obtained only when exactly
+     * antipodal quaternions are blended linearly at the middle.
+     */
+    private static float inverseLength(float x, float y, float z, float w)
+    {
+        float length = (float)Math.sqrt(x * x + y * y + z * z + w * w);
+
+        return (length == 0) ? 1 : 1 / length;
+    }
+
+
+    private float weight0(int index, float t)
+    {
+        float oneOverSinOmega = angles[index + 1];
+
+        if (oneOverSinOmega == 0)
+        {
+            return 1 - t;
+        }
+
+        return (float)(Math.sin((1 - t) * angles[index]) * oneOverSinOmega);
+    }
+
+
+    private float weight1(int index, float t)
+    {
+        float oneOverSinOmega = angles[index + 1];
+
+        if (oneOverSinOmega == 0)
+        {
+            return t;
+        }
+
+        return (float)(Math.sin(t * angles[index]) * oneOverSinOmega);
+    }
+}
@@ -0,0 +1,577 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.Arrays;
+
+
+/**
+ * Index of animations on a timeline to find the ones active at a time
+ * or in a time range.
+ *
+ * <p>
+ * An entry is a closed interval [start, end] and an int value chosen by
+ * the caller (typically a parameter index). Entries are kept in a treap
+ * (a binary search tree balanced by random priorities) ordered by their
+ * start times, and each node remembers the maximum end time in its
+ * subtree. {@link #insert(float, float, int) insert()} and {@link
+ * #remove(int) remove()} take O(log n) expected time, and {@link
+ * #query(float, float) query()} descends only into subtrees which
+ * contain at least one matching entry, so it visits O(log n) nodes
+ * per match and no more than O(log n) nodes when nothing matches.
+ * Scrubbing to an arbitrary time therefore costs in proportion to the
+ * number of active animations, not the number of scheduled ones.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * {@link TimelineIndex} index = new {@link #TimelineIndex(int) TimelineIndex}(100000);
+ *
+ * int handle = index.{@link #insert(float, float, int) insert}(startTime, startTime + duration, parameter);
+ *
+ * <span style="color: darkgreen;">// Jump to a time.</span>
+ * int count = index.{@link #query(float) query}(time);
+ * int[] results = index.{@link #getResults()};
+ *
+ * for (int i = 0; i &lt; count; ++i)
+ * {
+ *     evaluate(results[i], time);
+ * }
+ * </pre>
+ *
+ * <p>
+ * Nodes are stored in arrays linked by indexes, so no object is created
+ * per entry or per query. The arrays grow only when the number of
+ * entries exceeds the capacity.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class TimelineIndex
+{
+    private static final int NIL = -1;
+
+
+    /**
+     * The priority of a node which is not in use.
+     */
+    private static final int FREE = 0;
+
+
+    private float[] starts;
+    private float[] ends;
+    private float[] maxEnds;
+    private int[] values;
+    private int[] priorities;
+    private int[] lefts;
+    private int[] rights;
+    private int[] results;
+    private int root = NIL;
+    private int freeHead = NIL;
+    private int size;
+    private int resultCount;
+    private int seed = 0x2545F491;
+
+
+    /**
+     * A constructor with the initial capacity.
+     *
+     * @param initialCapacity
+     *         The number of entries which can be held without growing
+     *         the internal arrays.
+     *
+     * @throws IllegalArgumentException
+     *         'initialCapacity' is less than 1.
+     */
+    public TimelineIndex(int initialCapacity)
+    {
+        if (initialCapacity < 1)
+        {
+            throw new IllegalArgumentException("initialCapacity < 1");
+        }
+
+        starts     = new float[0];
+        ends       = new float[0];
+        maxEnds    = new float[0];
+        values     = new int[0];
+        priorities = new int[0];
+        lefts      = new int[0];
+        rights     = new int[0];
+        results    = new int[16];
+
+        grow(initialCapacity);
+    }
+
+
+    /**
+     * Get the number of entries.
+     *
+     * @return
+     *         The number of entries.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+
+    /**
+     * Add an entry.
+     *
+     * @param start
+     *         The start time of the interval.
+     *
+     * @param end
+     *         The end time of the interval. It must be equal to or
+     *         greater than 'start'.
+     *
+     * @param value
+     *         A value returned from queries which match the entry.
+     *
+     * @return
+     *         A handle of the entry which can be given to {@link
+     *         #remove(int)}. The handle becomes invalid when the entry
+     *         is removed, and may be reused by an entry inserted later.
+     *
+     * @throws IllegalArgumentException
+     *         'start' or 'end' is NaN, or 'end' is less than 'start'.
+     */
+    public int insert(float start, float end, int value)
+    {
+        if (Float.isNaN(start) || Float.isNaN(end))
+        {
+            throw new IllegalArgumentException("start or end is NaN");
+        }
+
+        if (end < start)
+        {
+            throw new IllegalArgumentException("end < start");
+        }
+
+        if (freeHead == NIL)
+        {
+            grow(starts.length * 2);
+        }
+
+        int node = freeHead;
+        freeHead = lefts[node];
+
+        starts[node]     = start;
+        ends[node]       = end;
+        maxEnds[node]    = end;
+        values[node]     = value;
+        priorities[node] = nextPriority();
+        lefts[node]      = NIL;
+        rights[node]     = NIL;
+
+        root = insert(root, node);
+
+        ++size;
+
+        return node;
+    }
+
+
+    /**
+     * Remove an entry.
+     *
+     * @param handle
+     *         A handle returned from {@link #insert(float, float, int)}.
+     *
+     * @return
+     *         true if the entry was in the index and has been removed.
+     */
+    public boolean remove(int handle)
+    {
+        if (handle < 0 || starts.length <= handle || priorities[handle] == FREE)
+        {
+            return false;
+        }
+
+        root = remove(root, handle);
+
+        priorities[handle] = FREE;
+        lefts[handle]      = freeHead;
+        freeHead           = handle;
+
+        --size;
+
+        return true;
+    }
+
+
+    /**
+     * Remove all the entries.
+     */
+    public void clear()
+    {
+        for (int i = 0; i < starts.length; ++i)
+        {
+            if (priorities[i] != FREE)
+            {
+                remove(i);
+            }
+        }
+
+        resultCount = 0;
+    }
+
+
+    /**
+     * Get the start time of an entry.
+     *
+     * @param handle
+     *         A handle returned from {@link #insert(float, float, int)}.
+     *
+     * @return
+     *         The start time.
+     *
+     * @throws IllegalArgumentException
+     *         'handle' is not a handle of an entry in the index.
+     */
+    public float getStart(int handle)
+    {
+        checkHandle(handle);
+
+        return starts[handle];
+    }
+
+
+    /**
+     * Get the end time of an entry.
+     *
+     * @param handle
+     *         A handle returned from {@link #insert(float, float, int)}.
+     *
+     * @return
+     *         The end time.
+     *
+     * @throws IllegalArgumentException
+     *         'handle' is not a handle of an entry in the index.
+     */
+    public float getEnd(int handle)
+    {
+        checkHandle(handle);
+
+        return ends[handle];
+    }
+
+
+    /**
+     * Get the value of an entry.
+     *
+     * @param handle
+     *         A handle returned from {@link #insert(float, float, int)}.
+     *
+     * @return
+     *         The value given to {@link #insert(float, float, int)}.
+     *
+     * @throws IllegalArgumentException
+     *         'handle' is not a handle of an entry in the index.
+     */
+    public int getValue(int handle)
+    {
+        checkHandle(handle);
+
+        return values[handle];
+    }
+
+
+    /**
+     * Find the entries active at the specified time.
+     *
+     * <p>
+     * This method is an alias of {@link #query(float, float)
+     * query(time, time)}.
+     * </p>
+     *
+     * @param time
+     *         A time.
+     *
+     * @return
+     *         The number of entries whose intervals contain the time.
+     *         Their values are put into {@link #getResults()}.
+     */
+    public int query(float time)
+    {
+        return query(time, time);
+    }
+
+
+    /**
+     * Find the entries active in the specified time range.
+     *
+     * @param from
+     *         The start of the range.
+     *
+     * @param to
+     *         The end of the range.
+     *
+     * @return
+     *         The number of entries whose intervals overlap the closed
+     *         range [from, to]. Their values are put into {@link
+     *         #getResults()} in ascending order of start times. 0 is
+     *         returned if 'to' is less than 'from'.
+     */
+    public int query(float from, float to)
+    {
+        resultCount = 0;
+
+        if (from <= to)
+        {
+            collect(root, from, to);
+        }
+
+        return resultCount;
+    }
+
+
+    /**
+     * Get the results of the last query.
+     *
+     * @return
+     *         The internal array. Only the first {@link #getResultCount()}
+     *         elements are valid.
+     */
+    public int[] getResults()
+    {
+        return results;
+    }
+
+
+    /**
+     * Get the number of the results of the last query.
+     *
+     * @return
+     *         The number of the results.
+     */
+    public int getResultCount()
+    {
+        return resultCount;
+    }
+
+
+    private void collect(int node, float from, float to)
+    {
+        // No interval in the subtree reaches 'from'.
+        while (node != NIL && from <= maxEnds[node])
+        {
+            collect(lefts[node], from, to);
+
+            if (to < starts[node])
+            {
+                // The node and its right subtree start after the range.
+                return;
+            }
+
+            if (from <= ends[node])
+            {
+                if (resultCount == results.length)
+                {
+                    results = Arrays.copyOf(results, resultCount * 2);
+                }
+
+                results[resultCount++] = values[node];
+            }
+
+            // Tail call on the right subtree.
+            node = rights[node];
+        }
+    }
+
+
+    private int insert(int node, int newNode)
+    {
+        if (node == NIL)
+        {
+            return newNode;
+        }
+
+        if (precedes(newNode, node))
+        {
+            lefts[node] = insert(lefts[node], newNode);
+
+            if (priorities[node] < priorities[lefts[node]])
+            {
+                node = rotateRight(node);
+            }
+        }
+        else
+        {
+            rights[node] = insert(rights[node], newNode);
+
+            if (priorities[node] < priorities[rights[node]])
+            {
+                node = rotateLeft(node);
+            }
+        }
+
+        update(node);
+
+        return node;
+    }
+
+
+    private int remove(int node, int target)
+    {
+        if (node == target)
+        {
+            int left  = lefts[node];
+            int right = rights[node];
+
+            if (left == NIL)
+            {
+                return right;
+            }
+
+            if (right == NIL)
+            {
+                return left;
+            }
+
+            // Rotate the node down to the side of the lower priority.
+            if (priorities[left] < priorities[right])
+            {
+                node = rotateLeft(node);
+                lefts[node] = remove(lefts[node], target);
+            }
+            else
+            {
+                node = rotateRight(node);
+                rights[node] = remove(rights[node], target);
+            }
+        }
+        else if (precedes(target, node))
+        {
+            lefts[node] = remove(lefts[node], target);
+        }
+        else
+        {
+            rights[node] = remove(rights[node], target);
+        }
+
+        update(node);
+
+        return node;
+    }
+
+
+    /**
+     * Nodes are ordered by their start times, and then by their indexes
+     * so that a node can be found by its key in {@link #remove(int, int)}.
+     */
+    private boolean precedes(int a, int b)
+    {
+        return starts[a] < starts[b] || (starts[a] == starts[b] && a < b);
+    }
+
+
+    private int rotateRight(int node)
+    {
+        int left = lefts[node];
+
+        lefts[node]  = rights[left];
+        rights[left] = node;
+
+        update(node);
+
+        return left;
+    }
+
+
+    private int rotateLeft(int node)
+    {
+        int right = rights[node];
+
+        rights[node] = lefts[right];
+        lefts[right] = node;
+
+        update(node);
+
+        return right;
+    }
+
+
+    private void update(int node)
+    {
+        float max = ends[node];
+        int left  = lefts[node];
+        int right = rights[node];
+
+        if (left != NIL && max < maxEnds[left])
+        {
+            max = maxEnds[left];
+        }
+
+        if (right != NIL && max < maxEnds[right])
+        {
+            max = maxEnds[right];
+        }
+
+        maxEnds[node] = max;
+    }
+
+
+    /**
+     * Generate a positive priority by xorshift.
+     */
+    private int nextPriority()
+    {
+        int x = seed;
+
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+
+        seed = x;
+
+        return (x >>> 1) | 1;
+    }
+
+
+    private void checkHandle(int handle)
+    {
+        if (handle < 0 || starts.length <= handle || priorities[handle] == FREE)
+        {
+            throw new IllegalArgumentException("Bad handle: " + handle);
+        }
+    }
+
+
+    private void grow(int capacity)
+    {
+        int oldCapacity = starts.length;
+
+        starts     = Arrays.copyOf(starts,     capacity);
+        ends       = Arrays.copyOf(ends,       capacity);
+        maxEnds    = Arrays.copyOf(maxEnds,    capacity);
+        values     = Arrays.copyOf(values,     capacity);
+        priorities = Arrays.copyOf(priorities, capacity);
+        lefts      = Arrays.copyOf(lefts,      capacity);
+        rights     = Arrays.copyOf(rights,     capacity);
+
+        for (int i = capacity - 1; oldCapacity <= i; --i)
+        {
+            lefts[i] = freeHead;
+            freeHead = i;
+        }
+    }
+}
@@ -0,0 +1,449 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.Arrays;
+
+
+/**
+ * Hierarchical timing wheel.
+ *
+ * <p>
+ * A timer is a pair of a deadline (in ticks) and two int values chosen
+ * by the caller (typically a parameter index and an event code). The
+ * wheel has {@value #LEVEL_COUNT} levels of {@value #SLOT_COUNT} slots.
+ * A timer is put into the slot of the lowest level which can hold its
+ * deadline, and is moved down to a lower level when the wheel turns,
+ * so {@link #schedule(long, int, int) schedule()} and {@link
+ * #cancel(int) cancel()} take constant time, and {@link #advance(long,
+ * Listener) advance()} takes time proportional to the number of
+ * elapsed ticks and expired timers. Timers whose deadlines are too far
+ * for the top level are kept in the top level and rescheduled every
+ * time their slot comes around.
+ * </p>
+ *
+ * <p>
+ * Timers are stored in int and long arrays linked by indexes, so no
+ * object is created per timer. The arrays grow only when the number of
+ * pending timers exceeds the capacity.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class TimingWheel
+{
+    /**
+     * The number of bits of a slot index.
+     */
+    private static final int SLOT_BITS = 6;
+
+
+    /**
+     * The number of slots per level.
+     */
+    public static final int SLOT_COUNT = 1 << SLOT_BITS;
+
+
+    /**
+     * The number of levels.
+     */
+    public static final int LEVEL_COUNT = 4;
+
+
+    private static final int SLOT_MASK = SLOT_COUNT - 1;
+    private static final int NIL = -1;
+
+
+    /**
+     * The index of the list which holds timers being expired.
+     */
+    private static final int EXPIRING_LIST = LEVEL_COUNT * SLOT_COUNT;
+
+
+    /**
+     * The index of the list which holds free nodes.
+     */
+    private static final int FREE_LIST = EXPIRING_LIST + 1;
+
+
+    /**
+     * Listener of expired timers.
+     */
+    public interface Listener
+    {
+        /**
+         * Called when a timer has expired.
+         *
+         * <p>
+         * It is allowed to schedule and cancel timers in this method.
+         * </p>
+         *
+         * @param parameter
+         *         The first value given to {@link
+         *         TimingWheel#schedule(long, int, int) schedule()}.
+         *
+         * @param event
+         *         The second value given to {@link
+         *         TimingWheel#schedule(long, int, int) schedule()}.
+         */
+        void onExpired(int parameter, int event);
+    }
+
+
+    /**
+     * Heads of the doubly-linked lists (slots, expiring and free).
+     */
+    private final int[] heads = new int[FREE_LIST + 1];
+
+    private long[] deadlines;
+    private int[] parameters;
+    private int[] events;
+    private int[] nexts;
+    private int[] prevs;
+    private int[] lists;
+    private int size;
+    private long currentTick;
+
+
+    /**
+     * A constructor with the initial capacity.
+     *
+     * @param initialCapacity
+     *         The number of timers which can be pending without
+     *         growing the internal arrays.
+     *
+     * @throws IllegalArgumentException
+     *         'initialCapacity' is less than 1.
+     */
+    public TimingWheel(int initialCapacity)
+    {
+        if (initialCapacity < 1)
+        {
+            throw new IllegalArgumentException("initialCapacity < 1");
+        }
+
+        Arrays.fill(heads, NIL);
+
+        deadlines  = new long[0];
+        parameters = new int[0];
+        events     = new int[0];
+        nexts      = new int[0];
+        prevs      = new int[0];
+        lists      = new int[0];
+
+        grow(initialCapacity);
+    }
+
+
+    /**
+     * Get the current tick. The initial value is 0.
+     *
+     * @return
+     *         The last tick which {@link #advance(long, Listener)
+     *         advance()} has processed.
+     */
+    public long getCurrentTick()
+    {
+        return currentTick;
+    }
+
+
+    /**
+     * Get the number of pending timers.
+     *
+     * @return
+     *         The number of pending timers.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+
+    /**
+     * Schedule a timer.
+     *
+     * @param deadline
+     *         The tick at which the timer expires. If it is equal to or
+     *         less than the current tick, the timer expires at the next
+     *         tick.
+     *
+     * @param parameter
+     *         A value passed to {@link Listener#onExpired(int, int)}.
+     *
+     * @param event
+     *         A value passed to {@link Listener#onExpired(int, int)}.
+     *
+     * @return
+     *         A handle of the timer which can be given to {@link
+     *         #cancel(int)}. The handle becomes invalid when the timer
+     *         expires or is cancelled, and may be reused by a timer
+     *         scheduled later.
+     */
+    public int schedule(long deadline, int parameter, int event)
+    {
+        int node = heads[FREE_LIST];
+
+        if (node == NIL)
+        {
+            grow(deadlines.length * 2);
+
+            node = heads[FREE_LIST];
+        }
+
+        unlink(node);
+
+        deadlines[node]  = deadline;
+        parameters[node] = parameter;
+        events[node]     = event;
+
+        place(node);
+
+        ++size;
+
+        return node;
+    }
+
+
+    /**
+     * Cancel a timer.
+     *
+     * @param handle
+     *         A handle returned from {@link #schedule(long, int, int)}.
+     *
+     * @return
+     *         true if the timer was pending and has been cancelled.
+     */
+    public boolean cancel(int handle)
+    {
+        if (handle < 0 || deadlines.length <= handle || lists[handle] == FREE_LIST)
+        {
+            return false;
+        }
+
+        release(handle);
+
+        return true;
+    }
+
+
+    /**
+     * Advance the wheel up to the specified tick and let the listener
+     * know expired timers.
+     *
+     * <p>
+     * Timers expire in order of ticks. The order of timers which expire
+     * at the same tick is not specified.
+     * </p>
+     *
+     * @param tick
+     *         The tick to advance to. If it is equal to or less than
+     *         the current tick, nothing is done.
+     *
+     * @param listener
+     *         A listener which receives expired timers. If null is
+     *         given, expired timers are just discarded.
+     *
+     * @return
+     *         The number of expired timers.
+     */
+    public int advance(long tick, Listener listener)
+    {
+        int count = 0;
+
+        while (currentTick < tick)
+        {
+            long next = currentTick + 1;
+
+            cascade(next);
+
+            // Detach the timers which expire at the tick.
+            int slot = (int)(next & SLOT_MASK);
+            moveAll(slot, EXPIRING_LIST);
+
+            // New timers scheduled by the listener go to later ticks.
+            currentTick = next;
+
+            int node;
+
+            while ((node = heads[EXPIRING_LIST]) != NIL)
+            {
+                int parameter = parameters[node];
+                int event     = events[node];
+
+                release(node);
+
+                ++count;
+
+                if (listener != null)
+                {
+                    listener.onExpired(parameter, event);
+                }
+            }
+
+            if (size == 0)
+            {
+                // Nothing is pending, so skip the remaining ticks.
+                currentTick = tick;
+            }
+        }
+
+        return count;
+    }
+
+
+    /**
+     * Move timers of the higher levels whose slots have come around
+     * into lower levels.
+     */
+    private void cascade(long tick)
+    {
+        for (int level = 1; level < LEVEL_COUNT; ++level)
+        {
+            if (((tick >>> (SLOT_BITS * level - SLOT_BITS)) & SLOT_MASK) != 0)
+            {
+                return;
+            }
+
+            int list = level * SLOT_COUNT + (int)((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            int node = heads[list];
+
+            while (node != NIL)
+            {
+                int next = nexts[node];
+
+                unlink(node);
+                place(node, tick);
+
+                node = next;
+            }
+        }
+    }
+
+
+    private void place(int node)
+    {
+        place(node, currentTick + 1);
+    }
+
+
+    /**
+     * Put a node into the slot for its deadline, assuming that 'base'
+     * is the next tick to be processed.
+     */
+    private void place(int node, long base)
+    {
+        long deadline = Math.max(deadlines[node], base);
+        long delta    = deadline - base;
+        int level     = 0;
+
+        while (level < LEVEL_COUNT - 1 && (SLOT_COUNT << (SLOT_BITS * level)) <= delta)
+        {
+            ++level;
+        }
+
+        int slot = (int)((deadline >>> (SLOT_BITS * level)) & SLOT_MASK);
+
+        append(level * SLOT_COUNT + slot, node);
+    }
+
+
+    private void release(int node)
+    {
+        unlink(node);
+        append(FREE_LIST, node);
+
+        --size;
+    }
+
+
+    private void moveAll(int from, int to)
+    {
+        // The order of the nodes is kept.
+        for (int node = heads[from]; node != NIL; node = nexts[node])
+        {
+            lists[node] = to;
+        }
+
+        heads[to]   = heads[from];
+        heads[from] = NIL;
+    }
+
+
+    private void append(int list, int node)
+    {
+        // Insert at the head. The order in a slot does not matter.
+        int head = heads[list];
+
+        nexts[node] = head;
+        prevs[node] = NIL;
+        lists[node] = list;
+
+        if (head != NIL)
+        {
+            prevs[head] = node;
+        }
+
+        heads[list] = node;
+    }
+
+
+    private void unlink(int node)
+    {
+        int prev = prevs[node];
+        int next = nexts[node];
+
+        if (prev == NIL)
+        {
+            heads[lists[node]] = next;
+        }
+        else
+        {
+            nexts[prev] = next;
+        }
+
+        if (next != NIL)
+        {
+            prevs[next] = prev;
+        }
+
+        nexts[node] = NIL;
+        prevs[node] = NIL;
+    }
+
+
+    private void grow(int capacity)
+    {
+        int oldCapacity = deadlines.length;
+
+        deadlines  = Arrays.copyOf(deadlines,  capacity);
+        parameters = Arrays.copyOf(parameters, capacity);
+        events     = Arrays.copyOf(events,     capacity);
+        nexts      = Arrays.copyOf(nexts,      capacity);
+        prevs      = Arrays.copyOf(prevs,      capacity);
+        lists      = Arrays.copyOf(lists,      capacity);
+
+        for (int i = capacity - 1; oldCapacity <= i; --i)
+        {
+            append(FREE_LIST, i);
+        }
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Interpolator of 4x4 transform matrices in batch.
+ *
+ * <p>
+ * Interpolating the elements of transform matrices directly shears and
+ * shrinks rotating objects. This class decomposes each matrix into
+ * translation, rotation (quaternion) and scale, interpolates each part
+ * by its own {@link Interpolator} ({@link LinearInterpolator} for
+ * translation and scale and {@link SlerpInterpolator} for rotation
+ * by default), and recomposes a matrix.
+ * </p>
+ *
+ * <p>
+ * Decomposition is expensive compared to interpolation, so it is done
+ * only when a pair of keyframes is given by {@link #setKeyframes(float[],
+ * float[], int) setKeyframes()}, and the decomposed parts are cached
+ * until the next call. {@link #interpolate(float, float[]) interpolate()}
+ * then only interpolates the cached parts and recomposes matrices, and
+ * creates no object.
+ * </p>
+ *
+ * <p>
+ * Matrices are in column-major order (the translation is at the indexes
+ * 12, 13 and 14) and packed; the i-th matrix starts at (i * 16). Only
+ * affine transforms without shear are supported. Shear and projection
+ * are discarded, and a reflection is represented by a negative scale
+ * along the x axis.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * {@link TransformInterpolator} interpolator = new {@link #TransformInterpolator(int)
+ * TransformInterpolator}(boneCount);
+ *
+ * <span style="color: darkgreen;">// When a new pair of keyframes starts.</span>
+ * interpolator.{@link #setKeyframes(float[], float[], int) setKeyframes}(fromMatrices, toMatrices, boneCount);
+ *
+ * <span style="color: darkgreen;">// For each frame.</span>
+ * interpolator.{@link #interpolate(float, float[]) interpolate}(timeRatio, matrices);
+ * </pre>
+ *
+ * <p>
+ * Work buffers are held by this instance, so an instance of this class
+ * must not be used by multiple threads at a time.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class TransformInterpolator
+{
+    private static final int MATRIX_SIZE = 16;
+
+
+    private final float[][] fromTranslations;
+    private final float[][] toTranslations;
+    private final float[][] fromRotations;
+    private final float[][] toRotations;
+    private final float[][] fromScales;
+    private final float[][] toScales;
+    private final float[] translation = new float[3];
+    private final float[] rotation    = new float[4];
+    private final float[] scale       = new float[3];
+    private Interpolator translationInterpolator = new LinearInterpolator();
+    private Interpolator rotationInterpolator    = new SlerpInterpolator();
+    private Interpolator scaleInterpolator       = new LinearInterpolator();
+    private int count;
+
+
+    /**
+     * A constructor with the maximum number of transforms.
+     *
+     * @param capacity
+     *         The maximum number of transforms in a batch.
+     *
+     * @throws IllegalArgumentException
+     *         'capacity' is less than 1.
+     */
+    public TransformInterpolator(int capacity)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity < 1");
+        }
+
+        fromTranslations = new float[capacity][3];
+        toTranslations   = new float[capacity][3];
+        fromRotations    = new float[capacity][4];
+        toRotations      = new float[capacity][4];
+        fromScales       = new float[capacity][3];
+        toScales         = new float[capacity][3];
+    }
+
+
+    /**
+     * Get the maximum number of transforms in a batch.
+     *
+     * @return
+     *         The capacity.
+     */
+    public int getCapacity()
+    {
+        return fromTranslations.length;
+    }
+
+
+    /**
+     * Get the number of transforms given by the last call of {@link
+     * #setKeyframes(float[], float[], int)}.
+     *
+     * @return
+     *         The number of transforms.
+     */
+    public int getCount()
+    {
+        return count;
+    }
+
+
+    /**
+     * Get the interpolator for translation.
+     *
+     * @return
+     *         The interpolator for translation.
+     */
+    public Interpolator getTranslationInterpolator()
+    {
+        return translationInterpolator;
+    }
+
+
+    /**
+     * Set the interpolator for translation. It is called with 3 components.
+     *
+     * @param interpolator
+     *         An interpolator.
+     *
+     * @throws IllegalArgumentException
+     *         'interpolator' is null.
+     */
+    public void setTranslationInterpolator(Interpolator interpolator)
+    {
+        translationInterpolator = checkInterpolator(interpolator);
+    }
+
+
+    /**
+     * Get the interpolator for rotation.
+     *
+     * @return
+     *         The interpolator for rotation.
+     */
+    public Interpolator getRotationInterpolator()
+    {
+        return rotationInterpolator;
+    }
+
+
+    /**
+     * Set the interpolator for rotation. It is called with quaternions
+     * (x, y, z, w), that is, with 4 components.
+     *
+     * @param interpolator
+     *         An interpolator.
+     *
+     * @throws IllegalArgumentException
+     *         'interpolator' is null.
+     */
+    public void setRotationInterpolator(Interpolator interpolator)
+    {
+        rotationInterpolator = checkInterpolator(interpolator);
+    }
+
+
+    /**
+     * Get the interpolator for scale.
+     *
+     * @return
+     *         The interpolator for scale.
+     */
+    public Interpolator getScaleInterpolator()
+    {
+        return scaleInterpolator;
+    }
+
+
+    /**
+     * Set the interpolator for scale. It is called with 3 components.
+     *
+     * @param interpolator
+     *         An interpolator.
+     *
+     * @throws IllegalArgumentException
+     *         'interpolator' is null.
+     */
+    public void setScaleInterpolator(Interpolator interpolator)
+    {
+        scaleInterpolator = checkInterpolator(interpolator);
+    }
+
+
+    /**
+     * Set a pair of keyframes and decompose them.
+     *
+     * @param from
+     *         Transform matrices at the start point. The i-th matrix
+     *         starts at (i * 16).
+     *
+     * @param to
+     *         Transform matrices at the end point. The i-th matrix
+     *         starts at (i * 16).
+     *
+     * @param count
+     *         The number of transforms.
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>'from' or 'to' is null.</li>
+     * <li>'count' is less than 0 or greater than the capacity.</li>
+     * <li>The length of 'from' or 'to' is less than (count * 16).</li>
+     * </ul>
+     */
+    public void setKeyframes(float[] from, float[] to, int count)
+    {
+        if (count < 0 || getCapacity() < count)
+        {
+            throw new IllegalArgumentException("count is out of range");
+        }
+
+        checkMatrices(from, count, "from");
+        checkMatrices(to, count, "to");
+
+        for (int i = 0; i < count; ++i)
+        {
+            decompose(from, i * MATRIX_SIZE, fromTranslations[i], fromRotations[i], fromScales[i]);
+            decompose(to,   i * MATRIX_SIZE, toTranslations[i],   toRotations[i],   toScales[i]);
+        }
+
+        this.count = count;
+    }
+
+
+    /**
+     * Calculate interpolated transform matrices.
+     *
+     * @param timeRatio
+     *         A time ratio. It must be in between 0.0 and 1.0.
+     *
+     * @param output
+     *         A place into which the matrices are put. The i-th matrix
+     *         starts at (i * 16). The length of the array must be equal
+     *         to or greater than (count * 16).
+     *
+     * @throws IllegalArgumentException
+     *         'output' is null or too short, or 'timeRatio' is out of range.
+     */
+    public void interpolate(float timeRatio, float[] output)
+    {
+        checkMatrices(output, count, "output");
+
+        for (int i = 0; i < count; ++i)
+        {
+            translationInterpolator.interpolate(fromTranslations[i], toTranslations[i], 3, timeRatio, translation);
+            rotationInterpolator.interpolate(fromRotations[i], toRotations[i], 4, timeRatio, rotation);
+            scaleInterpolator.interpolate(fromScales[i], toScales[i], 3, timeRatio, scale);
+
+            compose(translation, rotation, scale, output, i * MATRIX_SIZE);
+        }
+    }
+
+
+    private static void decompose(float[] m, int offset, float[] translation, float[] rotation, float[] scale)
+    {
+        translation[0] = m[offset + 12];
+        translation[1] = m[offset + 13];
+        translation[2] = m[offset + 14];
+
+        // Columns of the upper-left 3x3 part.
+        float m00 = m[offset],     m10 = m[offset + 1], m20 = m[offset + 2];
+        float m01 = m[offset + 4], m11 = m[offset + 5], m21 = m[offset + 6];
+        float m02 = m[offset + 8], m12 = m[offset + 9], m22 = m[offset + 10];
+
+        float sx = (float)Math.sqrt(m00 * m00 + m10 * m10 + m20 * m20);
+        float sy = (float)Math.sqrt(m01 * m01 + m11 * m11 + m21 * m21);
+        float sz = (float)Math.sqrt(m02 * m02 + m12 * m12 + m22 * m22);
+
+        float determinant = m00 * (m11 * m22 - m21 * m12)
+                          - m01 * (m10 * m22 - m20 * m12)
+                          + m02 * (m10 * m21 - m20 * m11);
+
+        if (determinant < 0)
+        {
+            // Reflection. Represent it by a negative scale along x.
+            sx = -sx;
+        }
+
+        scale[0] = sx;
+        scale[1] = sy;
+        scale[2] = sz;
+
+        if (sx == 0 || sy == 0 || sz == 0)
+        {
+            // The rotation cannot be determined.
+            rotation[0] = 0;
+            rotation[1] = 0;
+            rotation[2] = 0;
+            rotation[3] = 1;
+            return;
+        }
+
+        float ix = 1 / sx;
+        float iy = 1 / sy;
+        float iz = 1 / sz;
+
+        QuaternionMath.fromRotation(
+                m00 * ix, m01 * iy, m02 * iz,
+                m10 * ix, m11 * iy, m12 * iz,
+                m20 * ix, m21 * iy, m22 * iz,
+                rotation, 0);
+    }
+
+
+    private static void compose(float[] translation, float[] rotation, float[] scale, float[] m, int offset)
+    {
+        float x = rotation[0], y = rotation[1], z = rotation[2], w = rotation[3];
+        float sx = scale[0], sy = scale[1], sz = scale[2];
+
+        float xx = x * x, yy = y * y, zz = z * z;
+        float xy = x * y, xz = x * z, yz = y * z;
+        float wx = w * x, wy = w * y, wz = w * z;
+
+        m[offset]      = (1 - 2 * (yy + zz)) * sx;
+        m[offset + 1]  = (2 * (xy + wz))     * sx;
+        m[offset + 2]  = (2 * (xz - wy))     * sx;
+        m[offset + 3]  = 0;
+        m[offset + 4]  = (2 * (xy - wz))     * sy;
+        m[offset + 5]  = (1 - 2 * (xx + zz)) * sy;
+        m[offset + 6]  = (2 * (yz + wx))     * sy;
+        m[offset + 7]  = 0;
+        m[offset + 8]  = (2 * (xz + wy))     * sz;
+        m[offset + 9]  = (2 * (yz - wx))     * sz;
+        m[offset + 10] = (1 - 2 * (xx + yy)) * sz;
+        m[offset + 11] = 0;
+        m[offset + 12] = translation[0];
+        m[offset + 13] = translation[1];
+        m[offset + 14] = translation[2];
+        m[offset + 15] = 1;
+    }
+
+
+    private static Interpolator checkInterpolator(Interpolator interpolator)
+    {
+        if (interpolator == null)
+        {
+            throw new IllegalArgumentException("interpolator is null");
+        }
+
+        return interpolator;
+    }
+
+
+    private static void checkMatrices(float[] matrices, int count, String name)
+    {
+        if (matrices == null)
+        {
+            throw new IllegalArgumentException(name + " == null");
+        }
+
+        if (matrices.length < count * MATRIX_SIZE)
+        {
+            throw new IllegalArgumentException(name + ".length < count * 16");
+        }
+    }
+}
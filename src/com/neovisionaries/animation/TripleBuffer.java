@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Triple buffer to hand frames of animated values from one thread
+ * to another without locks.
+ *
+ * <p>
+ * Three float arrays of the same length are held. The producer (e.g.
+ * an animation thread) owns one of them, the consumer (e.g. a render
+ * thread) owns another, and the remaining one is exchanged between
+ * them by atomically swapping its index. Therefore, the producer never
+ * waits for the consumer and vice versa, the consumer never sees a
+ * partially written frame, and no object is created per frame.
+ * If the producer publishes multiple frames before the consumer
+ * acquires one, only the newest frame is seen by the consumer.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * <span style="color: darkgreen;">// Producer thread.</span>
+ * float[] frame = buffer.{@link #getWriteBuffer()};
+ * interpolator.{@link Interpolator#interpolate(float[], float[], int, float, float[])
+ * interpolate}(from, to, componentCount, timeRatio, frame);
+ * buffer.{@link #publish()};
+ *
+ * <span style="color: darkgreen;">// Consumer thread.</span>
+ * buffer.{@link #acquire()};
+ * render(buffer.{@link #getReadBuffer()});
+ * </pre>
+ *
+ * <p>
+ * Only one producer thread and one consumer thread are allowed.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class TripleBuffer
+{
+    /**
+     * The bit which indicates that the shared buffer holds a frame
+     * which the consumer has not acquired yet.
+     */
+    private static final int FRESH = 4;
+
+
+    /**
+     * The mask to extract a buffer index from the state.
+     */
+    private static final int INDEX_MASK = 3;
+
+
+    private final float[][] buffers;
+
+
+    /**
+     * The index of the shared buffer and the {@link #FRESH} bit.
+     */
+    private final AtomicInteger state = new AtomicInteger(1);
+
+
+    /**
+     * The index of the buffer owned by the producer.
+     */
+    private int writeIndex = 0;
+
+
+    /**
+     * The index of the buffer owned by the consumer.
+     */
+    private int readIndex = 2;
+
+
+    /**
+     * A constructor with the length of each buffer.
+     *
+     * @param length
+     *         The length of each buffer.
+     *
+     * @throws IllegalArgumentException
+     *         'length' is less than 1.
+     */
+    public TripleBuffer(int length)
+    {
+        if (length < 1)
+        {
+            throw new IllegalArgumentException("length < 1");
+        }
+
+        buffers = new float[3][length];
+    }
+
+
+    /**
+     * Get the length of each buffer.
+     *
+     * @return
+     *         The length of each buffer.
+     */
+    public int getLength()
+    {
+        return buffers[0].length;
+    }
+
+
+    /**
+     * Get the buffer into which the producer writes the next frame.
+     *
+     * <p>
+     * This method must be called only by the producer thread. The
+     * returned buffer holds an old frame, so all the values have to
+     * be written before {@link #publish()} is called.
+     * </p>
+     *
+     * @return
+     *         The buffer owned by the producer.
+     */
+    public float[] getWriteBuffer()
+    {
+        return buffers[writeIndex];
+    }
+
+
+    /**
+     * Publish the frame written into the buffer returned from {@link
+     * #getWriteBuffer()}.
+     *
+     * <p>
+     * This method must be called only by the producer thread. After this
+     * call, {@link #getWriteBuffer()} returns another buffer.
+     * </p>
+     */
+    public void publish()
+    {
+        int previous = state.getAndSet(writeIndex | FRESH);
+
+        writeIndex = previous & INDEX_MASK;
+    }
+
+
+    /**
+     * Acquire the newest published frame if any.
+     *
+     * <p>
+     * This method must be called only by the consumer thread. If a new
+     * frame has been published since the last call, the buffer returned
+     * from {@link #getReadBuffer()} is switched to the new frame.
+     * </p>
+     *
+     * @return
+     *         true if a new frame has been acquired. false if no new
+     *         frame has been published and the read buffer is kept.
+     */
+    public boolean acquire()
+    {
+        if ((state.get() & FRESH) == 0)
+        {
+            return false;
+        }
+
+        int previous = state.getAndSet(readIndex);
+
+        readIndex = previous & INDEX_MASK;
+
+        return true;
+    }
+
+
+    /**
+     * Get the buffer which holds the frame acquired by the consumer.
+     *
+     * <p>
+     * This method must be called only by the consumer thread. Until
+     * {@link #acquire()} succeeds for the first time, the returned
+     * buffer holds 0 values.
+     * </p>
+     *
+     * @return
+     *         The buffer owned by the consumer.
+     */
+    public float[] getReadBuffer()
+    {
+        return buffers[readIndex];
+    }
+}
@@ -0,0 +1,498 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.Arrays;
+
+
+/**
+ * Scheduler which evaluates animated parameters at reduced rates.
+ *
+ * <p>
+ * Each parameter has an update interval, which is a power of 2. A
+ * parameter whose interval is 1 is evaluated by its {@link Interpolator}
+ * every frame, one whose interval is 2 every 2nd frame, and so on.
+ * Parameters which have the same interval are given different phases
+ * in turn, so that their evaluations are spread evenly over frames.
+ * Between evaluations, a parameter either holds its last evaluated
+ * value or extrapolates it linearly from the last two evaluations.
+ * </p>
+ *
+ * <p>
+ * A parameter is always evaluated at the first frame after its start
+ * time and at the frame which reaches its end time, so it starts from
+ * 'from' and settles exactly at 'to' whatever its interval is.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * {@link UpdateRateScheduler} scheduler = new {@link #UpdateRateScheduler(int, int) UpdateRateScheduler}(10000, 3);
+ *
+ * scheduler.{@link #animate(int, Interpolator, float[], float[], float, float) animate}(index, interpolator, from, to, startTime, duration);
+ * scheduler.{@link #setUpdateInterval(int, int) setUpdateInterval}(index, 4);
+ *
+ * <span style="color: darkgreen;">// For each frame.</span>
+ * scheduler.{@link #update(long, float) update}(frame, time);
+ * </pre>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class UpdateRateScheduler
+{
+    private static final int NONE = -1;
+
+
+    /**
+     * The maximum update interval.
+     */
+    public static final int MAX_UPDATE_INTERVAL = 1 << 30;
+
+
+    private final int componentCount;
+    private final Interpolator[] interpolators;
+    private final float[][] froms;
+    private final float[][] tos;
+    private final float[][] values;
+    private final float[][] lastValues;
+    private final float[][] previousValues;
+    private final float[] startTimes;
+    private final float[] durations;
+    private final float[] evaluationTimes;
+    private final float[] previousEvaluationTimes;
+    private final int[] intervalMasks;
+    private final int[] phases;
+    private final boolean[] extrapolating;
+
+
+    /**
+     * The counts of parameters to which phases have been given,
+     * per interval (index = log2(interval)).
+     */
+    private final int[] phaseCounters = new int[31];
+
+
+    /**
+     * Parameters which are running.
+     */
+    private final int[] active;
+    private final int[] activePositions;
+    private final boolean[] started;
+    private int activeCount;
+    private int evaluatedCount;
+
+
+    /**
+     * A constructor with the number of parameters and their component count.
+     *
+     * @param capacity
+     *         The number of parameters.
+     *
+     * @param componentCount
+     *         The component count of each parameter.
+     *
+     * @throws IllegalArgumentException
+     *         'capacity' or 'componentCount' is less than 1.
+     */
+    public UpdateRateScheduler(int capacity, int componentCount)
+    {
+        if (capacity < 1)
+        {
+            throw new IllegalArgumentException("capacity < 1");
+        }
+
+        if (componentCount < 1)
+        {
+            throw new IllegalArgumentException("componentCount < 1");
+        }
+
+        this.componentCount     = componentCount;
+        interpolators           = new Interpolator[capacity];
+        froms                   = new float[capacity][componentCount];
+        tos                     = new float[capacity][componentCount];
+        values                  = new float[capacity][componentCount];
+        lastValues              = new float[capacity][componentCount];
+        previousValues          = new float[capacity][componentCount];
+        startTimes              = new float[capacity];
+        durations               = new float[capacity];
+        evaluationTimes         = new float[capacity];
+        previousEvaluationTimes = new float[capacity];
+        intervalMasks           = new int[capacity];
+        phases                  = new int[capacity];
+        extrapolating           = new boolean[capacity];
+        active                  = new int[capacity];
+        activePositions         = new int[capacity];
+        started                 = new boolean[capacity];
+
+        Arrays.fill(activePositions, NONE);
+    }
+
+
+    /**
+     * Get the number of parameters.
+     *
+     * @return
+     *         The number of parameters.
+     */
+    public int getCapacity()
+    {
+        return values.length;
+    }
+
+
+    /**
+     * Get the component count of each parameter.
+     *
+     * @return
+     *         The component count.
+     */
+    public int getComponentCount()
+    {
+        return componentCount;
+    }
+
+
+    /**
+     * Set the update interval of a parameter.
+     *
+     * <p>
+     * A new phase is given to the parameter. The default interval is 1.
+     * </p>
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @param interval
+     *         The number of frames between evaluations. It must be a
+     *         power of 2 and must not be greater than {@link
+     *         #MAX_UPDATE_INTERVAL}.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     *
+     * @throws IllegalArgumentException
+     *         'interval' is not a power of 2 in the valid range.
+     */
+    public void setUpdateInterval(int parameter, int interval)
+    {
+        checkParameter(parameter);
+
+        if (interval < 1 || (interval & (interval - 1)) != 0)
+        {
+            throw new IllegalArgumentException("interval is not a power of 2");
+        }
+
+        int shift = Integer.numberOfTrailingZeros(interval);
+
+        intervalMasks[parameter] = interval - 1;
+        phases[parameter]        = (phaseCounters[shift]++) & (interval - 1);
+    }
+
+
+    /**
+     * Get the update interval of a parameter.
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @return
+     *         The update interval.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     */
+    public int getUpdateInterval(int parameter)
+    {
+        checkParameter(parameter);
+
+        return intervalMasks[parameter] + 1;
+    }
+
+
+    /**
+     * Choose how the value of a parameter is calculated between evaluations.
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @param extrapolating
+     *         true to extrapolate the value linearly from the last two
+     *         evaluations. false (the default) to hold the last value.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     */
+    public void setExtrapolating(int parameter, boolean extrapolating)
+    {
+        checkParameter(parameter);
+
+        this.extrapolating[parameter] = extrapolating;
+    }
+
+
+    /**
+     * Start animating a parameter.
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @param interpolator
+     *         An interpolator.
+     *
+     * @param from
+     *         The value at the start time. The content is copied.
+     *
+     * @param to
+     *         The value at the end time. The content is copied.
+     *
+     * @param startTime
+     *         The start time.
+     *
+     * @param duration
+     *         The duration.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     *
+     * @throws IllegalArgumentException
+     * <ul>
+     * <li>'interpolator', 'from' or 'to' is null.</li>
+     * <li>The length of 'from' or 'to' is less than the component count.</li>
+     * <li>'duration' is less than 0.</li>
+     * </ul>
+     */
+    public void animate(int parameter, Interpolator interpolator, float[] from, float[] to, float startTime, float duration)
+    {
+        checkParameter(parameter);
+
+        if (interpolator == null)
+        {
+            throw new IllegalArgumentException("interpolator is null");
+        }
+
+        checkValue(from, "from");
+        checkValue(to, "to");
+
+        if (duration < 0)
+        {
+            throw new IllegalArgumentException("duration < 0");
+        }
+
+        System.arraycopy(from, 0, froms[parameter], 0, componentCount);
+        System.arraycopy(to,   0, tos[parameter],   0, componentCount);
+
+        interpolators[parameter] = interpolator;
+        startTimes[parameter]    = startTime;
+        durations[parameter]     = duration;
+        started[parameter]       = false;
+
+        if (activePositions[parameter] == NONE)
+        {
+            active[activeCount] = parameter;
+            activePositions[parameter] = activeCount;
+
+            ++activeCount;
+        }
+    }
+
+
+    /**
+     * Get the current value of a parameter.
+     *
+     * @param parameter
+     *         The index of a parameter.
+     *
+     * @return
+     *         The internal array which holds the current value.
+     *         It must not be modified.
+     *
+     * @throws IndexOutOfBoundsException
+     *         'parameter' is out of range.
+     */
+    public float[] getValue(int parameter)
+    {
+        checkParameter(parameter);
+
+        return values[parameter];
+    }
+
+
+    /**
+     * Get the number of running parameters.
+     *
+     * @return
+     *         The number of parameters which have been animated and
+     *         have not reached their end times yet.
+     */
+    public int getActiveCount()
+    {
+        return activeCount;
+    }
+
+
+    /**
+     * Get the number of parameters evaluated by their interpolators
+     * in the last call of {@link #update(long, float)}.
+     *
+     * @return
+     *         The number of evaluated parameters.
+     */
+    public int getEvaluatedCount()
+    {
+        return evaluatedCount;
+    }
+
+
+    /**
+     * Update the values of running parameters.
+     *
+     * @param frame
+     *         The frame number. It should increase by 1 per call.
+     *
+     * @param time
+     *         The current time.
+     */
+    public void update(long frame, float time)
+    {
+        int evaluated = 0;
+        int f = (int)frame;
+
+        for (int i = 0; i < activeCount; )
+        {
+            int parameter = active[i];
+            float start   = startTimes[parameter];
+
+            if (time < start)
+            {
+                // Not started yet.
+                ++i;
+                continue;
+            }
+
+            float duration  = durations[parameter];
+            float timeRatio = (duration == 0) ? 1 : Math.min((time - start) / duration, 1);
+
+            if (timeRatio == 1 || started[parameter] == false ||
+                ((f + phases[parameter]) & intervalMasks[parameter]) == 0)
+            {
+                evaluate(parameter, time, timeRatio);
+
+                ++evaluated;
+            }
+            else if (extrapolating[parameter])
+            {
+                extrapolate(parameter, time);
+            }
+
+            if (timeRatio < 1)
+            {
+                ++i;
+            }
+            else
+            {
+                // Move the last one into the hole.
+                int last = active[--activeCount];
+
+                active[i] = last;
+                activePositions[last] = i;
+                activePositions[parameter] = NONE;
+                interpolators[parameter] = null;
+            }
+        }
+
+        evaluatedCount = evaluated;
+    }
+
+
+    private void evaluate(int parameter, float time, float timeRatio)
+    {
+        float[] last = lastValues[parameter];
+
+        if (started[parameter])
+        {
+            // Keep the last two evaluations for extrapolation.
+            System.arraycopy(last, 0, previousValues[parameter], 0, componentCount);
+            previousEvaluationTimes[parameter] = evaluationTimes[parameter];
+        }
+
+        interpolators[parameter].interpolate(froms[parameter], tos[parameter], componentCount, timeRatio, last);
+
+        if (started[parameter] == false)
+        {
+            // No previous evaluation. Extrapolation holds the value
+            // until the second evaluation.
+            System.arraycopy(last, 0, previousValues[parameter], 0, componentCount);
+            previousEvaluationTimes[parameter] = time;
+            started[parameter] = true;
+        }
+
+        evaluationTimes[parameter] = time;
+
+        System.arraycopy(last, 0, values[parameter], 0, componentCount);
+    }
+
+
+    private void extrapolate(int parameter, float time)
+    {
+        float t1 = evaluationTimes[parameter];
+        float t0 = previousEvaluationTimes[parameter];
+
+        if (t1 <= t0)
+        {
+            return;
+        }
+
+        // The value is recalculated from the last evaluation every
+        // frame, so errors do not accumulate.
+        float k = (time - t1) / (t1 - t0);
+
+        float[] value    = values[parameter];
+        float[] last     = lastValues[parameter];
+        float[] previous = previousValues[parameter];
+
+        for (int i = 0; i < componentCount; ++i)
+        {
+            value[i] = last[i] + (last[i] - previous[i]) * k;
+        }
+    }
+
+
+    private void checkParameter(int parameter)
+    {
+        if (parameter < 0 || values.length <= parameter)
+        {
+            throw new IndexOutOfBoundsException();
+        }
+    }
+
+
+    private void checkValue(float[] value, String name)
+    {
+        if (value == null)
+        {
+            throw new IllegalArgumentException(name + " == null");
+        }
+
+        if (value.length < componentCount)
+        {
+            throw new IllegalArgumentException(name + ".length < componentCount");
+        }
+    }
+}
@@ -0,0 +1,848 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Allocation test of the hot paths.
+ *
+ * <p>
+ * Every interpolator and every batch/engine entry point is called
+ * repeatedly after warm-up, and the number of bytes allocated by the
+ * calling thread is measured by {@code
+ * com.sun.management.ThreadMXBean.getThreadAllocatedBytes()}.
+ * If an entry point allocates any byte, the test fails and the process
+ * exits with status 1. The allocation made by the measurement itself
+ * is subtracted.
+ * </p>
+ *
+ * <p>
+ * The only exception is {@link ShardedRuntime#tick(float)}, whose
+ * {@link java.util.concurrent.CyclicBarrier CyclicBarrier}s create a
+ * new generation object each time they trip and may create wait queue
+ * nodes when a thread parks. The allocation per tick of the case is
+ * bounded by an allowance written in the case instead of 0.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * java -cp classes:test-classes com.neovisionaries.animation.AllocationTest
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class AllocationTest
+{
+    private static final int WARMUP_ITERATIONS = 200000;
+    private static final int MEASURED_ITERATIONS = 100000;
+
+
+    /**
+     * One entry point under test.
+     */
+    private static abstract class Case
+    {
+        private final String name;
+        private final int allowance;
+
+
+        public Case(String name)
+        {
+            this(name, 0);
+        }
+
+
+        /**
+         * A constructor with the number of bytes which the entry point
+         * is allowed to allocate per call.
+         */
+        public Case(String name, int allowance)
+        {
+            this.name      = name;
+            this.allowance = allowance;
+        }
+
+
+        public String getName()
+        {
+            return name;
+        }
+
+
+        public int getAllowance()
+        {
+            return allowance;
+        }
+
+
+        /**
+         * Call the entry point once.
+         *
+         * @param i
+         *         The iteration number. It increases monotonically
+         *         across warm-up and measurement.
+         */
+        public abstract void run(int i);
+    }
+
+
+    private final com.sun.management.ThreadMXBean bean =
+        (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+    private final long threadId = Thread.currentThread().getId();
+    private final List<Case> cases = new ArrayList<Case>();
+
+
+    public static void main(String[] args)
+    {
+        AllocationTest test = new AllocationTest();
+
+        test.addInterpolatorCases();
+        test.addEngineCases();
+
+        int failures = test.runAll();
+
+        if (failures != 0)
+        {
+            System.out.println(failures + " entry point(s) allocated.");
+            System.exit(1);
+        }
+
+        System.out.println("No allocation on the hot paths.");
+    }
+
+
+    private int runAll()
+    {
+        // Let the bean itself warm up so that its first-use allocation
+        // is not attributed to the first case.
+        measure(new Case("warm-up")
+        {
+            @Override
+            public void run(int i)
+            {
+            }
+        });
+
+        int failures = 0;
+
+        for (int i = 0; i < cases.size(); ++i)
+        {
+            Case c = cases.get(i);
+            long bytes = measure(c);
+            boolean failed = ((long)c.getAllowance() * MEASURED_ITERATIONS < bytes);
+
+            System.out.printf("%-44s %10d bytes %s%n",
+                c.getName(), bytes, failed ? "FAILED" : (c.getAllowance() == 0) ? "ok" : "ok (allowed)");
+
+            if (failed)
+            {
+                ++failures;
+            }
+        }
+
+        return failures;
+    }
+
+
+    private long measure(Case c)
+    {
+        for (int i = 0; i < WARMUP_ITERATIONS; ++i)
+        {
+            c.run(i);
+        }
+
+        long before = bean.getThreadAllocatedBytes(threadId);
+
+        for (int i = WARMUP_ITERATIONS; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; ++i)
+        {
+            c.run(i);
+        }
+
+        long after = bean.getThreadAllocatedBytes(threadId);
+
+        // Subtract the allocation made by the measurement itself.
+        long overhead = bean.getThreadAllocatedBytes(threadId) - after;
+
+        return Math.max(0, (after - before) - overhead);
+    }
+
+
+    private static float ratio(int i)
+    {
+        return (i % 1000) / 1000.0F;
+    }
+
+
+    private void addInterpolatorCases()
+    {
+        final float[] from   = { 0.0F, 0.0F, 0.0F, 1.0F };
+        final float[] to     = { 1.0F, 2.0F, 3.0F, 0.0F };
+        final float[] output = new float[8];
+
+        Interpolator[] interpolators = {
+            new LinearInterpolator(),
+            new StepInterpolator(),
+            new SlerpInterpolator(),
+            new EasingBackInterpolator(),
+            new EasingBounceInterpolator(),
+            new EasingCircleInterpolator(),
+            new EasingCubicInterpolator(),
+            new EasingElasticInterpolator(),
+            new EasingExponentialInterpolator(),
+            new EasingPowerInterpolator(),
+            new EasingQuadraticInterpolator(),
+            new EasingQuarticInterpolator(),
+            new EasingQuinticInterpolator(),
+            new EasingSineInterpolator(),
+            ChebyshevInterpolator.fit(new EasingBounceInterpolator(), 1.0E-4F)
+        };
+
+        for (final Interpolator interpolator : interpolators)
+        {
+            cases.add(new Case(interpolator.getClass().getSimpleName())
+            {
+                @Override
+                public void run(int i)
+                {
+                    interpolator.interpolate(from, to, 4, ratio(i), output);
+                }
+            });
+        }
+
+        // The other evaluation strategies of EasingPowerInterpolator
+        // than that of the default power (2).
+        for (final float power : new float[] { 2.5F, 2.2F })
+        {
+            final EasingPowerInterpolator interpolator = new EasingPowerInterpolator();
+            interpolator.setPower(power);
+
+            cases.add(new Case("EasingPowerInterpolator(" + power + ")")
+            {
+                @Override
+                public void run(int i)
+                {
+                    interpolator.interpolate(from, to, 4, ratio(i), output);
+                }
+            });
+        }
+
+        final EasingInterpolator easing = new EasingElasticInterpolator();
+        final float[] velocity = new float[4];
+
+        cases.add(new Case("EasingInterpolator.interpolateWithVelocity")
+        {
+            @Override
+            public void run(int i)
+            {
+                easing.interpolateWithVelocity(from, to, 4, ratio(i), output, velocity);
+            }
+        });
+
+        final InterpolationRecorder recorder = new InterpolationRecorder(new BinaryBuffer(1 << 16), true);
+        final Interpolator recorded = recorder.wrap(new EasingBounceInterpolator());
+
+        cases.add(new Case("InterpolationRecorder(wrapped)")
+        {
+            @Override
+            public void run(int i)
+            {
+                // Keep the buffer from growing. The content is not used.
+                if ((1 << 15) < recorder.getBuffer().getLimit())
+                {
+                    recorder.getBuffer().clear();
+                }
+
+                recorded.interpolate(from, to, 4, ratio(i), output);
+            }
+        });
+
+        BinaryBuffer traceBuffer = new BinaryBuffer(1 << 16);
+        InterpolationRecorder traceRecorder = new InterpolationRecorder(traceBuffer, true);
+        Interpolator[] traced = {
+            traceRecorder.wrap(new EasingSineInterpolator()),
+            traceRecorder.wrap(new SlerpInterpolator()),
+            traceRecorder.wrap(new LinearInterpolator())
+        };
+
+        for (int i = 0; i < 300; ++i)
+        {
+            traced[i % traced.length].interpolate(from, to, 4, ratio(i * 7), output);
+        }
+
+        traceBuffer.rewind();
+        final InterpolationTrace trace = new InterpolationTrace(traceBuffer);
+        final float[] traceOutputs = new float[trace.getOutputLength()];
+
+        cases.add(new Case("InterpolationTrace.replay")
+        {
+            @Override
+            public void run(int i)
+            {
+                if ((i & 1) == 0)
+                {
+                    trace.replay();
+                }
+                else
+                {
+                    trace.replay(traceOutputs);
+                }
+            }
+        });
+
+        final CompositeInterpolator composite = new CompositeInterpolator();
+        composite.add(new LinearInterpolator(), 0.5F);
+        composite.add(new EasingSineInterpolator(), 0.5F);
+
+        cases.add(new Case("CompositeInterpolator")
+        {
+            @Override
+            public void run(int i)
+            {
+                composite.interpolate(from, to, 4, ratio(i), output);
+            }
+        });
+
+        cases.add(new Case("CompositeInterpolator(mixed counts)")
+        {
+            @Override
+            public void run(int i)
+            {
+                composite.interpolate(from, to, ((i & 1) == 0) ? 3 : 4, ratio(i), output);
+            }
+        });
+
+        final Interpolator fused = FusedInterpolator.fuse(composite);
+
+        cases.add(new Case("FusedInterpolator")
+        {
+            @Override
+            public void run(int i)
+            {
+                fused.interpolate(from, to, 4, ratio(i), output);
+            }
+        });
+
+        final DualQuaternionInterpolator dualQuaternion = new DualQuaternionInterpolator();
+        final float[] dualFrom = { 0.0F, 0.0F,      0.0F, 1.0F,      0.0F, 0.0F, 0.0F, 0.0F };
+        final float[] dualTo   = { 0.0F, 0.70711F, 0.0F, 0.70711F, 1.0F, 0.0F, 0.0F, 0.0F };
+
+        cases.add(new Case("DualQuaternionInterpolator")
+        {
+            @Override
+            public void run(int i)
+            {
+                dualQuaternion.interpolate(dualFrom, dualTo, 8, ratio(i), output);
+            }
+        });
+
+        final int bones = 16;
+        final int vertices = 100;
+        final float[] boneArray = new float[bones * 8];
+        final int[] boneIndices = new int[vertices * 2];
+        final float[] boneWeights = new float[vertices * 2];
+        final float[] skinned = new float[vertices * 8];
+
+        for (int b = 0; b < bones; ++b)
+        {
+            System.arraycopy((b % 2 == 0) ? dualFrom : dualTo, 0, boneArray, b * 8, 8);
+        }
+
+        for (int k = 0; k < vertices * 2; ++k)
+        {
+            boneIndices[k] = k % bones;
+            boneWeights[k] = 0.5F;
+        }
+
+        cases.add(new Case("DualQuaternionInterpolator.blend")
+        {
+            @Override
+            public void run(int i)
+            {
+                DualQuaternionInterpolator.blend(boneArray, boneIndices, boneWeights, 2, vertices, skinned);
+            }
+        });
+
+        final ColorInterpolator color = new ColorInterpolator();
+        final ColorInterpolator linearLight = new ColorInterpolator();
+        final int[] colorFrom   = { 0xFF000000, 0xFFFFFFFF };
+        final int[] colorTo     = { 0xFFFF0000, 0xFF00FF00 };
+        final int[] colorOutput = new int[2];
+
+        linearLight.setLinearLight(true);
+
+        cases.add(new Case("ColorInterpolator")
+        {
+            @Override
+            public void run(int i)
+            {
+                color.interpolate(colorFrom, colorTo, 2, ratio(i), colorOutput);
+            }
+        });
+
+        cases.add(new Case("ColorInterpolator(linear light)")
+        {
+            @Override
+            public void run(int i)
+            {
+                linearLight.interpolate(colorFrom, colorTo, 2, ratio(i), colorOutput);
+            }
+        });
+
+        final HalfFloatInterpolator halfFloat = new HalfFloatInterpolator(new EasingSineInterpolator());
+        final short[] halfFrom   = new short[4];
+        final short[] halfTo     = { 0x3C00, 0x3C00, 0x3C00, 0x3C00 };
+        final short[] halfOutput = new short[4];
+
+        cases.add(new Case("HalfFloatInterpolator")
+        {
+            @Override
+            public void run(int i)
+            {
+                halfFloat.interpolate(halfFrom, halfTo, 4, ratio(i), halfOutput);
+            }
+        });
+
+        final SparseInterpolator sparse = new SparseInterpolator(new EasingSineInterpolator());
+        final SparseInterpolator sparseSlerp = new SparseInterpolator(new SlerpInterpolator());
+        final int[] indices3 = { 0, 2, 3 };
+        final int[] indices4 = { 0, 1, 2, 3 };
+        final float[] wideFrom   = new float[8];
+        final float[] wideTo     = { 1.0F, 1.0F, 1.0F, 1.0F, 1.0F, 1.0F, 1.0F, 1.0F };
+        final float[] wideOutput = new float[8];
+
+        cases.add(new Case("SparseInterpolator")
+        {
+            @Override
+            public void run(int i)
+            {
+                sparse.interpolate(indices3, wideFrom, wideTo, 3, ratio(i), wideOutput);
+            }
+        });
+
+        cases.add(new Case("SparseInterpolator(slerp)")
+        {
+            @Override
+            public void run(int i)
+            {
+                sparseSlerp.interpolate(indices4, wideFrom, wideTo, 4, ratio(i), wideOutput);
+            }
+        });
+
+        // An interpolator for which no blend weight is available, so the
+        // components are gathered into work buffers.
+        final SparseInterpolator sparseGathering = new SparseInterpolator(composite);
+
+        cases.add(new Case("SparseInterpolator(gathering)")
+        {
+            @Override
+            public void run(int i)
+            {
+                sparseGathering.interpolate(indices3, wideFrom, wideTo, 3, ratio(i), wideOutput);
+            }
+        });
+
+        cases.add(new Case("SparseInterpolator.accumulate")
+        {
+            @Override
+            public void run(int i)
+            {
+                sparse.accumulate(indices3, wideTo, 3, ratio(i), wideOutput);
+            }
+        });
+
+        cases.add(new Case("SparseInterpolator.accumulate(gathering)")
+        {
+            @Override
+            public void run(int i)
+            {
+                sparseGathering.accumulate(indices3, wideTo, 3, ratio(i), wideOutput);
+            }
+        });
+
+        PathInterpolator[] paths = {
+            new PolylinePath(2, new float[] { 0, 0, 1, 0, 1, 1 }),
+            new BezierPath(2, new float[] { 0, 0, 1, 0, 1, 1, 0, 1 }),
+            new CatmullRomPath(2, new float[] { 0, 0, 1, 0, 1, 1, 0, 1 })
+        };
+
+        for (final PathInterpolator path : paths)
+        {
+            cases.add(new Case(path.getClass().getSimpleName())
+            {
+                @Override
+                public void run(int i)
+                {
+                    path.interpolate(ratio(i), output);
+                }
+            });
+        }
+    }
+
+
+    private void addEngineCases()
+    {
+        final float[] from   = { 0.0F, 0.0F, 0.0F, 1.0F };
+        final float[] to     = { 1.0F, 2.0F, 3.0F, 0.0F };
+        final float[] output = new float[16];
+        final Interpolator sine = new EasingSineInterpolator();
+        final Interpolator linear = new LinearInterpolator();
+
+        final HalfFloatKeyframes halfKeyframes = new HalfFloatKeyframes(
+            2, new float[] { 0, 1, 2 }, new float[] { 0, 0, 1, 1, 0, 2 });
+
+        cases.add(new Case("HalfFloatKeyframes.evaluate")
+        {
+            @Override
+            public void run(int i)
+            {
+                halfKeyframes.evaluate((i % 2000) / 1000.0F, output);
+            }
+        });
+
+        final ParameterStore store = new ParameterStore(100, 4);
+
+        cases.add(new Case("ParameterStore.update")
+        {
+            @Override
+            public void run(int i)
+            {
+                if (i % 1000 == 0)
+                {
+                    for (int k = 0; k < 100; ++k)
+                    {
+                        store.animate(k, sine, from, to, i, 1000);
+                    }
+                }
+
+                store.update(i);
+                store.clearDirty();
+            }
+        });
+
+        final EasingGroup group = new EasingGroup(new EasingSineInterpolator(), 100, 4);
+
+        for (int k = 0; k < 100; ++k)
+        {
+            group.add(from, to);
+        }
+
+        group.setTimeline(0, 1.0E9F);
+
+        cases.add(new Case("EasingGroup.update")
+        {
+            @Override
+            public void run(int i)
+            {
+                group.update(i);
+            }
+        });
+
+        final UpdateRateScheduler rateScheduler = new UpdateRateScheduler(100, 4);
+
+        cases.add(new Case("UpdateRateScheduler.update")
+        {
+            @Override
+            public void run(int i)
+            {
+                if (i % 1000 == 0)
+                {
+                    for (int k = 0; k < 100; ++k)
+                    {
+                        rateScheduler.animate(k, linear, from, to, i, 999);
+                        rateScheduler.setExtrapolating(k, true);
+                    }
+                }
+
+                rateScheduler.update(i, i);
+            }
+        });
+
+        final AnimationScheduler scheduler = new AnimationScheduler(100);
+
+        for (int k = 0; k < 100; ++k)
+        {
+            scheduler.schedule(k, k, 50 + k, true);
+        }
+
+        cases.add(new Case("AnimationScheduler.tick")
+        {
+            @Override
+            public void run(int i)
+            {
+                scheduler.tick(i);
+            }
+        });
+
+        final TimingWheel wheel = new TimingWheel(256);
+
+        cases.add(new Case("TimingWheel.schedule/advance")
+        {
+            @Override
+            public void run(int i)
+            {
+                wheel.schedule(i + (i % 300), i, 0);
+                wheel.advance(i, null);
+            }
+        });
+
+        float[] keys = new float[16];
+
+        for (int k = 0; k < 4; ++k)
+        {
+            keys[k * 4 + 3] = 1.0F;
+        }
+
+        final SquadInterpolator squad = new SquadInterpolator(1, new float[] { 0, 1, 2, 3 }, keys);
+
+        cases.add(new Case("SquadInterpolator.evaluate")
+        {
+            @Override
+            public void run(int i)
+            {
+                squad.evaluate((i % 3000) / 1000.0F, output);
+            }
+        });
+
+        final SpringChannels springs = new SpringChannels(100, 0.2F);
+
+        cases.add(new Case("SpringChannels.update")
+        {
+            @Override
+            public void run(int i)
+            {
+                if (i % 100 == 0)
+                {
+                    springs.setTarget(i % 100, i);
+                }
+
+                springs.update(0.016F);
+            }
+        });
+
+        int keyCount = 50;
+        float[] clipTimes = new float[keyCount];
+        float[] clipSamples = new float[keyCount * 8];
+
+        for (int k = 0; k < keyCount; ++k)
+        {
+            clipTimes[k] = k;
+
+            for (int c = 0; c < 8; ++c)
+            {
+                clipSamples[k * 8 + c] =
+                    (c < 2) ? 1.0F :
+                    (c < 4) ? (k / 10) :
+                    (c < 6) ? (k * 0.5F) : (float)Math.sin(k);
+            }
+        }
+
+        final CompactClip clip = new CompactClip(clipTimes, 8, clipSamples, 1.0E-4F);
+        final CompactClip stepClip = new CompactClip(clipTimes, 8, clipSamples, 1.0E-4F, true);
+
+        cases.add(new Case("CompactClip.evaluate")
+        {
+            @Override
+            public void run(int i)
+            {
+                clip.evaluate((i % 49000) / 1000.0F, output);
+            }
+        });
+
+        cases.add(new Case("CompactClip.evaluate(steps)")
+        {
+            @Override
+            public void run(int i)
+            {
+                stepClip.evaluate((i % 49000) / 1000.0F, output);
+            }
+        });
+
+        final TimelineIndex index = new TimelineIndex(1000);
+
+        for (int k = 0; k < 1000; ++k)
+        {
+            index.insert(k, k + 20, k);
+        }
+
+        cases.add(new Case("TimelineIndex.query")
+        {
+            @Override
+            public void run(int i)
+            {
+                index.query(i % 1000);
+            }
+        });
+
+        cases.add(new Case("TimelineIndex.insert/remove")
+        {
+            @Override
+            public void run(int i)
+            {
+                index.remove(index.insert(i % 1000, i % 1000 + 3, i));
+            }
+        });
+
+        final FixedTimestep timestep = new FixedTimestep(4, 0.01F);
+        final FixedTimestep.Stepper stepper = new FixedTimestep.Stepper()
+        {
+            @Override
+            public void step(float[] previous, float[] current, int count, double time, float deltaTime)
+            {
+                for (int k = 0; k < count; ++k)
+                {
+                    current[k] = previous[k] + deltaTime;
+                }
+            }
+        };
+
+        cases.add(new Case("FixedTimestep.advance/render")
+        {
+            @Override
+            public void run(int i)
+            {
+                timestep.advance(0.016F, stepper);
+                timestep.render(output);
+            }
+        });
+
+        final TripleBuffer tripleBuffer = new TripleBuffer(16);
+
+        cases.add(new Case("TripleBuffer")
+        {
+            @Override
+            public void run(int i)
+            {
+                tripleBuffer.getWriteBuffer()[0] = i;
+                tripleBuffer.publish();
+                tripleBuffer.acquire();
+            }
+        });
+
+        final float[] identity = {
+            1, 0, 0, 0,
+            0, 1, 0, 0,
+            0, 0, 1, 0,
+            0, 0, 0, 1
+        };
+        final float[] rotated = {
+             0, 1, 0, 0,
+            -1, 0, 0, 0,
+             0, 0, 1, 0,
+             1, 2, 3, 1
+        };
+        final TransformInterpolator transform = new TransformInterpolator(1);
+        transform.setKeyframes(identity, rotated, 1);
+
+        cases.add(new Case("TransformInterpolator")
+        {
+            @Override
+            public void run(int i)
+            {
+                transform.interpolate(ratio(i), output);
+            }
+        });
+
+        int transformCount = 8;
+        float[] transformsFrom = new float[transformCount * 16];
+        float[] transformsTo = new float[transformCount * 16];
+
+        for (int k = 0; k < transformCount; ++k)
+        {
+            System.arraycopy(identity, 0, transformsFrom, k * 16, 16);
+            System.arraycopy(rotated,  0, transformsTo,   k * 16, 16);
+        }
+
+        final TransformInterpolator transforms = new TransformInterpolator(transformCount);
+        final float[] transformsOutput = new float[transformCount * 16];
+        transforms.setKeyframes(transformsFrom, transformsTo, transformCount);
+
+        cases.add(new Case("TransformInterpolator(8 transforms)")
+        {
+            @Override
+            public void run(int i)
+            {
+                transforms.interpolate(ratio(i), transformsOutput);
+            }
+        });
+
+        final ParameterStore source = new ParameterStore(100, 4);
+        final SnapshotEncoder encoder = new SnapshotEncoder(source, 8, 1.0E-4F, 1.0E-3F);
+        final SnapshotDecoder decoder = new SnapshotDecoder(new ParameterStore(100, 4), 8, 1.0E-4F, 1.0E-3F);
+        final BinaryBuffer buffer = new BinaryBuffer(4096);
+
+        cases.add(new Case("SnapshotEncoder/SnapshotDecoder")
+        {
+            @Override
+            public void run(int i)
+            {
+                if (i % 100 == 0)
+                {
+                    source.animate(i % 100, sine, from, to, i, 50);
+                }
+
+                int sequence = encoder.encode(buffer);
+                buffer.rewind();
+                decoder.decode(buffer);
+                buffer.clear();
+                encoder.acknowledge(sequence);
+            }
+        });
+
+        addShardedRuntimeCases(from, to, sine);
+    }
+
+
+    private void addShardedRuntimeCases(float[] from, float[] to, Interpolator sine)
+    {
+        for (int threadCount = 1; threadCount <= 2; ++threadCount)
+        {
+            final ParameterStore[] shards = new ParameterStore[4];
+
+            for (int s = 0; s < shards.length; ++s)
+            {
+                shards[s] = new ParameterStore(100, 4);
+
+                for (int k = 0; k < 100; ++k)
+                {
+                    shards[s].animate(k, sine, from, to, 0, 1.0E9F);
+                }
+            }
+
+            // The worker threads are daemons, so the runtime is not closed.
+            final ShardedRuntime runtime = new ShardedRuntime(shards, threadCount);
+
+            // The two CyclicBarriers create a generation object (24 bytes
+            // at most) each time they trip. With worker threads, the
+            // calling thread may also park and create a wait queue node
+            // (48 bytes at most) per barrier.
+            int allowance = (threadCount == 1) ? 2 * 24 : 2 * (24 + 48);
+
+            cases.add(new Case("ShardedRuntime.tick(" + threadCount + " thread(s))", allowance)
+            {
+                @Override
+                public void run(int i)
+                {
+                    runtime.tick(i);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * A measured piece of code for the benchmarks in this directory.
+ *
+ * <p>
+ * {@link #measure(int)} runs {@link #run(int)} repeatedly to warm it
+ * up, then times several rounds and returns the time per call of the
+ * fastest round. The value returned from {@link #run(int)} is kept so
+ * that the JIT compiler cannot remove the measured code.
+ * </p>
+ *
+ * @author Takahiko Kawasaki
+ */
+abstract class Benchmark
+{
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 5;
+
+
+    /**
+     * Sink of the results of {@link #run(int)}.
+     */
+    private static volatile float sink;
+
+
+    /**
+     * Run the measured code once.
+     *
+     * @param i
+     *         The iteration number. It increases monotonically across
+     *         rounds.
+     *
+     * @return
+     *         Any value computed by the measured code.
+     */
+    protected abstract float run(int i);
+
+
+    /**
+     * Measure the time per call of {@link #run(int)}.
+     *
+     * @param iterations
+     *         The number of calls per round.
+     *
+     * @return
+     *         Nanoseconds per call in the fastest round.
+     */
+    public double measure(int iterations)
+    {
+        int i = 0;
+        float result = 0;
+
+        for (int round = 0; round < WARMUP_ROUNDS; ++round)
+        {
+            for (int n = 0; n < iterations; ++n, ++i)
+            {
+                result += run(i);
+            }
+        }
+
+        long best = Long.MAX_VALUE;
+
+        for (int round = 0; round < MEASURED_ROUNDS; ++round)
+        {
+            long start = System.nanoTime();
+
+            for (int n = 0; n < iterations; ++n, ++i)
+            {
+                result += run(i);
+            }
+
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        sink = result;
+
+        return (double)best / iterations;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Benchmark of {@link ChebyshevInterpolator}.
+ *
+ * <p>
+ * Each easing (in {@link EasingMode#IN_OUT} mode) is fitted with the
+ * default maximum degree for a few target errors, and the cost of
+ * {@link EasingInterpolator#ease(float) ease()} is compared with the
+ * cost of {@link ChebyshevInterpolator#getWeight(float) getWeight()}.
+ * The number of segments, the highest degree of the segments, the error
+ * reported by {@link ChebyshevInterpolator#getMaxError() getMaxError()}
+ * and the error measured on a dense grid are shown, too.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * java -cp classes:test-classes com.neovisionaries.animation.ChebyshevBenchmark
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class ChebyshevBenchmark
+{
+    private static final int ITERATIONS = 2000000;
+    private static final int DENSE_COUNT = 1000000;
+
+
+    public static void main(String[] args)
+    {
+        EasingPowerInterpolator power = new EasingPowerInterpolator(EasingMode.IN_OUT);
+        power.setPower(2.2F);
+
+        EasingInterpolator[] easings = {
+            new EasingSineInterpolator(EasingMode.IN_OUT),
+            new EasingCircleInterpolator(EasingMode.IN_OUT),
+            new EasingExponentialInterpolator(EasingMode.IN_OUT),
+            power,
+            new EasingBackInterpolator(EasingMode.IN_OUT),
+            new EasingElasticInterpolator(EasingMode.IN_OUT),
+            new EasingBounceInterpolator(EasingMode.IN_OUT)
+        };
+
+        float[] targets = { 1e-3F, 1e-4F, 1e-5F };
+
+        System.out.printf("%-30s %7s %9s %7s %11s %11s %10s %16s%n",
+            "easing", "target", "segments", "degree", "reported", "dense",
+            "ease [ns]", "getWeight [ns]");
+
+        for (EasingInterpolator easing : easings)
+        {
+            double eased = measure(easing);
+
+            for (float target : targets)
+            {
+                ChebyshevInterpolator fitted = ChebyshevInterpolator.fit(easing, target);
+
+                System.out.printf("%-30s %7.0e %9d %7d %11.2e %11.2e %10.1f %16.1f%n",
+                    easing.getClass().getSimpleName(), target,
+                    fitted.getSegmentCount(), maxDegree(fitted),
+                    fitted.getMaxError(), denseError(easing, fitted),
+                    eased, measure(fitted));
+            }
+        }
+    }
+
+
+    private static double measure(final EasingInterpolator easing)
+    {
+        return new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                return easing.ease((i & 1023) / 1023.0F);
+            }
+        }.measure(ITERATIONS);
+    }
+
+
+    private static double measure(final ChebyshevInterpolator fitted)
+    {
+        return new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                return fitted.getWeight((i & 1023) / 1023.0F);
+            }
+        }.measure(ITERATIONS);
+    }
+
+
+    private static int maxDegree(ChebyshevInterpolator fitted)
+    {
+        int max = 0;
+
+        for (int i = 0; i < fitted.getSegmentCount(); ++i)
+        {
+            max = Math.max(max, fitted.getDegree(i));
+        }
+
+        return max;
+    }
+
+
+    private static double denseError(EasingInterpolator easing, ChebyshevInterpolator fitted)
+    {
+        double max = 0;
+
+        for (int i = 0; i <= DENSE_COUNT; ++i)
+        {
+            float timeRatio = (float)i / DENSE_COUNT;
+
+            max = Math.max(max, Math.abs(fitted.getWeight(timeRatio) - easing.ease(timeRatio)));
+        }
+
+        return max;
+    }
+}
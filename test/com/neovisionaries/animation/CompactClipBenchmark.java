@@ -0,0 +1,186 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.Arrays;
+
+
+/**
+ * Benchmark of {@link CompactClip}.
+ *
+ * <p>
+ * A clip of {@value #CHANNEL_COUNT} channels and {@value #KEY_COUNT}
+ * keys is baked for each channel class, with all the channels of the
+ * class, and once more with the classes mixed. For each clip, {@link
+ * CompactClip#getOriginalSize()} and {@link CompactClip#getCompactSize()}
+ * are printed together with the cost of {@link CompactClip#evaluate(float,
+ * float[]) evaluate()} during forward playback. The baseline is the dense
+ * clip played by a binary search of the key interval and {@link
+ * LinearInterpolator} over the two rows of samples around it.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * java -cp classes:test-classes com.neovisionaries.animation.CompactClipBenchmark
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class CompactClipBenchmark
+{
+    private static final int CHANNEL_COUNT = 256;
+    private static final int KEY_COUNT = 600;
+    private static final float KEY_INTERVAL = 1.0F / 60;
+    private static final float TOLERANCE = 1e-4F;
+    private static final int ITERATIONS = 100000;
+
+
+    public static void main(String[] args)
+    {
+        float[] times = new float[KEY_COUNT];
+
+        for (int k = 0; k < KEY_COUNT; ++k)
+        {
+            times[k] = k * KEY_INTERVAL;
+        }
+
+        System.out.printf("%-10s %9s %14s %13s %7s %14s %12s%n",
+            "clip", "channels", "original [KB]", "compact [KB]", "ratio",
+            "compact [ns]", "dense [ns]");
+
+        for (ChannelClass channelClass : ChannelClass.values())
+        {
+            report(channelClass.name(), channelClass, times, bake(channelClass));
+        }
+
+        report("mixed", null, times, bake(null));
+    }
+
+
+    private static void report(String name, ChannelClass channelClass, float[] times, float[] samples)
+    {
+        CompactClip clip = new CompactClip(times, CHANNEL_COUNT, samples, TOLERANCE, true);
+
+        // The number of channels which got the intended class.
+        int classified = (channelClass == null) ? CHANNEL_COUNT : clip.getChannelCount(channelClass);
+
+        System.out.printf("%-10s %9d %14.1f %13.1f %7.3f %14.1f %12.1f%n",
+            name, classified, clip.getOriginalSize() / 1024.0, clip.getCompactSize() / 1024.0,
+            (double)clip.getCompactSize() / clip.getOriginalSize(),
+            compact(clip, times).measure(ITERATIONS), dense(times, samples).measure(ITERATIONS));
+    }
+
+
+    /**
+     * Samples whose channels are all of the class, or of the four
+     * classes in turn if the class is null.
+     */
+    private static float[] bake(ChannelClass channelClass)
+    {
+        ChannelClass[] classes = ChannelClass.values();
+        float[] samples = new float[KEY_COUNT * CHANNEL_COUNT];
+
+        for (int c = 0; c < CHANNEL_COUNT; ++c)
+        {
+            ChannelClass cc = (channelClass != null) ? channelClass : classes[c % classes.length];
+
+            for (int k = 0; k < KEY_COUNT; ++k)
+            {
+                samples[k * CHANNEL_COUNT + c] = sample(cc, c, k);
+            }
+        }
+
+        return samples;
+    }
+
+
+    private static float sample(ChannelClass channelClass, int channel, int key)
+    {
+        switch (channelClass)
+        {
+            case CONSTANT:
+                return channel;
+
+            case STEP:
+                // Jumps every (20 + channel % 20) keys.
+                return (key / (20 + channel % 20)) % 3;
+
+            case LINEAR:
+                // A triangle wave, a line segment per (30 + channel % 30) keys.
+                int period = 30 + channel % 30;
+                int phase = key % (2 * period);
+                return (phase < period) ? phase : 2 * period - phase;
+
+            default:
+                return (float)Math.sin(key * 0.05 + channel);
+        }
+    }
+
+
+    private static Benchmark compact(final CompactClip clip, final float[] times)
+    {
+        final float[] output = new float[CHANNEL_COUNT];
+        final float duration = times[times.length - 1];
+
+        return new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                clip.evaluate((i * KEY_INTERVAL * 0.3F) % duration, output);
+
+                return output[i % CHANNEL_COUNT];
+            }
+        };
+    }
+
+
+    private static Benchmark dense(final float[] times, float[] samples)
+    {
+        final Interpolator linear = new LinearInterpolator();
+        final float[][] rows = new float[KEY_COUNT][CHANNEL_COUNT];
+        final float[] output = new float[CHANNEL_COUNT];
+        final float duration = times[times.length - 1];
+
+        for (int k = 0; k < KEY_COUNT; ++k)
+        {
+            System.arraycopy(samples, k * CHANNEL_COUNT, rows[k], 0, CHANNEL_COUNT);
+        }
+
+        return new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                float time = (i * KEY_INTERVAL * 0.3F) % duration;
+                int index = Arrays.binarySearch(times, time);
+                int key = (0 <= index) ? index : -index - 2;
+
+                if (KEY_COUNT - 1 <= key)
+                {
+                    key = KEY_COUNT - 2;
+                }
+
+                float ratio = (time - times[key]) / (times[key + 1] - times[key]);
+
+                linear.interpolate(rows[key], rows[key + 1], CHANNEL_COUNT, ratio, output);
+
+                return output[i % CHANNEL_COUNT];
+            }
+        };
+    }
+}
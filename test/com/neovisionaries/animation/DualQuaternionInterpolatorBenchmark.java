@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.Random;
+
+
+/**
+ * Benchmark of {@link DualQuaternionInterpolator}.
+ *
+ * <p>
+ * The cost per transform of ScLERP and DLB is measured for a single
+ * transform and for a batch of bones, with the slerp of the rotation
+ * plus the lerp of the translation by {@link SlerpInterpolator} and
+ * {@link LinearInterpolator} as the baseline. The cost per vertex of
+ * {@link DualQuaternionInterpolator#blend(float[], int[], float[], int,
+ * int, float[]) blend()} is measured for several influence counts.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * java -cp classes:test-classes com.neovisionaries.animation.DualQuaternionInterpolatorBenchmark
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class DualQuaternionInterpolatorBenchmark
+{
+    private static final int SIZE = 8;
+    private static final int BONE_COUNT = 64;
+    private static final int VERTEX_COUNT = 10000;
+
+
+    public static void main(String[] args)
+    {
+        Random random = new Random(1);
+        float[] from = bones(random, BONE_COUNT);
+        float[] to = bones(random, BONE_COUNT);
+
+        System.out.printf("%-30s %8s %14s%n", "interpolation", "bones", "per bone [ns]");
+
+        for (int count : new int[] { 1, BONE_COUNT })
+        {
+            report("slerp + lerp", count, baseline(from, to, count));
+            report("ScLERP", count, interpolation(DualQuaternionMode.SCLERP, from, to, count));
+            report("DLB", count, interpolation(DualQuaternionMode.DLB, from, to, count));
+        }
+
+        System.out.println();
+        System.out.printf("%-30s %8s %14s%n", "blend", "vertices", "per vertex [ns]");
+
+        for (int influenceCount = 1; influenceCount <= 4; influenceCount *= 2)
+        {
+            double time = blend(random, from, influenceCount).measure(50) / VERTEX_COUNT;
+
+            System.out.printf("%-30s %8d %14.1f%n",
+                influenceCount + " influence(s)", VERTEX_COUNT, time);
+        }
+    }
+
+
+    private static void report(String name, int count, Benchmark benchmark)
+    {
+        int iterations = 2000000 / count;
+
+        System.out.printf("%-30s %8d %14.1f%n", name, count, benchmark.measure(iterations) / count);
+    }
+
+
+    private static Benchmark interpolation(DualQuaternionMode mode, final float[] from, final float[] to, final int count)
+    {
+        final DualQuaternionInterpolator interpolator = new DualQuaternionInterpolator(mode);
+        final float[] output = new float[count * SIZE];
+
+        return new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                interpolator.interpolate(from, to, count * SIZE, (i % 1000) / 1000.0F, output);
+
+                return output[0];
+            }
+        };
+    }
+
+
+    private static Benchmark baseline(float[] from, float[] to, final int count)
+    {
+        final Interpolator slerp = new SlerpInterpolator();
+        final Interpolator linear = new LinearInterpolator();
+        final float[][] rotations0 = new float[count][4];
+        final float[][] rotations1 = new float[count][4];
+        final float[][] translations0 = new float[count][3];
+        final float[][] translations1 = new float[count][3];
+        final float[] rotation = new float[4];
+        final float[] translation = new float[3];
+
+        for (int b = 0; b < count; ++b)
+        {
+            System.arraycopy(from, b * SIZE, rotations0[b], 0, 4);
+            System.arraycopy(to, b * SIZE, rotations1[b], 0, 4);
+            DualQuaternionInterpolator.getTranslation(from, b * SIZE, translations0[b]);
+            DualQuaternionInterpolator.getTranslation(to, b * SIZE, translations1[b]);
+        }
+
+        return new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                float timeRatio = (i % 1000) / 1000.0F;
+
+                for (int b = 0; b < count; ++b)
+                {
+                    slerp.interpolate(rotations0[b], rotations1[b], 4, timeRatio, rotation);
+                    linear.interpolate(translations0[b], translations1[b], 3, timeRatio, translation);
+                }
+
+                return rotation[0] + translation[0];
+            }
+        };
+    }
+
+
+    private static Benchmark blend(Random random, final float[] bones, final int influenceCount)
+    {
+        final int[] boneIndices = new int[VERTEX_COUNT * influenceCount];
+        final float[] weights = new float[VERTEX_COUNT * influenceCount];
+        final float[] output = new float[VERTEX_COUNT * SIZE];
+
+        for (int v = 0; v < VERTEX_COUNT; ++v)
+        {
+            for (int k = 0; k < influenceCount; ++k)
+            {
+                boneIndices[v * influenceCount + k] = random.nextInt(BONE_COUNT);
+                weights[v * influenceCount + k] = 1.0F / influenceCount;
+            }
+        }
+
+        return new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                DualQuaternionInterpolator.blend(bones, boneIndices, weights, influenceCount, VERTEX_COUNT, output);
+
+                return output[i % output.length];
+            }
+        };
+    }
+
+
+    /**
+     * Random rigid transforms as packed dual quaternions.
+     */
+    private static float[] bones(Random random, int count)
+    {
+        float[] bones = new float[count * SIZE];
+        float[] rotation = new float[4];
+        float[] translation = new float[3];
+
+        for (int b = 0; b < count; ++b)
+        {
+            double norm = 0;
+
+            for (int k = 0; k < 4; ++k)
+            {
+                rotation[k] = (float)random.nextGaussian();
+                norm += rotation[k] * rotation[k];
+            }
+
+            for (int k = 0; k < 4; ++k)
+            {
+                rotation[k] /= (float)Math.sqrt(norm);
+            }
+
+            for (int k = 0; k < 3; ++k)
+            {
+                translation[k] = random.nextFloat() * 10 - 5;
+            }
+
+            DualQuaternionInterpolator.set(rotation, translation, bones, b * SIZE);
+        }
+
+        return bones;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Benchmark of {@link EasingGroup}.
+ *
+ * <p>
+ * The members of a group share one easing curve and one timeline. The
+ * cost of one {@link EasingGroup#update(float) update()} call is
+ * compared with calling {@link Interpolator#interpolate(float[],
+ * float[], int, float, float[]) interpolate()} of the same easing for
+ * each member, for several group sizes and easing curves.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * java -cp classes:test-classes com.neovisionaries.animation.EasingGroupBenchmark
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class EasingGroupBenchmark
+{
+    private static final int COMPONENT_COUNT = 2;
+    private static final float DURATION = 1000;
+
+
+    public static void main(String[] args)
+    {
+        EasingInterpolator[] easings = {
+            new EasingBounceInterpolator(),
+            new EasingElasticInterpolator(),
+            new EasingSineInterpolator()
+        };
+
+        System.out.printf("%-28s %8s %16s %14s %8s%n",
+            "easing", "members", "per member [us]", "group [us]", "speedup");
+
+        for (EasingInterpolator easing : easings)
+        {
+            for (int count = 100; count <= 100000; count *= 10)
+            {
+                int iterations = Math.max(20, 2000000 / count);
+
+                double separate = separate(easing, count).measure(iterations) / 1000;
+                double grouped  = group(easing, count).measure(iterations) / 1000;
+
+                System.out.printf("%-28s %8d %16.2f %14.2f %7.1fx%n",
+                    easing.getClass().getSimpleName(), count, separate, grouped, separate / grouped);
+            }
+        }
+    }
+
+
+    private static Benchmark separate(final Interpolator easing, final int count)
+    {
+        final float[][] froms = new float[count][COMPONENT_COUNT];
+        final float[][] tos = new float[count][COMPONENT_COUNT];
+        final float[][] outputs = new float[count][COMPONENT_COUNT];
+
+        for (int m = 0; m < count; ++m)
+        {
+            froms[m][0] = m;
+            tos[m][0] = m + 1;
+        }
+
+        return new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                float timeRatio = (i % DURATION) / DURATION;
+
+                for (int m = 0; m < count; ++m)
+                {
+                    easing.interpolate(froms[m], tos[m], COMPONENT_COUNT, timeRatio, outputs[m]);
+                }
+
+                return outputs[count - 1][0];
+            }
+        };
+    }
+
+
+    private static Benchmark group(EasingInterpolator easing, int count)
+    {
+        final EasingGroup group = new EasingGroup(easing, count, COMPONENT_COUNT);
+        float[] from = new float[COMPONENT_COUNT];
+        float[] to = new float[COMPONENT_COUNT];
+
+        for (int m = 0; m < count; ++m)
+        {
+            from[0] = m;
+            to[0] = m + 1;
+
+            group.add(from, to);
+        }
+
+        group.setTimeline(0, DURATION);
+
+        return new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                group.update(i % DURATION);
+
+                return group.getOutput()[0];
+            }
+        };
+    }
+}
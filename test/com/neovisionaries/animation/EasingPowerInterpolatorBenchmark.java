@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Benchmark of {@link EasingPowerInterpolator}.
+ *
+ * <p>
+ * The cost of {@link EasingInterpolator#ease(float) ease()} is measured
+ * for integer, half-integer and general powers, and compared with an
+ * easing which calls {@code Math.pow()} in double precision for all the
+ * powers, as {@link EasingPowerInterpolator} did before the strategies
+ * were introduced. The maximum difference from {@code Math.pow()} is
+ * shown, too. For the powers 2 to 5, the dedicated interpolators are
+ * measured as well. All the easings are used in {@link EasingMode#IN}
+ * mode, where the eased value is equal to timeRatio^power.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * java -cp classes:test-classes com.neovisionaries.animation.EasingPowerInterpolatorBenchmark
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class EasingPowerInterpolatorBenchmark
+{
+    private static final int ITERATIONS = 2000000;
+
+
+    /**
+     * Power easing by {@code Math.pow()} for any power.
+     */
+    private static class PowEasing extends EasingInterpolator
+    {
+        private final float power;
+
+
+        public PowEasing(float power)
+        {
+            super(EasingMode.IN);
+
+            this.power = power;
+        }
+
+
+        @Override
+        protected float doEasing(float timeRatio)
+        {
+            return (float)Math.pow(timeRatio, power);
+        }
+    }
+
+
+    public static void main(String[] args)
+    {
+        float[] powers = {
+            0.5F, 1, 1.5F, 2, 2.5F, 3, 4, 5, 6, 7, 8, 12, 64,
+            0.3F, 2.2F, 3.7F, 100
+        };
+
+        EasingInterpolator[] dedicated = {
+            null,
+            null,
+            new EasingQuadraticInterpolator(EasingMode.IN),
+            new EasingCubicInterpolator(EasingMode.IN),
+            new EasingQuarticInterpolator(EasingMode.IN),
+            new EasingQuinticInterpolator(EasingMode.IN)
+        };
+
+        System.out.printf("%6s %-13s %12s %14s %16s %12s%n",
+            "power", "strategy", "ease [ns]", "Math.pow [ns]", "dedicated [ns]", "max error");
+
+        for (float power : powers)
+        {
+            EasingPowerInterpolator easing = new EasingPowerInterpolator(EasingMode.IN);
+            easing.setPower(power);
+
+            double eased = measure(easing);
+            double pow = measure(new PowEasing(power));
+            int whole = (int)power;
+            String other = "-";
+
+            if (power == whole && whole < dedicated.length && dedicated[whole] != null)
+            {
+                other = String.format("%.1f", measure(dedicated[whole]));
+            }
+
+            System.out.printf("%6s %-13s %12.1f %14.1f %16s %12.1e%n",
+                power, strategyName(easing.getStrategy()), eased, pow, other, maxError(easing, power));
+        }
+    }
+
+
+    private static double measure(final EasingInterpolator easing)
+    {
+        return new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                return easing.ease((i & 1023) / 1023.0F);
+            }
+        }.measure(ITERATIONS);
+    }
+
+
+    private static double maxError(EasingInterpolator easing, float power)
+    {
+        double max = 0;
+
+        for (int i = 0; i <= 1023; ++i)
+        {
+            float timeRatio = i / 1023.0F;
+            double expected = Math.pow(timeRatio, power);
+
+            max = Math.max(max, Math.abs(easing.ease(timeRatio) - expected));
+        }
+
+        return max;
+    }
+
+
+    private static String strategyName(int strategy)
+    {
+        switch (strategy)
+        {
+            case EasingPowerInterpolator.INTEGER:      return "integer";
+            case EasingPowerInterpolator.HALF_INTEGER: return "half-integer";
+            default:                                   return "general";
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Benchmark of {@link FusedInterpolator}.
+ *
+ * <p>
+ * The cost of {@link Interpolator#interpolate(float[], float[], int,
+ * float, float[]) interpolate()} is measured for several trees of
+ * {@link CompositeInterpolator}s and for the interpolators made by
+ * {@link FusedInterpolator#fuse(Interpolator) fusing} them, with a few
+ * component counts. The number of easings which the fused interpolator
+ * evaluates per call is shown, too.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * java -cp classes:test-classes com.neovisionaries.animation.FusedInterpolatorBenchmark
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class FusedInterpolatorBenchmark
+{
+    private static final int ITERATIONS = 1000000;
+
+
+    public static void main(String[] args)
+    {
+        String[] names = {
+            "2 easings",
+            "4 easings + linear",
+            "3 x 3 easings",
+            "3 x 3 shared easings"
+        };
+
+        CompositeInterpolator[] trees = {
+            flatTree(2, false),
+            flatTree(4, true),
+            twoLevelTree(false),
+            twoLevelTree(true)
+        };
+
+        System.out.printf("%-22s %10s %8s %10s %11s %8s%n",
+            "tree", "components", "easings", "tree [ns]", "fused [ns]", "ratio");
+
+        for (int n = 0; n < trees.length; ++n)
+        {
+            FusedInterpolator fused = FusedInterpolator.fuse(trees[n]);
+
+            for (int componentCount : new int[] { 1, 4, 16 })
+            {
+                double tree = measure(trees[n], componentCount);
+                double fast = measure(fused, componentCount);
+
+                System.out.printf("%-22s %10d %8d %10.1f %11.1f %8.1f%n",
+                    names[n], componentCount, fused.getEasingCount(), tree, fast, tree / fast);
+            }
+        }
+    }
+
+
+    private static EasingInterpolator easing(int index)
+    {
+        switch (index % 4)
+        {
+            case 0:  return new EasingSineInterpolator(EasingMode.IN_OUT);
+            case 1:  return new EasingCubicInterpolator(EasingMode.OUT);
+            case 2:  return new EasingBackInterpolator(EasingMode.IN);
+            default: return new EasingExponentialInterpolator(EasingMode.IN_OUT);
+        }
+    }
+
+
+    private static CompositeInterpolator flatTree(int easingCount, boolean linear)
+    {
+        CompositeInterpolator tree = new CompositeInterpolator();
+        int count = easingCount + (linear ? 1 : 0);
+
+        for (int i = 0; i < easingCount; ++i)
+        {
+            tree.add(easing(i), 1.0F / count);
+        }
+
+        if (linear)
+        {
+            tree.add(new LinearInterpolator(), 1.0F / count);
+        }
+
+        return tree;
+    }
+
+
+    /**
+     * Three composites of three easings each. When 'shared' is true,
+     * the composites share the same three easing instances, which the
+     * fused interpolator merges.
+     */
+    private static CompositeInterpolator twoLevelTree(boolean shared)
+    {
+        EasingInterpolator[] easings = { easing(0), easing(1), easing(2) };
+        CompositeInterpolator tree = new CompositeInterpolator();
+
+        for (int c = 0; c < 3; ++c)
+        {
+            CompositeInterpolator child = new CompositeInterpolator();
+
+            for (int i = 0; i < 3; ++i)
+            {
+                child.add(shared ? easings[i] : easing(c + i), 1.0F / 3);
+            }
+
+            tree.add(child, 1.0F / 3);
+        }
+
+        return tree;
+    }
+
+
+    private static double measure(final Interpolator interpolator, final int componentCount)
+    {
+        final float[] from = new float[componentCount];
+        final float[] to = new float[componentCount];
+        final float[] output = new float[componentCount];
+
+        for (int i = 0; i < componentCount; ++i)
+        {
+            from[i] = i;
+            to[i] = 10 + i * 2;
+        }
+
+        return new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                interpolator.interpolate(from, to, componentCount, (i % 1000 + 1) / 1002.0F, output);
+
+                return output[0];
+            }
+        }.measure(ITERATIONS);
+    }
+}
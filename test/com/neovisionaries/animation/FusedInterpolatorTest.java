@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.Random;
+
+
+/**
+ * Equivalence test of {@link FusedInterpolator}.
+ *
+ * <p>
+ * Random trees of two levels are built from {@link
+ * CompositeInterpolator}s whose leaves are easings of random kinds and
+ * modes, {@link LinearInterpolator}s and {@link StepInterpolator}s.
+ * Some leaves are shared so that merging of the same instance is
+ * covered. The output of {@link FusedInterpolator#fuse(Interpolator)
+ * fuse(tree)} is compared with the output of the tree for random
+ * values and time ratios.
+ * </p>
+ *
+ * <p>
+ * The results are not bit-identical because the float operations are
+ * done in a different order. The difference of a component is
+ * therefore divided by the magnitude which bounds the rounding errors,
+ * {@code (|from| + |to|) * S} where 'S' is the sum of the absolute
+ * effective weights of the leaves, and the test exits with status 1
+ * if the quotient exceeds {@value #TOLERANCE}. The share of outputs
+ * which are bit-identical is printed, too.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * java -cp classes:test-classes com.neovisionaries.animation.FusedInterpolatorTest
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class FusedInterpolatorTest
+{
+    private static final int TREE_COUNT = 2000;
+    private static final int CALL_COUNT = 200;
+    private static final int COMPONENT_COUNT = 4;
+    private static final float TOLERANCE = 1e-6F;
+
+
+    public static void main(String[] args)
+    {
+        Random random = new Random(12345);
+        float[] from = new float[COMPONENT_COUNT];
+        float[] to = new float[COMPONENT_COUNT];
+        float[] expected = new float[COMPONENT_COUNT];
+        float[] actual = new float[COMPONENT_COUNT];
+        double maxScaled = 0;
+        double maxRelative = 0;
+        long identical = 0;
+        long total = 0;
+
+        for (int n = 0; n < TREE_COUNT; ++n)
+        {
+            Interpolator[] pool = createPool(random);
+            CompositeInterpolator tree = new CompositeInterpolator();
+            float weightSum = addChildren(random, pool, tree, 1.0F, 2);
+            FusedInterpolator fused = FusedInterpolator.fuse(tree);
+
+            for (int c = 0; c < CALL_COUNT; ++c)
+            {
+                for (int i = 0; i < COMPONENT_COUNT; ++i)
+                {
+                    from[i] = (random.nextFloat() - 0.5F) * 200;
+                    to[i]   = (random.nextFloat() - 0.5F) * 200;
+                }
+
+                float timeRatio = random.nextFloat();
+
+                tree.interpolate(from, to, COMPONENT_COUNT, timeRatio, expected);
+                fused.interpolate(from, to, COMPONENT_COUNT, timeRatio, actual);
+
+                for (int i = 0; i < COMPONENT_COUNT; ++i)
+                {
+                    double difference = Math.abs(actual[i] - expected[i]);
+                    double scale = (Math.abs(from[i]) + Math.abs(to[i])) * weightSum;
+
+                    maxScaled = Math.max(maxScaled, difference / scale);
+
+                    if (expected[i] != 0)
+                    {
+                        maxRelative = Math.max(maxRelative, difference / Math.abs(expected[i]));
+                    }
+
+                    if (Float.floatToIntBits(actual[i]) == Float.floatToIntBits(expected[i]))
+                    {
+                        ++identical;
+                    }
+
+                    ++total;
+                }
+            }
+        }
+
+        System.out.printf("outputs                   : %d%n", total);
+        System.out.printf("bit-identical             : %.1f%%%n", 100.0 * identical / total);
+        System.out.printf("max |difference| / |tree| : %.2e%n", maxRelative);
+        System.out.printf("max |difference| / scale  : %.2e (tolerance %.0e)%n", maxScaled, TOLERANCE);
+
+        if (TOLERANCE < maxScaled)
+        {
+            System.out.println("FAILED");
+            System.exit(1);
+        }
+    }
+
+
+    /**
+     * Create leaves, some of which are shared by several nodes.
+     */
+    private static Interpolator[] createPool(Random random)
+    {
+        Interpolator[] pool = new Interpolator[4];
+
+        for (int i = 0; i < pool.length; ++i)
+        {
+            pool[i] = createLeaf(random);
+        }
+
+        return pool;
+    }
+
+
+    private static Interpolator createLeaf(Random random)
+    {
+        EasingMode mode = EasingMode.values()[random.nextInt(EasingMode.values().length)];
+
+        switch (random.nextInt(12))
+        {
+            case 0:  return new LinearInterpolator();
+            case 1:  return new StepInterpolator();
+            case 2:  return new EasingSineInterpolator(mode);
+            case 3:  return new EasingQuadraticInterpolator(mode);
+            case 4:  return new EasingCubicInterpolator(mode);
+            case 5:  return new EasingQuinticInterpolator(mode);
+            case 6:  return new EasingCircleInterpolator(mode);
+            case 7:  return new EasingExponentialInterpolator(mode);
+            case 8:  return new EasingBackInterpolator(mode);
+            case 9:  return new EasingElasticInterpolator(mode);
+            case 10: return new EasingBounceInterpolator(mode);
+            default:
+                EasingPowerInterpolator power = new EasingPowerInterpolator(mode);
+                power.setPower(0.5F + random.nextFloat() * 4);
+                return power;
+        }
+    }
+
+
+    /**
+     * Add one to four children to the composite, each of which is a
+     * leaf or, if levels remain, a composite. The sum of the absolute
+     * effective weights of the added leaves is returned.
+     */
+    private static float addChildren(
+            Random random, Interpolator[] pool, CompositeInterpolator composite, float weight, int levels)
+    {
+        int count = 1 + random.nextInt(4);
+        float sum = 0;
+
+        for (int i = 0; i < count; ++i)
+        {
+            float childWeight = random.nextFloat();
+
+            if (1 < levels && random.nextBoolean())
+            {
+                CompositeInterpolator child = new CompositeInterpolator();
+                sum += addChildren(random, pool, child, weight * childWeight, levels - 1);
+                composite.add(child, childWeight);
+            }
+            else
+            {
+                Interpolator leaf = random.nextBoolean() ? pool[random.nextInt(pool.length)] : createLeaf(random);
+                sum += Math.abs(weight * childWeight);
+                composite.add(leaf, childWeight);
+            }
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Benchmark of the path interpolators.
+ *
+ * <p>
+ * The cost of one {@link PathInterpolator#interpolate(float, float[])
+ * interpolate()} call is measured for {@link PolylinePath}, {@link
+ * BezierPath} and {@link CatmullRomPath} as the size of the path and
+ * the size of the arc length table grow, with and without easing.
+ * Time ratios are visited in a scattered order so that the binary
+ * search is not helped by branch prediction.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * java -cp classes:test-classes com.neovisionaries.animation.PathInterpolatorBenchmark
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class PathInterpolatorBenchmark
+{
+    private static final int ITERATIONS = 1000000;
+
+
+    public static void main(String[] args)
+    {
+        System.out.printf("%-34s %10s %14s %14s%n",
+            "path", "intervals", "linear [ns]", "eased [ns]");
+
+        for (int count = 8; count <= 4096; count *= 8)
+        {
+            report("PolylinePath, " + count + " points", count - 1,
+                new PolylinePath(2, points(count)));
+        }
+
+        for (int intervals = 16; intervals <= 4096; intervals *= 16)
+        {
+            report("BezierPath, quadratic", intervals,
+                new BezierPath(2, points(3), intervals));
+            report("BezierPath, cubic", intervals,
+                new BezierPath(2, points(4), intervals));
+        }
+
+        for (int count = 8; count <= 512; count *= 8)
+        {
+            int intervals = (count - 1) * CatmullRomPath.DEFAULT_INTERVALS_PER_SEGMENT;
+
+            report("CatmullRomPath, " + count + " points", intervals,
+                new CatmullRomPath(2, points(count)));
+        }
+    }
+
+
+    private static void report(String name, int intervals, PathInterpolator path)
+    {
+        path.setEasing(null);
+        double linear = measure(path);
+
+        path.setEasing(new EasingSineInterpolator());
+        double eased = measure(path);
+
+        System.out.printf("%-34s %10d %14.1f %14.1f%n", name, intervals, linear, eased);
+    }
+
+
+    private static double measure(final PathInterpolator path)
+    {
+        final float[] output = new float[2];
+
+        return new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                // 7919 is a prime, so the ratios cover 0 to 1 in a scattered order.
+                path.interpolate(((i * 7919) & 0xFFFF) / 65535.0F, output);
+
+                return output[0];
+            }
+        }.measure(ITERATIONS);
+    }
+
+
+    /**
+     * Points on a zigzag line in 2D.
+     */
+    private static float[] points(int count)
+    {
+        float[] points = new float[count * 2];
+
+        for (int i = 0; i < count; ++i)
+        {
+            points[i * 2]     = i;
+            points[i * 2 + 1] = ((i & 1) == 0) ? 0 : (1 + i % 3);
+        }
+
+        return points;
+    }
+}
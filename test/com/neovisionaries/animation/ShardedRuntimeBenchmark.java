@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Benchmark of {@link ShardedRuntime}.
+ *
+ * <p>
+ * A fixed number of parameters is divided into shards, and the shard
+ * count and the thread count are swept. In the uniform load, all the
+ * parameters are animated. In the skewed load, all the parameters of
+ * the first quarter of the shards are animated but only one in eight
+ * of the others are, so threads whose runs are light have to steal.
+ * For each combination, the last, the maximum and the average tick
+ * durations reported by the runtime and the average number of stolen
+ * shards per tick are printed.
+ * </p>
+ *
+ * <p>
+ * Threads beyond the number of available processors only add the cost
+ * of the barriers, so the results depend heavily on the machine.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * java -cp classes:test-classes com.neovisionaries.animation.ShardedRuntimeBenchmark
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class ShardedRuntimeBenchmark
+{
+    private static final int PARAMETER_COUNT = 65536;
+    private static final int COMPONENT_COUNT = 4;
+    private static final int WARMUP_TICKS = 200;
+    private static final int MEASURED_TICKS = 500;
+    private static final float FRAME = 1.0F / 60;
+
+
+    public static void main(String[] args)
+    {
+        System.out.printf("available processors: %d%n%n", Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-8s %7s %8s %10s %10s %10s %12s%n",
+            "load", "shards", "threads", "last [us]", "max [us]", "avg [us]", "steals/tick");
+
+        for (boolean skewed : new boolean[] { false, true })
+        {
+            for (int shardCount : new int[] { 1, 4, 16, 64 })
+            {
+                for (int threadCount : new int[] { 1, 2, 4 })
+                {
+                    if (shardCount < threadCount)
+                    {
+                        continue;
+                    }
+
+                    run(skewed, shardCount, threadCount);
+                }
+            }
+        }
+    }
+
+
+    private static void run(boolean skewed, int shardCount, int threadCount)
+    {
+        ShardedRuntime runtime = new ShardedRuntime(createShards(skewed, shardCount), threadCount);
+
+        try
+        {
+            float time = 0;
+
+            for (int i = 0; i < WARMUP_TICKS; ++i)
+            {
+                tick(runtime, time += FRAME);
+            }
+
+            runtime.resetStatistics();
+
+            long stolen = 0;
+
+            for (int i = 0; i < MEASURED_TICKS; ++i)
+            {
+                tick(runtime, time += FRAME);
+                stolen += runtime.getStolenCount();
+            }
+
+            System.out.printf("%-8s %7d %8d %10.1f %10.1f %10.1f %12.2f%n",
+                skewed ? "skewed" : "uniform", shardCount, runtime.getThreadCount(),
+                runtime.getLastTickNanos() / 1000.0, runtime.getMaxTickNanos() / 1000.0,
+                runtime.getAverageTickNanos() / 1000.0, (double)stolen / MEASURED_TICKS);
+        }
+        finally
+        {
+            runtime.close();
+        }
+    }
+
+
+    private static void tick(ShardedRuntime runtime, float time)
+    {
+        runtime.tick(time);
+
+        for (int s = 0; s < runtime.getShardCount(); ++s)
+        {
+            runtime.getShard(s).clearDirty();
+        }
+    }
+
+
+    private static ParameterStore[] createShards(boolean skewed, int shardCount)
+    {
+        Interpolator interpolator = new EasingSineInterpolator(EasingMode.IN_OUT);
+        ParameterStore[] shards = new ParameterStore[shardCount];
+        int capacity = PARAMETER_COUNT / shardCount;
+        float[] from = new float[COMPONENT_COUNT];
+        float[] to = new float[COMPONENT_COUNT];
+
+        for (int s = 0; s < shardCount; ++s)
+        {
+            shards[s] = new ParameterStore(capacity, COMPONENT_COUNT);
+
+            // In the skewed load, only the first quarter is fully animated.
+            int interval = (skewed && shardCount / 4 <= s && 1 < shardCount) ? 8 : 1;
+
+            for (int p = 0; p < capacity; p += interval)
+            {
+                to[0] = p;
+
+                // Long enough to keep running during the benchmark.
+                shards[s].animate(p, interpolator, from, to, 0, 1000);
+            }
+        }
+
+        return shards;
+    }
+}
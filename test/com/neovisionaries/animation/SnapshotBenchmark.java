@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.Random;
+
+
+/**
+ * Benchmark of {@link SnapshotEncoder} and {@link SnapshotDecoder}.
+ *
+ * <p>
+ * A server store of {@value #CAPACITY} parameters is replicated to a
+ * client store through an in-process loopback in which every snapshot
+ * is acknowledged immediately. The size of a full snapshot (a fresh
+ * decoder receiving every parameter animated) and the size of the
+ * per-frame deltas are reported, together with the time to encode and
+ * decode one frame, for several numbers of new animations per frame.
+ * The times of encoding and decoding are obtained by subtracting the
+ * time of the steps without them.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * java -cp classes:test-classes com.neovisionaries.animation.SnapshotBenchmark
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class SnapshotBenchmark
+{
+    private static final int CAPACITY = 10000;
+    private static final int COMPONENT_COUNT = 3;
+    private static final int HISTORY_SIZE = 32;
+    private static final float VALUE_STEP = 1.0F / 1024;
+    private static final float TIME_STEP = 1.0F / 1000;
+    private static final float FRAME_TIME = 1.0F / 60;
+    private static final int ITERATIONS = 200;
+
+
+    private static final Interpolator[] INTERPOLATORS = {
+        new LinearInterpolator(),
+        new EasingSineInterpolator(EasingMode.IN_OUT),
+        new EasingBackInterpolator(EasingMode.OUT),
+        new EasingBounceInterpolator(EasingMode.OUT)
+    };
+
+
+    /**
+     * A server store, an encoder, a decoder and a client store.
+     */
+    private static class Loopback
+    {
+        private final Random random = new Random(1);
+        private final ParameterStore server = new ParameterStore(CAPACITY, COMPONENT_COUNT);
+        private final ParameterStore client = new ParameterStore(CAPACITY, COMPONENT_COUNT);
+        private final SnapshotEncoder encoder = new SnapshotEncoder(server, HISTORY_SIZE, VALUE_STEP, TIME_STEP);
+        private final SnapshotDecoder decoder = new SnapshotDecoder(client, HISTORY_SIZE, VALUE_STEP, TIME_STEP);
+        private final BinaryBuffer buffer = new BinaryBuffer(1024);
+        private final float[] from = new float[COMPONENT_COUNT];
+        private final float[] to = new float[COMPONENT_COUNT];
+        private long bytes;
+        private int frames;
+
+
+        /**
+         * Animate some parameters and update the server.
+         */
+        public void change(int frame, int count)
+        {
+            float time = frame * FRAME_TIME;
+
+            for (int n = 0; n < count; ++n)
+            {
+                animate(random.nextInt(CAPACITY), time);
+            }
+
+            server.update(time);
+        }
+
+
+        public void animate(int parameter, float time)
+        {
+            for (int i = 0; i < COMPONENT_COUNT; ++i)
+            {
+                from[i] = random.nextFloat() * 100;
+                to[i]   = random.nextFloat() * 100;
+            }
+
+            server.animate(parameter, INTERPOLATORS[parameter % INTERPOLATORS.length],
+                    from, to, time, 0.5F + random.nextFloat());
+        }
+
+
+        public int encode()
+        {
+            buffer.clear();
+
+            int sequence = encoder.encode(buffer);
+
+            bytes += buffer.getLimit();
+            ++frames;
+
+            return sequence;
+        }
+
+
+        public void decode(int sequence, int frame)
+        {
+            buffer.rewind();
+            decoder.decode(buffer);
+            encoder.acknowledge(sequence);
+            client.update(frame * FRAME_TIME);
+        }
+
+
+        public double getBytesPerFrame()
+        {
+            return (double)bytes / frames;
+        }
+    }
+
+
+    public static void main(String[] args)
+    {
+        reportFullSnapshot();
+
+        System.out.println();
+        System.out.printf("%12s %16s %16s %14s %14s%n",
+            "animations", "bytes/frame", "bytes/animation", "encode [ms]", "decode [ms]");
+
+        for (int count = 0; count <= 200; count = (count == 0) ? 2 : count * 10)
+        {
+            reportDeltas(count);
+        }
+    }
+
+
+    private static void reportFullSnapshot()
+    {
+        Loopback loopback = new Loopback();
+
+        for (int parameter = 0; parameter < CAPACITY; ++parameter)
+        {
+            loopback.animate(parameter, 0);
+        }
+
+        loopback.server.update(0);
+        int sequence = loopback.encode();
+        loopback.decode(sequence, 0);
+
+        System.out.printf("full snapshot of %d animated parameters: %d bytes (%.1f bytes/parameter)%n",
+            CAPACITY, loopback.bytes, (double)loopback.bytes / CAPACITY);
+    }
+
+
+    private static void reportDeltas(final int count)
+    {
+        final Loopback changing = new Loopback();
+        final Loopback encoding = new Loopback();
+        final Loopback decoding = new Loopback();
+
+        double changeTime = new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                changing.change(i, count);
+
+                return changing.server.getScheduledCount();
+            }
+        }.measure(ITERATIONS);
+
+        double encodeTime = new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                encoding.change(i, count);
+                encoding.encoder.acknowledge(encoding.encode());
+
+                return encoding.buffer.getLimit();
+            }
+        }.measure(ITERATIONS);
+
+        double decodeTime = new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                decoding.change(i, count);
+                decoding.decode(decoding.encode(), i);
+
+                return decoding.client.getScheduledCount();
+            }
+        }.measure(ITERATIONS);
+
+        double bytesPerFrame = decoding.getBytesPerFrame();
+
+        System.out.printf("%12d %16.1f %16s %14.3f %14.3f%n",
+            count, bytesPerFrame,
+            (count == 0) ? "-" : String.format("%.1f", bytesPerFrame / count),
+            (encodeTime - changeTime) / 1.0E6, (decodeTime - encodeTime) / 1.0E6);
+    }
+}
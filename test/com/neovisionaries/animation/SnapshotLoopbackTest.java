@@ -0,0 +1,342 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+
+/**
+ * In-process loopback test of {@link SnapshotEncoder} and {@link
+ * SnapshotDecoder}.
+ *
+ * <p>
+ * A server store is animated randomly: parameters are animated from
+ * now or from a future time, set, and set and then animated within one
+ * frame. Its snapshots are sent to two clients.
+ * </p>
+ *
+ * <ul>
+ * <li>The first client loses {@value #LOSS_PERCENT}% of the snapshots
+ * and {@value #LOSS_PERCENT}% of the acknowledgments, and its
+ * acknowledgments arrive {@value #ACK_DELAY} frames late.</li>
+ * <li>The second client joins late with a fresh encoder and decoder.</li>
+ * </ul>
+ *
+ * <p>
+ * On every frame in which a client receives a snapshot, all of its
+ * values must be within {@value #TOLERANCE} of those of the server
+ * after both stores are updated to the same time. The tolerance covers
+ * the quantization of values ({@value #VALUE_STEP}) and of start times
+ * and durations ({@value #TIME_STEP}), which shifts animations in
+ * flight by up to about 1.5 time steps; the steepest animations of this
+ * test move about 60 per second. Start times are rounded down by the encoder, so a
+ * parameter of the server whose start time is less than one time step
+ * ahead may already be in flight on a client; such parameters are not
+ * compared on that frame. After the server stops changing, the values must
+ * converge to those of the server within the value quantization. The
+ * test prints the encoded sizes and exits with status 1 on a failure.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * java -cp classes:test-classes com.neovisionaries.animation.SnapshotLoopbackTest
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class SnapshotLoopbackTest
+{
+    private static final int CAPACITY = 200;
+    private static final int COMPONENT_COUNT = 3;
+    private static final int HISTORY_SIZE = 32;
+    private static final float VALUE_STEP = 1.0F / 1024;
+    private static final float TIME_STEP = 1.0F / 1000;
+    private static final float TOLERANCE = 0.1F;
+    private static final float FRAME_TIME = 1.0F / 60;
+    private static final int FRAME_COUNT = 2000;
+    private static final int JOIN_FRAME = 700;
+    private static final int QUIET_FRAMES = 120;
+    private static final int CHANGES_PER_FRAME = 4;
+    private static final int LOSS_PERCENT = 20;
+    private static final int ACK_DELAY = 5;
+
+
+    private static final Interpolator[] INTERPOLATORS = {
+        new LinearInterpolator(),
+        new EasingSineInterpolator(EasingMode.IN_OUT),
+        power(2.5F),
+        new EasingBackInterpolator(EasingMode.OUT)
+    };
+
+
+    /**
+     * One end of a loopback connection.
+     */
+    private static class Client
+    {
+        private final String name;
+        private final ParameterStore store;
+        private final SnapshotEncoder encoder;
+        private final SnapshotDecoder decoder;
+        private final BinaryBuffer buffer = new BinaryBuffer(1024);
+        private final boolean lossy;
+
+        // Acknowledgments in transit and the frames at which they arrive.
+        private final ArrayDeque<int[]> acknowledgments = new ArrayDeque<int[]>();
+
+        private int received;
+        private int lost;
+        private long bytes;
+        private float maxError;
+
+
+        public Client(String name, ParameterStore server, boolean lossy)
+        {
+            this.name  = name;
+            this.lossy = lossy;
+
+            store   = new ParameterStore(server.getCapacity(), server.getComponentCount());
+            encoder = new SnapshotEncoder(server, HISTORY_SIZE, VALUE_STEP, TIME_STEP);
+            decoder = new SnapshotDecoder(store, HISTORY_SIZE, VALUE_STEP, TIME_STEP);
+        }
+
+
+        public void exchange(ParameterStore server, int frame, float time, Random random, boolean checking)
+        {
+            // Acknowledgments which arrive now.
+            while (acknowledgments.isEmpty() == false && acknowledgments.peek()[0] <= frame)
+            {
+                encoder.acknowledge(acknowledgments.poll()[1]);
+            }
+
+            buffer.clear();
+            encoder.encode(buffer);
+            bytes += buffer.getLimit();
+
+            if (lossy && random.nextInt(100) < LOSS_PERCENT)
+            {
+                ++lost;
+                return;
+            }
+
+            buffer.rewind();
+            int sequence = decoder.decode(buffer);
+            ++received;
+
+            if (lossy == false)
+            {
+                encoder.acknowledge(sequence);
+            }
+            else if (LOSS_PERCENT <= random.nextInt(100))
+            {
+                acknowledgments.add(new int[] { frame + ACK_DELAY, sequence });
+            }
+
+            store.update(time);
+
+            if (checking)
+            {
+                maxError = Math.max(maxError, difference(server, store, time));
+            }
+        }
+
+
+        public void report()
+        {
+            System.out.printf("%-12s received %5d, lost %4d, %6.1f bytes/snapshot, max error %.2e%n",
+                name, received, lost, (double)bytes / (received + lost), maxError);
+        }
+    }
+
+
+    public static void main(String[] args)
+    {
+        boolean passed = true;
+
+        passed &= testSetAndAnimate();
+        passed &= testLoopback();
+
+        System.out.println(passed ? "PASSED" : "FAILED");
+
+        if (passed == false)
+        {
+            System.exit(1);
+        }
+    }
+
+
+    /**
+     * A value set and then animated from a future time within one frame
+     * must be shown by the client until the start time.
+     */
+    private static boolean testSetAndAnimate()
+    {
+        ParameterStore server = new ParameterStore(1, 1);
+        Client client = new Client("set+animate", server, false);
+
+        server.update(0);
+        client.exchange(server, 0, 0, null, false);
+
+        server.set(0, new float[] { 5.33F });
+        server.animate(0, INTERPOLATORS[0], new float[] { 0 }, new float[] { 1 }, 1, 1);
+        server.update(FRAME_TIME);
+        client.exchange(server, 1, FRAME_TIME, null, false);
+
+        float value = client.store.getValue(0)[0];
+        boolean passed = Math.abs(value - 5.33F) <= VALUE_STEP;
+
+        System.out.printf("set+animate: server 5.33, client %.4f%n", value);
+
+        return passed;
+    }
+
+
+    private static boolean testLoopback()
+    {
+        Random random = new Random(1);
+        ParameterStore server = new ParameterStore(CAPACITY, COMPONENT_COUNT);
+        Client lossy = new Client("lossy", server, true);
+        Client late = null;
+        float time = 0;
+
+        for (int frame = 0; frame < FRAME_COUNT + QUIET_FRAMES; ++frame)
+        {
+            time = frame * FRAME_TIME;
+
+            if (frame < FRAME_COUNT)
+            {
+                change(server, random, time);
+            }
+
+            if (frame == JOIN_FRAME)
+            {
+                late = new Client("late joiner", server, false);
+            }
+
+            server.update(time);
+
+            lossy.exchange(server, frame, time, random, true);
+
+            if (late != null)
+            {
+                late.exchange(server, frame, time, random, true);
+            }
+        }
+
+        lossy.report();
+        late.report();
+
+        // After the quiet frames, every parameter has settled.
+        float lossyError = difference(server, lossy.store, time);
+        float lateError  = difference(server, late.store, time);
+
+        System.out.printf("converged: lossy %.2e, late joiner %.2e, scheduled %d/%d/%d%n",
+            lossyError, lateError, server.getScheduledCount(),
+            lossy.store.getScheduledCount(), late.store.getScheduledCount());
+
+        return lossy.maxError <= TOLERANCE && late.maxError <= TOLERANCE &&
+               lossyError <= VALUE_STEP && lateError <= VALUE_STEP &&
+               lossy.store.getScheduledCount() == 0 && late.store.getScheduledCount() == 0;
+    }
+
+
+    private static void change(ParameterStore server, Random random, float time)
+    {
+        float[] from  = new float[COMPONENT_COUNT];
+        float[] to    = new float[COMPONENT_COUNT];
+        float[] value = new float[COMPONENT_COUNT];
+
+        for (int n = 0; n < CHANGES_PER_FRAME; ++n)
+        {
+            int parameter = random.nextInt(CAPACITY);
+            Interpolator interpolator = INTERPOLATORS[random.nextInt(INTERPOLATORS.length)];
+            float duration = 0.5F + random.nextFloat();
+
+            fill(from, random);
+            fill(to, random);
+            fill(value, random);
+
+            switch (random.nextInt(4))
+            {
+                case 0:
+                    // Animate from now.
+                    server.animate(parameter, interpolator, from, to, time, duration);
+                    break;
+
+                case 1:
+                    // Animate from a future time.
+                    server.animate(parameter, interpolator, from, to, time + random.nextFloat() * 0.5F, duration);
+                    break;
+
+                case 2:
+                    // Set and animate from a future time within one frame.
+                    server.set(parameter, value);
+                    server.animate(parameter, interpolator, from, to, time + 0.1F + random.nextFloat() * 0.5F, duration);
+                    break;
+
+                default:
+                    server.set(parameter, value);
+                    break;
+            }
+        }
+    }
+
+
+    private static void fill(float[] value, Random random)
+    {
+        for (int i = 0; i < value.length; ++i)
+        {
+            value[i] = random.nextFloat() * 8 - 4;
+        }
+    }
+
+
+    private static float difference(ParameterStore expected, ParameterStore actual, float time)
+    {
+        float max = 0;
+
+        for (int parameter = 0; parameter < expected.getCapacity(); ++parameter)
+        {
+            if (expected.getState(parameter) == ParameterState.PENDING &&
+                expected.getStartTime(parameter) - time < TIME_STEP)
+            {
+                // The client may have started it already.
+                continue;
+            }
+
+            float[] e = expected.getValue(parameter);
+            float[] a = actual.getValue(parameter);
+
+            for (int i = 0; i < e.length; ++i)
+            {
+                max = Math.max(max, Math.abs(e[i] - a[i]));
+            }
+        }
+
+        return max;
+    }
+
+
+    private static Interpolator power(float power)
+    {
+        EasingPowerInterpolator interpolator = new EasingPowerInterpolator(EasingMode.IN);
+        interpolator.setPower(power);
+
+        return interpolator;
+    }
+}
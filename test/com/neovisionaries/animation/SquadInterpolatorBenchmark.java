@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.Arrays;
+import java.util.Random;
+
+
+/**
+ * Benchmark of {@link SquadInterpolator}.
+ *
+ * <p>
+ * The cost per sample (one quaternion of one track) of {@link
+ * SquadInterpolator#evaluate(float, float[]) evaluate()} is measured for
+ * a single track and for a skeleton of tracks, and compared with the
+ * baseline which finds the key interval by a binary search once and
+ * then calls {@link SlerpInterpolator} for each track. Keys apart by
+ * large angles take the trigonometric path, and keys apart by tiny
+ * angles take the linear path.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * java -cp classes:test-classes com.neovisionaries.animation.SquadInterpolatorBenchmark
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class SquadInterpolatorBenchmark
+{
+    private static final int KEY_COUNT = 100;
+    private static final int TRACK_COUNT = 64;
+
+
+    public static void main(String[] args)
+    {
+        float[] times = new float[KEY_COUNT];
+
+        for (int k = 0; k < KEY_COUNT; ++k)
+        {
+            times[k] = k;
+        }
+
+        System.out.printf("%-8s %7s %16s %16s%n", "angles", "tracks", "squad [ns]", "slerp [ns]");
+
+        for (boolean tiny : new boolean[] { false, true })
+        {
+            for (int trackCount : new int[] { 1, TRACK_COUNT })
+            {
+                float[] keys = keys(new Random(1), trackCount, tiny);
+                int iterations = 2000000 / trackCount;
+
+                System.out.printf("%-8s %7d %16.1f %16.1f%n",
+                    tiny ? "tiny" : "large", trackCount,
+                    squad(times, keys, trackCount).measure(iterations) / trackCount,
+                    slerp(times, keys, trackCount).measure(iterations) / trackCount);
+            }
+        }
+    }
+
+
+    private static Benchmark squad(float[] times, float[] keys, int trackCount)
+    {
+        final SquadInterpolator squad = new SquadInterpolator(trackCount, times, keys);
+        final float[] output = new float[trackCount * 4];
+        final float duration = times[times.length - 1];
+
+        return new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                squad.evaluate((i * 0.37F) % duration, output);
+
+                return output[0];
+            }
+        };
+    }
+
+
+    private static Benchmark slerp(final float[] times, float[] keys, final int trackCount)
+    {
+        final Interpolator slerp = new SlerpInterpolator();
+        final float[][][] quaternions = new float[KEY_COUNT][trackCount][4];
+        final float[] output = new float[trackCount * 4];
+        final float[] quaternion = new float[4];
+        final float duration = times[times.length - 1];
+
+        for (int k = 0; k < KEY_COUNT; ++k)
+        {
+            for (int t = 0; t < trackCount; ++t)
+            {
+                System.arraycopy(keys, (k * trackCount + t) * 4, quaternions[k][t], 0, 4);
+            }
+        }
+
+        return new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                float time = (i * 0.37F) % duration;
+                int index = Arrays.binarySearch(times, time);
+                int key = Math.min((0 <= index) ? index : -index - 2, KEY_COUNT - 2);
+                float ratio = (time - times[key]) / (times[key + 1] - times[key]);
+
+                for (int t = 0; t < trackCount; ++t)
+                {
+                    slerp.interpolate(quaternions[key][t], quaternions[key + 1][t], 4, ratio, quaternion);
+                    System.arraycopy(quaternion, 0, output, t * 4, 4);
+                }
+
+                return output[0];
+            }
+        };
+    }
+
+
+    /**
+     * Random unit quaternions. When 'tiny' is true, adjacent keys of a
+     * track are closer than {@link QuaternionMath#LINEAR_THRESHOLD}.
+     */
+    private static float[] keys(Random random, int trackCount, boolean tiny)
+    {
+        float[] keys = new float[KEY_COUNT * trackCount * 4];
+        double step = tiny ? 0.005 : 1.0;
+
+        for (int t = 0; t < trackCount; ++t)
+        {
+            double[] axis = { random.nextGaussian(), random.nextGaussian(), random.nextGaussian() };
+            double norm = Math.sqrt(axis[0] * axis[0] + axis[1] * axis[1] + axis[2] * axis[2]);
+            double angle = 0;
+
+            for (int k = 0; k < KEY_COUNT; ++k)
+            {
+                int i = (k * trackCount + t) * 4;
+                double s = Math.sin(angle / 2) / norm;
+
+                keys[i]     = (float)(axis[0] * s);
+                keys[i + 1] = (float)(axis[1] * s);
+                keys[i + 2] = (float)(axis[2] * s);
+                keys[i + 3] = (float)Math.cos(angle / 2);
+
+                angle += step * (0.5 + random.nextDouble());
+            }
+        }
+
+        return keys;
+    }
+}
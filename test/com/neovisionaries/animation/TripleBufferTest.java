@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+import java.util.Arrays;
+
+
+/**
+ * Contention test of {@link TripleBuffer}.
+ *
+ * <p>
+ * A producer thread publishes frames as fast as it can while the main
+ * thread acquires and reads them. Every value of a frame is its
+ * sequence number, so the consumer can detect a torn frame (values of
+ * different frames mixed) and a frame which is older than the one
+ * acquired before. The test prints the throughput of both sides and
+ * the latency from {@link TripleBuffer#publish() publish()} to
+ * {@link TripleBuffer#acquire() acquire()}, and exits with status 1
+ * if a broken frame is seen.
+ * </p>
+ *
+ * <p>
+ * Two rounds are run. In the first round, the producer publishes
+ * without pause, so the two threads contend for the shared buffer as
+ * hard as possible. In the second round, the producer yields after
+ * each frame, which lets the consumer see most frames even on a
+ * machine with a single core.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * java -cp classes:test-classes com.neovisionaries.animation.TripleBufferTest
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class TripleBufferTest
+{
+    /**
+     * The number of frames published. Sequence numbers must be exactly
+     * representable by float, so this must not exceed 2^24.
+     */
+    private static final int FRAME_COUNT = 2000000;
+    private static final int FRAME_LENGTH = 64;
+
+
+    public static void main(String[] args) throws InterruptedException
+    {
+        // Warm up the code.
+        run(false, false);
+
+        System.out.println("[producer without pause]");
+        boolean passed = run(false, true);
+
+        System.out.println("[producer yielding after each frame]");
+        passed &= run(true, true);
+
+        if (passed == false)
+        {
+            System.exit(1);
+        }
+    }
+
+
+    private static boolean run(final boolean yielding, boolean reporting) throws InterruptedException
+    {
+        final TripleBuffer buffer = new TripleBuffer(FRAME_LENGTH);
+
+        // publishTimes[n] is written before frame n is published and
+        // read after it is acquired, so the atomic swap in TripleBuffer
+        // makes the write visible to the consumer.
+        final long[] publishTimes = new long[FRAME_COUNT + 1];
+        final long[] producerTime = new long[1];
+
+        Thread producer = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                long start = System.nanoTime();
+
+                for (int sequence = 1; sequence <= FRAME_COUNT; ++sequence)
+                {
+                    float[] frame = buffer.getWriteBuffer();
+
+                    Arrays.fill(frame, sequence);
+
+                    publishTimes[sequence] = System.nanoTime();
+                    buffer.publish();
+
+                    if (yielding)
+                    {
+                        Thread.yield();
+                    }
+                }
+
+                producerTime[0] = System.nanoTime() - start;
+            }
+        });
+
+        long[] latencies = new long[FRAME_COUNT];
+        int acquired = 0;
+        int torn = 0;
+        int stale = 0;
+        int last = 0;
+
+        long start = System.nanoTime();
+        producer.start();
+
+        while (last < FRAME_COUNT)
+        {
+            if (buffer.acquire() == false)
+            {
+                // Let the producer run on a machine with few cores.
+                Thread.yield();
+                continue;
+            }
+
+            long now = System.nanoTime();
+            float[] frame = buffer.getReadBuffer();
+            int sequence = (int)frame[0];
+
+            for (int i = 1; i < FRAME_LENGTH; ++i)
+            {
+                if (frame[i] != frame[0])
+                {
+                    ++torn;
+                    break;
+                }
+            }
+
+            if (sequence <= last)
+            {
+                ++stale;
+            }
+            else
+            {
+                latencies[acquired++] = now - publishTimes[sequence];
+                last = sequence;
+            }
+        }
+
+        long consumerTime = System.nanoTime() - start;
+        producer.join();
+
+        if (reporting == false)
+        {
+            return (torn == 0 && stale == 0);
+        }
+
+        Arrays.sort(latencies, 0, acquired);
+
+        System.out.printf("published: %d frames in %.1f ms (%.2f M frames/s)%n",
+            FRAME_COUNT, producerTime[0] / 1.0E6, FRAME_COUNT * 1.0E3 / producerTime[0]);
+        System.out.printf("acquired:  %d frames in %.1f ms (%.2f M frames/s)%n",
+            acquired, consumerTime / 1.0E6, acquired * 1.0E3 / consumerTime);
+        System.out.printf("latency:   median %d ns, p99 %d ns, max %d ns%n",
+            percentile(latencies, acquired, 0.50),
+            percentile(latencies, acquired, 0.99),
+            latencies[acquired - 1]);
+        System.out.printf("torn frames: %d, stale frames: %d%n", torn, stale);
+
+        boolean passed = (torn == 0 && stale == 0);
+
+        System.out.println(passed ? "PASSED" : "FAILED");
+
+        return passed;
+    }
+
+
+    private static long percentile(long[] sorted, int count, double fraction)
+    {
+        return sorted[Math.min(count - 1, (int)(count * fraction))];
+    }
+}
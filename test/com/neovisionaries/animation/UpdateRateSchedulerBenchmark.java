@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2012 Neo Visionaries Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.neovisionaries.animation;
+
+
+/**
+ * Benchmark of {@link UpdateRateScheduler}.
+ *
+ * <p>
+ * The cost of one {@link UpdateRateScheduler#update(long, float)
+ * update()} call is measured as the number of parameters grows, once
+ * with every parameter evaluated on every frame and once with the
+ * parameters spread over update intervals 1, 2, 4 and 8. The cost of
+ * calling {@link Interpolator#interpolate(float[], float[], int, float,
+ * float[]) interpolate()} for every parameter directly is shown as the
+ * baseline.
+ * </p>
+ *
+ * <pre style="background-color: lightgray;">
+ *
+ * java -cp classes:test-classes com.neovisionaries.animation.UpdateRateSchedulerBenchmark
+ * </pre>
+ *
+ * @author Takahiko Kawasaki
+ */
+public class UpdateRateSchedulerBenchmark
+{
+    private static final int COMPONENT_COUNT = 4;
+    private static final float DURATION = 1.0E9F;
+
+
+    public static void main(String[] args)
+    {
+        System.out.printf("%10s %14s %16s %14s %16s%n",
+            "parameters", "direct [us]", "interval 1 [us]", "LOD 1-8 [us]", "LOD/param [ns]");
+
+        for (int count = 100; count <= 100000; count *= 10)
+        {
+            int iterations = Math.max(20, 2000000 / count);
+
+            double direct = direct(count).measure(iterations) / 1000;
+            double full   = scheduler(count, false).measure(iterations) / 1000;
+            double lod    = scheduler(count, true).measure(iterations) / 1000;
+
+            System.out.printf("%10d %14.2f %16.2f %14.2f %16.1f%n",
+                count, direct, full, lod, lod * 1000 / count);
+        }
+    }
+
+
+    private static Benchmark direct(final int count)
+    {
+        final Interpolator interpolator = new EasingSineInterpolator();
+        final float[] from = new float[count * COMPONENT_COUNT];
+        final float[] to = new float[count * COMPONENT_COUNT];
+        final float[] output = new float[COMPONENT_COUNT];
+
+        fill(from, to);
+
+        return new Benchmark()
+        {
+            private final float[] f = new float[COMPONENT_COUNT];
+            private final float[] t = new float[COMPONENT_COUNT];
+
+            @Override
+            protected float run(int i)
+            {
+                float ratio = i / DURATION;
+
+                for (int p = 0; p < count; ++p)
+                {
+                    System.arraycopy(from, p * COMPONENT_COUNT, f, 0, COMPONENT_COUNT);
+                    System.arraycopy(to, p * COMPONENT_COUNT, t, 0, COMPONENT_COUNT);
+                    interpolator.interpolate(f, t, COMPONENT_COUNT, ratio, output);
+                }
+
+                return output[0];
+            }
+        };
+    }
+
+
+    private static Benchmark scheduler(int count, boolean lod)
+    {
+        final UpdateRateScheduler scheduler = new UpdateRateScheduler(count, COMPONENT_COUNT);
+        Interpolator interpolator = new EasingSineInterpolator();
+        float[] from = new float[COMPONENT_COUNT];
+        float[] to = new float[COMPONENT_COUNT];
+
+        for (int p = 0; p < count; ++p)
+        {
+            from[0] = p;
+            to[0] = p + 1;
+
+            scheduler.animate(p, interpolator, from, to, 0, DURATION);
+
+            if (lod)
+            {
+                // 1, 2, 4, 8, 1, 2, ...
+                scheduler.setUpdateInterval(p, 1 << (p & 3));
+                scheduler.setExtrapolating(p, true);
+            }
+        }
+
+        return new Benchmark()
+        {
+            @Override
+            protected float run(int i)
+            {
+                scheduler.update(i, i);
+
+                return scheduler.getEvaluatedCount();
+            }
+        };
+    }
+
+
+    private static void fill(float[] from, float[] to)
+    {
+        for (int i = 0; i < from.length; ++i)
+        {
+            from[i] = i;
+            to[i] = i + 1;
+        }
+    }
+}